@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * The content of a streamed response, which aborts the request when closed.
+ * <br><br>
+ * Apache HttpClient would otherwise try to consume the rest of the content
+ * when closing it, which blocks forever on an infinite stream (followed logs,
+ * events etc).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class AbortOnClose extends FilterInputStream {
+
+    /**
+     * Request which is streaming the content.
+     */
+    private final HttpRequestBase request;
+
+    /**
+     * Ctor.
+     * @param request Request which is streaming the content.
+     * @param content The streamed content.
+     */
+    AbortOnClose(final HttpRequestBase request, final InputStream content) {
+        super(content);
+        this.request = request;
+    }
+
+    @Override
+    public void close() {
+        this.request.abort();
+        try {
+            super.close();
+        } catch (final IOException ex) {
+            //The connection was aborted, the remainder of the content
+            //cannot be read anymore. We should ignore this case.
+        }
+    }
+}
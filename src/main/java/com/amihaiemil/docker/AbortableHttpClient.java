@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * HttpClient which tells the {@link AsyncCall} running on the current
+ * thread about the requests it sends, so the call can abort them if it is
+ * cancelled or it runs out of time.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class AbortableHttpClient extends HttpClientEnvelope {
+
+    /**
+     * Ctor.
+     * @param client Decorated HttpClient.
+     */
+    AbortableHttpClient(final Supplier<HttpClient> client) {
+        super(client);
+    }
+
+    @Override
+    public HttpResponse execute(final HttpUriRequest request)
+        throws IOException {
+        AsyncCall.sending(request);
+        try {
+            return super.execute(request);
+        } finally {
+            AsyncCall.sent(request);
+        }
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpUriRequest request, final HttpContext context
+    ) throws IOException {
+        AsyncCall.sending(request);
+        try {
+            return super.execute(request, context);
+        } finally {
+            AsyncCall.sent(request);
+        }
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        AsyncCall.sending(request);
+        try {
+            return super.execute(request, handler);
+        } finally {
+            AsyncCall.sent(request);
+        }
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler,
+        final HttpContext context
+    ) throws IOException {
+        AsyncCall.sending(request);
+        try {
+            return super.execute(request, handler, context);
+        } finally {
+            AsyncCall.sent(request);
+        }
+    }
+}
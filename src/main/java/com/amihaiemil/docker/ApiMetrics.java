@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+/**
+ * Receives the metrics of the calls to the Docker API. Implement it to
+ * bridge to your metrics library, or use {@link EndpointMetrics}, which
+ * keeps them in memory:
+ * <pre>
+ *   final EndpointMetrics metrics = new EndpointMetrics();
+ *   final Docker docker = new UnixDocker(
+ *       new File("/var/run/docker.sock"),
+ *       new ClientConfig().withMetrics(metrics)
+ *   );
+ *   ...
+ *   final EndpointMetrics.Endpoint start = metrics.endpoint(
+ *       "POST /containers/{id}/start"
+ *   );
+ * </pre>
+ * The endpoints are templates, with the API version, IDs and names
+ * taken out. The methods are called on the threads which make the calls,
+ * so they should be fast and must not throw.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface ApiMetrics {
+
+    /**
+     * The response of a call arrived (its body may still be coming).
+     * @param endpoint Endpoint template (e.g. "GET /containers/{id}/json").
+     * @param status HTTP status of the response.
+     * @param nanos Latency until the response headers, in nanoseconds.
+     * @param sent Bytes sent in the request body.
+     */
+    void called(String endpoint, int status, long nanos, long sent);
+
+    /**
+     * A call failed without a response (e.g. connection refused, timeout).
+     * @param endpoint Endpoint template.
+     * @param nanos Time until the failure, in nanoseconds.
+     * @param sent Bytes sent in the request body.
+     */
+    void failed(String endpoint, long nanos, long sent);
+
+    /**
+     * The body of a response was read until its end, or closed.
+     * @param endpoint Endpoint template.
+     * @param bytes Bytes read from the response body.
+     */
+    void received(String endpoint, long bytes);
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * A {@link DockerCall} running on an Executor, as a CompletableFuture.
+ * The HTTP requests it makes are tracked (see
+ * {@link AbortableHttpClient}), so when the future is cancelled or its
+ * deadline passes, they are aborted and the thread is freed right away,
+ * instead of waiting for the Docker engine to answer.
+ * @param <T> Type of the result.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class AsyncCall<T> extends CompletableFuture<T> implements Runnable {
+
+    /**
+     * Call running on the current thread.
+     */
+    private static final ThreadLocal<AsyncCall<?>> CURRENT =
+        new ThreadLocal<>();
+
+    /**
+     * Expires the calls whose deadline passed.
+     */
+    private static final ScheduledThreadPoolExecutor DEADLINES =
+        AsyncCall.deadlines();
+
+    /**
+     * The Docker API.
+     */
+    private final Docker docker;
+
+    /**
+     * The call.
+     */
+    private final DockerCall<T> call;
+
+    /**
+     * Requests in flight.
+     */
+    private final Set<HttpUriRequest> requests;
+
+    /**
+     * Ctor.
+     * @param docker The Docker API.
+     * @param call The call.
+     */
+    AsyncCall(final Docker docker, final DockerCall<T> call) {
+        super();
+        this.docker = docker;
+        this.call = call;
+        this.requests = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Submit this call.
+     * @param executor Executor which makes the call.
+     * @param deadline Time the call has to complete, zero for no deadline.
+     * @return This call.
+     */
+    AsyncCall<T> submit(final Executor executor, final Duration deadline) {
+        if (!deadline.isZero() && !deadline.isNegative()) {
+            final ScheduledFuture<?> expiry = DEADLINES.schedule(
+                () -> this.completeExceptionally(
+                    new TimeoutException(
+                        "Docker call did not complete within " + deadline
+                    )
+                ),
+                deadline.toNanos(), TimeUnit.NANOSECONDS
+            );
+            this.whenComplete((result, error) -> expiry.cancel(false));
+        }
+        this.whenComplete(
+            (result, error) -> {
+                if (error != null) {
+                    this.abort();
+                }
+            }
+        );
+        try {
+            executor.execute(this);
+        } catch (final RejectedExecutionException ex) {
+            this.completeExceptionally(ex);
+        }
+        return this;
+    }
+
+    @Override
+    public void run() {
+        if (!this.isDone()) {
+            CURRENT.set(this);
+            try {
+                this.complete(this.call.call(this.docker));
+            // @checkstyle IllegalCatch (1 line)
+            } catch (final Exception ex) {
+                this.completeExceptionally(ex);
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * A request is being sent by the current thread. If the thread is making
+     * an async call which already ended, the request is aborted at once.
+     * @param request Request.
+     */
+    static void sending(final HttpUriRequest request) {
+        final AsyncCall<?> current = CURRENT.get();
+        if (current != null) {
+            current.requests.add(request);
+            if (current.isDone()) {
+                current.abort();
+            }
+        }
+    }
+
+    /**
+     * The request was sent and its response handled.
+     * @param request Request.
+     */
+    static void sent(final HttpUriRequest request) {
+        final AsyncCall<?> current = CURRENT.get();
+        if (current != null) {
+            current.requests.remove(request);
+        }
+    }
+
+    /**
+     * Abort the requests in flight.
+     */
+    private void abort() {
+        for (final HttpUriRequest request : this.requests) {
+            request.abort();
+            this.requests.remove(request);
+        }
+    }
+
+    /**
+     * The scheduler of the deadlines: one daemon thread, which forgets the
+     * cancelled deadlines right away.
+     * @return ScheduledThreadPoolExecutor.
+     */
+    private static ScheduledThreadPoolExecutor deadlines() {
+        final ScheduledThreadPoolExecutor deadlines =
+            new ScheduledThreadPoolExecutor(
+                1,
+                task -> {
+                    final Thread thread = new Thread(
+                        task, "docker-java-api-deadlines"
+                    );
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        deadlines.setRemoveOnCancelPolicy(true);
+        return deadlines;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.concurrent.CompletableFuture;
+import javax.json.JsonObject;
+
+/**
+ * Asynchronous {@link Container}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface AsyncContainer {
+
+    /**
+     * ID or name of this container.
+     * @return String.
+     */
+    String containerId();
+
+    /**
+     * Inspect this container.
+     * @return Future inspection.
+     * @see Container#inspect()
+     */
+    CompletableFuture<JsonObject> inspect();
+
+    /**
+     * Start this container.
+     * @return Future completed when the container started.
+     * @see Container#start()
+     */
+    CompletableFuture<Void> start();
+
+    /**
+     * Stop this container.
+     * @return Future completed when the container stopped.
+     * @see Container#stop()
+     */
+    CompletableFuture<Void> stop();
+
+    /**
+     * Kill this container.
+     * @return Future completed when the container was killed.
+     * @see Container#kill()
+     */
+    CompletableFuture<Void> kill();
+
+    /**
+     * Restart this container.
+     * @return Future completed when the container restarted.
+     * @see Container#restart()
+     */
+    CompletableFuture<Void> restart();
+
+    /**
+     * Pause this container.
+     * @return Future completed when the container is paused.
+     * @see Container#pause()
+     */
+    CompletableFuture<Void> pause();
+
+    /**
+     * Unpause this container.
+     * @return Future completed when the container is unpaused.
+     * @see Container#unpause()
+     */
+    CompletableFuture<Void> unpause();
+
+    /**
+     * Remove this container.
+     * @return Future completed when the container was removed.
+     * @see Container#remove()
+     */
+    CompletableFuture<Void> remove();
+
+    /**
+     * Wait for this container to reach the given state.
+     * @param state State, e.g. "not-running", "next-exit", "removed".
+     * @return Future exit code.
+     * @see Container#waitOn(String)
+     */
+    CompletableFuture<Integer> waitOn(String state);
+}
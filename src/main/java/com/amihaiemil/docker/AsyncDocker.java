@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous Docker API. The calls are made on the Executor given to
+ * {@link Docker#async(java.util.concurrent.Executor)}, through the same
+ * requests and response handling as the blocking API, and return
+ * CompletableFutures.
+ * <br><br>
+ * Cancelling a future, or letting its deadline pass, aborts the HTTP
+ * request in flight, so the thread is freed right away:
+ * <pre>
+ *   final AsyncDocker async = docker.async(executor)
+ *       .withDeadline(Duration.ofSeconds(10));
+ *   final CompletableFuture&lt;Void&gt; started = async.container(id).start();
+ *   final CompletableFuture&lt;Integer&gt; exit = async.call(
+ *       dkr -&gt; dkr.containers().get(id).waitOn("not-running"),
+ *       Duration.ofMinutes(5)
+ *   );
+ * </pre>
+ * A future completes exceptionally with the exception of the blocking API
+ * (IOException, {@link UnexpectedResponseException} etc), with a
+ * TimeoutException if its deadline passed or with a CancellationException
+ * if it was cancelled.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface AsyncDocker {
+
+    /**
+     * Make any call to the Docker API, asynchronously, with the default
+     * deadline.
+     * @param call The call.
+     * @param <T> Type of the result.
+     * @return Future result.
+     */
+    <T> CompletableFuture<T> call(DockerCall<T> call);
+
+    /**
+     * Make any call to the Docker API, asynchronously.
+     * @param call The call.
+     * @param deadline Time the call has to complete; zero for no deadline.
+     * @param <T> Type of the result.
+     * @return Future result.
+     */
+    <T> CompletableFuture<T> call(DockerCall<T> call, Duration deadline);
+
+    /**
+     * This AsyncDocker, with a default deadline for every call.
+     * @param deadline Time a call has to complete; zero for no deadline,
+     *  which is the default.
+     * @return AsyncDocker.
+     */
+    AsyncDocker withDeadline(Duration deadline);
+
+    /**
+     * Ping the Docker engine.
+     * @return Future, true if the Docker engine answered 200 OK.
+     */
+    CompletableFuture<Boolean> ping();
+
+    /**
+     * Version of the Docker engine.
+     * @return Future Version.
+     */
+    CompletableFuture<Version> version();
+
+    /**
+     * Information about the Docker engine.
+     * @return Future Info.
+     */
+    CompletableFuture<Info> info();
+
+    /**
+     * A container.
+     * @param containerId ID or name of the container.
+     * @return AsyncContainer.
+     */
+    AsyncContainer container(String containerId);
+
+    /**
+     * An image.
+     * @param name ID or name (with tag) of the image.
+     * @return AsyncImage.
+     */
+    AsyncImage image(String name);
+
+    /**
+     * A network.
+     * @param networkId ID or name of the network.
+     * @return AsyncNetwork.
+     */
+    AsyncNetwork network(String networkId);
+
+    /**
+     * A volume.
+     * @param name Name of the volume.
+     * @return AsyncVolume.
+     */
+    AsyncVolume volume(String name);
+
+    /**
+     * The blocking Docker API under this one. Its requests are aborted too,
+     * when they are made within a cancelled {@link DockerCall}.
+     * @return Docker.
+     */
+    Docker docker();
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.concurrent.CompletableFuture;
+import javax.json.JsonObject;
+
+/**
+ * Asynchronous {@link Network}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface AsyncNetwork {
+
+    /**
+     * Inspect this network.
+     * @return Future inspection.
+     * @see Network#inspect()
+     */
+    CompletableFuture<JsonObject> inspect();
+
+    /**
+     * Remove this network.
+     * @return Future completed when the network was removed.
+     * @see Network#remove()
+     */
+    CompletableFuture<Void> remove();
+
+    /**
+     * Connect a container to this network.
+     * @param containerId ID or name of the container.
+     * @return Future completed when the container is connected.
+     * @see Network#connect(String)
+     */
+    CompletableFuture<Void> connect(String containerId);
+
+    /**
+     * Disconnect a container from this network.
+     * @param containerId ID or name of the container.
+     * @return Future completed when the container is disconnected.
+     * @see Network#disconnect(String)
+     */
+    CompletableFuture<Void> disconnect(String containerId);
+}
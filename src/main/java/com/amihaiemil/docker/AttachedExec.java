@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import javax.json.JsonObject;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * Output of an attached Exec, decoded by {@link MultiplexedFrames}.
+ * <br><br>
+ * The output ends when the process closes its stdout and stderr, which is
+ * usually right before Docker records its exit code, so the inspection is
+ * repeated for a short while, as long as the Exec is still running.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class AttachedExec implements ExecFrames {
+
+    /**
+     * How many times the inspection is repeated while the Exec is still
+     * running, doubling the pause every time (1ms to about 2 seconds).
+     */
+    private static final int RETRIES = 11;
+
+    /**
+     * The Exec.
+     */
+    private final Exec owner;
+
+    /**
+     * Request which is streaming the output.
+     */
+    private final HttpRequestBase request;
+
+    /**
+     * Frames of the output.
+     */
+    private final LogFrames frames;
+
+    /**
+     * Did the output end?
+     */
+    private volatile boolean ended;
+
+    /**
+     * Exit code, once it is known.
+     */
+    private Integer code;
+
+    /**
+     * Ctor.
+     * @param owner The Exec.
+     * @param request Request which is streaming the output.
+     * @param frames Frames of the output.
+     */
+    AttachedExec(
+        final Exec owner, final HttpRequestBase request,
+        final LogFrames frames
+    ) {
+        this.owner = owner;
+        this.request = request;
+        this.frames = frames;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        final boolean next = this.frames.next();
+        if (!next) {
+            this.ended = true;
+        }
+        return next;
+    }
+
+    @Override
+    public StreamType type() {
+        return this.frames.type();
+    }
+
+    @Override
+    public ByteBuffer payload() {
+        return this.frames.payload();
+    }
+
+    @Override
+    public int exitCode() throws IOException, UnexpectedResponseException {
+        if (!this.ended) {
+            throw new IllegalStateException(
+                "The output of the Exec did not end yet"
+            );
+        }
+        if (this.code == null) {
+            JsonObject inspection = this.owner.inspect();
+            long pause = 1;
+            int retry = 0;
+            while (inspection.getBoolean("Running", false)
+                && retry < RETRIES) {
+                AttachedExec.sleep(pause);
+                pause = pause * 2;
+                retry = retry + 1;
+                inspection = this.owner.inspect();
+            }
+            if (inspection.getBoolean("Running", false)
+                || !inspection.containsKey("ExitCode")
+                || inspection.isNull("ExitCode")) {
+                throw new IllegalStateException(
+                    "Exec " + inspection.getString("ID", "")
+                    + " has no exit code, its output ended but it is"
+                    + " still running"
+                );
+            }
+            this.code = inspection.getInt("ExitCode");
+        }
+        return this.code;
+    }
+
+    @Override
+    public Exec exec() {
+        return this.owner;
+    }
+
+    /**
+     * Close the output. If it did not end, the request is aborted, since
+     * Apache HttpClient would otherwise read it to the end.
+     * @throws IOException If something goes wrong.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.ended) {
+            this.frames.close();
+        } else {
+            this.request.abort();
+            try {
+                this.frames.close();
+            } catch (final IOException ex) {
+                //The connection was aborted, the remainder of the content
+                //cannot be read anymore. We should ignore this case.
+            }
+        }
+    }
+
+    /**
+     * Wait before inspecting the Exec again.
+     * @param millis Milliseconds to wait.
+     * @throws InterruptedIOException If interrupted.
+     */
+    private static void sleep(final long millis)
+        throws InterruptedIOException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for the exit code"
+            );
+        }
+    }
+}
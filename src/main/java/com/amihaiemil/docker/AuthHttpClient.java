@@ -34,6 +34,7 @@ import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HttpContext;
 
 /**
@@ -42,7 +43,7 @@ import org.apache.http.protocol.HttpContext;
  * @version $Id$
  * @since 0.0.1
  */
-final class AuthHttpClient implements HttpClient {
+final class AuthHttpClient implements HttpClient, Pooled {
     /**
      * The decorated HttpClient.
      */
@@ -140,4 +141,24 @@ final class AuthHttpClient implements HttpClient {
     ) throws IOException {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public PoolStats poolStats() {
+        if (!(this.origin instanceof Pooled)) {
+            throw new UnsupportedOperationException(
+                "The connection pool of this HttpClient is not known."
+            );
+        }
+        return ((Pooled) this.origin).poolStats();
+    }
+
+    @Override
+    public PoolStats streamingPoolStats() {
+        if (!(this.origin instanceof Pooled)) {
+            throw new UnsupportedOperationException(
+                "The connection pool of this HttpClient is not known."
+            );
+        }
+        return ((Pooled) this.origin).streamingPoolStats();
+    }
 }
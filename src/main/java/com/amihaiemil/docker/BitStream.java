@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.Arrays;
+
+/**
+ * Bits written one after the other in a long[], most significant bit
+ * first. The array grows as bits are written and can be trimmed to the
+ * written size when no more bits come.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ */
+final class BitStream {
+
+    /**
+     * The bits.
+     */
+    private long[] words;
+
+    /**
+     * How many bits were written.
+     */
+    private long size;
+
+    /**
+     * Ctor.
+     * @param capacity Initial capacity, in longs.
+     */
+    BitStream(final int capacity) {
+        this.words = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * Write one bit.
+     * @param one Is it 1?
+     */
+    void bit(final boolean one) {
+        final long bit;
+        if (one) {
+            bit = 1L;
+        } else {
+            bit = 0L;
+        }
+        this.write(bit, 1);
+    }
+
+    /**
+     * Write the lowest bits of a value.
+     * @param value Value.
+     * @param count How many of its lowest bits, 0 to 64.
+     */
+    void write(final long value, final int count) {
+        if (count > 0) {
+            final long masked = value & BitStream.mask(count);
+            final int index = (int) (this.size >>> 6);
+            final int free = 64 - (int) (this.size & 63);
+            if (index + 1 >= this.words.length) {
+                this.words = Arrays.copyOf(
+                    this.words, this.words.length * 2
+                );
+            }
+            if (count <= free) {
+                this.words[index] |= masked << (free - count);
+            } else {
+                this.words[index] |= masked >>> (count - free);
+                this.words[index + 1] |= masked << (64 - count + free);
+            }
+            this.size = this.size + count;
+        }
+    }
+
+    /**
+     * How many bits were written.
+     * @return Bits.
+     */
+    long size() {
+        return this.size;
+    }
+
+    /**
+     * Memory used by the bits.
+     * @return Bytes.
+     */
+    long bytes() {
+        return this.words.length * 8L;
+    }
+
+    /**
+     * Drop the unused capacity.
+     */
+    void trim() {
+        this.words = Arrays.copyOf(
+            this.words, Math.max(1, (int) ((this.size + 63) >>> 6))
+        );
+    }
+
+    /**
+     * Read the bits from the start.
+     * @return Reader.
+     */
+    Reader reader() {
+        return new Reader();
+    }
+
+    /**
+     * Mask of the lowest bits.
+     * @param count How many bits, 0 to 64.
+     * @return Mask.
+     */
+    private static long mask(final int count) {
+        final long mask;
+        if (count == 64) {
+            mask = -1L;
+        } else {
+            mask = (1L << count) - 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Reader of the bits, in the order they were written.
+     */
+    final class Reader {
+
+        /**
+         * Position of the next bit.
+         */
+        private long pos;
+
+        /**
+         * Read one bit.
+         * @return True if it is 1.
+         */
+        boolean bit() {
+            return this.read(1) == 1L;
+        }
+
+        /**
+         * Read some bits.
+         * @param count How many bits, 0 to 64.
+         * @return The bits, as the lowest bits of a long.
+         */
+        long read(final int count) {
+            long value = 0;
+            if (count > 0) {
+                final long[] bits = BitStream.this.words;
+                final int index = (int) (this.pos >>> 6);
+                final int free = 64 - (int) (this.pos & 63);
+                if (count <= free) {
+                    value = bits[index] >>> (free - count)
+                        & BitStream.mask(count);
+                } else {
+                    final int rest = count - free;
+                    value = (bits[index] & BitStream.mask(free)) << rest
+                        | bits[index + 1] >>> (64 - rest);
+                }
+                this.pos = this.pos + count;
+            }
+            return value;
+        }
+    }
+}
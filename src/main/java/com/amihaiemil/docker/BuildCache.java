@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * Local index of the builds, kept in one JSON file: the image built from
+ * each context digest and the hash of each file which was part of a
+ * context, with its size and modification time. A file whose size and
+ * modification time did not change is not read again; the files which
+ * are not in a context anymore are pruned after it is walked.
+ * <br><br>
+ * The file is rewritten atomically, so a crash never leaves it half
+ * written; if more processes share it, the last one to save wins, which
+ * only costs a rebuild.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (250 lines)
+ */
+final class BuildCache {
+
+    /**
+     * Digits of the hex encoding.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The index file.
+     */
+    private final Path file;
+
+    /**
+     * Image IDs, by key of the build.
+     */
+    private final Map<String, String> images;
+
+    /**
+     * Files, by absolute path: size, mtime and sha256.
+     */
+    private final Map<String, JsonObject> files;
+
+    /**
+     * Files hashed since the last prune, by absolute path.
+     */
+    private final Set<String> visited;
+
+    /**
+     * Ctor.
+     * @param file The index file; it is created if missing.
+     * @throws IOException If the file cannot be read.
+     */
+    BuildCache(final Path file) throws IOException {
+        this.file = file;
+        this.images = new ConcurrentHashMap<>();
+        this.files = new ConcurrentHashMap<>();
+        this.visited = ConcurrentHashMap.newKeySet();
+        if (Files.isRegularFile(file)) {
+            final JsonObject index;
+            try (Reader reader = Files.newBufferedReader(
+                file, StandardCharsets.UTF_8
+            )) {
+                index = Json.createReader(reader).readObject();
+            }
+            final JsonObject built = index.getJsonObject("images");
+            if (built != null) {
+                built.forEach(
+                    (key, image) -> this.images.put(
+                        key, built.getString(key)
+                    )
+                );
+            }
+            final JsonObject hashed = index.getJsonObject("files");
+            if (hashed != null) {
+                hashed.forEach(
+                    (path, hash) -> this.files.put(path, (JsonObject) hash)
+                );
+            }
+        }
+    }
+
+    /**
+     * Image built for the given key.
+     * @param key Key of the build.
+     * @return Image ID, empty if there is none.
+     */
+    String image(final String key) {
+        return this.images.getOrDefault(key, "");
+    }
+
+    /**
+     * Remember the image built for the given key.
+     * @param key Key of the build.
+     * @param image Image ID.
+     */
+    void remember(final String key, final String image) {
+        this.images.put(key, image);
+    }
+
+    /**
+     * Forget the image built for the given key (e.g. it was removed).
+     * @param key Key of the build.
+     */
+    void forget(final String key) {
+        this.images.remove(key);
+    }
+
+    /**
+     * Hash of the file's content. It is read only if its size or
+     * modification time changed since it was last hashed.
+     * @param path The file.
+     * @param size Size of the file.
+     * @param mtime Modification time, in milliseconds.
+     * @return Hex sha256 of the content.
+     * @throws IOException If the file cannot be read.
+     */
+    String hash(final Path path, final long size, final long mtime)
+        throws IOException {
+        final String key = path.toAbsolutePath().toString();
+        this.visited.add(key);
+        final JsonObject known = this.files.get(key);
+        final String hash;
+        if (known != null
+            && known.getJsonNumber("size").longValue() == size
+            && known.getJsonNumber("mtime").longValue() == mtime) {
+            hash = known.getString("sha256");
+        } else {
+            final MessageDigest sha = BuildCache.sha256();
+            final byte[] buffer = new byte[64 * 1024];
+            try (InputStream content = Files.newInputStream(path)) {
+                int read = content.read(buffer);
+                while (read >= 0) {
+                    sha.update(buffer, 0, read);
+                    read = content.read(buffer);
+                }
+            }
+            hash = BuildCache.hex(sha.digest());
+            this.files.put(
+                key,
+                Json.createObjectBuilder()
+                    .add("size", size)
+                    .add("mtime", mtime)
+                    .add("sha256", hash)
+                    .build()
+            );
+        }
+        return hash;
+    }
+
+    /**
+     * Forget the files under the given root which were not hashed since
+     * the last prune, e.g. they were deleted or are ignored now. The files
+     * of other contexts are kept.
+     * @param root Root of the context which was walked.
+     */
+    void prune(final Path root) {
+        final Path dir = root.toAbsolutePath();
+        this.files.keySet().removeIf(
+            key -> !this.visited.contains(key)
+                && Paths.get(key).startsWith(dir)
+        );
+        this.visited.clear();
+    }
+
+    /**
+     * Write the index file.
+     * @throws IOException If the file cannot be written.
+     */
+    void save() throws IOException {
+        final JsonObjectBuilder built = Json.createObjectBuilder();
+        this.images.forEach(built::add);
+        final JsonObjectBuilder hashed = Json.createObjectBuilder();
+        this.files.forEach(hashed::add);
+        final Path dir = this.file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        final Path temp = Files.createTempFile(
+            dir, this.file.getFileName().toString(), ".tmp"
+        );
+        try {
+            try (Writer writer = Files.newBufferedWriter(
+                temp, StandardCharsets.UTF_8
+            )) {
+                Json.createWriter(writer).writeObject(
+                    Json.createObjectBuilder()
+                        .add("images", built)
+                        .add("files", hashed)
+                        .build()
+                );
+            }
+            try {
+                Files.move(
+                    temp, this.file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            } catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(
+                    temp, this.file, StandardCopyOption.REPLACE_EXISTING
+                );
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * A new sha256 digest.
+     * @return MessageDigest.
+     */
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(
+                "SHA-256 should be supported by every JVM", ex
+            );
+        }
+    }
+
+    /**
+     * Hex encoding.
+     * @param bytes Bytes.
+     * @return Lowercase hex.
+     */
+    static String hex(final byte[] bytes) {
+        final char[] hex = new char[bytes.length * 2];
+        for (int idx = 0; idx < bytes.length; ++idx) {
+            hex[2 * idx] = HEX[(bytes[idx] >> 4) & 0xf];
+            hex[2 * idx + 1] = HEX[bytes[idx] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import org.apache.http.entity.AbstractHttpEntity;
+
+/**
+ * Build context sent as the body of POST /build: the directory is walked
+ * and written as tar (optionally gzipped) straight into the request, while
+ * it is being sent. Nothing is staged on disk or in memory and the
+ * .dockerignore rules are applied as the directory is walked
+ * ({@link ContextWalk}). The body
+ * is sent chunked; it can be sent again, since the directory is simply
+ * walked again.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+final class BuildContext extends AbstractHttpEntity {
+
+    /**
+     * Root of the context.
+     */
+    private final Path root;
+
+    /**
+     * Path of the Dockerfile, relative to the root; it is always sent,
+     * even if the .dockerignore excludes it.
+     */
+    private final String dockerfile;
+
+    /**
+     * Gzip the tar?
+     */
+    private final boolean gzip;
+
+    /**
+     * Ctor.
+     * @param root Root of the context.
+     * @param dockerfile Path of the Dockerfile, relative to the root.
+     * @param gzip Gzip the tar?
+     */
+    BuildContext(final Path root, final String dockerfile, final boolean gzip) {
+        this.root = root;
+        this.dockerfile = dockerfile;
+        this.gzip = gzip;
+        this.setContentType("application/x-tar");
+        this.setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * The build context is only written, as the request is sent.
+     * @return Nothing.
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public InputStream getContent() {
+        throw new UnsupportedOperationException(
+            "The build context is written as it is sent, it cannot be read."
+        );
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        final ContextWalk walk = new ContextWalk(this.root, this.dockerfile);
+        if (this.gzip) {
+            final GZIPOutputStream zipped = new GZIPOutputStream(
+                out, 64 * 1024
+            );
+            final TarStream tar = new TarStream(zipped);
+            walk.walk(new Tarred(tar));
+            tar.finish();
+            zipped.finish();
+        } else {
+            final TarStream tar = new TarStream(out);
+            walk.walk(new Tarred(tar));
+            tar.finish();
+        }
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Writes the entries of the context into a tar.
+     */
+    private static final class Tarred implements ContextWalk.Visitor {
+
+        /**
+         * The tar.
+         */
+        private final TarStream tar;
+
+        /**
+         * Ctor.
+         * @param tar The tar.
+         */
+        Tarred(final TarStream tar) {
+            this.tar = tar;
+        }
+
+        @Override
+        public void directory(final String name, final int mode,
+            final long mtime) throws IOException {
+            this.tar.directory(name, mode, mtime / 1000);
+        }
+
+        @Override
+        public void link(final String name, final String target,
+            final long mtime) throws IOException {
+            this.tar.link(name, target, mtime / 1000);
+        }
+
+        @Override
+        public void file(final String name, final Path path, final int mode,
+            final long mtime, final long size) throws IOException {
+            try (InputStream content = Files.newInputStream(path)) {
+                this.tar.file(name, mode, mtime / 1000, size, content);
+            }
+        }
+    }
+}
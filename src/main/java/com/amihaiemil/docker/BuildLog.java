@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.function.Consumer;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * Turns the entries streamed by POST /build into log lines and remembers
+ * the ID of the built image. The "stream" entries carry pieces of text
+ * which do not always end with a line, so the text is split here.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class BuildLog implements Consumer<JsonObject> {
+
+    /**
+     * Prefix of the last line of the legacy builder.
+     */
+    private static final String BUILT = "Successfully built ";
+
+    /**
+     * Receives the lines.
+     */
+    private final Consumer<String> lines;
+
+    /**
+     * Text not ended by a line break yet.
+     */
+    private final StringBuilder pending;
+
+    /**
+     * ID of the built image.
+     */
+    private String image;
+
+    /**
+     * Ctor.
+     * @param lines Receives the lines.
+     */
+    BuildLog(final Consumer<String> lines) {
+        this.lines = lines;
+        this.pending = new StringBuilder();
+        this.image = "";
+    }
+
+    @Override
+    public void accept(final JsonObject entry) {
+        final JsonValue aux = entry.get("aux");
+        if (aux instanceof JsonObject && ((JsonObject) aux).containsKey("ID")) {
+            this.image = ((JsonObject) aux).getString("ID");
+        }
+        if (entry.containsKey("stream")) {
+            this.pending.append(entry.getString("stream"));
+            int start = 0;
+            int end = this.pending.indexOf("\n");
+            while (end >= 0) {
+                this.line(this.pending.substring(start, end));
+                start = end + 1;
+                end = this.pending.indexOf("\n", start);
+            }
+            this.pending.delete(0, start);
+        } else if (entry.containsKey("status")) {
+            this.flush();
+            final String layer = entry.getString("id", "");
+            if (layer.isEmpty()) {
+                this.line(entry.getString("status"));
+            } else {
+                this.line(layer + ": " + entry.getString("status"));
+            }
+        }
+    }
+
+    /**
+     * Hand over the text which was not ended by a line break.
+     */
+    void flush() {
+        if (this.pending.length() > 0) {
+            this.line(this.pending.toString());
+            this.pending.setLength(0);
+        }
+    }
+
+    /**
+     * ID of the built image.
+     * @return ID, empty if the build did not report it.
+     */
+    String image() {
+        return this.image;
+    }
+
+    /**
+     * Hand over a line.
+     * @param line Line.
+     */
+    private void line(final String line) {
+        if (this.image.isEmpty() && line.startsWith(BUILT)) {
+            this.image = line.substring(BUILT.length()).trim();
+        }
+        this.lines.accept(line);
+    }
+}
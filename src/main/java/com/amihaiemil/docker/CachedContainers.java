@@ -0,0 +1,360 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.json.JsonObject;
+
+/**
+ * ContainerCache updated by a daemon thread, from the container events
+ * of an {@link EventHub}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class CachedContainers implements ContainerCache {
+
+    /**
+     * Wait before trying again, if listing the containers or subscribing
+     * to the events failed.
+     */
+    private static final long RETRY = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Only the container events are interesting.
+     */
+    private static final Predicate<JsonObject> CONTAINER_EVENTS =
+        event -> "container".equals(event.getString("Type", ""));
+
+    /**
+     * Containers to cache.
+     */
+    private final Containers source;
+
+    /**
+     * Hub of the events.
+     */
+    private final EventHub hub;
+
+    /**
+     * Period of the full resync, in nanoseconds.
+     */
+    private final long period;
+
+    /**
+     * Cached containers, indexed.
+     */
+    private final ContainerIndex containers;
+
+    /**
+     * Cached inspections, by ID.
+     */
+    private final Map<String, JsonObject> inspections;
+
+    /**
+     * Incremented every time the inspections may be invalidated, so an
+     * inspection fetched meanwhile is not cached.
+     */
+    private final AtomicLong generation;
+
+    /**
+     * Counted down after the first listing.
+     */
+    private final CountDownLatch synced;
+
+    /**
+     * Thread which updates the cache.
+     */
+    private final Thread updater;
+
+    /**
+     * Subscription to the container events.
+     */
+    private volatile EventHub.Subscription subscription;
+
+    /**
+     * Should the containers be listed again asap?
+     */
+    private volatile boolean stale;
+
+    /**
+     * Was this cache closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     * @param source Containers to cache.
+     * @param hub Hub of the events.
+     * @param resync Period of the full resync.
+     */
+    CachedContainers(
+        final Containers source, final EventHub hub, final Duration resync
+    ) {
+        this.source = source;
+        this.hub = hub;
+        this.period = resync.toNanos();
+        this.containers = new ContainerIndex();
+        this.inspections = new ConcurrentHashMap<>();
+        this.generation = new AtomicLong();
+        this.synced = new CountDownLatch(1);
+        this.updater = new Thread(
+            this::update, "docker-java-api-container-cache"
+        );
+        this.updater.setDaemon(true);
+    }
+
+    /**
+     * Subscribe to the events and start updating the cache. The events
+     * are watched before the first listing, so nothing is missed between.
+     * @return This cache.
+     * @throws IOException If the events cannot be monitored.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    CachedContainers start() throws IOException, UnexpectedResponseException {
+        this.subscription = this.hub.subscribe(CONTAINER_EVENTS);
+        this.stale = true;
+        this.updater.start();
+        return this;
+    }
+
+    @Override
+    public boolean hasSynced() {
+        return this.synced.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitSynced(final long timeout, final TimeUnit unit)
+        throws InterruptedException {
+        return this.synced.await(timeout, unit);
+    }
+
+    @Override
+    public Collection<Container> all() {
+        return this.containers.all();
+    }
+
+    @Override
+    public Container get(final String containerId) {
+        return this.containers.get(containerId);
+    }
+
+    @Override
+    public List<Container> filter(final Predicate<? super Container> filter) {
+        return this.containers.all().stream()
+            .filter(filter)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Container> filter(final Map<String, Iterable<String>> filters) {
+        return this.containers.find(filters);
+    }
+
+    @Override
+    public JsonObject inspect(final String containerId)
+        throws IOException, UnexpectedResponseException {
+        final Container container = this.containers.get(containerId);
+        JsonObject inspection;
+        if (container == null) {
+            inspection = this.source.get(containerId).inspect();
+        } else {
+            inspection = this.inspections.get(containerId);
+            if (inspection == null) {
+                final long before = this.generation.get();
+                inspection = container.inspect();
+                final JsonObject cached = this.inspections.putIfAbsent(
+                    containerId, inspection
+                );
+                if (cached != null) {
+                    inspection = cached;
+                } else if (this.generation.get() != before) {
+                    this.inspections.remove(containerId, inspection);
+                }
+            }
+        }
+        return inspection;
+    }
+
+    @Override
+    public void resync() {
+        this.stale = true;
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.updater.interrupt();
+        final EventHub.Subscription events = this.subscription;
+        if (events != null) {
+            events.close();
+        }
+    }
+
+    /**
+     * Keep the cache updated until it is closed.
+     */
+    private void update() {
+        long next = System.nanoTime();
+        long dropped = 0;
+        while (!this.closed) {
+            try {
+                if (this.subscription.ended()) {
+                    this.subscription = this.hub.subscribe(CONTAINER_EVENTS);
+                    this.stale = true;
+                }
+                final EventHub.Subscription events = this.subscription;
+                if (this.stale || events.dropped() != dropped
+                    || System.nanoTime() - next >= 0) {
+                    this.stale = false;
+                    dropped = events.dropped();
+                    this.relist();
+                    next = System.nanoTime() + this.period;
+                }
+                final JsonObject event = events.poll(
+                    next - System.nanoTime(), TimeUnit.NANOSECONDS
+                );
+                if (event != null) {
+                    this.apply(event);
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                this.closed = true;
+            // @checkstyle IllegalCatch (1 line)
+            } catch (final IOException | RuntimeException ex) {
+                this.stale = true;
+                next = System.nanoTime() + RETRY;
+                this.pause();
+            }
+        }
+    }
+
+    /**
+     * List all the containers and replace the cached ones.
+     * @throws IOException If an I/O problem occurs.
+     */
+    private void relist() throws IOException {
+        final Map<String, Container> listed = new HashMap<>();
+        try (final Stream<Container> all = this.source.streamAll()) {
+            all.forEach(
+                container -> listed.put(container.containerId(), container)
+            );
+        }
+        this.generation.incrementAndGet();
+        this.containers.retain(listed.keySet());
+        this.inspections.keySet().retainAll(listed.keySet());
+        listed.forEach(this::put);
+        this.synced.countDown();
+    }
+
+    /**
+     * Apply an event: list again the container it is about.
+     * @param event Container event.
+     * @throws IOException If an I/O problem occurs.
+     */
+    private void apply(final JsonObject event) throws IOException {
+        final String action = event.getString("Action", "");
+        if (!action.startsWith("exec_")) {
+            final String id = CachedContainers.containerId(event);
+            this.generation.incrementAndGet();
+            if ("destroy".equals(action)) {
+                this.containers.remove(id);
+            } else {
+                try (final Stream<Container> listed = this.source.filter(
+                    Collections.singletonMap(
+                        "id", Collections.singletonList(id)
+                    )
+                ).streamAll()) {
+                    final Container container = listed
+                        .filter(found -> id.equals(found.containerId()))
+                        .findFirst()
+                        .orElse(null);
+                    if (container == null) {
+                        this.containers.remove(id);
+                    } else {
+                        this.put(id, container);
+                    }
+                }
+            }
+            this.inspections.remove(id);
+        }
+    }
+
+    /**
+     * ID of the container an event is about.
+     * @param event Container event.
+     * @return Container ID.
+     */
+    private static String containerId(final JsonObject event) {
+        final JsonObject actor = event.getJsonObject("Actor");
+        final String id;
+        if (actor == null) {
+            id = event.getString("id");
+        } else {
+            id = actor.getString("ID");
+        }
+        return id;
+    }
+
+    /**
+     * Cache a listed container. Its inspection is dropped if the container
+     * changed.
+     * @param containerId Container ID.
+     * @param container Container.
+     */
+    private void put(final String containerId, final Container container) {
+        final Container old = this.containers.put(container);
+        if (old != null && !old.equals(container)) {
+            this.generation.incrementAndGet();
+            this.inspections.remove(containerId);
+        }
+    }
+
+    /**
+     * Wait a bit before trying again.
+     */
+    private void pause() {
+        try {
+            TimeUnit.NANOSECONDS.sleep(RETRY);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.closed = true;
+        }
+    }
+}
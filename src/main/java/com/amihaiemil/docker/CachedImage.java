@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import javax.json.JsonObject;
+
+/**
+ * Image whose inspect() and history() are served by an {@link ImageCache}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class CachedImage extends JsonResource implements Image {
+
+    /**
+     * The cache.
+     */
+    private final ImageCache cache;
+
+    /**
+     * The image, for anything which is not cached.
+     */
+    private final Image origin;
+
+    /**
+     * Ctor.
+     * @param cache The cache.
+     * @param origin The image, for anything which is not cached.
+     */
+    CachedImage(final ImageCache cache, final Image origin) {
+        super(origin);
+        this.cache = cache;
+        this.origin = origin;
+    }
+
+    @Override
+    public JsonObject inspect()
+        throws IOException, UnexpectedResponseException {
+        return this.cache.inspect(this.origin.getString("Id"));
+    }
+
+    @Override
+    public Iterable<Image> history() {
+        return () -> {
+            try {
+                return this.cache.history(this.origin.getString("Id"))
+                    .iterator();
+            } catch (final IOException ex) {
+                throw new IllegalStateException(
+                    "IOException when fetching the history of the image.", ex
+                );
+            }
+        };
+    }
+
+    @Override
+    public void delete() throws IOException, UnexpectedResponseException {
+        this.origin.delete();
+        this.cache.invalidate(this.origin.getString("Id"));
+    }
+
+    @Override
+    public void tag(
+        final String repo, final String name
+    ) throws IOException, UnexpectedResponseException {
+        this.origin.tag(repo, name);
+        this.cache.invalidate(this.origin.getString("Id"));
+    }
+
+    @Override
+    public Container run() throws IOException, UnexpectedResponseException {
+        return this.origin.run();
+    }
+
+    @Override
+    public Docker docker() {
+        return this.origin.docker();
+    }
+}
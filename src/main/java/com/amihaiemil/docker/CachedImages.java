@@ -0,0 +1,433 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.apache.http.client.HttpClient;
+
+/**
+ * ImageCache with a least-recently-used eviction, invalidated by a daemon
+ * thread from the image events of an {@link EventHub}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class CachedImages implements ImageCache {
+
+    /**
+     * Wait before trying again, if subscribing to the events failed.
+     */
+    private static final long RETRY = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Full image ID, with or without the algorithm.
+     */
+    private static final Pattern FULL_ID = Pattern.compile(
+        "(sha256:)?[0-9a-f]{64}"
+    );
+
+    /**
+     * The image events which change what is cached.
+     */
+    private static final Predicate<JsonObject> IMAGE_EVENTS =
+        event -> "image".equals(event.getString("Type", ""))
+            && ("delete".equals(event.getString("Action", ""))
+            || "tag".equals(event.getString("Action", ""))
+            || "untag".equals(event.getString("Action", "")));
+
+    /**
+     * Apache HttpClient which sends the requests.
+     */
+    private final HttpClient client;
+
+    /**
+     * Base URI of the Images API.
+     */
+    private final URI baseUri;
+
+    /**
+     * Docker API.
+     */
+    private final Docker docker;
+
+    /**
+     * Cached images, by full ID, in access order; guarded by itself.
+     */
+    private final Map<String, Cached> entries;
+
+    /**
+     * Incremented by every invalidation, so a fetch which raced with an
+     * event does not cache what it fetched.
+     */
+    private final AtomicLong generation;
+
+    /**
+     * Calls served from memory.
+     */
+    private final AtomicLong hit;
+
+    /**
+     * Calls which went to the Docker engine.
+     */
+    private final AtomicLong missed;
+
+    /**
+     * Thread which follows the events.
+     */
+    private final Thread invalidator;
+
+    /**
+     * Subscription to the image events.
+     */
+    private volatile EventHub.Subscription subscription;
+
+    /**
+     * Was this cache closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     * @param client The http client.
+     * @param uri Base URI of the Images API.
+     * @param dkr The docker entry point.
+     * @param capacity Maximum number of cached images.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    CachedImages(
+        final HttpClient client, final URI uri, final Docker dkr,
+        final int capacity
+    ) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity must be at least 1, was " + capacity
+            );
+        }
+        this.client = client;
+        this.baseUri = uri;
+        this.docker = dkr;
+        this.entries = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, Cached> eldest
+            ) {
+                return this.size() > capacity;
+            }
+        };
+        this.generation = new AtomicLong();
+        this.hit = new AtomicLong();
+        this.missed = new AtomicLong();
+        this.invalidator = new Thread(
+            this::follow, "docker-java-api-image-cache"
+        );
+        this.invalidator.setDaemon(true);
+    }
+
+    /**
+     * Subscribe to the events and start following them.
+     * @return This cache.
+     * @throws IOException If the events cannot be monitored.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    CachedImages start() throws IOException, UnexpectedResponseException {
+        this.subscription = this.docker.eventHub().subscribe(IMAGE_EVENTS);
+        this.invalidator.start();
+        return this;
+    }
+
+    @Override
+    public Image get(final String imageId) {
+        return new CachedImage(this, this.image(imageId));
+    }
+
+    @Override
+    public JsonObject inspect(final String imageId)
+        throws IOException, UnexpectedResponseException {
+        final JsonObject inspection;
+        final String key = CachedImages.key(imageId);
+        if (key.isEmpty()) {
+            this.missed.incrementAndGet();
+            inspection = this.image(imageId).inspect();
+        } else {
+            final Cached cached = this.cached(key);
+            if (cached != null && cached.inspection != null) {
+                this.hit.incrementAndGet();
+                inspection = cached.inspection;
+            } else {
+                this.missed.incrementAndGet();
+                final long before = this.generation.get();
+                inspection = this.image(key).inspect();
+                this.store(key, before).inspection = inspection;
+            }
+        }
+        return inspection;
+    }
+
+    @Override
+    public List<Image> history(final String imageId)
+        throws IOException, UnexpectedResponseException {
+        final List<Image> history;
+        final String key = CachedImages.key(imageId);
+        if (key.isEmpty()) {
+            this.missed.incrementAndGet();
+            history = CachedImages.layers(this.image(imageId));
+        } else {
+            final Cached cached = this.cached(key);
+            if (cached != null && cached.history != null) {
+                this.hit.incrementAndGet();
+                history = cached.history;
+            } else {
+                this.missed.incrementAndGet();
+                final long before = this.generation.get();
+                history = CachedImages.layers(this.image(key));
+                this.store(key, before).history = history;
+            }
+        }
+        return history;
+    }
+
+    @Override
+    public void invalidate(final String imageId) {
+        final String key = CachedImages.key(imageId);
+        this.generation.incrementAndGet();
+        synchronized (this.entries) {
+            this.entries.remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    @Override
+    public long hits() {
+        return this.hit.get();
+    }
+
+    @Override
+    public long misses() {
+        return this.missed.get();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.invalidator.interrupt();
+        final EventHub.Subscription events = this.subscription;
+        if (events != null) {
+            events.close();
+        }
+    }
+
+    /**
+     * Follow the events until this cache is closed. If events may have been
+     * missed (the subscription ended or dropped some, or following it
+     * failed), everything is invalidated and, if needed, the events are
+     * subscribed to again.
+     */
+    private void follow() {
+        long dropped = 0;
+        boolean resubscribe = false;
+        while (!this.closed) {
+            try {
+                if (resubscribe || this.subscription.ended()) {
+                    this.clear();
+                    this.subscription.close();
+                    this.subscription = this.docker.eventHub()
+                        .subscribe(IMAGE_EVENTS);
+                    if (this.closed) {
+                        this.subscription.close();
+                    }
+                    resubscribe = false;
+                    dropped = 0;
+                }
+                final EventHub.Subscription events = this.subscription;
+                if (events.dropped() != dropped) {
+                    dropped = events.dropped();
+                    this.clear();
+                }
+                final JsonObject event = events.poll(1, TimeUnit.SECONDS);
+                if (event != null) {
+                    this.invalidate(CachedImages.imageId(event));
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                this.closed = true;
+            // @checkstyle IllegalCatch (1 line)
+            } catch (final IOException | RuntimeException ex) {
+                this.clear();
+                resubscribe = true;
+                this.pause();
+            }
+        }
+    }
+
+    /**
+     * Invalidate everything.
+     */
+    private void clear() {
+        this.generation.incrementAndGet();
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    /**
+     * Get the cached entry, touching it.
+     * @param key Full ID.
+     * @return Entry or null.
+     */
+    private Cached cached(final String key) {
+        synchronized (this.entries) {
+            return this.entries.get(key);
+        }
+    }
+
+    /**
+     * The entry to store what was fetched. If there was an invalidation
+     * since the fetch began, the returned entry is not in the cache, so what
+     * is stored in it is simply dropped.
+     * @param key Full ID.
+     * @param before Generation when the fetch began.
+     * @return Entry.
+     */
+    private Cached store(final String key, final long before) {
+        synchronized (this.entries) {
+            Cached cached = this.entries.get(key);
+            if (cached == null) {
+                cached = new Cached();
+                if (this.generation.get() == before) {
+                    this.entries.put(key, cached);
+                }
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * The image, from the Docker engine.
+     * @param imageId ID or name of the image.
+     * @return Image.
+     */
+    private Image image(final String imageId) {
+        return new RtImage(
+            Json.createObjectBuilder().add("Id", imageId).build(),
+            this.client,
+            URI.create(this.baseUri.toString() + "/" + imageId),
+            this.docker
+        );
+    }
+
+    /**
+     * Wait a bit before trying again.
+     */
+    private void pause() {
+        try {
+            TimeUnit.NANOSECONDS.sleep(RETRY);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.closed = true;
+        }
+    }
+
+    /**
+     * All the layers of the image's history.
+     * @param image Image.
+     * @return Unmodifiable list.
+     */
+    private static List<Image> layers(final Image image) {
+        final List<Image> layers = new ArrayList<>();
+        image.history().forEach(layers::add);
+        return Collections.unmodifiableList(layers);
+    }
+
+    /**
+     * Key of the image in the cache.
+     * @param imageId ID or name of the image.
+     * @return The full ID, starting with sha256:, or empty if it is not a
+     *  full ID.
+     */
+    private static String key(final String imageId) {
+        final String key;
+        if (!FULL_ID.matcher(imageId).matches()) {
+            key = "";
+        } else if (imageId.startsWith("sha256:")) {
+            key = imageId;
+        } else {
+            key = "sha256:" + imageId;
+        }
+        return key;
+    }
+
+    /**
+     * ID of the image an event is about.
+     * @param event Image event.
+     * @return Image ID.
+     */
+    private static String imageId(final JsonObject event) {
+        final JsonObject actor = event.getJsonObject("Actor");
+        final String id;
+        if (actor == null) {
+            id = event.getString("id", "");
+        } else {
+            id = actor.getString("ID", "");
+        }
+        return id;
+    }
+
+    /**
+     * What is cached about an image. Each part is fetched the first time
+     * it is needed.
+     */
+    private static final class Cached {
+
+        /**
+         * Inspection.
+         */
+        private volatile JsonObject inspection;
+
+        /**
+         * History.
+         */
+        private volatile List<Image> history;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Binary request body streamed from a channel, through one fixed-size
+ * buffer, so the heap use does not depend on its size. If the length is
+ * not known, the body is sent chunked. It can be sent only once.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ChannelEntity extends AbstractHttpEntity {
+
+    /**
+     * Size of the buffer.
+     */
+    private static final int BUFFER = 64 * 1024;
+
+    /**
+     * Source of the body.
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Length of the body, -1 if not known.
+     */
+    private final long length;
+
+    /**
+     * Ctor.
+     * @param channel Source of the body.
+     * @param length Length of the body, -1 if not known.
+     */
+    ChannelEntity(final ReadableByteChannel channel, final long length) {
+        this.channel = channel;
+        this.length = length;
+        this.setContentType(ContentType.DEFAULT_BINARY.toString());
+        this.setChunked(length < 0);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public long getContentLength() {
+        return this.length;
+    }
+
+    @Override
+    public InputStream getContent() {
+        return Channels.newInputStream(this.channel);
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+        while (this.channel.read(buffer) >= 0) {
+            out.write(buffer.array(), 0, buffer.position());
+            ((Buffer) buffer).clear();
+        }
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return this.channel.isOpen();
+    }
+}
@@ -0,0 +1,434 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking Socket over a non-blocking channel of a {@link Transport}, for
+ * the HttpClient's connection pool. It is needed for channels which have
+ * no Socket adapter of their own, like the JDK's unix domain
+ * SocketChannels. The connect and read timeouts are honoured by waiting
+ * on the socket's own Selector, switching its interest between connect,
+ * read and write; the TCP options mean nothing here and are ignored.
+ * Like the Sockets of HttpClient's blocking connections, it is used by one
+ * thread at a time.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ChannelSocket extends Socket {
+
+    /**
+     * Opens the channel.
+     */
+    private final Transport transport;
+
+    /**
+     * The channel, null until connected.
+     */
+    private volatile SelectableChannel channel;
+
+    /**
+     * Selector waiting for the channel to be ready.
+     */
+    private Selector selector;
+
+    /**
+     * Registration of the channel with the selector.
+     */
+    private SelectionKey key;
+
+    /**
+     * Read timeout in milliseconds, 0 means none.
+     */
+    private volatile int timeout;
+
+    /**
+     * Was this socket closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     * @param transport Opens the channel.
+     */
+    ChannelSocket(final Transport transport) {
+        super();
+        this.transport = transport;
+    }
+
+    /**
+     * Connect to the Docker engine. The address is given by the transport,
+     * so the endpoint is ignored.
+     * @param endpoint Ignored.
+     * @param millis Connect timeout in milliseconds, 0 means none.
+     * @throws IOException If the connection cannot be opened.
+     */
+    @Override
+    public synchronized void connect(
+        final SocketAddress endpoint, final int millis
+    ) throws IOException {
+        if (this.closed) {
+            throw new SocketException("Socket is closed");
+        }
+        if (this.channel != null) {
+            throw new SocketException("Already connected");
+        }
+        final long deadline = ChannelSocket.deadline(millis);
+        final SelectableChannel connecting = this.transport.open();
+        try {
+            this.selector = this.transport.selector();
+            this.key = connecting.register(this.selector, 0);
+            while (!this.transport.finish(connecting)) {
+                this.await(
+                    SelectionKey.OP_CONNECT, deadline, "Connect timed out"
+                );
+            }
+        } catch (final IOException ex) {
+            connecting.close();
+            if (this.selector != null) {
+                this.selector.close();
+            }
+            throw ex;
+        }
+        this.channel = connecting;
+    }
+
+    @Override
+    public void connect(final SocketAddress endpoint) throws IOException {
+        this.connect(endpoint, 0);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        this.connected();
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                final byte[] one = new byte[1];
+                int read = this.read(one, 0, 1);
+                if (read > 0) {
+                    read = one[0] & 0xFF;
+                }
+                return read;
+            }
+
+            @Override
+            public int read(final byte[] bytes, final int off, final int len)
+                throws IOException {
+                return ChannelSocket.this.read(
+                    ByteBuffer.wrap(bytes, off, len)
+                );
+            }
+
+            @Override
+            public void close() throws IOException {
+                ChannelSocket.this.close();
+            }
+        };
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        this.connected();
+        return new OutputStream() {
+            @Override
+            public void write(final int single) throws IOException {
+                this.write(new byte[] {(byte) single}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int off, final int len)
+                throws IOException {
+                ChannelSocket.this.write(ByteBuffer.wrap(bytes, off, len));
+            }
+
+            @Override
+            public void close() throws IOException {
+                ChannelSocket.this.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        final SelectableChannel open = this.channel;
+        if (open != null) {
+            open.close();
+            this.selector.close();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.channel != null;
+    }
+
+    @Override
+    public boolean isBound() {
+        return this.channel != null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return this.closed;
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return this.closed;
+    }
+
+    @Override
+    public void shutdownInput() {
+        // the connection is closed as a whole, by close()
+    }
+
+    @Override
+    public void shutdownOutput() {
+        // the connection is closed as a whole, by close()
+    }
+
+    @Override
+    public void setSoTimeout(final int millis) {
+        this.timeout = millis;
+    }
+
+    @Override
+    public int getSoTimeout() {
+        return this.timeout;
+    }
+
+    @Override
+    public void setTcpNoDelay(final boolean enabled) {
+        // not TCP
+    }
+
+    @Override
+    public boolean getTcpNoDelay() {
+        return false;
+    }
+
+    @Override
+    public void setKeepAlive(final boolean enabled) {
+        // not TCP
+    }
+
+    @Override
+    public boolean getKeepAlive() {
+        return false;
+    }
+
+    @Override
+    public void setReuseAddress(final boolean enabled) {
+        // not TCP
+    }
+
+    @Override
+    public void setSoLinger(final boolean enabled, final int linger) {
+        // not TCP
+    }
+
+    @Override
+    public int getSoLinger() {
+        return -1;
+    }
+
+    @Override
+    public void setSendBufferSize(final int size) {
+        // left to the operating system
+    }
+
+    @Override
+    public void setReceiveBufferSize(final int size) {
+        // left to the operating system
+    }
+
+    @Override
+    public InetAddress getInetAddress() {
+        return null;
+    }
+
+    @Override
+    public InetAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public int getPort() {
+        return 0;
+    }
+
+    @Override
+    public int getLocalPort() {
+        return -1;
+    }
+
+    @Override
+    public SocketAddress getRemoteSocketAddress() {
+        return null;
+    }
+
+    @Override
+    public SocketAddress getLocalSocketAddress() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelSocket[" + this.channel + "]";
+    }
+
+    /**
+     * Read what the channel has, waiting at most the read timeout for
+     * something to arrive.
+     * @param buffer Where the bytes go.
+     * @return Number of bytes read or -1 at the end of the stream.
+     * @throws IOException If the channel cannot be read or the timeout
+     *  passed.
+     */
+    private int read(final ByteBuffer buffer) throws IOException {
+        int read = 0;
+        if (buffer.hasRemaining()) {
+            final long deadline = ChannelSocket.deadline(this.timeout);
+            read = this.bytes().read(buffer);
+            while (read == 0) {
+                this.await(SelectionKey.OP_READ, deadline, "Read timed out");
+                read = this.bytes().read(buffer);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Write all the bytes, waiting for the channel to accept them.
+     * @param buffer Bytes to write.
+     * @throws IOException If the channel cannot be written.
+     */
+    private void write(final ByteBuffer buffer) throws IOException {
+        final ByteChannel bytes = this.bytes();
+        while (buffer.hasRemaining()) {
+            if (bytes.write(buffer) == 0) {
+                this.await(SelectionKey.OP_WRITE, 0, "Write timed out");
+            }
+        }
+    }
+
+    /**
+     * Wait until the channel is ready for the given operation. The
+     * selector may wake up before that (e.g. it was woken up), so it waits
+     * again, as long as the deadline did not pass.
+     * @param ops Interest operations.
+     * @param deadline Deadline in System.nanoTime(), 0 means none.
+     * @param timeout Message of the timeout.
+     * @throws IOException If the socket was closed or the deadline passed.
+     */
+    private void await(final int ops, final long deadline,
+        final String timeout) throws IOException {
+        try {
+            this.key.interestOps(ops);
+            boolean ready = false;
+            while (!ready) {
+                long millis = 0;
+                if (deadline != 0) {
+                    final long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        throw new SocketTimeoutException(timeout);
+                    }
+                    millis = TimeUnit.NANOSECONDS.toMillis(
+                        left + TimeUnit.MILLISECONDS.toNanos(1) - 1
+                    );
+                }
+                this.selector.select(millis);
+                ready = this.selector.selectedKeys().remove(this.key);
+            }
+        } catch (final ClosedSelectorException | CancelledKeyException ex) {
+            throw new SocketException("Socket closed");
+        }
+    }
+
+    /**
+     * Deadline of a timeout.
+     * @param millis Timeout in milliseconds, 0 means none.
+     * @return Deadline in System.nanoTime(), 0 means none.
+     */
+    private static long deadline(final int millis) {
+        long deadline = 0;
+        if (millis > 0) {
+            deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(millis);
+            if (deadline == 0) {
+                deadline = 1;
+            }
+        }
+        return deadline;
+    }
+
+    /**
+     * The channel, for reading and writing.
+     * @return ByteChannel.
+     * @throws SocketException If the socket is closed or not connected.
+     */
+    private ByteChannel bytes() throws SocketException {
+        this.connected();
+        return (ByteChannel) this.channel;
+    }
+
+    /**
+     * Make sure the socket is connected and open.
+     * @throws SocketException If it is not.
+     */
+    private void connected() throws SocketException {
+        if (this.closed) {
+            throw new SocketException("Socket is closed");
+        }
+        if (this.channel == null) {
+            throw new SocketException("Socket is not connected");
+        }
+    }
+}
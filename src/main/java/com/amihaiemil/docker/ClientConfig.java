@@ -0,0 +1,515 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Configuration of the HTTP connections to the Docker engine. It is
+ * immutable, every {@code with} method returns a new configuration:
+ * <pre>
+ *   final Docker docker = new UnixDocker(
+ *       new File("/var/run/docker.sock"),
+ *       new ClientConfig()
+ *           .withMaxConnections(64)
+ *           .withStreamingConnections(256)
+ *           .withConnectionTtl(Duration.ofMinutes(5))
+ *           .withIdleTimeout(Duration.ofSeconds(30))
+ *           .withConnectTimeout(Duration.ofSeconds(5))
+ *   );
+ *   final PoolStats stats = docker.poolStats();
+ *   final PoolStats streaming = docker.streamingPoolStats();
+ * </pre>
+ * A zero Duration means "no limit". The calls are metered only if an
+ * {@link ApiMetrics} is given. The defaults are 10 connections for the
+ * short calls plus 10 for the streaming ones, no TTL, no idle eviction, no
+ * timeouts and keep-alive as long as the engine allows.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle ParameterNumber (200 lines)
+ */
+public final class ClientConfig {
+
+    /**
+     * No metrics, the calls are not metered at all.
+     */
+    private static final ApiMetrics NO_METRICS = new ApiMetrics() {
+        @Override
+        public void called(
+            final String endpoint, final int status,
+            final long nanos, final long sent
+        ) {
+            // not metered
+        }
+        @Override
+        public void failed(
+            final String endpoint, final long nanos, final long sent
+        ) {
+            // not metered
+        }
+        @Override
+        public void received(final String endpoint, final long bytes) {
+            // not metered
+        }
+    };
+
+    /**
+     * Maximum number of connections.
+     */
+    private final int connections;
+
+    /**
+     * Maximum number of connections for the streaming calls.
+     */
+    private final int streaming;
+
+    /**
+     * Maximum lifetime of a connection.
+     */
+    private final Duration ttl;
+
+    /**
+     * Idle connections are closed after this long.
+     */
+    private final Duration idle;
+
+    /**
+     * Pooled connections are validated before reuse if they were inactive
+     * this long.
+     */
+    private final Duration validate;
+
+    /**
+     * Timeout for opening a connection.
+     */
+    private final Duration connect;
+
+    /**
+     * Timeout for waiting for data on an open connection.
+     */
+    private final Duration socket;
+
+    /**
+     * Timeout for leasing a connection from the pool.
+     */
+    private final Duration request;
+
+    /**
+     * Maximum time to keep a connection alive.
+     */
+    private final Duration keepAlive;
+
+    /**
+     * Where the metrics go.
+     */
+    private final ApiMetrics metrics;
+
+    /**
+     * Selector threads of the non-blocking engine, 0 if it is not used.
+     */
+    private final int selectors;
+
+    /**
+     * Ctor with the default configuration.
+     */
+    public ClientConfig() {
+        this(
+            10, 10, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(2),
+            Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO,
+            NO_METRICS, 0
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param connections Maximum number of connections.
+     * @param streaming Maximum number of streaming connections.
+     * @param ttl Maximum lifetime of a connection.
+     * @param idle Idle connections are closed after this long.
+     * @param validate Validate connections inactive this long.
+     * @param connect Timeout for opening a connection.
+     * @param socket Timeout for waiting for data.
+     * @param request Timeout for leasing a connection.
+     * @param keepAlive Maximum time to keep a connection alive.
+     * @param metrics Where the metrics go.
+     * @param selectors Selector threads of the non-blocking engine, 0 if
+     *  it is not used.
+     */
+    private ClientConfig(
+        final int connections, final int streaming,
+        final Duration ttl, final Duration idle,
+        final Duration validate, final Duration connect,
+        final Duration socket, final Duration request,
+        final Duration keepAlive, final ApiMetrics metrics,
+        final int selectors
+    ) {
+        if (selectors < 0) {
+            throw new IllegalArgumentException(
+                "The number of selector threads cannot be negative, got: "
+                + selectors
+            );
+        }
+        if (connections < 1 || streaming < 1) {
+            throw new IllegalArgumentException(
+                "At least one connection is needed in each pool, got: "
+                + connections + " and " + streaming
+            );
+        }
+        this.connections = connections;
+        this.streaming = streaming;
+        this.ttl = ttl;
+        this.idle = idle;
+        this.validate = validate;
+        this.connect = connect;
+        this.socket = socket;
+        this.request = request;
+        this.keepAlive = keepAlive;
+        this.metrics = metrics;
+        this.selectors = selectors;
+    }
+
+    /**
+     * Maximum number of connections to the Docker engine.
+     * @param max Number of connections.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withMaxConnections(final int max) {
+        return new ClientConfig(
+            max, this.streaming, this.ttl, this.idle, this.validate,
+            this.connect, this.socket, this.request, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Maximum number of connections for the calls which hold them for a long
+     * time: streaming (events, followed logs, stats, attach, exec), blocking
+     * (wait) and image transfers (pull, push, build, load, export). They
+     * have their own pool, so they can never starve the short calls.
+     * @param max Number of connections.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withStreamingConnections(final int max) {
+        return new ClientConfig(
+            this.connections, max, this.ttl, this.idle, this.validate,
+            this.connect, this.socket, this.request, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Maximum lifetime of a connection, after which it is not reused.
+     * @param time Time to live.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withConnectionTtl(final Duration time) {
+        return new ClientConfig(
+            this.connections, this.streaming, time, this.idle, this.validate,
+            this.connect, this.socket, this.request, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Close the connections which are idle for longer than this.
+     * A background thread checks them with the same period.
+     * @param time Maximum idle time.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withIdleTimeout(final Duration time) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, time, this.validate,
+            this.connect, this.socket, this.request, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Check that a pooled connection is still open, before reusing it,
+     * if it was inactive for longer than this.
+     * @param time Inactivity.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withValidateAfterInactivity(final Duration time) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, this.idle, time,
+            this.connect, this.socket, this.request, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Timeout for opening a connection.
+     * @param timeout Timeout.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withConnectTimeout(final Duration timeout) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, this.idle,
+            this.validate, timeout, this.socket, this.request, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Timeout for waiting for data on an open connection. Mind that
+     * the streaming calls (e.g. following logs) wait as long as the
+     * container writes nothing.
+     * @param timeout Timeout.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withSocketTimeout(final Duration timeout) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, this.idle,
+            this.validate, this.connect, timeout, this.request, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Timeout for leasing a connection, when all of them are in use.
+     * @param timeout Timeout.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withRequestTimeout(final Duration timeout) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, this.idle,
+            this.validate, this.connect, this.socket, timeout, this.keepAlive,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Maximum time to keep an idle connection alive. If the engine
+     * sends a shorter Keep-Alive timeout, that one is used.
+     * @param time Keep-alive.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withKeepAlive(final Duration time) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, this.idle,
+            this.validate, this.connect, this.socket, this.request, time,
+            this.metrics, this.selectors
+        );
+    }
+
+    /**
+     * Report the metrics of every call (count, errors, bytes, latency) by
+     * endpoint template, e.g. "POST /containers/{id}/start".
+     * @param receiver Where the metrics go, e.g. an {@link EndpointMetrics}.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withMetrics(final ApiMetrics receiver) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, this.idle,
+            this.validate, this.connect, this.socket, this.request,
+            this.keepAlive, receiver, this.selectors
+        );
+    }
+
+    /**
+     * Talk to the local Docker engine ({@link UnixDocker}) through the
+     * non-blocking engine, with this many selector threads: the open
+     * connections, idle or streaming, do not hold a thread each, only the
+     * callers block while they wait for a response or read its body. The
+     * number of connections is not limited; at most
+     * {@link #withMaxConnections(int)} of them are kept when idle and the
+     * idle timeout and socket timeout apply. The other settings are specific
+     * to the blocking engine and are ignored. Zero threads (the default)
+     * means the blocking engine.
+     * @param threads Number of selector threads.
+     * @return New ClientConfig.
+     */
+    public ClientConfig withSelectors(final int threads) {
+        return new ClientConfig(
+            this.connections, this.streaming, this.ttl, this.idle,
+            this.validate, this.connect, this.socket, this.request,
+            this.keepAlive, this.metrics, threads
+        );
+    }
+
+    /**
+     * Connection pool for the short calls, as configured.
+     * @param registry Socket factories by scheme.
+     * @return Connection pool.
+     */
+    PoolingHttpClientConnectionManager pool(
+        final Registry<ConnectionSocketFactory> registry
+    ) {
+        return this.pool(registry, this.connections);
+    }
+
+    /**
+     * Connection pool for the streaming calls, as configured.
+     * @param registry Socket factories by scheme.
+     * @return Connection pool.
+     */
+    PoolingHttpClientConnectionManager streamingPool(
+        final Registry<ConnectionSocketFactory> registry
+    ) {
+        return this.pool(registry, this.streaming);
+    }
+
+    /**
+     * HttpClient over the given pool, as configured.
+     * @param pool Connection pool.
+     * @return HttpClient.
+     */
+    HttpClient client(final PoolingHttpClientConnectionManager pool) {
+        final HttpClientBuilder builder = HttpClientBuilder.create()
+            .setConnectionManager(pool)
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                    .setConnectTimeout(
+                        (int) ClientConfig.millis(this.connect, 0)
+                    )
+                    .setSocketTimeout(
+                        (int) ClientConfig.millis(this.socket, 0)
+                    )
+                    .setConnectionRequestTimeout(
+                        (int) ClientConfig.millis(this.request, 0)
+                    )
+                    .build()
+            )
+            .setKeepAliveStrategy(this::keepAlive)
+            .addInterceptorFirst(new UserAgentRequestHeader());
+        if (!this.idle.isZero()) {
+            builder.evictExpiredConnections().evictIdleConnections(
+                this.idle.toMillis(), TimeUnit.MILLISECONDS
+            );
+        }
+        return this.metered(builder.build());
+    }
+
+    /**
+     * Should the non-blocking engine be used?
+     * @return True if it has selector threads.
+     */
+    boolean nonBlocking() {
+        return this.selectors > 0;
+    }
+
+    /**
+     * HttpClient over the non-blocking engine, as configured.
+     * @param transport Opens the connections.
+     * @return HttpClient.
+     */
+    HttpClient client(final Transport transport) {
+        return this.metered(
+            new NioHttpClient(
+                transport, this.selectors, this.connections,
+                this.socket, this.idle
+            )
+        );
+    }
+
+    /**
+     * Meter the given client, if there is an ApiMetrics.
+     * @param client HttpClient.
+     * @return Metered HttpClient.
+     */
+    private HttpClient metered(final HttpClient client) {
+        final HttpClient configured;
+        if (this.metrics == NO_METRICS) {
+            configured = client;
+        } else {
+            configured = new MeteredHttpClient(() -> client, this.metrics);
+        }
+        return configured;
+    }
+
+    /**
+     * Connection pool of the given size.
+     * @param registry Socket factories by scheme.
+     * @param size Maximum number of connections.
+     * @return Connection pool.
+     */
+    private PoolingHttpClientConnectionManager pool(
+        final Registry<ConnectionSocketFactory> registry, final int size
+    ) {
+        final PoolingHttpClientConnectionManager pool =
+            new PoolingHttpClientConnectionManager(
+                registry, null, null, null,
+                ClientConfig.millis(this.ttl, -1), TimeUnit.MILLISECONDS
+            );
+        pool.setMaxTotal(size);
+        pool.setDefaultMaxPerRoute(size);
+        pool.setValidateAfterInactivity(
+            (int) ClientConfig.millis(this.validate, -1)
+        );
+        return pool;
+    }
+
+    /**
+     * How long to keep a connection alive: the engine's Keep-Alive timeout,
+     * at most the configured keep-alive.
+     * @param response HTTP response.
+     * @param context HTTP context.
+     * @return Milliseconds, or -1 for indefinitely.
+     */
+    private long keepAlive(
+        final HttpResponse response, final HttpContext context
+    ) {
+        final long engine = DefaultConnectionKeepAliveStrategy.INSTANCE
+            .getKeepAliveDuration(response, context);
+        final long keep;
+        if (this.keepAlive.isZero()) {
+            keep = engine;
+        } else if (engine > 0) {
+            keep = Math.min(engine, this.keepAlive.toMillis());
+        } else {
+            keep = this.keepAlive.toMillis();
+        }
+        return keep;
+    }
+
+    /**
+     * Duration in milliseconds.
+     * @param duration Duration.
+     * @param unlimited Value which means unlimited, for a zero Duration.
+     * @return Milliseconds.
+     */
+    private static long millis(final Duration duration, final long unlimited) {
+        final long millis;
+        if (duration.isZero()) {
+            millis = unlimited;
+        } else {
+            millis = duration.toMillis();
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,536 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.json.JsonObject;
+
+/**
+ * {@link StatsStore} which keeps the samples of every container in
+ * {@link StatsBlock}s: delta-of-delta timestamps and XOR-compressed values,
+ * in long[] bit streams. A block holds up to 512 samples; when it is full,
+ * it is trimmed and a new one is started. The blocks older than the
+ * retention are dropped, and so are the containers which had no sample
+ * during the retention.<br><br>
+ * The queries decode the blocks which overlap the range, on the calling
+ * thread. The samples of a container are added and read under its lock,
+ * so the store can be fed and queried from many threads.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class CompressedStats implements StatsStore {
+
+    /**
+     * Default number of samples per block.
+     */
+    private static final int BLOCK = 512;
+
+    /**
+     * Number of stored columns: all the metrics but the computed
+     * CPU_PERCENT, which is the last one.
+     */
+    private static final int COLUMNS = StatsMetric.CPU_PERCENT.ordinal();
+
+    /**
+     * How long the samples are kept, in milliseconds.
+     */
+    private final long retention;
+
+    /**
+     * Samples per block.
+     */
+    private final int block;
+
+    /**
+     * Samples of the containers, by ID.
+     */
+    private final Map<String, Series> containers;
+
+    /**
+     * Ctor.
+     * @param retention How long the samples are kept.
+     */
+    public CompressedStats(final Duration retention) {
+        this(retention, BLOCK);
+    }
+
+    /**
+     * Ctor.
+     * @param retention How long the samples are kept.
+     * @param block Samples per block.
+     */
+    CompressedStats(final Duration retention, final int block) {
+        if (retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException(
+                "Retention must be positive, was " + retention
+            );
+        }
+        if (block < 2) {
+            throw new IllegalArgumentException(
+                "A block must have at least 2 samples, was " + block
+            );
+        }
+        this.retention = retention.toMillis();
+        this.block = block;
+        this.containers = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void add(final String containerId, final StatsFrames frame) {
+        long time = TimeUnit.NANOSECONDS.toMillis(frame.read());
+        if (time == 0) {
+            time = System.currentTimeMillis();
+        }
+        final boolean sealed = this.containers.computeIfAbsent(
+            containerId, id -> new Series()
+        ).add(time, frame);
+        if (sealed) {
+            this.expire(time);
+        }
+    }
+
+    @Override
+    public void add(final String containerId, final JsonObject sample) {
+        final StatsFrames frame = new JsonStatsFrames(
+            new ByteArrayInputStream(
+                sample.toString().getBytes(StandardCharsets.UTF_8)
+            )
+        );
+        try {
+            if (frame.next()) {
+                this.add(containerId, frame);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public StatsSeries range(
+        final String containerId, final StatsMetric metric,
+        final Instant from, final Instant until
+    ) {
+        return this.query(
+            containerId, metric, from, until, new Points(0, 0, null)
+        );
+    }
+
+    @Override
+    public StatsSeries downsample(
+        final String containerId, final StatsMetric metric,
+        final Instant from, final Instant until,
+        final Duration step, final Aggregate aggregate
+    ) {
+        if (step.toMillis() < 1) {
+            throw new IllegalArgumentException(
+                "Step must be at least 1 millisecond, was " + step
+            );
+        }
+        return this.query(
+            containerId, metric, from, until,
+            new Points(from.toEpochMilli(), step.toMillis(), aggregate)
+        );
+    }
+
+    @Override
+    public Set<String> containers() {
+        return Collections.unmodifiableSet(this.containers.keySet());
+    }
+
+    @Override
+    public void remove(final String containerId) {
+        this.containers.remove(containerId);
+    }
+
+    @Override
+    public long samples() {
+        long samples = 0;
+        for (final Series series : this.containers.values()) {
+            samples = samples + series.samples();
+        }
+        return samples;
+    }
+
+    @Override
+    public long bytes() {
+        long bytes = 0;
+        for (final Series series : this.containers.values()) {
+            bytes = bytes + series.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Query the samples of a container.
+     * @param containerId ID of the container.
+     * @param metric Metric.
+     * @param from Start of the range, inclusive.
+     * @param until End of the range, exclusive.
+     * @param points Where the points go.
+     * @return The points.
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private StatsSeries query(
+        final String containerId, final StatsMetric metric,
+        final Instant from, final Instant until, final Points points
+    ) {
+        final Series series = this.containers.get(containerId);
+        if (series != null) {
+            series.query(
+                metric, from.toEpochMilli(), until.toEpochMilli(), points
+            );
+        }
+        return points;
+    }
+
+    /**
+     * Forget the containers which had no sample during the retention.
+     * @param newest Timestamp of the newest sample, in milliseconds.
+     */
+    private void expire(final long newest) {
+        final long oldest = newest - this.retention;
+        final Iterator<Series> all = this.containers.values().iterator();
+        while (all.hasNext()) {
+            if (all.next().last() < oldest) {
+                all.remove();
+            }
+        }
+    }
+
+    /**
+     * The blocks of one container.
+     */
+    private final class Series {
+
+        /**
+         * Blocks, from the oldest to the newest.
+         */
+        private final Deque<StatsBlock> blocks;
+
+        /**
+         * Reusable row of values.
+         */
+        private final long[] row;
+
+        /**
+         * Ctor.
+         */
+        Series() {
+            this.blocks = new ArrayDeque<>();
+            this.row = new long[COLUMNS];
+        }
+
+        /**
+         * Add a sample.
+         * @param time Timestamp of the sample, in milliseconds.
+         * @param frame Current frame.
+         * @return True if a block was sealed.
+         */
+        synchronized boolean add(final long time, final StatsFrames frame) {
+            this.row[StatsMetric.CPU_TOTAL.ordinal()] = frame.cpuTotal();
+            this.row[StatsMetric.SYSTEM_CPU.ordinal()] = frame.systemCpu();
+            this.row[StatsMetric.ONLINE_CPUS.ordinal()] = frame.onlineCpus();
+            this.row[StatsMetric.MEMORY_USAGE.ordinal()] =
+                frame.memoryUsage();
+            this.row[StatsMetric.MEMORY_LIMIT.ordinal()] =
+                frame.memoryLimit();
+            this.row[StatsMetric.NETWORK_RX.ordinal()] = frame.networkRx();
+            this.row[StatsMetric.NETWORK_TX.ordinal()] = frame.networkTx();
+            this.row[StatsMetric.BLOCK_READ.ordinal()] = frame.blockRead();
+            this.row[StatsMetric.BLOCK_WRITE.ordinal()] = frame.blockWrite();
+            this.row[StatsMetric.PIDS.ordinal()] = frame.pids();
+            final StatsBlock last = this.blocks.peekLast();
+            boolean sealed = false;
+            if (last == null) {
+                this.blocks.addLast(new StatsBlock(time, this.row));
+            } else if (time > last.last()) {
+                if (last.count() < CompressedStats.this.block) {
+                    last.add(time, this.row);
+                } else {
+                    last.seal();
+                    sealed = true;
+                    this.blocks.addLast(new StatsBlock(time, this.row));
+                }
+                while (this.blocks.size() > 1 && this.blocks.peekFirst()
+                    .last() < time - CompressedStats.this.retention) {
+                    this.blocks.removeFirst();
+                }
+            }
+            return sealed;
+        }
+
+        /**
+         * Decode the points of a metric in a time range. The CPU percent
+         * needs the sample before the range, so decoding starts one
+         * block earlier.
+         * @param metric Metric.
+         * @param from Start of the range, inclusive, in milliseconds.
+         * @param until End of the range, exclusive, in milliseconds.
+         * @param points Where the points go.
+         */
+        synchronized void query(
+            final StatsMetric metric, final long from, final long until,
+            final Points points
+        ) {
+            final boolean percent = metric == StatsMetric.CPU_PERCENT;
+            final int cpu = StatsMetric.CPU_TOTAL.ordinal();
+            final int host = StatsMetric.SYSTEM_CPU.ordinal();
+            final int cpus = StatsMetric.ONLINE_CPUS.ordinal();
+            long previous = 0;
+            long system = 0;
+            boolean continued = false;
+            StatsBlock before = null;
+            for (final StatsBlock current : this.blocks) {
+                if (current.last() >= from && current.first() < until) {
+                    if (percent && before != null && !continued) {
+                        final StatsBlock.Cursor cursor = before.cursor();
+                        while (cursor.next()) {
+                            previous = cursor.value(cpu);
+                            system = cursor.value(host);
+                        }
+                        continued = true;
+                    }
+                    final StatsBlock.Cursor cursor = current.cursor();
+                    while (cursor.next()) {
+                        final long time = cursor.time();
+                        final boolean inside = time >= from && time < until;
+                        if (percent) {
+                            final long used = cursor.value(cpu) - previous;
+                            final long total = cursor.value(host) - system;
+                            if (inside && continued) {
+                                double value = 0;
+                                if (used > 0 && total > 0) {
+                                    value = (double) used / total
+                                        * cursor.value(cpus) * 100.0;
+                                }
+                                points.add(time, value);
+                            }
+                            previous = cursor.value(cpu);
+                            system = cursor.value(host);
+                            continued = true;
+                        } else if (inside) {
+                            points.add(
+                                time, cursor.value(metric.ordinal())
+                            );
+                        }
+                    }
+                }
+                before = current;
+            }
+        }
+
+        /**
+         * Number of samples.
+         * @return Samples.
+         */
+        synchronized long samples() {
+            long samples = 0;
+            for (final StatsBlock current : this.blocks) {
+                samples = samples + current.count();
+            }
+            return samples;
+        }
+
+        /**
+         * Memory used by the blocks.
+         * @return Bytes.
+         */
+        synchronized long bytes() {
+            long bytes = 0;
+            for (final StatsBlock current : this.blocks) {
+                bytes = bytes + current.bytes();
+            }
+            return bytes;
+        }
+
+        /**
+         * Timestamp of the last sample.
+         * @return Milliseconds since the epoch.
+         */
+        synchronized long last() {
+            final StatsBlock last = this.blocks.peekLast();
+            long time = 0;
+            if (last != null) {
+                time = last.last();
+            }
+            return time;
+        }
+    }
+
+    /**
+     * Points of a query, as they are decoded, optionally aggregated
+     * per interval.
+     */
+    private static final class Points implements StatsSeries {
+
+        /**
+         * Start of the first interval.
+         */
+        private final long origin;
+
+        /**
+         * Length of an interval, 0 if the points are not aggregated.
+         */
+        private final long step;
+
+        /**
+         * How the points of an interval are aggregated.
+         */
+        private final Aggregate aggregate;
+
+        /**
+         * Times of the points.
+         */
+        private long[] times;
+
+        /**
+         * Values of the points.
+         */
+        private double[] values;
+
+        /**
+         * Number of points.
+         */
+        private int size;
+
+        /**
+         * Points aggregated in the last point.
+         */
+        private int merged;
+
+        /**
+         * Ctor.
+         * @param origin Start of the first interval.
+         * @param step Length of an interval, 0 for no aggregation.
+         * @param aggregate How the points of an interval are aggregated.
+         */
+        Points(final long origin, final long step, final Aggregate aggregate) {
+            this.origin = origin;
+            this.step = step;
+            this.aggregate = aggregate;
+            this.times = new long[16];
+            this.values = new double[16];
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public long time(final int index) {
+            this.check(index);
+            return this.times[index];
+        }
+
+        @Override
+        public double value(final int index) {
+            this.check(index);
+            return this.values[index];
+        }
+
+        /**
+         * Add a decoded point.
+         * @param time Time of the point.
+         * @param value Value of the point.
+         */
+        void add(final long time, final double value) {
+            if (this.step == 0) {
+                this.append(time, value);
+            } else {
+                final long start = this.origin
+                    + (time - this.origin) / this.step * this.step;
+                if (this.size == 0 || this.times[this.size - 1] != start) {
+                    this.append(start, value);
+                    this.merged = 1;
+                } else {
+                    this.merged = this.merged + 1;
+                    this.merge(value);
+                }
+            }
+        }
+
+        /**
+         * Aggregate a value into the last point.
+         * @param value Value.
+         */
+        private void merge(final double value) {
+            final int last = this.size - 1;
+            if (this.aggregate == Aggregate.AVG) {
+                this.values[last] = this.values[last]
+                    + (value - this.values[last]) / this.merged;
+            } else if (this.aggregate == Aggregate.MIN) {
+                this.values[last] = Math.min(this.values[last], value);
+            } else if (this.aggregate == Aggregate.MAX) {
+                this.values[last] = Math.max(this.values[last], value);
+            } else {
+                this.values[last] = value;
+            }
+        }
+
+        /**
+         * Append a point.
+         * @param time Time of the point.
+         * @param value Value of the point.
+         */
+        private void append(final long time, final double value) {
+            if (this.size == this.times.length) {
+                this.times = Arrays.copyOf(this.times, this.size * 2);
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.times[this.size] = time;
+            this.values[this.size] = value;
+            this.size = this.size + 1;
+        }
+
+        /**
+         * Check an index.
+         * @param index Index of a point.
+         */
+        private void check(final int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException(
+                    "Index " + index + ", size " + this.size
+                );
+            }
+        }
+    }
+}
@@ -129,6 +129,13 @@ public interface Container extends JsonObject {
      * @return Logs of this container.
      */
     Logs logs();
+
+    /**
+     * Resource usage statistics of this container: CPU, memory,
+     * network and block I/O.
+     * @return Stats of this container.
+     */
+    Stats stats();
     
     /**
      * Return the Docker engine where this Container came from.
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import javax.json.JsonObject;
+
+/**
+ * Containers kept in memory and updated as the container events come.
+ * <br><br>
+ * The containers are listed once, then only the ones touched by an event
+ * are listed again. The queries are answered from memory, without any
+ * round trip to the Docker engine:
+ * <pre>
+ *   try (final ContainerCache cache = docker.containers().cache()) {
+ *       cache.awaitSynced(30, TimeUnit.SECONDS);
+ *       final List&lt;Container&gt; exited = cache.filter(
+ *           container -&gt; "exited".equals(container.getString("State"))
+ *       );
+ *   }
+ * </pre>
+ * Every now and then, the containers are listed again entirely, to repair
+ * anything which may have been missed (e.g. events dropped because the cache
+ * fell behind).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface ContainerCache extends Closeable {
+
+    /**
+     * Were the containers listed at least once?
+     * @return True or false.
+     */
+    boolean hasSynced();
+
+    /**
+     * Wait until the containers were listed at least once.
+     * @param timeout How long to wait.
+     * @param unit Unit of the timeout.
+     * @return True if synced, false if the timeout elapsed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    boolean awaitSynced(long timeout, TimeUnit unit)
+        throws InterruptedException;
+
+    /**
+     * All the cached containers.
+     * @return Unmodifiable collection of containers.
+     */
+    Collection<Container> all();
+
+    /**
+     * Get a cached container.
+     * @param containerId Full ID of the container.
+     * @return Container or null if it is not in the cache.
+     */
+    Container get(String containerId);
+
+    /**
+     * The cached containers which match the given filter.
+     * @param filter Filter.
+     * @return List of containers.
+     */
+    List<Container> filter(Predicate<? super Container> filter);
+
+    /**
+     * The cached containers which match the given filters, looked up in
+     * hash indexes instead of scanning all the containers. The filters
+     * have the format of {@link Containers#filter(Map)}; supported are
+     * label (key or key=value), status, network (name or ID), id and
+     * image (the exact ImageID). All the labels have to match, for the
+     * other filters any of the values may match:
+     * <pre>
+     *   final Map&lt;String, Iterable&lt;String&gt;&gt; filters =
+     *       new HashMap&lt;&gt;();
+     *   filters.put("label", Arrays.asList("team=payments"));
+     *   filters.put("status", Arrays.asList("running"));
+     *   final List&lt;Container&gt; payments = cache.filter(filters);
+     * </pre>
+     * @param filters Filters.
+     * @return List of containers.
+     * @throws IllegalArgumentException If a filter is not supported.
+     */
+    List<Container> filter(Map<String, Iterable<String>> filters);
+
+    /**
+     * Inspect a container. The inspection of a cached container is kept
+     * until the next event about that container. Containers which are not
+     * in the cache are inspected every time.
+     * @param containerId Full ID of the container.
+     * @return Inspection.
+     * @throws IOException If an I/O problem occurs.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    JsonObject inspect(String containerId)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * List all the containers again, as soon as possible.
+     */
+    void resync();
+
+    /**
+     * Stop updating the cache.
+     */
+    @Override
+    void close();
+}
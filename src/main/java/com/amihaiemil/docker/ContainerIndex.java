@@ -0,0 +1,349 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Containers by ID, with hash indexes on labels, image ID, state and
+ * networks. There is only one writer (the thread updating the cache), the
+ * readers may query it concurrently.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ContainerIndex {
+
+    /**
+     * Containers, by ID.
+     */
+    private final Map<String, Container> containers;
+
+    /**
+     * IDs of the containers, by index key (e.g. "label:team=payments").
+     */
+    private final Map<String, Set<String>> index;
+
+    /**
+     * Index keys, by container ID, to unindex a container.
+     */
+    private final Map<String, List<String>> keys;
+
+    /**
+     * Ctor.
+     */
+    ContainerIndex() {
+        this.containers = new ConcurrentHashMap<>();
+        this.index = new ConcurrentHashMap<>();
+        this.keys = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get a container.
+     * @param containerId ID of the container.
+     * @return Container or null if it is not indexed.
+     */
+    Container get(final String containerId) {
+        return this.containers.get(containerId);
+    }
+
+    /**
+     * All the indexed containers.
+     * @return Unmodifiable collection.
+     */
+    Collection<Container> all() {
+        return Collections.unmodifiableCollection(this.containers.values());
+    }
+
+    /**
+     * Index a container, replacing the old one with the same ID.
+     * @param container Listed container.
+     * @return The replaced container or null.
+     */
+    synchronized Container put(final Container container) {
+        final String id = container.containerId();
+        final List<String> entries = ContainerIndex.keys(container);
+        final Container old = this.containers.put(id, container);
+        final List<String> previous = this.keys.put(id, entries);
+        if (previous != null) {
+            this.unindex(id, previous);
+        }
+        for (final String key : entries) {
+            this.index.computeIfAbsent(
+                key, k -> ConcurrentHashMap.newKeySet()
+            ).add(id);
+        }
+        return old;
+    }
+
+    /**
+     * Remove a container.
+     * @param containerId ID of the container.
+     * @return The removed container or null.
+     */
+    synchronized Container remove(final String containerId) {
+        final List<String> previous = this.keys.remove(containerId);
+        if (previous != null) {
+            this.unindex(containerId, previous);
+        }
+        return this.containers.remove(containerId);
+    }
+
+    /**
+     * Remove all the containers except the given ones.
+     * @param ids IDs of the containers to keep.
+     */
+    synchronized void retain(final Set<String> ids) {
+        for (final String id : new ArrayList<>(this.containers.keySet())) {
+            if (!ids.contains(id)) {
+                this.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Find the containers matching the given filters. The supported
+     * filters are label (key or key=value), status, network (name or ID),
+     * image (the exact ImageID) and id (the full ID). Like in the Docker
+     * API, all the labels have to match, while for the other filters any
+     * of the values may match.
+     * @param filters Filters.
+     * @return Matching containers.
+     * @throws IllegalArgumentException If a filter is not supported.
+     */
+    List<Container> find(final Map<String, Iterable<String>> filters) {
+        final List<List<Set<String>>> criteria = new ArrayList<>();
+        for (final Map.Entry<String, Iterable<String>> filter
+            : filters.entrySet()) {
+            final String name = filter.getKey();
+            if ("label".equals(name)) {
+                for (final String label : filter.getValue()) {
+                    criteria.add(
+                        Collections.singletonList(this.ids("label:" + label))
+                    );
+                }
+            } else if ("status".equals(name) || "network".equals(name)
+                || "image".equals(name) || "id".equals(name)) {
+                final List<Set<String>> any = new ArrayList<>();
+                for (final String value : filter.getValue()) {
+                    any.add(this.ids(name + ':' + value));
+                }
+                criteria.add(any);
+            } else {
+                throw new IllegalArgumentException(
+                    "Unsupported container filter: " + name
+                );
+            }
+        }
+        final List<Container> found = new ArrayList<>();
+        if (criteria.isEmpty()) {
+            found.addAll(this.containers.values());
+        } else {
+            criteria.sort(Comparator.comparingInt(ContainerIndex::size));
+            final List<Set<String>> smallest = criteria.get(0);
+            final List<List<Set<String>>> others =
+                criteria.subList(1, criteria.size());
+            final Set<String> seen = new HashSet<>();
+            for (final Set<String> ids : smallest) {
+                for (final String id : ids) {
+                    if (seen.add(id) && ContainerIndex.matches(id, others)) {
+                        final Container container = this.containers.get(id);
+                        if (container != null) {
+                            found.add(container);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * IDs of the containers indexed under a key.
+     * @param key Index key.
+     * @return IDs, possibly empty.
+     */
+    private Set<String> ids(final String key) {
+        return this.index.getOrDefault(key, Collections.emptySet());
+    }
+
+    /**
+     * Remove a container ID from the index.
+     * @param containerId ID of the container.
+     * @param entries Index keys of the container.
+     */
+    private void unindex(final String containerId, final List<String> entries) {
+        for (final String key : entries) {
+            final Set<String> ids = this.index.get(key);
+            if (ids != null) {
+                ids.remove(containerId);
+                if (ids.isEmpty()) {
+                    this.index.remove(key, ids);
+                }
+            }
+        }
+    }
+
+    /**
+     * Does the ID satisfy all the criteria?
+     * @param containerId ID of the container.
+     * @param criteria Criteria, each one satisfied by any of its sets.
+     * @return True or false.
+     */
+    private static boolean matches(
+        final String containerId, final List<List<Set<String>>> criteria
+    ) {
+        boolean matches = true;
+        for (final List<Set<String>> any : criteria) {
+            boolean found = false;
+            for (final Set<String> ids : any) {
+                if (ids.contains(containerId)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                matches = false;
+                break;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * How many IDs a criterion may yield.
+     * @param any Criterion, satisfied by any of its sets.
+     * @return Sum of the sizes.
+     */
+    private static int size(final List<Set<String>> any) {
+        int size = 0;
+        for (final Set<String> ids : any) {
+            size += ids.size();
+        }
+        return size;
+    }
+
+    /**
+     * Index keys of a listed container.
+     * @param container Container.
+     * @return Keys.
+     */
+    private static List<String> keys(final Container container) {
+        final List<String> keys = new ArrayList<>();
+        keys.add("id:" + container.containerId());
+        final String image = ContainerIndex.string(container, "ImageID");
+        if (image != null) {
+            keys.add("image:" + image);
+        }
+        final String state = ContainerIndex.string(container, "State");
+        if (state != null) {
+            keys.add("status:" + state);
+        }
+        final JsonObject labels = ContainerIndex.object(container, "Labels");
+        if (labels != null) {
+            for (final Map.Entry<String, JsonValue> label
+                : labels.entrySet()) {
+                keys.add("label:" + label.getKey());
+                if (label.getValue() instanceof JsonString) {
+                    keys.add(
+                        "label:" + label.getKey() + '='
+                        + ((JsonString) label.getValue()).getString()
+                    );
+                }
+            }
+        }
+        final JsonObject settings = ContainerIndex.object(
+            container, "NetworkSettings"
+        );
+        if (settings != null) {
+            final JsonObject networks = ContainerIndex.object(
+                settings, "Networks"
+            );
+            if (networks != null) {
+                for (final String name : networks.keySet()) {
+                    keys.add("network:" + name);
+                    final JsonObject network = ContainerIndex.object(
+                        networks, name
+                    );
+                    if (network != null) {
+                        final String id = ContainerIndex.string(
+                            network, "NetworkID"
+                        );
+                        if (id != null && !id.isEmpty()) {
+                            keys.add("network:" + id);
+                        }
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * String attribute of a JsonObject.
+     * @param json JsonObject.
+     * @param name Name of the attribute.
+     * @return String or null if missing or not a string.
+     */
+    private static String string(final JsonObject json, final String name) {
+        final JsonValue value = json.get(name);
+        final String string;
+        if (value instanceof JsonString) {
+            string = ((JsonString) value).getString();
+        } else {
+            string = null;
+        }
+        return string;
+    }
+
+    /**
+     * Object attribute of a JsonObject.
+     * @param json JsonObject.
+     * @param name Name of the attribute.
+     * @return JsonObject or null if missing or not an object.
+     */
+    private static JsonObject object(final JsonObject json, final String name) {
+        final JsonValue value = json.get(name);
+        final JsonObject object;
+        if (value instanceof JsonObject) {
+            object = (JsonObject) value;
+        } else {
+            object = null;
+        }
+        return object;
+    }
+}
@@ -27,8 +27,10 @@ package com.amihaiemil.docker;
 
 import javax.json.JsonObject;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Containers API. This is also an Iterable over the running containers.
@@ -81,6 +83,85 @@ public interface Containers extends Iterable<Container> {
      */
     Iterator<Container> all();
 
+    /**
+     * Stream the running Containers. Unlike {@link #iterator()}, the
+     * Containers are parsed one by one, as they come from the Docker
+     * engine, so memory usage stays flat no matter how many there are.<br><br>
+     * The Stream holds an HTTP connection until it is fully consumed or
+     * closed, so make sure to use it in a try-with-resources block:
+     * <pre>
+     *   try (final Stream&lt;Container&gt; running = containers.stream()) {
+     *       running.filter(...).forEach(...);
+     *   }
+     * </pre>
+     * @return Stream of the running containers.
+     */
+    Stream<Container> stream();
+
+    /**
+     * Stream all the Containers, not only the running ones. Same as
+     * {@link #stream()}, pay attention to close the Stream.
+     * @return Stream of all the containers.
+     */
+    Stream<Container> streamAll();
+
+    /**
+     * Cache these Containers in memory, keeping them updated from the
+     * container events of {@link Docker#eventHub()}. The cache is fully
+     * resynced every 5 minutes.
+     * @return ContainerCache, close it when it is not needed anymore.
+     * @throws IOException If the events cannot be monitored.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    ContainerCache cache() throws IOException, UnexpectedResponseException;
+
+    /**
+     * Cache these Containers in memory, keeping them updated from the
+     * container events of {@link Docker#eventHub()}.
+     * @param resync How often to list all the containers again.
+     * @return ContainerCache, close it when it is not needed anymore.
+     * @throws IOException If the events cannot be monitored.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    ContainerCache cache(Duration resync)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Sample the stats of the running Containers periodically, with one-shot
+     * requests, within a budget of concurrency and requests per second. The
+     * containers are kept current through a {@link #cache()}.
+     * @param period How often to sample every container.
+     * @param concurrency How many requests may be in flight at once.
+     * @param rate How many requests may be sent per second.
+     * @param capacity How many samples to keep per container.
+     * @return StatsSampler, close it when it is not needed anymore.
+     * @throws IOException If the events cannot be monitored.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    StatsSampler sampler(
+        Duration period, int concurrency, double rate, int capacity
+    ) throws IOException, UnexpectedResponseException;
+
+    /**
+     * Run the same Exec in all these Containers, within a budget of
+     * parallelism. The stdout and stderr of every Exec are captured up to
+     * the given limit and the rest is dropped; an Exec which goes over the
+     * timeout is aborted. The results come as the Execs finish.
+     * @param config Json config of the Exec, as for
+     *  {@link Container#exec(JsonObject)}; it should attach stdout and
+     *  stderr.
+     * @param parallelism How many Execs to run at the same time.
+     * @param limit How many bytes of stdout and of stderr to keep per
+     *  container.
+     * @param timeout How long an Exec may run, from its creation.
+     * @return ExecBatch, close it to abort the Execs which did not finish.
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    ExecBatch exec(
+        JsonObject config, int parallelism, int limit, Duration timeout
+    );
+
     /**
      * Whether to request the size of containers (fields SizeRw and SizeRootFs).
      * @param withSize Return the size of containers (SizeRw and SizeRootFs).
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Digest of a build context: the names, permissions and contents of the
+ * entries which {@link BuildContext} would send, with the .dockerignore
+ * applied. Modification times are left out, since a fresh checkout of the
+ * same sources should give the same digest.
+ * <br><br>
+ * The files are hashed in parallel and, through the {@link BuildCache},
+ * only the ones whose size or modification time changed are read. The
+ * files which are not part of the context anymore are pruned from it.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ContextDigest {
+
+    /**
+     * Root of the context.
+     */
+    private final Path root;
+
+    /**
+     * The context.
+     */
+    private final ContextWalk context;
+
+    /**
+     * Hashes of the files seen before.
+     */
+    private final BuildCache cache;
+
+    /**
+     * Ctor.
+     * @param root Root of the context.
+     * @param dockerfile Path of the Dockerfile, relative to the root.
+     * @param cache Hashes of the files seen before.
+     */
+    ContextDigest(
+        final Path root, final String dockerfile, final BuildCache cache
+    ) {
+        this.root = root;
+        this.context = new ContextWalk(root, dockerfile);
+        this.cache = cache;
+    }
+
+    /**
+     * Compute the digest.
+     * @return Digest, as sha256:hex.
+     * @throws IOException If the context cannot be read.
+     */
+    String digest() throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        this.context.walk(
+            new ContextWalk.Visitor() {
+                @Override
+                public void directory(final String name, final int mode,
+                    final long mtime) {
+                    entries.add(new Entry('d', name, mode, "", null, 0));
+                }
+                @Override
+                public void link(final String name, final String target,
+                    final long mtime) {
+                    entries.add(new Entry('l', name, 0, target, null, 0));
+                }
+                @Override
+                public void file(final String name, final Path path,
+                    final int mode, final long mtime, final long size) {
+                    entries.add(
+                        new Entry('f', name, mode, String.valueOf(size),
+                            path, mtime)
+                    );
+                }
+            }
+        );
+        try {
+            entries.parallelStream().forEach(this::hash);
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        this.cache.prune(this.root);
+        final MessageDigest sha = BuildCache.sha256();
+        for (final Entry entry : entries) {
+            sha.update(entry.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return "sha256:" + BuildCache.hex(sha.digest());
+    }
+
+    /**
+     * Hash the content of the entry, if it is a file.
+     * @param entry Entry.
+     */
+    private void hash(final Entry entry) {
+        if (entry.path != null) {
+            try {
+                entry.hash = this.cache.hash(
+                    entry.path, Long.parseLong(entry.value), entry.mtime
+                );
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Entry of the context.
+     */
+    private static final class Entry {
+
+        /**
+         * Type: d, l or f.
+         */
+        private final char type;
+
+        /**
+         * Name.
+         */
+        private final String name;
+
+        /**
+         * Permissions.
+         */
+        private final int mode;
+
+        /**
+         * Target of the link or size of the file.
+         */
+        private final String value;
+
+        /**
+         * The file, null if it is not a file.
+         */
+        private final Path path;
+
+        /**
+         * Modification time of the file.
+         */
+        private final long mtime;
+
+        /**
+         * Hash of the file's content.
+         */
+        private volatile String hash;
+
+        /**
+         * Ctor.
+         * @param type Type: d, l or f.
+         * @param name Name.
+         * @param mode Permissions.
+         * @param value Target of the link or size of the file.
+         * @param path The file, null if it is not a file.
+         * @param mtime Modification time of the file.
+         * @checkstyle ParameterNumber (4 lines)
+         */
+        Entry(
+            final char type, final String name, final int mode,
+            final String value, final Path path, final long mtime
+        ) {
+            this.type = type;
+            this.name = name;
+            this.mode = mode;
+            this.value = value;
+            this.path = path;
+            this.mtime = mtime;
+            this.hash = "";
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%c\u0000%s\u0000%o\u0000%s\u0000%s\n",
+                this.type, this.name, this.mode, this.value, this.hash
+            );
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Walk of a build context: the entries which are sent to the Docker
+ * engine, sorted by name, so the same directory always gives the same
+ * entries, with the .dockerignore rules applied.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ */
+final class ContextWalk {
+
+    /**
+     * Root of the context.
+     */
+    private final Path root;
+
+    /**
+     * Path of the Dockerfile, relative to the root; it is always part of
+     * the context, even if the .dockerignore excludes it.
+     */
+    private final String dockerfile;
+
+    /**
+     * Ctor.
+     * @param root Root of the context.
+     * @param dockerfile Path of the Dockerfile, relative to the root.
+     */
+    ContextWalk(final Path root, final String dockerfile) {
+        this.root = root;
+        this.dockerfile = dockerfile;
+    }
+
+    /**
+     * Walk the context.
+     * @param visitor Receives the entries.
+     * @throws IOException If an I/O error occurs.
+     */
+    void walk(final Visitor visitor) throws IOException {
+        this.walk(this.root, visitor, new DockerIgnore(this.root));
+    }
+
+    /**
+     * Walk a directory of the context.
+     * @param dir Directory.
+     * @param visitor Receives the entries.
+     * @param ignore The .dockerignore rules.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void walk(
+        final Path dir, final Visitor visitor, final DockerIgnore ignore
+    ) throws IOException {
+        final List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (final Path child : entries) {
+                children.add(child);
+            }
+        }
+        Collections.sort(children);
+        for (final Path child : children) {
+            final String name = this.name(child);
+            final BasicFileAttributes attrs = Files.readAttributes(
+                child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS
+            );
+            final boolean excluded = ignore.excluded(name)
+                && !this.dockerfile.equals(name)
+                && !".dockerignore".equals(name);
+            final long mtime = attrs.lastModifiedTime().toMillis();
+            if (attrs.isDirectory()) {
+                if (!excluded) {
+                    visitor.directory(
+                        name, ContextWalk.mode(child, 0755), mtime
+                    );
+                }
+                if (!excluded || ignore.hasExceptions()) {
+                    this.walk(child, visitor, ignore);
+                }
+            } else if (!excluded && attrs.isSymbolicLink()) {
+                visitor.link(
+                    name, Files.readSymbolicLink(child).toString(), mtime
+                );
+            } else if (!excluded && attrs.isRegularFile()) {
+                visitor.file(
+                    name, child, ContextWalk.mode(child, 0644), mtime,
+                    attrs.size()
+                );
+            }
+        }
+    }
+
+    /**
+     * Name of the entry: path relative to the root, separated by "/".
+     * @param path Path.
+     * @return Name.
+     */
+    private String name(final Path path) {
+        final StringBuilder name = new StringBuilder();
+        for (final Path part : this.root.relativize(path)) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(part.toString());
+        }
+        return name.toString();
+    }
+
+    /**
+     * Permissions of the file, if the file system knows them.
+     * @param path File.
+     * @param fallback Permissions to use if the file system does not know.
+     * @return Permissions, as in chmod.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static int mode(final Path path, final int fallback)
+        throws IOException {
+        int mode;
+        try {
+            mode = 0;
+            for (final PosixFilePermission perm : Files.readAttributes(
+                path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS
+            ).permissions()) {
+                mode |= 1 << (8 - perm.ordinal());
+            }
+        } catch (final UnsupportedOperationException ex) {
+            mode = fallback;
+            if (Files.isExecutable(path)) {
+                mode |= 0111;
+            }
+        }
+        return mode;
+    }
+
+    /**
+     * Receives the entries of the context, in order.
+     */
+    interface Visitor {
+
+        /**
+         * A directory.
+         * @param name Name, relative to the root.
+         * @param mode Permissions.
+         * @param mtime Modification time, in milliseconds.
+         * @throws IOException If an I/O error occurs.
+         */
+        void directory(String name, int mode, long mtime) throws IOException;
+
+        /**
+         * A symbolic link.
+         * @param name Name, relative to the root.
+         * @param target Where the link points.
+         * @param mtime Modification time, in milliseconds.
+         * @throws IOException If an I/O error occurs.
+         */
+        void link(String name, String target, long mtime) throws IOException;
+
+        /**
+         * A regular file.
+         * @param name Name, relative to the root.
+         * @param path The file.
+         * @param mode Permissions.
+         * @param mtime Modification time, in milliseconds.
+         * @param size Size of the file.
+         * @throws IOException If an I/O error occurs.
+         * @checkstyle ParameterNumber (3 lines)
+         */
+        void file(String name, Path path, int mode, long mtime, long size)
+            throws IOException;
+    }
+}
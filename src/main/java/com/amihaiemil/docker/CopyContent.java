@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+
+/**
+ * Handler which copies the binary content of the response into a channel,
+ * through one fixed-size buffer, and returns the number of bytes copied.
+ * The channel is not closed.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class CopyContent implements ResponseHandler<Long> {
+
+    /**
+     * Size of the buffer.
+     */
+    private static final int BUFFER = 64 * 1024;
+
+    /**
+     * Handlers to be executed before actually copying the content.
+     */
+    private final ResponseHandler<HttpResponse> other;
+
+    /**
+     * Where the content goes.
+     */
+    private final WritableByteChannel target;
+
+    /**
+     * Ctor.
+     * @param other Handlers to be executed before copying the content.
+     * @param target Where the content goes.
+     */
+    CopyContent(
+        final ResponseHandler<HttpResponse> other,
+        final WritableByteChannel target
+    ) {
+        this.other = other;
+        this.target = target;
+    }
+
+    @Override
+    public Long handleResponse(final HttpResponse httpResponse)
+        throws IOException {
+        final HttpEntity entity = this.other.handleResponse(httpResponse)
+            .getEntity();
+        long copied = 0;
+        if (entity != null) {
+            try (final ReadableByteChannel source = Channels.newChannel(
+                entity.getContent()
+            )) {
+                final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+                while (source.read(buffer) >= 0) {
+                    ((Buffer) buffer).flip();
+                    copied += buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        this.target.write(buffer);
+                    }
+                    ((Buffer) buffer).clear();
+                }
+            }
+        }
+        return copied;
+    }
+}
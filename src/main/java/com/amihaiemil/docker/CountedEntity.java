@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * HttpEntity which counts the bytes written or read through it. When its
+ * content is read until the end or closed, the count is reported, once.
+ * <br><br>
+ * Closing the content reads what is left of it through the counter (this
+ * is what Apache HttpClient would do anyway, to reuse the connection), and
+ * the entity says it is streaming, so that EntityUtils.consume() releases
+ * it through the counter as well, even if its content was never read.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle AnonInnerLength (100 lines)
+ */
+final class CountedEntity extends HttpEntityWrapper {
+
+    /**
+     * Receives the count when the content ends.
+     */
+    private final LongConsumer done;
+
+    /**
+     * Bytes so far.
+     */
+    private long count;
+
+    /**
+     * Was the count reported?
+     */
+    private boolean reported;
+
+    /**
+     * Ctor.
+     * @param entity Counted entity.
+     * @param done Receives the count when the content ends or is closed.
+     */
+    CountedEntity(final HttpEntity entity, final LongConsumer done) {
+        super(entity);
+        this.done = done;
+    }
+
+    /**
+     * Bytes written or read so far.
+     * @return Count.
+     */
+    long count() {
+        return this.count;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new FilterInputStream(super.getContent()) {
+            @Override
+            public int read() throws IOException {
+                final int read = super.read();
+                if (read < 0) {
+                    CountedEntity.this.report();
+                } else {
+                    ++CountedEntity.this.count;
+                }
+                return read;
+            }
+            @Override
+            public int read(final byte[] bytes, final int off, final int len)
+                throws IOException {
+                final int read = super.read(bytes, off, len);
+                if (read < 0) {
+                    CountedEntity.this.report();
+                } else {
+                    CountedEntity.this.count += read;
+                }
+                return read;
+            }
+            @Override
+            public void close() throws IOException {
+                try {
+                    CountedEntity.drain(this);
+                    super.close();
+                } finally {
+                    CountedEntity.this.report();
+                }
+            }
+        };
+    }
+
+    /**
+     * The content is released through {@link #getContent()} even if it
+     * is repeatable, so it is counted.
+     * @return True.
+     */
+    @Override
+    public boolean isStreaming() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        this.wrappedEntity.writeTo(
+            new FilterOutputStream(out) {
+                @Override
+                public void write(final int value) throws IOException {
+                    this.out.write(value);
+                    ++CountedEntity.this.count;
+                }
+                @Override
+                public void write(
+                    final byte[] bytes, final int off, final int len
+                ) throws IOException {
+                    this.out.write(bytes, off, len);
+                    CountedEntity.this.count += len;
+                }
+            }
+        );
+    }
+
+    /**
+     * Read a content until its end. A content which cannot be read anymore
+     * (e.g. its request was aborted) is left as it is.
+     * @param content Content.
+     */
+    private static void drain(final InputStream content) {
+        final byte[] buffer = new byte[4096];
+        try {
+            int read = 0;
+            while (read >= 0) {
+                read = content.read(buffer);
+            }
+        } catch (final IOException ex) {
+            //The content is gone, what was read so far is counted.
+        }
+    }
+
+    /**
+     * Report the count, if not reported yet.
+     */
+    private void report() {
+        if (!this.reported) {
+            this.reported = true;
+            this.done.accept(this.count);
+        }
+    }
+}
@@ -26,7 +26,9 @@
 package com.amihaiemil.docker;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
 import org.apache.http.client.HttpClient;
+import org.apache.http.pool.PoolStats;
 
 /**
  * Docker API entry point.
@@ -49,6 +51,13 @@ public interface Docker {
      */
     Events events();
 
+    /**
+     * Hub which shares one events connection between many subscribers.
+     * The same hub is returned on every call.
+     * @return EventHub.
+     */
+    EventHub eventHub();
+
     /**
      * Entry point for the Containers API.
      * @return Containers.
@@ -111,6 +120,14 @@ public interface Docker {
      */
     Info info() throws IOException;
 
+    /**
+     * Asynchronous API over this Docker, whose calls are made on the given
+     * Executor and return CompletableFutures.
+     * @param executor Executor which makes the calls.
+     * @return AsyncDocker.
+     */
+    AsyncDocker async(Executor executor);
+
     /**
      * The underlying, immutable, Apache HttpClient.<br><br>
      *
@@ -125,4 +142,24 @@ public interface Docker {
      * @return The underlying HttpClient.
      */
     HttpClient httpClient();
+
+    /**
+     * Live statistics of the connection pool for the short calls: how many
+     * connections are leased, available or waited for (pending) and
+     * the maximum.
+     * @return PoolStats.
+     * @throws UnsupportedOperationException If this Docker was given an
+     *  HttpClient whose pool is not known.
+     */
+    PoolStats poolStats();
+
+    /**
+     * Live statistics of the separate connection pool for the calls which
+     * hold their connection for a long time (events, followed logs,
+     * wait etc).
+     * @return PoolStats.
+     * @throws UnsupportedOperationException If this Docker was given an
+     *  HttpClient whose pool is not known.
+     */
+    PoolStats streamingPoolStats();
 }
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Rules of a .dockerignore file. The paths are relative to the build
+ * context and separated by "/". A rule which matches a directory matches
+ * everything inside it; the last matching rule decides, so a rule starting
+ * with "!" can bring back what an earlier rule excluded.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @see <a href="https://docs.docker.com/build/concepts/context/#dockerignore-files">.dockerignore</a>
+ * @since 0.0.15
+ */
+final class DockerIgnore {
+
+    /**
+     * Patterns, in the order they were written.
+     */
+    private final List<Pattern> patterns;
+
+    /**
+     * For each pattern, is it an exception (starting with "!")?
+     */
+    private final List<Boolean> exceptions;
+
+    /**
+     * Ctor.
+     * @param context Build context; its .dockerignore is read, if any.
+     * @throws IOException If the .dockerignore cannot be read.
+     */
+    DockerIgnore(final Path context) throws IOException {
+        this(DockerIgnore.lines(context.resolve(".dockerignore")));
+    }
+
+    /**
+     * Ctor.
+     * @param lines Lines of the .dockerignore file.
+     */
+    DockerIgnore(final List<String> lines) {
+        this.patterns = new ArrayList<>(lines.size());
+        this.exceptions = new ArrayList<>(lines.size());
+        for (final String line : lines) {
+            final String rule = line.trim();
+            if (!rule.isEmpty() && !rule.startsWith("#")) {
+                final boolean exception = rule.startsWith("!");
+                final String cleaned;
+                if (exception) {
+                    cleaned = DockerIgnore.clean(rule.substring(1).trim());
+                } else {
+                    cleaned = DockerIgnore.clean(rule);
+                }
+                if (!cleaned.isEmpty()) {
+                    this.patterns.add(DockerIgnore.regex(cleaned));
+                    this.exceptions.add(exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Is the path excluded from the build context?
+     * @param path Path relative to the context, separated by "/".
+     * @return True or false.
+     */
+    boolean excluded(final String path) {
+        boolean excluded = false;
+        for (int idx = 0; idx < this.patterns.size(); ++idx) {
+            if (DockerIgnore.matches(this.patterns.get(idx), path)) {
+                excluded = !this.exceptions.get(idx);
+            }
+        }
+        return excluded;
+    }
+
+    /**
+     * Could anything inside an excluded directory be brought back by an
+     * exception rule? If not, the directory does not need to be walked.
+     * @return True if there are exception rules.
+     */
+    boolean hasExceptions() {
+        return this.exceptions.contains(true);
+    }
+
+    /**
+     * Does the pattern match the path or one of its parent directories?
+     * @param pattern Pattern.
+     * @param path Path.
+     * @return True or false.
+     */
+    private static boolean matches(final Pattern pattern, final String path) {
+        boolean matches = pattern.matcher(path).matches();
+        int slash = path.lastIndexOf('/');
+        while (!matches && slash > 0) {
+            matches = pattern.matcher(path.substring(0, slash)).matches();
+            slash = path.lastIndexOf('/', slash - 1);
+        }
+        return matches;
+    }
+
+    /**
+     * Clean the rule: no leading "/" or "./", no repeated or trailing "/".
+     * @param rule Rule.
+     * @return Cleaned rule.
+     */
+    private static String clean(final String rule) {
+        final List<String> parts = new ArrayList<>();
+        for (final String part : rule.split("/")) {
+            if ("..".equals(part) && !parts.isEmpty()) {
+                parts.remove(parts.size() - 1);
+            } else if (!part.isEmpty() && !".".equals(part)) {
+                parts.add(part);
+            }
+        }
+        return String.join("/", parts);
+    }
+
+    /**
+     * Turn the rule into a regular expression: "**" matches any number of
+     * directories, "*" and "?" do not match "/".
+     * @param rule Rule.
+     * @return Pattern.
+     */
+    private static Pattern regex(final String rule) {
+        final StringBuilder regex = new StringBuilder(rule.length() * 2);
+        int idx = 0;
+        while (idx < rule.length()) {
+            final char chr = rule.charAt(idx);
+            if (chr == '*' && rule.startsWith("**/", idx)) {
+                regex.append("(.*/)?");
+                idx += 2;
+            } else if (chr == '*' && rule.startsWith("**", idx)) {
+                regex.append(".*");
+                idx += 1;
+            } else if (chr == '*') {
+                regex.append("[^/]*");
+            } else if (chr == '?') {
+                regex.append("[^/]");
+            } else if (chr == '[' && rule.indexOf(']', idx) > idx) {
+                final int end = rule.indexOf(']', idx);
+                String range = rule.substring(idx + 1, end);
+                if (range.startsWith("^")) {
+                    range = "!" + range.substring(1);
+                }
+                if (range.startsWith("!")) {
+                    regex.append("[^/").append(
+                        range.substring(1).replace("\\", "\\\\")
+                    ).append(']');
+                } else {
+                    regex.append('[').append(range.replace("\\", "\\\\"))
+                        .append(']');
+                }
+                idx = end;
+            } else if (chr == '\\' && idx + 1 < rule.length()) {
+                idx += 1;
+                regex.append(Pattern.quote(String.valueOf(rule.charAt(idx))));
+            } else {
+                regex.append(Pattern.quote(String.valueOf(chr)));
+            }
+            idx += 1;
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Lines of the .dockerignore file.
+     * @param file The file.
+     * @return Lines, empty if there is no such file.
+     * @throws IOException If the file cannot be read.
+     */
+    private static List<String> lines(final Path file) throws IOException {
+        final List<String> lines;
+        if (Files.isRegularFile(file)) {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } else {
+            lines = Collections.emptyList();
+        }
+        return lines;
+    }
+}
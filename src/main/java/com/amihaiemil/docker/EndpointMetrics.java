@@ -0,0 +1,331 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ApiMetrics} kept in memory, per endpoint template: number of calls,
+ * failures, errors by HTTP status, bytes sent and received and a latency
+ * histogram. The histogram has 4 buckets per power of two, so a reported
+ * quantile is the upper bound of its bucket: never below the recorded
+ * latency and less than 25% above it, for a few KB per endpoint.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class EndpointMetrics implements ApiMetrics {
+
+    /**
+     * Metrics by endpoint template.
+     */
+    private final Map<String, Endpoint> endpoints;
+
+    /**
+     * Ctor.
+     */
+    public EndpointMetrics() {
+        this.endpoints = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void called(
+        final String endpoint, final int status,
+        final long nanos, final long sent
+    ) {
+        this.metrics(endpoint).called(status, nanos, sent);
+    }
+
+    @Override
+    public void failed(
+        final String endpoint, final long nanos, final long sent
+    ) {
+        this.metrics(endpoint).failed(nanos, sent);
+    }
+
+    @Override
+    public void received(final String endpoint, final long bytes) {
+        this.metrics(endpoint).received.add(bytes);
+    }
+
+    /**
+     * Metrics of an endpoint.
+     * @param endpoint Endpoint template (e.g. "POST /containers/{id}/start").
+     * @return Metrics, empty if the endpoint was never called.
+     */
+    public Endpoint endpoint(final String endpoint) {
+        Endpoint metrics = this.endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = new Endpoint();
+        }
+        return metrics;
+    }
+
+    /**
+     * Metrics of all the called endpoints.
+     * @return Unmodifiable map, by endpoint template.
+     */
+    public Map<String, Endpoint> endpoints() {
+        return Collections.unmodifiableMap(this.endpoints);
+    }
+
+    /**
+     * Metrics of an endpoint, created at the first call.
+     * @param endpoint Endpoint template.
+     * @return Metrics.
+     */
+    private Endpoint metrics(final String endpoint) {
+        Endpoint metrics = this.endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = this.endpoints.computeIfAbsent(
+                endpoint, key -> new Endpoint()
+            );
+        }
+        return metrics;
+    }
+
+    /**
+     * Metrics of one endpoint. They are updated live.
+     */
+    public static final class Endpoint {
+
+        /**
+         * Buckets per power of two.
+         */
+        private static final int SUB = 4;
+
+        /**
+         * Number of calls with a response.
+         */
+        private final LongAdder calls;
+
+        /**
+         * Number of calls without a response.
+         */
+        private final LongAdder failures;
+
+        /**
+         * Calls with an error response, by HTTP status.
+         */
+        private final Map<Integer, LongAdder> errors;
+
+        /**
+         * Bytes sent.
+         */
+        private final LongAdder sent;
+
+        /**
+         * Bytes received.
+         */
+        private final LongAdder received;
+
+        /**
+         * Sum of the latencies, in nanoseconds.
+         */
+        private final LongAdder total;
+
+        /**
+         * Latency histogram, in nanoseconds.
+         */
+        private final AtomicLongArray histogram;
+
+        /**
+         * Ctor.
+         */
+        Endpoint() {
+            this.calls = new LongAdder();
+            this.failures = new LongAdder();
+            this.errors = new ConcurrentHashMap<>();
+            this.sent = new LongAdder();
+            this.received = new LongAdder();
+            this.total = new LongAdder();
+            this.histogram = new AtomicLongArray(Long.SIZE * SUB);
+        }
+
+        /**
+         * Number of calls which got a response, errors included.
+         * @return Number of calls.
+         */
+        public long count() {
+            return this.calls.sum();
+        }
+
+        /**
+         * Number of calls which failed without a response.
+         * @return Number of failures.
+         */
+        public long failures() {
+            return this.failures.sum();
+        }
+
+        /**
+         * Number of error responses (status 400 or more), by status.
+         * @return Map of status to count.
+         */
+        public Map<Integer, Long> errors() {
+            final Map<Integer, Long> counts = new HashMap<>();
+            this.errors.forEach(
+                (status, count) -> counts.put(status, count.sum())
+            );
+            return counts;
+        }
+
+        /**
+         * Bytes sent in the request bodies.
+         * @return Bytes.
+         */
+        public long bytesSent() {
+            return this.sent.sum();
+        }
+
+        /**
+         * Bytes received in the response bodies.
+         * @return Bytes.
+         */
+        public long bytesReceived() {
+            return this.received.sum();
+        }
+
+        /**
+         * Mean latency, until the response headers or the failure.
+         * @return Nanoseconds, 0 if never called.
+         */
+        public long meanLatency() {
+            final long count = this.calls.sum() + this.failures.sum();
+            final long mean;
+            if (count == 0) {
+                mean = 0;
+            } else {
+                mean = this.total.sum() / count;
+            }
+            return mean;
+        }
+
+        /**
+         * Latency quantile (e.g. 0.99 for the 99th percentile), until the
+         * response headers or the failure.
+         * @param quantile Quantile, between 0 and 1.
+         * @return Upper bound of the latency, in nanoseconds, 0 if never
+         *  called.
+         */
+        public long latency(final double quantile) {
+            long count = 0;
+            for (int idx = 0; idx < this.histogram.length(); ++idx) {
+                count += this.histogram.get(idx);
+            }
+            final long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            long latency = 0;
+            for (int idx = 0; idx < this.histogram.length(); ++idx) {
+                seen += this.histogram.get(idx);
+                if (seen > 0 && seen >= rank) {
+                    latency = Endpoint.upper(idx);
+                    break;
+                }
+            }
+            return latency;
+        }
+
+        /**
+         * Record a call with a response.
+         * @param status HTTP status.
+         * @param nanos Latency.
+         * @param bytes Bytes sent.
+         */
+        private void called(final int status, final long nanos,
+            final long bytes) {
+            this.calls.increment();
+            if (status >= 400) {
+                this.errors.computeIfAbsent(status, key -> new LongAdder())
+                    .increment();
+            }
+            this.sent.add(bytes);
+            this.latency(nanos);
+        }
+
+        /**
+         * Record a call without a response.
+         * @param nanos Time until the failure.
+         * @param bytes Bytes sent.
+         */
+        private void failed(final long nanos, final long bytes) {
+            this.failures.increment();
+            this.sent.add(bytes);
+            this.latency(nanos);
+        }
+
+        /**
+         * Record a latency.
+         * @param nanos Nanoseconds.
+         */
+        private void latency(final long nanos) {
+            final long value = Math.max(nanos, 1);
+            this.total.add(value);
+            this.histogram.incrementAndGet(Endpoint.bucket(value));
+        }
+
+        /**
+         * Bucket of a value: the power of two, followed by the next
+         * 2 bits.
+         * @param value Positive value.
+         * @return Index of the bucket.
+         */
+        private static int bucket(final long value) {
+            final int exponent = Long.SIZE - 1
+                - Long.numberOfLeadingZeros(value);
+            final int bucket;
+            if (exponent < 2) {
+                bucket = (int) value;
+            } else {
+                bucket = exponent * SUB
+                    + (int) (value >>> (exponent - 2) & (SUB - 1));
+            }
+            return bucket;
+        }
+
+        /**
+         * Biggest value which goes into a bucket.
+         * @param bucket Index of the bucket.
+         * @return Value.
+         */
+        private static long upper(final int bucket) {
+            final long upper;
+            if (bucket < 2 * SUB) {
+                upper = bucket;
+            } else {
+                final int exponent = bucket / SUB;
+                final long sub = bucket % SUB;
+                upper = (1L << exponent) + (sub + 1 << exponent - 2) - 1;
+            }
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.apache.http.HttpRequest;
+import org.apache.http.RequestLine;
+
+/**
+ * Template of the endpoint called by a request, with the API version and
+ * the IDs or names taken out, e.g. "POST /containers/{id}/start" or
+ * "GET /images/{name}/json".
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class EndpointTemplate implements Function<HttpRequest, String> {
+
+    /**
+     * Segments which follow a resource type directly, without an ID
+     * or name between them (e.g. /containers/json, /swarm/init).
+     */
+    private static final Set<String> COLLECTION = new HashSet<>(
+        Arrays.asList(
+            "json", "create", "prune", "search", "get", "load", "pull",
+            "privileges", "init", "join", "leave", "update", "unlock",
+            "unlockkey", "df"
+        )
+    );
+
+    /**
+     * API version prefix of the path.
+     */
+    private static final Pattern VERSION = Pattern.compile("v[0-9.]+");
+
+    /**
+     * Resources whose names may contain slashes (e.g. library/ubuntu).
+     */
+    private static final Set<String> NAMED = new HashSet<>(
+        Arrays.asList("images", "plugins", "distribution")
+    );
+
+    /**
+     * Actions on a resource whose name may contain slashes.
+     */
+    private static final Set<String> NAMED_ACTIONS = new HashSet<>(
+        Arrays.asList(
+            "json", "history", "push", "tag", "get", "enable", "disable",
+            "set", "upgrade"
+        )
+    );
+
+    @Override
+    public String apply(final HttpRequest request) {
+        final RequestLine line = request.getRequestLine();
+        return line.getMethod() + ' ' + EndpointTemplate.path(line.getUri());
+    }
+
+    /**
+     * Template of a request URI.
+     * @param uri Absolute or relative request URI.
+     * @return Path template.
+     */
+    private static String path(final String uri) {
+        int start = 0;
+        final int scheme = uri.indexOf("://");
+        if (scheme >= 0) {
+            start = uri.indexOf('/', scheme + 3);
+            if (start < 0) {
+                start = uri.length();
+            }
+        }
+        int end = uri.indexOf('?', start);
+        if (end < 0) {
+            end = uri.length();
+        }
+        final String[] segments = uri.substring(start, end).split("/");
+        int first = 0;
+        while (first < segments.length && segments[first].isEmpty()) {
+            ++first;
+        }
+        if (first < segments.length
+            && VERSION.matcher(segments[first]).matches()) {
+            ++first;
+        }
+        final StringBuilder template = new StringBuilder();
+        if (first < segments.length) {
+            final String resource = segments[first];
+            template.append('/').append(resource);
+            final int rest = first + 1;
+            if (rest < segments.length) {
+                if (EndpointTemplate.NAMED.contains(resource)) {
+                    EndpointTemplate.named(template, segments, rest);
+                } else if (EndpointTemplate.COLLECTION.contains(
+                    segments[rest]
+                )) {
+                    EndpointTemplate.literal(template, segments, rest);
+                } else {
+                    template.append("/{id}");
+                    EndpointTemplate.literal(template, segments, rest + 1);
+                }
+            }
+        } else {
+            template.append('/');
+        }
+        return template.toString();
+    }
+
+    /**
+     * Append the template of a named resource's path.
+     * @param template Template so far.
+     * @param segments Path segments.
+     * @param rest Index of the first segment after the resource type.
+     */
+    private static void named(
+        final StringBuilder template, final String[] segments, final int rest
+    ) {
+        final int last = segments.length - 1;
+        if (rest == last
+            && EndpointTemplate.COLLECTION.contains(segments[rest])) {
+            template.append('/').append(segments[rest]);
+        } else if (rest < last
+            && EndpointTemplate.NAMED_ACTIONS.contains(segments[last])) {
+            template.append("/{name}/").append(segments[last]);
+        } else {
+            template.append("/{name}");
+        }
+    }
+
+    /**
+     * Append the segments as they are.
+     * @param template Template so far.
+     * @param segments Path segments.
+     * @param from Index of the first segment to append.
+     */
+    private static void literal(
+        final StringBuilder template, final String[] segments, final int from
+    ) {
+        for (int idx = from; idx < segments.length; ++idx) {
+            template.append('/').append(segments[idx]);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import javax.json.JsonObject;
+
+/**
+ * Hub which shares one events connection between many subscribers.<br><br>
+ * Every {@link Events#monitor()} call holds an HTTP connection for as long
+ * as the Stream is open. With many components watching the events, that
+ * starves the connection pool. The hub keeps only one upstream connection,
+ * while it has subscribers, and fans the events out to all of them:
+ * <pre>
+ *   final EventHub hub = docker.eventHub();
+ *   try (final EventHub.Subscription dies = hub.subscribe(
+ *       event -&gt; "die".equals(event.getString("Action", ""))
+ *   )) {
+ *       dies.events().limit(10).forEach(...);
+ *   }
+ * </pre>
+ * Every subscriber has its own bounded queue. A subscriber which does not
+ * keep up does not slow down the others: when its queue is full, new events
+ * are dropped for it and counted, see {@link #lagging()}.<br><br>
+ * The hub of a Docker monitors {@link Events#resilient()}, so the
+ * subscriptions survive dropped connections.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface EventHub extends Closeable {
+
+    /**
+     * Subscribe to the events which match the given filter, with a queue
+     * of default capacity (1024 events).
+     * @param filter Filter of the events. It is tested on the hub's thread,
+     *  so it should be fast.
+     * @return Subscription.
+     * @throws IOException If the upstream connection cannot be opened.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    Subscription subscribe(Predicate<JsonObject> filter)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Subscribe to the events which match the given filter.
+     * @param filter Filter of the events. It is tested on the hub's thread,
+     *  so it should be fast.
+     * @param capacity Maximum number of events waiting to be consumed.
+     * @return Subscription.
+     * @throws IOException If the upstream connection cannot be opened.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    Subscription subscribe(Predicate<JsonObject> filter, int capacity)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Current subscriptions.
+     * @return Collection of subscriptions.
+     */
+    Collection<Subscription> subscriptions();
+
+    /**
+     * Subscriptions which fell behind and lost events because
+     * their queue was full.
+     * @return Collection of lagging subscriptions.
+     */
+    Collection<Subscription> lagging();
+
+    /**
+     * Subscription to the events of a hub. Close it when it is not needed
+     * anymore; the hub closes the upstream connection after the last
+     * subscription is closed.
+     */
+    interface Subscription extends Closeable {
+
+        /**
+         * The matching events, as they come. The Stream blocks while waiting
+         * for events and ends when this subscription or the hub is closed,
+         * or when the upstream connection ends.
+         * @return Stream of events.
+         */
+        Stream<JsonObject> events();
+
+        /**
+         * Wait for the next matching event.
+         * @param timeout How long to wait.
+         * @param unit Unit of the timeout.
+         * @return The next event or null if the timeout elapsed or
+         *  the subscription ended.
+         * @throws InterruptedException If interrupted while waiting.
+         */
+        JsonObject poll(long timeout, TimeUnit unit)
+            throws InterruptedException;
+
+        /**
+         * Did this subscription end? It ends when it is closed, when the
+         * hub is closed or when the upstream connection ends. The events
+         * which were already queued can still be consumed.
+         * @return True or false.
+         */
+        boolean ended();
+
+        /**
+         * How many events were queued for this subscription so far.
+         * @return Number of events.
+         */
+        long received();
+
+        /**
+         * How many matching events were dropped because the queue was full.
+         * @return Number of events.
+         */
+        long dropped();
+
+        /**
+         * How many events are waiting to be consumed.
+         * @return Number of events.
+         */
+        int backlog();
+
+        /**
+         * Unsubscribe.
+         */
+        @Override
+        void close();
+    }
+}
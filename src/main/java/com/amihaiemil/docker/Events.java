@@ -27,6 +27,7 @@ package com.amihaiemil.docker;
 
 import javax.json.JsonObject;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -68,7 +69,9 @@ public interface Events {
      * Start monitoring these events. Pay attention:<br><br>
      * The Stream is <b>infinite</b>, which means you have to specify a
      * <b>limit</b> before calling a terminal operation on it. Otherwise,
-     * your terminal operation will run until the Server closes the connection.
+     * your terminal operation will run until the Server closes the connection
+     * (or until the specified "until" timestamp), when the Stream ends.
+     * Close the Stream when you are done with it, to release the connection.
      * Example:
      * <pre>
      *   final Docker docker = ...;
@@ -84,6 +87,26 @@ public interface Events {
     Stream<JsonObject> monitor()
         throws IOException, UnexpectedResponseException;
 
+    /**
+     * Resilient variant of these events, which reconnects with a backoff
+     * of 1 second, growing up to 30 seconds.
+     * @return ResilientEvents.
+     * @see #resilient(Duration, Duration)
+     */
+    ResilientEvents resilient();
+
+    /**
+     * Resilient variant of these events. When the connection
+     * behind {@link #monitor()} drops (e.g. the daemon restarts), the
+     * Stream does not end: it reconnects, resuming right after the last
+     * seen event, so no events are lost.
+     * @param backoff Wait before the first reconnect attempt; it doubles
+     *  with every failed attempt.
+     * @param max Maximum wait between reconnect attempts.
+     * @return ResilientEvents.
+     */
+    ResilientEvents resilient(Duration backoff, Duration max);
+
     /**
      * Docker where these events came from.
      * @return Docker.
@@ -46,4 +46,27 @@ public interface Exec {
      */
     JsonObject inspect() throws IOException, UnexpectedResponseException;
 
+    /**
+     * Start this Exec attached: its stdout and stderr are streamed back,
+     * frame by frame, until the process ends. Close the frames when done,
+     * since they hold an HTTP connection.
+     * @return ExecFrames.
+     * @see <a href="https://docs.docker.com/engine/api/v1.40/#operation/ExecStart">Start Exec</a>
+     * @throws IOException If something goes wrong.
+     * @throws UnexpectedResponseException If the status response is not
+     *  the expected one (200 OK).
+     */
+    ExecFrames start() throws IOException, UnexpectedResponseException;
+
+    /**
+     * Start this Exec detached: Docker runs it in the background and its
+     * output is discarded. Use {@link #inspect()} to find out when it ends
+     * and its exit code.
+     * @see <a href="https://docs.docker.com/engine/api/v1.40/#operation/ExecStart">Start Exec</a>
+     * @throws IOException If something goes wrong.
+     * @throws UnexpectedResponseException If the status response is not
+     *  the expected one (200 OK).
+     */
+    void startDetached() throws IOException, UnexpectedResponseException;
+
 }
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+
+/**
+ * The same Exec, run in many containers by a bounded number of threads.
+ * The results are iterated in the order in which the Execs finish, so a
+ * slow container does not hold back the others; the iterator blocks
+ * until the next result is ready:
+ * <pre>
+ *   final JsonObject df = Json.createObjectBuilder()
+ *       .add("Cmd", Json.createArrayBuilder().add("df").add("-h"))
+ *       .add("AttachStdout", true).add("AttachStderr", true)
+ *       .build();
+ *   try (final ExecBatch batch = docker.containers()
+ *       .exec(df, 16, 4096, Duration.ofSeconds(10))) {
+ *       for (final ExecResult result : batch) {
+ *           System.out.println(result);
+ *       }
+ *   }
+ * </pre>
+ * Closing the batch aborts the Execs which are running and skips the ones
+ * which did not start yet; they are reported as failed.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface ExecBatch extends Iterable<ExecResult>, Closeable {
+
+    /**
+     * Number of containers in the batch, which is also the number
+     * of results.
+     * @return Int.
+     */
+    int size();
+
+    /**
+     * Close the batch. It does not throw IOException.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+
+/**
+ * Output of an attached {@link Exec}: the frames of its stdout and stderr,
+ * as they come, and its exit code once they ended. Example:
+ * <pre>
+ *   try (final ExecFrames output = exec.start()) {
+ *       while (output.next()) {
+ *           if (output.type() == LogFrames.StreamType.STDOUT) {
+ *               channel.write(output.payload());
+ *           }
+ *       }
+ *       final int code = output.exitCode();
+ *   }
+ * </pre>
+ * Closing the frames before they ended aborts the connection (the process
+ * keeps running in the container); if they were read to the end, the
+ * connection goes back to the pool.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface ExecFrames extends LogFrames {
+
+    /**
+     * Exit code of the process, fetched with {@link Exec#inspect()} the
+     * first time it is called. Only call it after {@link #next()} returned
+     * false.
+     * @return Exit code.
+     * @throws IOException If something goes wrong.
+     * @throws UnexpectedResponseException If the status response is not
+     *  the expected one (200 OK).
+     * @throws IllegalStateException If the output did not end yet or if
+     *  Docker does not report the exit code.
+     */
+    int exitCode() throws IOException, UnexpectedResponseException;
+
+    /**
+     * The Exec which is running.
+     * @return Exec.
+     */
+    Exec exec();
+}
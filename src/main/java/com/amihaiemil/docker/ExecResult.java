@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+
+/**
+ * Outcome of an Exec run by an {@link ExecBatch} in one container.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class ExecResult {
+
+    /**
+     * ID of the container.
+     */
+    private final String container;
+
+    /**
+     * Exit code, -1 if unknown.
+     */
+    private final int code;
+
+    /**
+     * Captured stdout.
+     */
+    private final byte[] out;
+
+    /**
+     * Captured stderr.
+     */
+    private final byte[] err;
+
+    /**
+     * Was some output dropped?
+     */
+    private final boolean truncated;
+
+    /**
+     * Was the Exec stopped by the timeout?
+     */
+    private final boolean expired;
+
+    /**
+     * How long did it take?
+     */
+    private final Duration took;
+
+    /**
+     * Why did it fail, null if it did not.
+     */
+    private final Exception failure;
+
+    /**
+     * Ctor.
+     * @param container ID of the container.
+     * @param code Exit code, -1 if unknown.
+     * @param out Captured stdout.
+     * @param err Captured stderr.
+     * @param truncated Was some output dropped?
+     * @param expired Was the Exec stopped by the timeout?
+     * @param took How long did it take?
+     * @param failure Why did it fail, null if it did not.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    ExecResult(
+        final String container, final int code, final byte[] out,
+        final byte[] err, final boolean truncated, final boolean expired,
+        final Duration took, final Exception failure
+    ) {
+        this.container = container;
+        this.code = code;
+        this.out = out;
+        this.err = err;
+        this.truncated = truncated;
+        this.expired = expired;
+        this.took = took;
+        this.failure = failure;
+    }
+
+    /**
+     * ID of the container where the Exec ran.
+     * @return String.
+     */
+    public String containerId() {
+        return this.container;
+    }
+
+    /**
+     * Exit code of the process.
+     * @return Exit code, -1 if the Exec timed out or failed.
+     */
+    public int exitCode() {
+        return this.code;
+    }
+
+    /**
+     * Captured stdout, up to the limit of the batch.
+     * @return Bytes.
+     */
+    public byte[] stdout() {
+        return this.out.clone();
+    }
+
+    /**
+     * Captured stderr, up to the limit of the batch.
+     * @return Bytes.
+     */
+    public byte[] stderr() {
+        return this.err.clone();
+    }
+
+    /**
+     * Was some of the output dropped, because it went over the limit?
+     * @return True or false.
+     */
+    public boolean truncated() {
+        return this.truncated;
+    }
+
+    /**
+     * Was the Exec stopped because it went over the timeout? The process
+     * itself may still be running in the container.
+     * @return True or false.
+     */
+    public boolean timedOut() {
+        return this.expired;
+    }
+
+    /**
+     * How long did it take, from creating the Exec until its exit code
+     * was known (or until it timed out or failed).
+     * @return Duration.
+     */
+    public Duration took() {
+        return this.took;
+    }
+
+    /**
+     * Why did the Exec fail (e.g. the container was not running)?
+     * @return Exception, null if it did not fail.
+     */
+    public Exception error() {
+        return this.failure;
+    }
+
+    @Override
+    public String toString() {
+        final String outcome;
+        if (this.failure != null) {
+            outcome = "failed: " + this.failure.getMessage();
+        } else if (this.expired) {
+            outcome = "timed out";
+        } else {
+            outcome = "exit code " + this.code;
+        }
+        return String.format(
+            "%s: %s in %d ms", this.container, outcome, this.took.toMillis()
+        );
+    }
+}
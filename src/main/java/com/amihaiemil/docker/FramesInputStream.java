@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The payloads of some {@link LogFrames}, as one InputStream. The frame
+ * headers are dropped, only the actual output is read.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class FramesInputStream extends InputStream {
+
+    /**
+     * Frames to read.
+     */
+    private final LogFrames frames;
+
+    /**
+     * Current payload.
+     */
+    private ByteBuffer payload;
+
+    /**
+     * Ctor.
+     * @param frames Frames to read.
+     */
+    FramesInputStream(final LogFrames frames) {
+        this.frames = frames;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int read;
+        if (this.fill()) {
+            read = this.payload.get() & 0xFF;
+        } else {
+            read = -1;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(
+        final byte[] bytes, final int off, final int len
+    ) throws IOException {
+        final int read;
+        if (len == 0) {
+            read = 0;
+        } else if (this.fill()) {
+            read = Math.min(len, this.payload.remaining());
+            this.payload.get(bytes, off, read);
+        } else {
+            read = -1;
+        }
+        return read;
+    }
+
+    @Override
+    public int available() {
+        int available = 0;
+        if (this.payload != null) {
+            available = this.payload.remaining();
+        }
+        return available;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.frames.close();
+    }
+
+    /**
+     * Make sure there is something left to read in the current payload.
+     * @return True if there is, false if the frames ended.
+     * @throws IOException If something goes wrong.
+     */
+    private boolean fill() throws IOException {
+        boolean more = true;
+        while (more
+            && (this.payload == null || !this.payload.hasRemaining())) {
+            more = this.frames.next();
+            if (more) {
+                this.payload = this.frames.payload();
+            }
+        }
+        return more;
+    }
+}
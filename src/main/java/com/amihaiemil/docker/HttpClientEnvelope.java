@@ -25,6 +25,7 @@
  */
 package com.amihaiemil.docker;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.function.Supplier;
 import org.apache.http.HttpHost;
@@ -36,6 +37,7 @@ import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HttpContext;
 
 /**
@@ -45,7 +47,8 @@ import org.apache.http.protocol.HttpContext;
  * @version $Id$
  * @since 0.0.4
  */
-abstract class HttpClientEnvelope implements HttpClient {
+abstract class HttpClientEnvelope
+    implements HttpClient, Pooled, Closeable {
     /**
      * Actual HttpClient.
      */
@@ -126,4 +129,31 @@ abstract class HttpClientEnvelope implements HttpClient {
             target, request, responseHandler, context
         );
     }
+
+    @Override
+    public PoolStats poolStats() {
+        if (!(this.enveloped instanceof Pooled)) {
+            throw new UnsupportedOperationException(
+                "The connection pool of this HttpClient is not known."
+            );
+        }
+        return ((Pooled) this.enveloped).poolStats();
+    }
+
+    @Override
+    public PoolStats streamingPoolStats() {
+        if (!(this.enveloped instanceof Pooled)) {
+            throw new UnsupportedOperationException(
+                "The connection pool of this HttpClient is not known."
+            );
+        }
+        return ((Pooled) this.enveloped).streamingPoolStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.enveloped instanceof Closeable) {
+            ((Closeable) this.enveloped).close();
+        }
+    }
 }
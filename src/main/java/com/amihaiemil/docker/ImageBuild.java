@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Build of an Image from a directory on this machine. The directory is
+ * sent as a tar stream, written while it is being sent, without staging
+ * it on disk; the .dockerignore rules are honoured:
+ * <pre>
+ *   final Image built = docker.images().build(Paths.get("app"))
+ *       .withTag("app:1.0")
+ *       .withBuildArg("VERSION", "1.0")
+ *       .withGzip(true)
+ *       .run(System.out::println);
+ * </pre>
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @see <a href="https://docs.docker.com/engine/api/v1.35/#operation/ImageBuild">Docker API Docs</a>
+ * @since 0.0.15
+ */
+public interface ImageBuild {
+
+    /**
+     * Name and optionally a tag for the image, in name:tag format.
+     * It can be given more times, for more tags.
+     * @param tag Name and tag.
+     * @return ImageBuild.
+     */
+    ImageBuild withTag(String tag);
+
+    /**
+     * Path of the Dockerfile within the build context.
+     * @param path Path, default is "Dockerfile".
+     * @return ImageBuild.
+     */
+    ImageBuild withDockerfile(String path);
+
+    /**
+     * Build-time variable (ARG in the Dockerfile).
+     * @param name Name of the variable.
+     * @param value Value of the variable.
+     * @return ImageBuild.
+     */
+    ImageBuild withBuildArg(String name, String value);
+
+    /**
+     * Gzip the build context? It saves bandwidth when the Docker engine is
+     * remote, at the cost of CPU; it is off by default.
+     * @param gzip True or false.
+     * @return ImageBuild.
+     */
+    ImageBuild withGzip(boolean gzip);
+
+    /**
+     * Keep an index of the builds in the given file. A build whose context
+     * (files, permissions and contents, after .dockerignore), Dockerfile and
+     * build args are the same as before returns the image built then, if it
+     * still exists, instead of sending the context again; only the tags are
+     * applied. The files are hashed in parallel and the ones whose size and
+     * modification time did not change are not read again.
+     * @param index The index file, e.g. ~/.cache/docker-builds.json.
+     * @return ImageBuild.
+     */
+    ImageBuild withCache(Path index);
+
+    /**
+     * Run the build.
+     * @param log Receives the lines of the build output, as they come.
+     * @return The built Image.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     * @throws StreamedErrorException If the build fails (e.g. a RUN step
+     *  returns a non-zero code).
+     */
+    Image run(Consumer<String> log)
+        throws IOException, UnexpectedResponseException;
+}
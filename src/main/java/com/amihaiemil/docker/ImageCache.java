@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import javax.json.JsonObject;
+
+/**
+ * Inspections and histories of images, kept in memory by image ID.
+ * <br><br>
+ * An image ID is the digest of the image's content, so what it refers to
+ * never changes; only its tags do. An image is fetched once and then served
+ * from memory until it is deleted, tagged or untagged (known from the
+ * image events of {@link Docker#eventHub()}), or until it is evicted
+ * because the cache is full and it was the least recently used:
+ * <pre>
+ *   try (final ImageCache images = docker.images().cache(1000)) {
+ *       final JsonObject config = images.inspect(imageId)
+ *           .getJsonObject("Config");
+ *   }
+ * </pre>
+ * Only full IDs (sha256:... or the 64 hex characters) are cached; images
+ * referred to by name or by short ID are fetched every time, since a name
+ * can move to another image.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface ImageCache extends Closeable {
+
+    /**
+     * Get an image whose inspect() and history() are served by this cache.
+     * Its other methods call the Docker engine.
+     * @param imageId ID of the image.
+     * @return Image.
+     */
+    Image get(String imageId);
+
+    /**
+     * Inspect an image.
+     * @param imageId ID of the image.
+     * @return Inspection.
+     * @throws IOException If an I/O problem occurs.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    JsonObject inspect(String imageId)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * History of an image.
+     * @param imageId ID of the image.
+     * @return Unmodifiable list of the layers, newest first.
+     * @throws IOException If an I/O problem occurs.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    List<Image> history(String imageId)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Drop an image from the cache.
+     * @param imageId ID of the image.
+     */
+    void invalidate(String imageId);
+
+    /**
+     * How many images are cached.
+     * @return Number of images.
+     */
+    int size();
+
+    /**
+     * How many calls were served from memory.
+     * @return Number of calls.
+     */
+    long hits();
+
+    /**
+     * How many calls went to the Docker engine.
+     * @return Number of calls.
+     */
+    long misses();
+
+    /**
+     * Stop following the image events.
+     */
+    @Override
+    void close();
+}
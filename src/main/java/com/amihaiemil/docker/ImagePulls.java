@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Images pulled in parallel, by a bounded number of threads.
+ * <br><br>
+ * Pulling the same image twice at the same time, from any thread, results
+ * in a single pull, whose result is shared by both callers. Images which are
+ * already present locally, by digest, are not pulled again:
+ * <pre>
+ *   try (final ImagePulls pulls = docker.images().pulls(4)) {
+ *       final Map&lt;String, CompletableFuture&lt;PulledImage&gt;&gt; all =
+ *           pulls.pull(Arrays.asList("ubuntu:22.04", "redis", "nginx:1.25"));
+ *       CompletableFuture.allOf(
+ *           all.values().toArray(new CompletableFuture[0])
+ *       ).join();
+ *       System.out.printf("%.0f bytes/s%n", pulls.throughput());
+ *   }
+ * </pre>
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface ImagePulls extends Closeable {
+
+    /**
+     * Pull an image, unless it is already being pulled or it is present.
+     * @param name Name of the image.
+     * @param tag Tag or digest (sha256:...) of the image.
+     * @return Future completed when the image is pulled or skipped.
+     *  It completes exceptionally with {@link UnexpectedResponseException}
+     *  or {@link StreamedErrorException} if the pull fails.
+     */
+    CompletableFuture<PulledImage> pull(String name, String tag);
+
+    /**
+     * Pull more images.
+     * @param references References of the images, such as "ubuntu:22.04",
+     *  "redis" (tag latest) or "redis@sha256:...".
+     * @return One future per reference, in the given order.
+     */
+    Map<String, CompletableFuture<PulledImage>> pull(
+        Iterable<String> references
+    );
+
+    /**
+     * Bytes of the layers downloaded so far, by all the pulls.
+     * @return Long.
+     */
+    long bytes();
+
+    /**
+     * Time spent pulling, from the start of the first pull until the end of
+     * the last one (or until now, if there are pulls still running).
+     * @return Duration.
+     */
+    Duration elapsed();
+
+    /**
+     * Aggregate throughput of all the pulls.
+     * @return Bytes per second.
+     */
+    double throughput();
+}
@@ -26,9 +26,16 @@
 package com.amihaiemil.docker;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.net.URL;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.stream.Stream;
+import javax.json.JsonObject;
 
 /**
  * Images API.
@@ -57,6 +64,74 @@ public interface Images extends Iterable<Image> {
         final String name, final String tag
     ) throws IOException, UnexpectedResponseException;
 
+    /**
+     * Pull an Image from the Docker registry, reporting the progress of
+     * each layer as the Docker engine streams it.
+     * @param name Name of the image to pull.
+     * @param tag Tag or digest for the image.
+     * @param progress Receives the progress.
+     * @return The created {@link Image}.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     * @throws StreamedErrorException If the pull fails after it started
+     *  (e.g. manifest unknown, no space left on device).
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    Image pull(
+        String name, String tag, PullProgress progress
+    ) throws IOException, UnexpectedResponseException;
+
+    /**
+     * Pull an Image from the Docker registry, as a lazy Stream of the
+     * progress entries. The entries are decoded one by one, as the Docker
+     * engine sends them, and the Stream throws
+     * {@link StreamedErrorException} when it reaches an entry reporting
+     * an error.<br><br>
+     * The Stream holds an open connection until it is consumed, so use it
+     * with try-with-resources:
+     * <pre>
+     *   try (Stream&lt;JsonObject&gt; pull = images.pulling("ubuntu", "")) {
+     *       pull.forEach(System.out::println);
+     *   }
+     * </pre>
+     * @param name Name of the image to pull.
+     * @param tag Tag or digest for the image.
+     * @return Stream of progress entries.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    Stream<JsonObject> pulling(
+        String name, String tag
+    ) throws IOException, UnexpectedResponseException;
+
+    /**
+     * Pull many Images in parallel.
+     * @param parallelism How many Images to pull at the same time.
+     * @return ImagePulls, close it when it is not needed anymore.
+     */
+    ImagePulls pulls(int parallelism);
+
+    /**
+     * Build an Image from a directory.
+     * @param context The build context: directory with the Dockerfile and
+     *  the files it needs.
+     * @return ImageBuild, to be configured and run.
+     */
+    ImageBuild build(Path context);
+
+    /**
+     * Cache the inspections and histories of images, by image ID, keeping
+     * them valid from the image events of {@link Docker#eventHub()}.
+     * @param capacity Maximum number of images kept in memory.
+     * @return ImageCache, close it when it is not needed anymore.
+     * @throws IOException If the events cannot be monitored.
+     * @throws UnexpectedResponseException If the response is not 200 OK.
+     */
+    ImageCache cache(int capacity)
+        throws IOException, UnexpectedResponseException;
+
     /**
      * Import an Image.
      * @param source The URL from which the image can be retrieved.
@@ -83,6 +158,42 @@ public interface Images extends Iterable<Image> {
     Images importFromTar(
         String file) throws IOException, UnexpectedResponseException;
 
+    /**
+     * Import images from a tar file. The file is streamed to the Docker
+     * engine, so the heap use does not depend on its size.
+     * @param tar Path to the tar file containing the images.
+     * @return Images All images, including the newly imported ones.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    Images importFromTar(Path tar)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Import images from a tar stream, sent chunked as it is read.
+     * The stream is not closed.
+     * @param tar Stream of the tar containing the images.
+     * @return Images All images, including the newly imported ones.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    Images importFromTar(InputStream tar)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Import images from a tar channel, sent chunked as it is read.
+     * The channel is not closed.
+     * @param tar Channel of the tar containing the images.
+     * @return Images All images, including the newly imported ones.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    Images importFromTar(ReadableByteChannel tar)
+        throws IOException, UnexpectedResponseException;
+
     /**
      * Deletes unused images.
      * @throws IOException If an I/O error occurs.
@@ -101,6 +212,56 @@ public interface Images extends Iterable<Image> {
      */
     Reader save() throws IOException, UnexpectedResponseException;
 
+    /**
+     * Save the given images in a tarball, written byte by byte into the
+     * given stream, which is not closed.
+     * @param names Names or IDs of the images.
+     * @param tar Where the tarball goes.
+     * @return Number of bytes written.
+     * @see <a href="https://docs.docker.com/engine/api/v1.35/#operation/ImageGetAll">Export Images</a>
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    long save(Iterable<String> names, OutputStream tar)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Save the given images in a tarball, written into the given channel,
+     * which is not closed.
+     * @param names Names or IDs of the images.
+     * @param tar Where the tarball goes.
+     * @return Number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    long save(Iterable<String> names, WritableByteChannel tar)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Save the given images in a tar file. The file is created or
+     * overwritten.
+     * @param names Names or IDs of the images.
+     * @param tar Path of the tar file.
+     * @return Number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    long save(Iterable<String> names, Path tar)
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * Stream these Images. Unlike {@link #iterator()}, the Images are parsed
+     * one by one, as they come from the Docker engine, so memory usage stays
+     * flat no matter how many there are.<br><br>
+     * The Stream holds an HTTP connection until it is fully consumed or
+     * closed, so make sure to use it in a try-with-resources block.
+     * @return Stream of images.
+     */
+    Stream<Image> stream();
+
     /**
      * Filter these images.
      * @param filters Filters to apply.
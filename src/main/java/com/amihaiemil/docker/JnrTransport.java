@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+import jnr.enxio.channels.NativeSelectorProvider;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+/**
+ * Unix sockets of jnr-unixsocket, through its native (FFI) layer. The
+ * channels can only be registered with jnr's own native Selectors.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class JnrTransport implements Transport {
+
+    /**
+     * Unix socket on disk.
+     */
+    private final File socket;
+
+    /**
+     * Ctor.
+     * @param socket Unix socket on disk.
+     */
+    JnrTransport(final File socket) {
+        this.socket = socket;
+    }
+
+    @Override
+    public SelectableChannel connect() throws IOException {
+        final UnixSocketChannel channel = UnixSocketChannel.open(
+            new UnixSocketAddress(this.socket)
+        );
+        channel.configureBlocking(false);
+        return channel;
+    }
+
+    @Override
+    public SelectableChannel open() throws IOException {
+        final UnixSocketChannel channel = UnixSocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.connect(new UnixSocketAddress(this.socket));
+        } catch (final IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return channel;
+    }
+
+    @Override
+    public boolean finish(final SelectableChannel channel)
+        throws IOException {
+        return ((UnixSocketChannel) channel).finishConnect();
+    }
+
+    @Override
+    public Selector selector() throws IOException {
+        return NativeSelectorProvider.getInstance().openSelector();
+    }
+
+    @Override
+    public Socket socket() throws IOException {
+        return UnixSocketChannel.open().socket();
+    }
+
+    @Override
+    public Socket connect(final Socket socket, final int timeout)
+        throws IOException {
+        socket.setSoTimeout(timeout);
+        socket.getChannel().connect(new UnixSocketAddress(this.socket));
+        return socket;
+    }
+}
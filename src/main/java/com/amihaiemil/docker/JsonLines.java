@@ -0,0 +1,388 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+/**
+ * Newline-delimited JsonObjects (NDJSON), read incrementally from a stream,
+ * as Docker sends them for events, pull/build progress etc.<br><br>
+ * The content is read in one reusable buffer, which only grows if a single
+ * line does not fit in it. Every line is parsed exactly once, no matter how
+ * the lines are split between the reads: more objects in one read and
+ * objects spanning more reads are both fine. Blank lines are skipped.
+ * <br><br>
+ * All the lines are decoded by one streaming JsonParser, which sees them
+ * as the elements of a single JsonArray: it is fed one line at a time,
+ * so there is no JsonReader (with its own parser and buffers) per line.
+ * A line which does not hold a whole JsonObject ends the iteration with
+ * an IllegalStateException; content left after the object fails the
+ * next line.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class JsonLines implements Iterator<JsonObject>, Closeable {
+
+    /**
+     * Shared parser factory, so the JsonProvider is not looked up
+     * for every content.
+     */
+    private static final JsonParserFactory PARSERS =
+        Json.createParserFactory(Collections.emptyMap());
+
+    /**
+     * Default initial size of the buffer.
+     */
+    private static final int DEFAULT_SIZE = 4096;
+
+    /**
+     * Streamed content.
+     */
+    private final InputStream content;
+
+    /**
+     * Feeds the parser one line at a time.
+     */
+    private final Line line;
+
+    /**
+     * Reusable UTF-8 decoder.
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * Decoded chars of the current line.
+     */
+    private CharBuffer chars;
+
+    /**
+     * Parser of all the lines, created with the first one.
+     */
+    private JsonParser parser;
+
+    /**
+     * Buffer with the content which was read but not yet parsed.
+     */
+    private byte[] buffer;
+
+    /**
+     * Start of the unparsed content in the buffer.
+     */
+    private int start;
+
+    /**
+     * End of the content in the buffer.
+     */
+    private int end;
+
+    /**
+     * Up to where the unparsed content was searched for a newline.
+     */
+    private int scanned;
+
+    /**
+     * Next object, parsed but not yet returned.
+     */
+    private JsonObject current;
+
+    /**
+     * Did the content end?
+     */
+    private boolean ended;
+
+    /**
+     * Ctor.
+     * @param content Newline-delimited Json content.
+     */
+    JsonLines(final InputStream content) {
+        this(content, DEFAULT_SIZE);
+    }
+
+    /**
+     * Ctor.
+     * @param content Newline-delimited Json content.
+     * @param size Initial size of the buffer.
+     */
+    JsonLines(final InputStream content, final int size) {
+        this.content = content;
+        this.buffer = new byte[size];
+        this.line = new Line();
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(size);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (this.current == null && !this.ended) {
+                final int newline = this.newline();
+                if (newline >= 0) {
+                    this.current = this.parse(this.start, newline);
+                    this.start = newline + 1;
+                    this.scanned = this.start;
+                } else if (!this.read()) {
+                    this.ended = true;
+                    this.current = this.parse(this.start, this.end);
+                    this.start = this.end;
+                }
+            }
+        } catch (final IOException ex) {
+            throw new IllegalStateException(
+                "IOException when reading streamed JsonObjects!", ex
+            );
+        }
+        return this.current != null;
+    }
+
+    @Override
+    public JsonObject next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more JsonObjects.");
+        }
+        final JsonObject next = this.current;
+        this.current = null;
+        return next;
+    }
+
+    /**
+     * These objects as a sequential Stream, which ends when the content
+     * ends. Closing the Stream closes the content.
+     * @return Stream of JsonObject.
+     */
+    Stream<JsonObject> stream() {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL
+            ),
+            false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        this.ended = true;
+        this.current = null;
+        try {
+            this.content.close();
+        } catch (final IOException ex) {
+            //Closing a streamed (maybe infinite) content may fail, since
+            //the client tries to read the remainder. We should ignore it.
+        }
+    }
+
+    /**
+     * Find the next newline in the unparsed content.
+     * @return Index of the newline or -1 if there is none.
+     */
+    private int newline() {
+        int found = -1;
+        while (found < 0 && this.scanned < this.end) {
+            if (this.buffer[this.scanned] == '\n') {
+                found = this.scanned;
+            } else {
+                this.scanned = this.scanned + 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Read more content. The unparsed content is first moved at the
+     * beginning of the buffer; the buffer grows only if it is full of
+     * unparsed content (a very long line).
+     * @return False if the content ended, true otherwise.
+     * @throws IOException If something goes wrong.
+     */
+    private boolean read() throws IOException {
+        final int unparsed = this.end - this.start;
+        if (this.start > 0) {
+            System.arraycopy(this.buffer, this.start, this.buffer, 0, unparsed);
+            this.scanned = this.scanned - this.start;
+            this.start = 0;
+            this.end = unparsed;
+        }
+        if (this.end == this.buffer.length) {
+            final byte[] bigger = new byte[this.buffer.length * 2];
+            System.arraycopy(this.buffer, 0, bigger, 0, this.end);
+            this.buffer = bigger;
+        }
+        final int read = this.content.read(
+            this.buffer, this.end, this.buffer.length - this.end
+        );
+        if (read > 0) {
+            this.end = this.end + read;
+        }
+        return read >= 0;
+    }
+
+    /**
+     * Parse a line.
+     * @param from Start of the line (inclusive).
+     * @param until End of the line (exclusive).
+     * @return JsonObject or null if the line is blank.
+     */
+    private JsonObject parse(final int from, final int until) {
+        int first = from;
+        while (first < until && this.buffer[first] <= ' ') {
+            first = first + 1;
+        }
+        JsonObject parsed = null;
+        if (first < until) {
+            try {
+                if (this.parser == null) {
+                    this.decode('[', first, until);
+                    this.parser = PARSERS.createParser(this.line);
+                    this.parser.next();
+                } else {
+                    this.decode(',', first, until);
+                }
+                if (this.parser.next() != JsonParser.Event.START_OBJECT) {
+                    throw new JsonException("Expected a JsonObject");
+                }
+                parsed = this.parser.getObject();
+            } catch (final JsonException | NoSuchElementException ex) {
+                this.ended = true;
+                throw new IllegalStateException(
+                    "Could not parse streamed JsonObject: " + new String(
+                        this.buffer, first, until - first,
+                        StandardCharsets.UTF_8
+                    ),
+                    ex
+                );
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Decode a line from the buffer into the reusable chars, after the
+     * given separator, and feed them to the parser. The chars grow only
+     * if the line does not fit in them.
+     * @param separator Char which puts the line into the JsonArray.
+     * @param from Start of the line (inclusive).
+     * @param until End of the line (exclusive).
+     */
+    private void decode(final char separator, final int from, final int until) {
+        if (this.chars.capacity() < until - from + 1) {
+            this.chars = CharBuffer.allocate(until - from + 1);
+        }
+        ((Buffer) this.chars).clear();
+        this.chars.put(separator);
+        this.decoder.reset();
+        this.decoder.decode(
+            ByteBuffer.wrap(this.buffer, from, until - from),
+            this.chars,
+            true
+        );
+        this.decoder.flush(this.chars);
+        this.line.reset(this.chars.array(), this.chars.position());
+    }
+
+    /**
+     * Reader which gives the parser one decoded line, then reports the end
+     * of the content until it is given the next line. This way the parser
+     * never blocks waiting for a line which did not come yet, and an object
+     * cannot span more lines.
+     */
+    private static final class Line extends Reader {
+
+        /**
+         * Chars of the current line.
+         */
+        private char[] chars;
+
+        /**
+         * Position of the next char to read.
+         */
+        private int pos;
+
+        /**
+         * Number of chars in the line.
+         */
+        private int count;
+
+        /**
+         * Ctor.
+         */
+        Line() {
+            super();
+            this.chars = new char[0];
+        }
+
+        /**
+         * Feed another line.
+         * @param line Decoded chars.
+         * @param len Length of the line.
+         */
+        void reset(final char[] line, final int len) {
+            this.chars = line;
+            this.pos = 0;
+            this.count = len;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) {
+            int read = -1;
+            if (len == 0) {
+                read = 0;
+            } else if (this.pos < this.count) {
+                read = Math.min(len, this.count - this.pos);
+                System.arraycopy(this.chars, this.pos, cbuf, off, read);
+                this.pos = this.pos + read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            //Nothing to close, the line is reused.
+        }
+    }
+}
@@ -0,0 +1,1141 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stats frames decoded straight from the bytes of the response: Docker
+ * sends one Json object per line, which is scanned in place for the few
+ * fields of {@link StatsFrames}; everything else is skipped without being
+ * parsed.<br><br>
+ * Nothing is allocated per frame: the content is read in one reusable
+ * buffer, which only grows if a single frame does not fit in it, and
+ * the fields are overwritten by every frame. The keys are compared
+ * byte by byte, no String is created.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (1200 lines)
+ * @checkstyle CyclomaticComplexity (1200 lines)
+ */
+final class JsonStatsFrames implements StatsFrames {
+
+    /**
+     * Default initial size of the buffer.
+     */
+    private static final int DEFAULT_SIZE = 8192;
+
+    /**
+     * Nanoseconds in a second.
+     */
+    private static final long NANOS = 1_000_000_000L;
+
+    /**
+     * Block I/O operation "read".
+     */
+    private static final int OP_READ = 1;
+
+    /**
+     * Block I/O operation "write".
+     */
+    private static final int OP_WRITE = 2;
+
+    /**
+     * Key "read".
+     */
+    private static final byte[] READ = JsonStatsFrames.ascii("read");
+
+    /**
+     * Key "cpu_stats".
+     */
+    private static final byte[] CPU_STATS =
+        JsonStatsFrames.ascii("cpu_stats");
+
+    /**
+     * Key "precpu_stats".
+     */
+    private static final byte[] PRECPU_STATS =
+        JsonStatsFrames.ascii("precpu_stats");
+
+    /**
+     * Key "cpu_usage".
+     */
+    private static final byte[] CPU_USAGE =
+        JsonStatsFrames.ascii("cpu_usage");
+
+    /**
+     * Key "total_usage".
+     */
+    private static final byte[] TOTAL_USAGE =
+        JsonStatsFrames.ascii("total_usage");
+
+    /**
+     * Key "percpu_usage".
+     */
+    private static final byte[] PERCPU_USAGE =
+        JsonStatsFrames.ascii("percpu_usage");
+
+    /**
+     * Key "system_cpu_usage".
+     */
+    private static final byte[] SYSTEM_CPU_USAGE =
+        JsonStatsFrames.ascii("system_cpu_usage");
+
+    /**
+     * Key "online_cpus".
+     */
+    private static final byte[] ONLINE_CPUS =
+        JsonStatsFrames.ascii("online_cpus");
+
+    /**
+     * Key "memory_stats".
+     */
+    private static final byte[] MEMORY_STATS =
+        JsonStatsFrames.ascii("memory_stats");
+
+    /**
+     * Key "usage".
+     */
+    private static final byte[] USAGE = JsonStatsFrames.ascii("usage");
+
+    /**
+     * Key "limit".
+     */
+    private static final byte[] LIMIT = JsonStatsFrames.ascii("limit");
+
+    /**
+     * Key "stats".
+     */
+    private static final byte[] STATS = JsonStatsFrames.ascii("stats");
+
+    /**
+     * Key "inactive_file" (cgroup v2).
+     */
+    private static final byte[] INACTIVE_FILE =
+        JsonStatsFrames.ascii("inactive_file");
+
+    /**
+     * Key "total_inactive_file" (cgroup v1).
+     */
+    private static final byte[] TOTAL_INACTIVE_FILE =
+        JsonStatsFrames.ascii("total_inactive_file");
+
+    /**
+     * Key "pids_stats".
+     */
+    private static final byte[] PIDS_STATS =
+        JsonStatsFrames.ascii("pids_stats");
+
+    /**
+     * Key "current".
+     */
+    private static final byte[] CURRENT = JsonStatsFrames.ascii("current");
+
+    /**
+     * Key "blkio_stats".
+     */
+    private static final byte[] BLKIO_STATS =
+        JsonStatsFrames.ascii("blkio_stats");
+
+    /**
+     * Key "io_service_bytes_recursive".
+     */
+    private static final byte[] IO_SERVICE_BYTES =
+        JsonStatsFrames.ascii("io_service_bytes_recursive");
+
+    /**
+     * Key "op".
+     */
+    private static final byte[] OP = JsonStatsFrames.ascii("op");
+
+    /**
+     * Key "value".
+     */
+    private static final byte[] VALUE = JsonStatsFrames.ascii("value");
+
+    /**
+     * Key "networks".
+     */
+    private static final byte[] NETWORKS =
+        JsonStatsFrames.ascii("networks");
+
+    /**
+     * Key "rx_bytes".
+     */
+    private static final byte[] RX_BYTES =
+        JsonStatsFrames.ascii("rx_bytes");
+
+    /**
+     * Key "tx_bytes".
+     */
+    private static final byte[] TX_BYTES =
+        JsonStatsFrames.ascii("tx_bytes");
+
+    /**
+     * Operation "write".
+     */
+    private static final byte[] WRITE = JsonStatsFrames.ascii("write");
+
+    /**
+     * Streamed content.
+     */
+    private final InputStream content;
+
+    /**
+     * Buffer with the content which was read but not yet decoded.
+     */
+    private byte[] buffer;
+
+    /**
+     * Start of the undecoded content in the buffer.
+     */
+    private int start;
+
+    /**
+     * End of the content in the buffer.
+     */
+    private int end;
+
+    /**
+     * Up to where the undecoded content was searched for a newline.
+     */
+    private int scanned;
+
+    /**
+     * Did the content end?
+     */
+    private boolean ended;
+
+    /**
+     * Position of the scanner, in the current frame.
+     */
+    private int pos;
+
+    /**
+     * End of the current frame.
+     */
+    private int limit;
+
+    /**
+     * Start of the last scanned key.
+     */
+    private int key;
+
+    /**
+     * End of the last scanned key.
+     */
+    private int keyEnd;
+
+    /**
+     * Field "read", in nanoseconds since the epoch.
+     */
+    private long read;
+
+    /**
+     * Field "cpu_stats.cpu_usage.total_usage".
+     */
+    private long cpuTotal;
+
+    /**
+     * Field "precpu_stats.cpu_usage.total_usage".
+     */
+    private long preCpuTotal;
+
+    /**
+     * Field "cpu_stats.system_cpu_usage".
+     */
+    private long systemCpu;
+
+    /**
+     * Field "precpu_stats.system_cpu_usage".
+     */
+    private long preSystemCpu;
+
+    /**
+     * Field "cpu_stats.online_cpus".
+     */
+    private int online;
+
+    /**
+     * Length of "cpu_stats.cpu_usage.percpu_usage".
+     */
+    private int percpu;
+
+    /**
+     * Field "memory_stats.usage".
+     */
+    private long memory;
+
+    /**
+     * Field "memory_stats.limit".
+     */
+    private long memoryLimit;
+
+    /**
+     * Field "memory_stats.stats.inactive_file", -1 if missing.
+     */
+    private long inactive;
+
+    /**
+     * Field "memory_stats.stats.total_inactive_file", -1 if missing.
+     */
+    private long totalInactive;
+
+    /**
+     * Sum of "networks.*.rx_bytes".
+     */
+    private long networkRx;
+
+    /**
+     * Sum of "networks.*.tx_bytes".
+     */
+    private long networkTx;
+
+    /**
+     * Sum of the "read" values of "blkio_stats.io_service_bytes_recursive".
+     */
+    private long blockRead;
+
+    /**
+     * Sum of the "write" values of "blkio_stats.io_service_bytes_recursive".
+     */
+    private long blockWrite;
+
+    /**
+     * Field "pids_stats.current".
+     */
+    private long pids;
+
+    /**
+     * Ctor.
+     * @param content Newline-delimited stats frames.
+     */
+    JsonStatsFrames(final InputStream content) {
+        this(content, DEFAULT_SIZE);
+    }
+
+    /**
+     * Ctor.
+     * @param content Newline-delimited stats frames.
+     * @param size Initial size of the buffer.
+     */
+    JsonStatsFrames(final InputStream content, final int size) {
+        this.content = content;
+        this.buffer = new byte[size];
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        boolean found = false;
+        while (!found && !this.ended) {
+            final int newline = this.newline();
+            if (newline >= 0) {
+                found = this.decode(this.start, newline);
+                this.start = newline + 1;
+                this.scanned = this.start;
+            } else if (!this.fill()) {
+                this.ended = true;
+                found = this.decode(this.start, this.end);
+                this.start = this.end;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public long read() {
+        return this.read;
+    }
+
+    @Override
+    public long cpuTotal() {
+        return this.cpuTotal;
+    }
+
+    @Override
+    public long systemCpu() {
+        return this.systemCpu;
+    }
+
+    @Override
+    public long cpuDelta() {
+        long delta = 0;
+        if (this.preSystemCpu > 0 && this.cpuTotal > this.preCpuTotal) {
+            delta = this.cpuTotal - this.preCpuTotal;
+        }
+        return delta;
+    }
+
+    @Override
+    public long systemCpuDelta() {
+        long delta = 0;
+        if (this.preSystemCpu > 0 && this.systemCpu > this.preSystemCpu) {
+            delta = this.systemCpu - this.preSystemCpu;
+        }
+        return delta;
+    }
+
+    @Override
+    public int onlineCpus() {
+        final int cpus;
+        if (this.online > 0) {
+            cpus = this.online;
+        } else {
+            cpus = this.percpu;
+        }
+        return cpus;
+    }
+
+    @Override
+    public double cpuPercent() {
+        final long system = this.systemCpuDelta();
+        double percent = 0;
+        if (system > 0) {
+            percent = (double) this.cpuDelta() / system
+                * this.onlineCpus() * 100.0;
+        }
+        return percent;
+    }
+
+    @Override
+    public long memoryUsage() {
+        final long cache;
+        if (this.totalInactive >= 0) {
+            cache = this.totalInactive;
+        } else {
+            cache = this.inactive;
+        }
+        long used = this.memory;
+        if (cache > 0 && cache < used) {
+            used = used - cache;
+        }
+        return used;
+    }
+
+    @Override
+    public long memoryLimit() {
+        return this.memoryLimit;
+    }
+
+    @Override
+    public long networkRx() {
+        return this.networkRx;
+    }
+
+    @Override
+    public long networkTx() {
+        return this.networkTx;
+    }
+
+    @Override
+    public long blockRead() {
+        return this.blockRead;
+    }
+
+    @Override
+    public long blockWrite() {
+        return this.blockWrite;
+    }
+
+    @Override
+    public long pids() {
+        return this.pids;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.ended = true;
+        this.content.close();
+    }
+
+    /**
+     * Decode the frame between the given indexes of the buffer.
+     * @param from Start of the frame.
+     * @param until End of the frame (exclusive).
+     * @return True if there was a frame, false if the line was blank.
+     */
+    private boolean decode(final int from, final int until) {
+        int first = from;
+        while (first < until && this.buffer[first] <= ' ') {
+            first = first + 1;
+        }
+        final boolean found = first < until;
+        if (found) {
+            this.reset();
+            this.pos = first;
+            this.limit = until;
+            try {
+                this.root();
+            } catch (final IllegalStateException ex) {
+                throw new IllegalStateException(
+                    "Could not parse streamed stats: " + new String(
+                        this.buffer, first, until - first,
+                        StandardCharsets.UTF_8
+                    ),
+                    ex
+                );
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Forget the fields of the previous frame.
+     */
+    private void reset() {
+        this.read = 0;
+        this.cpuTotal = 0;
+        this.preCpuTotal = 0;
+        this.systemCpu = 0;
+        this.preSystemCpu = 0;
+        this.online = 0;
+        this.percpu = 0;
+        this.memory = 0;
+        this.memoryLimit = 0;
+        this.inactive = -1;
+        this.totalInactive = -1;
+        this.networkRx = 0;
+        this.networkTx = 0;
+        this.blockRead = 0;
+        this.blockWrite = 0;
+        this.pids = 0;
+    }
+
+    /**
+     * The whole frame.
+     */
+    private void root() {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(READ)) {
+                    this.read = this.instant();
+                } else if (this.key(CPU_STATS)) {
+                    this.cpu(false);
+                } else if (this.key(PRECPU_STATS)) {
+                    this.cpu(true);
+                } else if (this.key(MEMORY_STATS)) {
+                    this.memory();
+                } else if (this.key(PIDS_STATS)) {
+                    this.processes();
+                } else if (this.key(BLKIO_STATS)) {
+                    this.blkio();
+                } else if (this.key(NETWORKS)) {
+                    this.networks();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * Object "cpu_stats" or "precpu_stats".
+     * @param pre Is it "precpu_stats"?
+     */
+    private void cpu(final boolean pre) {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(CPU_USAGE)) {
+                    this.usage(pre);
+                } else if (this.key(SYSTEM_CPU_USAGE)) {
+                    final long system = this.number();
+                    if (pre) {
+                        this.preSystemCpu = system;
+                    } else {
+                        this.systemCpu = system;
+                    }
+                } else if (!pre && this.key(ONLINE_CPUS)) {
+                    this.online = (int) this.number();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * Object "cpu_usage".
+     * @param pre Is it in "precpu_stats"?
+     */
+    private void usage(final boolean pre) {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(TOTAL_USAGE)) {
+                    final long total = this.number();
+                    if (pre) {
+                        this.preCpuTotal = total;
+                    } else {
+                        this.cpuTotal = total;
+                    }
+                } else if (!pre && this.key(PERCPU_USAGE)) {
+                    this.percpu = this.count();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * Object "memory_stats".
+     */
+    private void memory() {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(USAGE)) {
+                    this.memory = this.number();
+                } else if (this.key(LIMIT)) {
+                    this.memoryLimit = this.number();
+                } else if (this.key(STATS)) {
+                    this.cache();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * Object "memory_stats.stats".
+     */
+    private void cache() {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(INACTIVE_FILE)) {
+                    this.inactive = this.number();
+                } else if (this.key(TOTAL_INACTIVE_FILE)) {
+                    this.totalInactive = this.number();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * Object "pids_stats".
+     */
+    private void processes() {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(CURRENT)) {
+                    this.pids = this.number();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * Object "blkio_stats". On cgroup v2 the lists may be null.
+     */
+    private void blkio() {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(IO_SERVICE_BYTES)) {
+                    if (this.array()) {
+                        while (this.element()) {
+                            this.io();
+                        }
+                    }
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * One entry of "io_service_bytes_recursive": the operation
+     * comes before or after its value.
+     */
+    private void io() {
+        int operation = 0;
+        long value = 0;
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(OP)) {
+                    operation = this.operation();
+                } else if (this.key(VALUE)) {
+                    value = this.number();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+        if (operation == OP_READ) {
+            this.blockRead = this.blockRead + value;
+        } else if (operation == OP_WRITE) {
+            this.blockWrite = this.blockWrite + value;
+        }
+    }
+
+    /**
+     * Object "networks", with one object per interface.
+     */
+    private void networks() {
+        if (this.object()) {
+            while (this.member()) {
+                this.network();
+            }
+        }
+    }
+
+    /**
+     * The counters of one network interface.
+     */
+    private void network() {
+        if (this.object()) {
+            while (this.member()) {
+                if (this.key(RX_BYTES)) {
+                    this.networkRx = this.networkRx + this.number();
+                } else if (this.key(TX_BYTES)) {
+                    this.networkTx = this.networkTx + this.number();
+                } else {
+                    this.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * Enter an object. If the value is not an object (e.g. null),
+     * it is skipped.
+     * @return True if an object was entered.
+     */
+    private boolean object() {
+        final boolean object = this.peek() == '{';
+        if (object) {
+            this.pos = this.pos + 1;
+        } else {
+            this.skip();
+        }
+        return object;
+    }
+
+    /**
+     * Enter an array. If the value is not an array (e.g. null),
+     * it is skipped.
+     * @return True if an array was entered.
+     */
+    private boolean array() {
+        final boolean array = this.peek() == '[';
+        if (array) {
+            this.pos = this.pos + 1;
+        } else {
+            this.skip();
+        }
+        return array;
+    }
+
+    /**
+     * Move to the next member of the current object, scanning its key
+     * and the colon after it.
+     * @return True if there is a member, false if the object ended.
+     */
+    private boolean member() {
+        byte next = this.peek();
+        if (next == ',') {
+            this.pos = this.pos + 1;
+            next = this.peek();
+        }
+        final boolean member = next != '}';
+        if (member) {
+            if (next != '"') {
+                throw new IllegalStateException("Key expected at " + this.pos);
+            }
+            this.key = this.pos + 1;
+            this.keyEnd = this.string();
+            if (this.peek() != ':') {
+                throw new IllegalStateException(
+                    "Colon expected at " + this.pos
+                );
+            }
+            this.pos = this.pos + 1;
+        } else {
+            this.pos = this.pos + 1;
+        }
+        return member;
+    }
+
+    /**
+     * Move to the next element of the current array.
+     * @return True if there is an element, false if the array ended.
+     */
+    private boolean element() {
+        byte next = this.peek();
+        if (next == ',') {
+            this.pos = this.pos + 1;
+            next = this.peek();
+        }
+        final boolean element = next != ']';
+        if (!element) {
+            this.pos = this.pos + 1;
+        }
+        return element;
+    }
+
+    /**
+     * Is the last scanned key the given one?
+     * @param name Key, in ASCII.
+     * @return True or false.
+     */
+    private boolean key(final byte[] name) {
+        boolean equal = this.keyEnd - this.key == name.length;
+        for (int idx = 0; equal && idx < name.length; ++idx) {
+            equal = this.buffer[this.key + idx] == name[idx];
+        }
+        return equal;
+    }
+
+    /**
+     * Scan an integer. Fractions are truncated, anything which
+     * is not a number (e.g. null) is skipped and read as 0.
+     * @return The number.
+     */
+    private long number() {
+        final byte first = this.peek();
+        long number = 0;
+        if (first == '-' || first >= '0' && first <= '9') {
+            int idx = this.pos;
+            if (first == '-') {
+                idx = idx + 1;
+            }
+            while (idx < this.limit
+                && this.buffer[idx] >= '0' && this.buffer[idx] <= '9') {
+                number = number * 10 + this.buffer[idx] - '0';
+                idx = idx + 1;
+            }
+            if (first == '-') {
+                number = -number;
+            }
+            this.pos = idx;
+            this.skip();
+        } else {
+            this.skip();
+        }
+        return number;
+    }
+
+    /**
+     * Count the elements of an array, skipping them.
+     * @return Number of elements, 0 if the value is not an array.
+     */
+    private int count() {
+        int count = 0;
+        if (this.array()) {
+            while (this.element()) {
+                this.skip();
+                count = count + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Scan the operation of a block I/O entry. Docker writes it
+     * as "Read"/"Write" on cgroup v1 and "read"/"write" on cgroup v2.
+     * @return OP_READ, OP_WRITE or 0 if it is another operation.
+     */
+    private int operation() {
+        int operation = 0;
+        if (this.peek() == '"') {
+            final int from = this.pos + 1;
+            final int until = this.string();
+            if (this.word(from, until, READ)) {
+                operation = OP_READ;
+            } else if (this.word(from, until, WRITE)) {
+                operation = OP_WRITE;
+            }
+        } else {
+            this.skip();
+        }
+        return operation;
+    }
+
+    /**
+     * Are the given bytes of the buffer the given lowercase ASCII word,
+     * ignoring the case?
+     * @param from Start in the buffer.
+     * @param until End in the buffer (exclusive).
+     * @param word Lowercase word.
+     * @return True or false.
+     */
+    private boolean word(final int from, final int until, final byte[] word) {
+        boolean equal = until - from == word.length;
+        for (int idx = 0; equal && idx < word.length; ++idx) {
+            equal = (this.buffer[from + idx] | 0x20) == word[idx];
+        }
+        return equal;
+    }
+
+    /**
+     * Scan an RFC 3339 timestamp, such as 2015-01-08T22:57:31.547920715Z.
+     * @return Nanoseconds since the epoch, 0 if the value is not a
+     *  timestamp or if it is before the epoch (Docker's zero time).
+     */
+    private long instant() {
+        long nanos = 0;
+        if (this.peek() == '"') {
+            final int from = this.pos + 1;
+            final int until = this.string();
+            if (until - from >= 19) {
+                nanos = this.timestamp(from, until);
+            }
+        } else {
+            this.skip();
+        }
+        return nanos;
+    }
+
+    /**
+     * Decode a timestamp, without allocating.
+     * @param from Start in the buffer.
+     * @param until End in the buffer (exclusive).
+     * @return Nanoseconds since the epoch, or 0 if before the epoch.
+     */
+    private long timestamp(final int from, final int until) {
+        int idx = from + 19;
+        long fraction = 0;
+        int digits = 0;
+        if (idx < until && this.buffer[idx] == '.') {
+            idx = idx + 1;
+            while (idx < until
+                && this.buffer[idx] >= '0' && this.buffer[idx] <= '9') {
+                if (digits < 9) {
+                    fraction = fraction * 10 + this.buffer[idx] - '0';
+                    digits = digits + 1;
+                }
+                idx = idx + 1;
+            }
+        }
+        while (digits < 9) {
+            fraction = fraction * 10;
+            digits = digits + 1;
+        }
+        long offset = 0;
+        if (idx + 5 < until
+            && (this.buffer[idx] == '+' || this.buffer[idx] == '-')) {
+            offset = (this.digits(idx + 1, 2) * 60
+                + this.digits(idx + 4, 2)) * 60;
+            if (this.buffer[idx] == '-') {
+                offset = -offset;
+            }
+        }
+        final long seconds = JsonStatsFrames.days(
+            this.digits(from, 4), this.digits(from + 5, 2),
+            this.digits(from + 8, 2)
+        ) * 86_400L
+            + this.digits(from + 11, 2) * 3600
+            + this.digits(from + 14, 2) * 60
+            + this.digits(from + 17, 2)
+            - offset;
+        long nanos = 0;
+        if (seconds > 0) {
+            nanos = seconds * NANOS + fraction;
+        }
+        return nanos;
+    }
+
+    /**
+     * Decode some decimal digits.
+     * @param from Start in the buffer.
+     * @param count How many digits.
+     * @return The number.
+     */
+    private long digits(final int from, final int count) {
+        long number = 0;
+        for (int idx = from; idx < from + count; ++idx) {
+            final int digit = this.buffer[idx] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalStateException(
+                    "Digit expected at " + idx
+                );
+            }
+            number = number * 10 + digit;
+        }
+        return number;
+    }
+
+    /**
+     * Skip any value.
+     */
+    private void skip() {
+        final byte first = this.peek();
+        if (first == '"') {
+            this.string();
+        } else if (first == '{' || first == '[') {
+            int depth = 0;
+            do {
+                final byte current = this.at(this.pos);
+                if (current == '"') {
+                    this.string();
+                } else {
+                    if (current == '{' || current == '[') {
+                        depth = depth + 1;
+                    } else if (current == '}' || current == ']') {
+                        depth = depth - 1;
+                    }
+                    this.pos = this.pos + 1;
+                }
+            } while (depth > 0);
+        } else {
+            while (this.pos < this.limit
+                && this.buffer[this.pos] != ','
+                && this.buffer[this.pos] != '}'
+                && this.buffer[this.pos] != ']'
+                && this.buffer[this.pos] > ' ') {
+                this.pos = this.pos + 1;
+            }
+        }
+    }
+
+    /**
+     * Skip a string, starting at its opening quote.
+     * @return Index of its closing quote.
+     */
+    private int string() {
+        int idx = this.pos + 1;
+        while (this.at(idx) != '"') {
+            if (this.buffer[idx] == '\\') {
+                idx = idx + 1;
+            }
+            idx = idx + 1;
+        }
+        this.pos = idx + 1;
+        return idx;
+    }
+
+    /**
+     * Skip the whitespace and look at the next byte.
+     * @return The next byte.
+     */
+    private byte peek() {
+        while (this.at(this.pos) <= ' ') {
+            this.pos = this.pos + 1;
+        }
+        return this.buffer[this.pos];
+    }
+
+    /**
+     * The byte at the given index of the current frame.
+     * @param index Index in the buffer.
+     * @return The byte.
+     */
+    private byte at(final int index) {
+        if (index >= this.limit) {
+            throw new IllegalStateException("Unexpected end of frame");
+        }
+        return this.buffer[index];
+    }
+
+    /**
+     * Find the next newline in the buffer, starting from where the
+     * previous search stopped.
+     * @return Index of the newline or -1 if there is none.
+     */
+    private int newline() {
+        int found = -1;
+        while (found < 0 && this.scanned < this.end) {
+            if (this.buffer[this.scanned] == '\n') {
+                found = this.scanned;
+            } else {
+                this.scanned = this.scanned + 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Read more content into the buffer, after moving the undecoded
+     * content at its start. The buffer grows only if it is full.
+     * @return True if something was read, false if the content ended.
+     * @throws IOException If something goes wrong.
+     */
+    private boolean fill() throws IOException {
+        if (this.start > 0) {
+            System.arraycopy(
+                this.buffer, this.start, this.buffer, 0, this.end - this.start
+            );
+            this.end = this.end - this.start;
+            this.scanned = this.scanned - this.start;
+            this.start = 0;
+        }
+        if (this.end == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        }
+        final int read = this.content.read(
+            this.buffer, this.end, this.buffer.length - this.end
+        );
+        final boolean more = read >= 0;
+        if (more) {
+            this.end = this.end + read;
+        }
+        return more;
+    }
+
+    /**
+     * Bytes of an ASCII string.
+     * @param text ASCII string.
+     * @return Bytes.
+     */
+    private static byte[] ascii(final String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Days since the epoch of a date in the proleptic Gregorian calendar.
+     * @param year Year.
+     * @param month Month, 1 to 12.
+     * @param day Day of the month.
+     * @return Days since 1970-01-01.
+     * @see <a href="https://howardhinnant.github.io/date_algorithms.html">Date algorithms</a>
+     */
+    private static long days(final long year, final long month,
+        final long day) {
+        final long shifted;
+        if (month <= 2) {
+            shifted = year - 1;
+        } else {
+            shifted = year;
+        }
+        final long era = Math.floorDiv(shifted, 400L);
+        final long yoe = shifted - era * 400;
+        final long doy;
+        if (month > 2) {
+            doy = (153 * (month - 3) + 2) / 5 + day - 1;
+        } else {
+            doy = (153 * (month + 9) + 2) / 5 + day - 1;
+        }
+        final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097 + doe - 719_468;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.function.Consumer;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * Hands the pull progress entries over to a {@link PullProgress}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class LayerProgress implements Consumer<JsonObject> {
+
+    /**
+     * Receives the progress.
+     */
+    private final PullProgress progress;
+
+    /**
+     * Ctor.
+     * @param progress Receives the progress.
+     */
+    LayerProgress(final PullProgress progress) {
+        this.progress = progress;
+    }
+
+    @Override
+    public void accept(final JsonObject entry) {
+        final JsonValue detail = entry.get("progressDetail");
+        long current = 0;
+        long total = 0;
+        if (detail instanceof JsonObject) {
+            current = LayerProgress.number((JsonObject) detail, "current");
+            total = LayerProgress.number((JsonObject) detail, "total");
+        }
+        this.progress.progress(
+            entry.getString("id", ""), entry.getString("status", ""),
+            current, total
+        );
+    }
+
+    /**
+     * Number attribute, 0 if missing.
+     * @param json JsonObject.
+     * @param name Name of the attribute.
+     * @return Number.
+     */
+    private static long number(final JsonObject json, final String name) {
+        final JsonValue value = json.get(name);
+        final long number;
+        if (value instanceof JsonNumber) {
+            number = ((JsonNumber) value).longValue();
+        } else {
+            number = 0;
+        }
+        return number;
+    }
+}
@@ -29,11 +29,15 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
 
+import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.stream.Stream;
+import javax.json.JsonObject;
 
 /**
  * Listed containers, which may have filters applied.
@@ -83,30 +87,73 @@ final class ListedContainers extends RtContainers {
 
     @Override
     public Iterator<Container> iterator() {
-        final URIBuilder uriBuilder = new UncheckedUriBuilder(
-            super.baseUri().toString().concat("/json")
-        );
-        if (this.withSize) {
-            uriBuilder.addParameter("size", "true");
-        }
-        final FilteredUriBuilder uri = new FilteredUriBuilder(
-            uriBuilder,
-            this.filters);
-        
         return new ResourcesIterator<>(
             super.client(),
-            new HttpGet(uri.build()),
-            json -> new RtContainer(
-                json,
-                super.client(),
-                URI.create(
-                    super.baseUri().toString() + "/" + json.getString("Id")
-                ),
-                super.docker()
-            )
+            new HttpGet(this.listUri(false)),
+            this::container
         );
     }
 
+    @Override
+    public Stream<Container> stream() {
+        return new StreamedResources<>(
+            super.client(),
+            new HttpGet(this.listUri(false)),
+            this::container
+        ).stream();
+    }
+
+    @Override
+    public Stream<Container> streamAll() {
+        return new StreamedResources<>(
+            super.client(),
+            new HttpGet(this.listUri(true)),
+            this::container
+        ).stream();
+    }
+
+    @Override
+    public ContainerCache cache()
+        throws IOException, UnexpectedResponseException {
+        return this.cache(Duration.ofMinutes(5));
+    }
+
+    @Override
+    public ContainerCache cache(final Duration resync)
+        throws IOException, UnexpectedResponseException {
+        return new CachedContainers(
+            this, super.docker().eventHub(), resync
+        ).start();
+    }
+
+    @Override
+    public StatsSampler sampler(
+        final Duration period, final int concurrency, final double rate,
+        final int capacity
+    ) throws IOException, UnexpectedResponseException {
+        final ContainerCache cache = this.cache();
+        try {
+            return new RoundRobinStats(
+                cache, period, concurrency, rate, capacity
+            ).start();
+        } catch (final IllegalArgumentException ex) {
+            cache.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public ExecBatch exec(
+        final JsonObject config, final int parallelism, final int limit,
+        final Duration timeout
+    ) {
+        return new ParallelExecs(
+            this.docker().async(Runnable::run).docker().containers()
+                .filter(this.filters),
+            config, parallelism, limit, timeout
+        ).start();
+    }
+
     @Override
     public Containers withSize(final boolean newWithSize) {
         return new ListedContainers(
@@ -120,28 +167,10 @@ final class ListedContainers extends RtContainers {
 
     @Override
     public Iterator<Container> all() {
-        final URIBuilder uriBuilder = new UncheckedUriBuilder(
-            super.baseUri().toString().concat("/json")
-        );
-        uriBuilder.addParameter("all", "true");
-        if (this.withSize) {
-            uriBuilder.addParameter("size", "true");
-        }
-        final FilteredUriBuilder uri = new FilteredUriBuilder(
-            uriBuilder,
-            this.filters);
-
         return new ResourcesIterator<>(
             super.client(),
-            new HttpGet(uri.build()),
-            json -> new RtContainer(
-                json,
-                super.client(),
-                URI.create(
-                    super.baseUri().toString() + "/" + json.getString("Id")
-                ),
-                super.docker()
-            )
+            new HttpGet(this.listUri(true)),
+            this::container
         );
     }
 
@@ -159,4 +188,38 @@ final class ListedContainers extends RtContainers {
             this.withSize
         );
     }
+
+    /**
+     * Build the URI for listing these Containers.
+     * @param all Should stopped containers be listed too?
+     * @return URI.
+     */
+    private URI listUri(final boolean all) {
+        final URIBuilder uriBuilder = new UncheckedUriBuilder(
+            super.baseUri().toString().concat("/json")
+        );
+        if (all) {
+            uriBuilder.addParameter("all", "true");
+        }
+        if (this.withSize) {
+            uriBuilder.addParameter("size", "true");
+        }
+        return new FilteredUriBuilder(uriBuilder, this.filters).build();
+    }
+
+    /**
+     * Map a listed JsonObject to a Container.
+     * @param json Container as listed by the Docker engine.
+     * @return Container.
+     */
+    private Container container(final JsonObject json) {
+        return new RtContainer(
+            json,
+            super.client(),
+            URI.create(
+                super.baseUri().toString() + "/" + json.getString("Id")
+            ),
+            super.docker()
+        );
+    }
 }
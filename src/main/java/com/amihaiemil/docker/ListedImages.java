@@ -30,6 +30,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.stream.Stream;
+import javax.json.JsonObject;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 
@@ -74,26 +76,22 @@ final class ListedImages extends RtImages {
 
     @Override
     public Iterator<Image> iterator() {
-        final FilteredUriBuilder uri = new FilteredUriBuilder(
-            new UncheckedUriBuilder(
-                super.baseUri().toString().concat("/json")
-            ),
-            this.filters);
-        
         return new ResourcesIterator<>(
             super.client(),
-            new HttpGet(uri.build()),
-            img -> new RtImage(
-                img,
-                super.client(),
-                URI.create(
-                    super.baseUri().toString() + "/" + img.getString("Id")
-                ),
-                super.docker()
-            )
+            new HttpGet(this.listUri()),
+            this::image
         );
     }
 
+    @Override
+    public Stream<Image> stream() {
+        return new StreamedResources<>(
+            super.client(),
+            new HttpGet(this.listUri()),
+            this::image
+        ).stream();
+    }
+
     @Override
     public Images filter(final Map<String, Iterable<String>> fltrs) {
         final Map<String, Iterable<String>> merged = new HashMap<>(
@@ -107,4 +105,33 @@ final class ListedImages extends RtImages {
             merged
         );
     }
+
+    /**
+     * Build the URI for listing these Images.
+     * @return URI.
+     */
+    private URI listUri() {
+        return new FilteredUriBuilder(
+            new UncheckedUriBuilder(
+                super.baseUri().toString().concat("/json")
+            ),
+            this.filters
+        ).build();
+    }
+
+    /**
+     * Map a listed JsonObject to an Image.
+     * @param json Image as listed by the Docker engine.
+     * @return Image.
+     */
+    private Image image(final JsonObject json) {
+        return new RtImage(
+            json,
+            super.client(),
+            URI.create(
+                super.baseUri().toString() + "/" + json.getString("Id")
+            ),
+            super.docker()
+        );
+    }
 }
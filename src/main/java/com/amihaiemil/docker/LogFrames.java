@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Frames of a multiplexed stream, as sent by Docker for logs and attached
+ * execs. Every frame comes from one of the container's standard streams.<br>
+ * <br>
+ * The frames are decoded in one reusable buffer, so a payload is only valid
+ * until the next call of {@link #next()}. A frame bigger than the buffer is
+ * delivered in more consecutive payloads, of the same stream type.
+ * Example:
+ * <pre>
+ *   try (final LogFrames frames = container.logs().frames()) {
+ *       while (frames.next()) {
+ *           if (frames.type() == LogFrames.StreamType.STDERR) {
+ *               errors.write(frames.payload());
+ *           }
+ *       }
+ *   }
+ * </pre>
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface LogFrames extends Closeable {
+
+    /**
+     * Move to the next payload.
+     * @return True if there is a next payload, false if the stream ended.
+     * @throws IOException If something goes wrong.
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Stream type of the current payload.
+     * @return StreamType.
+     */
+    StreamType type();
+
+    /**
+     * Current payload, from position 0 to its limit. Do not keep it
+     * after calling {@link #next()}, since the underlying buffer is reused.
+     * @return ByteBuffer.
+     */
+    ByteBuffer payload();
+
+    /**
+     * Stream from which a frame comes.
+     */
+    enum StreamType {
+        /**
+         * Standard input (written on stdout).
+         */
+        STDIN,
+
+        /**
+         * Standard output.
+         */
+        STDOUT,
+
+        /**
+         * Standard error.
+         */
+        STDERR
+    }
+}
@@ -54,6 +54,17 @@ public interface Logs {
      */
     Reader follow() throws IOException, UnexpectedResponseException;
 
+    /**
+     * Follow the logs, frame by frame, knowing which frame comes
+     * from stdout and which from stderr. Close the frames when done,
+     * since they hold an HTTP connection.
+     * @return LogFrames.
+     * @throws IOException If something goes wrong.
+     * @throws UnexpectedResponseException If the status response is not
+     *  the expected one.
+     */
+    LogFrames frames() throws IOException, UnexpectedResponseException;
+
     /**
      * Show stdout logs only.
      * @return New Logs instance.
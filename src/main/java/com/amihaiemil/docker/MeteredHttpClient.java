@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * HttpClient which reports the metrics of every call to an
+ * {@link ApiMetrics}, by endpoint template (see {@link EndpointTemplate}).
+ * The latency is measured until the response headers arrive. The bytes
+ * received are taken from the Content-Length, when Docker sends it;
+ * otherwise they are counted and reported when the response body is
+ * consumed or closed.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class MeteredHttpClient extends HttpClientEnvelope {
+
+    /**
+     * Where the metrics go.
+     */
+    private final ApiMetrics metrics;
+
+    /**
+     * Endpoint template of a request.
+     */
+    private final Function<HttpRequest, String> templates;
+
+    /**
+     * Ctor.
+     * @param client Decorated HttpClient.
+     * @param metrics Where the metrics go.
+     */
+    MeteredHttpClient(
+        final Supplier<HttpClient> client, final ApiMetrics metrics
+    ) {
+        this(client, metrics, new EndpointTemplate());
+    }
+
+    /**
+     * Ctor.
+     * @param client Decorated HttpClient.
+     * @param metrics Where the metrics go.
+     * @param templates Endpoint template of a request.
+     */
+    MeteredHttpClient(
+        final Supplier<HttpClient> client, final ApiMetrics metrics,
+        final Function<HttpRequest, String> templates
+    ) {
+        super(client);
+        this.metrics = metrics;
+        this.templates = templates;
+    }
+
+    @Override
+    public HttpResponse execute(final HttpUriRequest request)
+        throws IOException {
+        final Call call = new Call(request);
+        try {
+            return call.response(super.execute(request));
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpUriRequest request, final HttpContext context
+    ) throws IOException {
+        final Call call = new Call(request);
+        try {
+            return call.response(super.execute(request, context));
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpHost target, final HttpRequest request
+    ) throws IOException {
+        final Call call = new Call(request);
+        try {
+            return call.response(super.execute(target, request));
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpHost target, final HttpRequest request,
+        final HttpContext context
+    ) throws IOException {
+        final Call call = new Call(request);
+        try {
+            return call.response(super.execute(target, request, context));
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        final Call call = new Call(request);
+        try {
+            return super.execute(request, call.handler(handler));
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler,
+        final HttpContext context
+    ) throws IOException {
+        final Call call = new Call(request);
+        try {
+            return super.execute(request, call.handler(handler), context);
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpHost target, final HttpRequest request,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        final Call call = new Call(request);
+        try {
+            return super.execute(target, request, call.handler(handler));
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    // @checkstyle ParameterNumber (5 lines)
+    @Override
+    public <T> T execute(
+        final HttpHost target, final HttpRequest request,
+        final ResponseHandler<? extends T> handler,
+        final HttpContext context
+    ) throws IOException {
+        final Call call = new Call(request);
+        try {
+            return super.execute(
+                target, request, call.handler(handler), context
+            );
+        } catch (final IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    /**
+     * One metered call.
+     */
+    private final class Call {
+
+        /**
+         * Endpoint template.
+         */
+        private final String endpoint;
+
+        /**
+         * When the call started, in nanoseconds.
+         */
+        private final long start;
+
+        /**
+         * Length of the request body, -1 if it is counted while sent.
+         */
+        private final long length;
+
+        /**
+         * Request body counted while sent, or null.
+         */
+        private final CountedEntity body;
+
+        /**
+         * Was the call recorded?
+         */
+        private boolean recorded;
+
+        /**
+         * Ctor.
+         * @param request Request.
+         */
+        Call(final HttpRequest request) {
+            this.endpoint = MeteredHttpClient.this.templates.apply(request);
+            HttpEntity entity = null;
+            if (request instanceof HttpEntityEnclosingRequest) {
+                entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            }
+            if (entity == null) {
+                this.length = 0;
+                this.body = null;
+            } else if (entity.getContentLength() >= 0) {
+                this.length = entity.getContentLength();
+                this.body = null;
+            } else {
+                this.length = -1;
+                this.body = new CountedEntity(entity, bytes -> { });
+                ((HttpEntityEnclosingRequest) request).setEntity(this.body);
+            }
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Record the response and count its body.
+         * @param response Response, with the headers arrived.
+         * @return The response.
+         */
+        HttpResponse response(final HttpResponse response) {
+            final long nanos = System.nanoTime() - this.start;
+            this.recorded = true;
+            MeteredHttpClient.this.metrics.called(
+                this.endpoint, response.getStatusLine().getStatusCode(),
+                nanos, this.sent()
+            );
+            final HttpEntity entity = response.getEntity();
+            if (entity != null && entity.getContentLength() >= 0) {
+                MeteredHttpClient.this.metrics.received(
+                    this.endpoint, entity.getContentLength()
+                );
+            } else if (entity != null) {
+                response.setEntity(
+                    new CountedEntity(
+                        entity,
+                        bytes -> MeteredHttpClient.this.metrics.received(
+                            this.endpoint, bytes
+                        )
+                    )
+                );
+            }
+            return response;
+        }
+
+        /**
+         * Handler which records the response, then hands it over.
+         * @param handler Actual handler.
+         * @param <T> Type of the handled result.
+         * @return ResponseHandler.
+         */
+        <T> ResponseHandler<T> handler(
+            final ResponseHandler<? extends T> handler
+        ) {
+            return response -> handler.handleResponse(this.response(response));
+        }
+
+        /**
+         * Record the failure, if the call was not recorded already.
+         */
+        void failed() {
+            if (!this.recorded) {
+                this.recorded = true;
+                MeteredHttpClient.this.metrics.failed(
+                    this.endpoint, System.nanoTime() - this.start, this.sent()
+                );
+            }
+        }
+
+        /**
+         * Bytes sent in the request body.
+         * @return Bytes.
+         */
+        private long sent() {
+            final long sent;
+            if (this.body == null) {
+                sent = this.length;
+            } else {
+                sent = this.body.count();
+            }
+            return sent;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Byte-level decoder of Docker's multiplexed streams. Each frame has
+ * the header
+ * [8]byte{STREAM_TYPE, 0, 0, 0, SIZE1, SIZE2, SIZE3, SIZE4}
+ * STREAM_TYPE
+ * 0: stdin (is written on stdout)
+ * 1: stdout
+ * 2: stderr
+ *
+ * SIZE1, SIZE2, SIZE3, SIZE4 are the four bytes of the uint32 size
+ * encoded as big endian.<br><br>
+ *
+ * Containers with a TTY are not multiplexed: Docker sends their output raw.
+ * If the content type does not say which one it is, the first 8 bytes are
+ * checked; if they are not a valid header, the stream is read as raw stdout.
+ * <br><br>
+ * Nothing is allocated after construction: the header and the payloads
+ * are read in the same buffers every time.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class MultiplexedFrames implements LogFrames {
+
+    /**
+     * Content type of multiplexed streams.
+     */
+    static final String MULTIPLEXED =
+        "application/vnd.docker.multiplexed-stream";
+
+    /**
+     * Content type of raw streams.
+     */
+    static final String RAW = "application/vnd.docker.raw-stream";
+
+    /**
+     * Default size of the payload buffer.
+     */
+    private static final int DEFAULT_SIZE = 8192;
+
+    /**
+     * Size of a frame header.
+     */
+    private static final int HEADER = 8;
+
+    /**
+     * Stream types, by their byte in the header.
+     */
+    private static final StreamType[] TYPES = StreamType.values();
+
+    /**
+     * Multiplexed content.
+     */
+    private final InputStream content;
+
+    /**
+     * Buffer for the header.
+     */
+    private final byte[] header;
+
+    /**
+     * Buffer for the payloads.
+     */
+    private final byte[] buffer;
+
+    /**
+     * View over the payload buffer.
+     */
+    private final ByteBuffer view;
+
+    /**
+     * Type of the current frame.
+     */
+    private StreamType current;
+
+    /**
+     * Bytes of the current frame which were not read yet.
+     */
+    private long remaining;
+
+    /**
+     * Bytes already in the payload buffer, not yet returned
+     * (read while checking the first header of a raw stream).
+     */
+    private int pending;
+
+    /**
+     * Do we know if the content is raw or multiplexed?
+     */
+    private boolean known;
+
+    /**
+     * Is the content raw?
+     */
+    private boolean raw;
+
+    /**
+     * Ctor.
+     * @param entity Http entity with multiplexed (or raw) content.
+     * @throws IOException If the content cannot be read.
+     */
+    MultiplexedFrames(final HttpEntity entity) throws IOException {
+        this(
+            entity.getContent(),
+            ContentType.getOrDefault(entity).getMimeType()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param content Multiplexed (or raw) content.
+     */
+    MultiplexedFrames(final InputStream content) {
+        this(content, "");
+    }
+
+    /**
+     * Ctor.
+     * @param content Multiplexed (or raw) content.
+     * @param mime Mime type of the content, empty if unknown.
+     */
+    MultiplexedFrames(final InputStream content, final String mime) {
+        this(content, mime, DEFAULT_SIZE);
+    }
+
+    /**
+     * Ctor.
+     * @param content Multiplexed (or raw) content.
+     * @param mime Mime type of the content, empty if unknown.
+     * @param size Size of the payload buffer.
+     */
+    MultiplexedFrames(
+        final InputStream content, final String mime, final int size
+    ) {
+        if (size < HEADER) {
+            throw new IllegalArgumentException(
+                "Buffer size must be at least " + HEADER
+            );
+        }
+        this.content = content;
+        this.header = new byte[HEADER];
+        this.buffer = new byte[size];
+        this.view = ByteBuffer.wrap(this.buffer);
+        this.current = StreamType.STDOUT;
+        this.known = MULTIPLEXED.equals(mime) || RAW.equals(mime);
+        this.raw = RAW.equals(mime);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (!this.known) {
+            this.sniff();
+        }
+        final boolean next;
+        if (this.raw) {
+            next = this.nextRaw();
+        } else {
+            next = this.nextFrame();
+        }
+        return next;
+    }
+
+    @Override
+    public StreamType type() {
+        return this.current;
+    }
+
+    @Override
+    public ByteBuffer payload() {
+        ((Buffer) this.view).position(0);
+        return this.view;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.content.close();
+    }
+
+    /**
+     * Next payload of a multiplexed stream.
+     * @return True if there is one, false if the stream ended.
+     * @throws IOException If something goes wrong.
+     */
+    private boolean nextFrame() throws IOException {
+        boolean next = true;
+        while (next && this.remaining == 0) {
+            next = this.header(this.fill(this.header));
+        }
+        if (next) {
+            final int read = this.content.read(
+                this.buffer, 0,
+                (int) Math.min(this.buffer.length, this.remaining)
+            );
+            if (read < 0) {
+                next = false;
+            } else {
+                this.remaining = this.remaining - read;
+                this.limit(read);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Next payload of a raw stream.
+     * @return True if there is one, false if the stream ended.
+     * @throws IOException If something goes wrong.
+     */
+    private boolean nextRaw() throws IOException {
+        boolean next = true;
+        if (this.pending > 0) {
+            this.limit(this.pending);
+            this.pending = 0;
+        } else {
+            final int read = this.content.read(this.buffer);
+            if (read < 0) {
+                next = false;
+            } else {
+                this.limit(read);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Read the first 8 bytes and check whether they are a frame header.
+     * If not, keep them as the first payload of a raw stream.
+     * @throws IOException If something goes wrong.
+     */
+    private void sniff() throws IOException {
+        this.known = true;
+        final int read = this.fill(this.header);
+        if (read == HEADER && this.header[0] >= 0
+            && this.header[0] < TYPES.length && this.header[1] == 0
+            && this.header[2] == 0 && this.header[3] == 0) {
+            this.header(read);
+        } else {
+            this.raw = true;
+            this.current = StreamType.STDOUT;
+            System.arraycopy(this.header, 0, this.buffer, 0, read);
+            this.pending = read;
+        }
+    }
+
+    /**
+     * Parse the header which was just read.
+     * @param read How many bytes of the header could be read.
+     * @return True if the header is complete, false if the stream ended.
+     */
+    private boolean header(final int read) {
+        final boolean complete = read == HEADER;
+        if (complete) {
+            final int type = this.header[0];
+            if (type < 0 || type >= TYPES.length) {
+                throw new IllegalStateException(
+                    "Unknown stream type in multiplexed stream: " + type
+                );
+            }
+            this.current = TYPES[type];
+            this.remaining = (this.header[4] & 0xFFL) << 24
+                | (this.header[5] & 0xFFL) << 16
+                | (this.header[6] & 0xFFL) << 8
+                | this.header[7] & 0xFFL;
+        }
+        return complete;
+    }
+
+    /**
+     * Read into the given array until it is full or the stream ends.
+     * @param bytes Array to fill.
+     * @return How many bytes are in the array.
+     * @throws IOException If something goes wrong.
+     */
+    private int fill(final byte[] bytes) throws IOException {
+        int filled = 0;
+        int read = 0;
+        while (filled < bytes.length && read >= 0) {
+            read = this.content.read(bytes, filled, bytes.length - filled);
+            if (read > 0) {
+                filled = filled + read;
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * Set the limit of the payload view.
+     * @param length Length of the current payload.
+     */
+    private void limit(final int length) {
+        ((Buffer) this.view).limit(length);
+    }
+}
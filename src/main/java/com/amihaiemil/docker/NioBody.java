@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Body of a response of the {@link NioHttpClient}. The selector thread
+ * offers the bytes as they arrive and the caller reads them, blocking
+ * only its own thread. When more than the limit is buffered, the selector
+ * stops reading from the connection until the caller catches up.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class NioBody extends InputStream {
+
+    /**
+     * Buffered bytes.
+     */
+    private final Deque<byte[]> chunks;
+
+    /**
+     * Buffered bytes above which reading from the connection is paused.
+     */
+    private final long limit;
+
+    /**
+     * Milliseconds to wait for data, 0 means forever.
+     */
+    private final long timeout;
+
+    /**
+     * Who is told about the progress of the reader.
+     */
+    private final Owner owner;
+
+    /**
+     * Position in the first chunk.
+     */
+    private int offset;
+
+    /**
+     * Number of buffered bytes.
+     */
+    private long buffered;
+
+    /**
+     * Is reading from the connection paused?
+     */
+    private boolean paused;
+
+    /**
+     * Was the whole body received?
+     */
+    private boolean ended;
+
+    /**
+     * Was the stream closed by the reader?
+     */
+    private boolean closed;
+
+    /**
+     * Was the connection given back to the owner?
+     */
+    private boolean released;
+
+    /**
+     * Why the body could not be received.
+     */
+    private IOException failure;
+
+    /**
+     * Ctor.
+     * @param limit Buffered bytes above which reading is paused.
+     * @param timeout Milliseconds to wait for data, 0 means forever.
+     * @param owner Who is told about the progress of the reader.
+     */
+    NioBody(final long limit, final long timeout, final Owner owner) {
+        this.chunks = new ArrayDeque<>();
+        this.limit = limit;
+        this.timeout = timeout;
+        this.owner = owner;
+    }
+
+    /**
+     * Buffer some bytes of the body.
+     * @param bytes Bytes received.
+     * @return False if the connection should not be read anymore, until
+     *  {@link Owner#resume()} is called.
+     */
+    synchronized boolean offer(final ByteBuffer bytes) {
+        if (!this.closed && bytes.hasRemaining()) {
+            final byte[] chunk = new byte[bytes.remaining()];
+            bytes.get(chunk);
+            this.chunks.add(chunk);
+            this.buffered += chunk.length;
+            if (this.buffered >= this.limit) {
+                this.paused = true;
+            }
+            this.notifyAll();
+        }
+        return !this.paused;
+    }
+
+    /**
+     * The whole body was received. If the reader already read all of it,
+     * the connection is given back before the reader sees the end, so the
+     * next request of the same thread can reuse it.
+     */
+    void end() {
+        final boolean drained;
+        synchronized (this) {
+            drained = this.buffered == 0 && !this.released;
+            if (drained) {
+                this.released = true;
+            }
+        }
+        if (drained) {
+            this.owner.release(true);
+        }
+        final boolean release;
+        synchronized (this) {
+            this.ended = true;
+            release = this.releasing();
+            this.notifyAll();
+        }
+        if (release) {
+            this.owner.release(true);
+        }
+    }
+
+    /**
+     * The body cannot be received anymore.
+     * @param reason Why.
+     */
+    synchronized void fail(final IOException reason) {
+        if (!this.ended && this.failure == null) {
+            this.failure = reason;
+            this.chunks.clear();
+            this.buffered = 0;
+            this.notifyAll();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] one = new byte[1];
+        int read = this.read(one, 0, 1);
+        if (read > 0) {
+            read = one[0] & 0xFF;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len)
+        throws IOException {
+        int read = 0;
+        boolean resume = false;
+        final boolean release;
+        synchronized (this) {
+            if (len > 0) {
+                this.await();
+                if (this.buffered == 0) {
+                    read = -1;
+                } else {
+                    read = this.copy(bytes, off, len);
+                    if (this.paused && this.buffered <= this.limit / 2) {
+                        this.paused = false;
+                        resume = true;
+                    }
+                }
+            }
+            release = this.releasing();
+        }
+        if (resume) {
+            this.owner.resume();
+        }
+        if (release) {
+            this.owner.release(true);
+        }
+        return read;
+    }
+
+    @Override
+    public synchronized int available() {
+        return (int) Math.min(this.buffered, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() {
+        final boolean release;
+        final boolean complete;
+        synchronized (this) {
+            this.closed = true;
+            this.chunks.clear();
+            this.buffered = 0;
+            release = !this.released;
+            this.released = true;
+            complete = this.ended;
+            this.notifyAll();
+        }
+        if (release) {
+            this.owner.release(complete);
+        }
+    }
+
+    /**
+     * Wait until there are bytes to read, the end of the body or a failure.
+     * @throws IOException If the stream was closed, the body failed or the
+     *  timeout passed.
+     */
+    private void await() throws IOException {
+        final long deadline = System.currentTimeMillis() + this.timeout;
+        while (this.buffered == 0 && !this.ended
+            && this.failure == null && !this.closed) {
+            final long left;
+            if (this.timeout == 0) {
+                left = 0;
+            } else {
+                left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    throw new SocketTimeoutException("Read timed out");
+                }
+            }
+            try {
+                this.wait(left);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                    "Interrupted while reading the response"
+                );
+            }
+        }
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Copy buffered bytes.
+     * @param bytes Destination.
+     * @param off Offset in the destination.
+     * @param len Maximum number of bytes.
+     * @return Number of bytes copied.
+     */
+    private int copy(final byte[] bytes, final int off, final int len) {
+        int copied = 0;
+        while (copied < len && !this.chunks.isEmpty()) {
+            final byte[] first = this.chunks.peek();
+            final int take = Math.min(len - copied, first.length - this.offset);
+            System.arraycopy(first, this.offset, bytes, off + copied, take);
+            copied += take;
+            this.offset += take;
+            if (this.offset == first.length) {
+                this.chunks.poll();
+                this.offset = 0;
+            }
+        }
+        this.buffered -= copied;
+        return copied;
+    }
+
+    /**
+     * Is it time to give the connection back? It is, once, as soon as the
+     * whole body was received and read.
+     * @return True if the connection should be released now.
+     */
+    private boolean releasing() {
+        final boolean release = this.ended && this.buffered == 0
+            && !this.released;
+        if (release) {
+            this.released = true;
+        }
+        return release;
+    }
+
+    /**
+     * Who is told about the progress of the reader.
+     */
+    interface Owner {
+
+        /**
+         * The reader caught up, reading from the connection may go on.
+         */
+        void resume();
+
+        /**
+         * The reader is done with the body.
+         * @param complete Was the whole body received? If not, the
+         *  connection cannot be reused.
+         */
+        void release(boolean complete);
+    }
+}
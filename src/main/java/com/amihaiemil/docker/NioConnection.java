@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.function.Consumer;
+
+/**
+ * A keep-alive connection of the {@link NioHttpClient}, served by one
+ * {@link NioReactor}. It carries one {@link NioExchange} at a time; when the
+ * response was read and the engine keeps the connection open, it goes back
+ * to the pool.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class NioConnection {
+
+    /**
+     * The channel.
+     */
+    private final SelectableChannel channel;
+
+    /**
+     * The same channel, for reading and writing.
+     */
+    private final ByteChannel bytes;
+
+    /**
+     * The selector thread which serves this connection.
+     */
+    private final NioReactor reactor;
+
+    /**
+     * Where the connection goes at the end of each exchange.
+     */
+    private final Consumer<NioConnection> pool;
+
+    /**
+     * Current exchange, null if the connection is idle. Guarded by this.
+     */
+    private NioExchange current;
+
+    /**
+     * Registration with the Selector. Selector thread only.
+     */
+    private SelectionKey key;
+
+    /**
+     * When did the connection become idle?
+     */
+    private volatile long idle;
+
+    /**
+     * Ctor.
+     * @param channel Connected channel, in non-blocking mode. It has to be
+     *  a ByteChannel too.
+     * @param reactor The selector thread which serves this connection.
+     * @param pool Where the connection goes at the end of each exchange,
+     *  closed if it cannot be reused.
+     */
+    NioConnection(
+        final SelectableChannel channel, final NioReactor reactor,
+        final Consumer<NioConnection> pool
+    ) {
+        this.channel = channel;
+        this.bytes = (ByteChannel) channel;
+        this.reactor = reactor;
+        this.pool = pool;
+    }
+
+    /**
+     * Start a new exchange on this connection.
+     * @param bodiless Is it a HEAD request, whose response has no body?
+     * @param timeout Milliseconds to wait for the engine, 0 means forever.
+     * @return Exchange.
+     */
+    NioExchange exchange(final boolean bodiless, final long timeout) {
+        final NioExchange exchange = new NioExchange(this, bodiless, timeout);
+        synchronized (this) {
+            this.current = exchange;
+        }
+        this.reactor.execute(() -> this.interest(SelectionKey.OP_READ, true));
+        return exchange;
+    }
+
+    /**
+     * Is the connection still open?
+     * @return True or false.
+     */
+    boolean isOpen() {
+        return this.channel.isOpen();
+    }
+
+    /**
+     * Since when has the connection been idle?
+     * @return Milliseconds since the epoch.
+     */
+    long idleSince() {
+        return this.idle;
+    }
+
+    /**
+     * Close the connection.
+     */
+    void close() {
+        try {
+            this.channel.close();
+        } catch (final IOException ex) {
+            // nothing to do, it is unusable anyway
+        }
+    }
+
+    /**
+     * The current exchange has bytes to write.
+     */
+    void writing() {
+        this.reactor.execute(() -> this.interest(SelectionKey.OP_WRITE, true));
+    }
+
+    /**
+     * The reader of the given exchange caught up, reading may go on.
+     * @param exchange Exchange.
+     */
+    void resume(final NioExchange exchange) {
+        this.reactor.execute(
+            () -> {
+                if (this.current() == exchange) {
+                    exchange.resumed();
+                    this.interest(SelectionKey.OP_READ, true);
+                }
+            }
+        );
+    }
+
+    /**
+     * The given exchange is over.
+     * @param exchange Exchange.
+     * @param reusable Can the connection carry another one?
+     */
+    void release(final NioExchange exchange, final boolean reusable) {
+        if (this.over(exchange)) {
+            if (reusable && this.channel.isOpen()) {
+                this.idle = System.currentTimeMillis();
+                this.reactor.execute(
+                    () -> this.interest(SelectionKey.OP_READ, true)
+                );
+            } else {
+                this.close();
+            }
+            this.pool.accept(this);
+        }
+    }
+
+    /**
+     * The given exchange failed or was cancelled, close the connection.
+     * @param exchange Exchange.
+     */
+    void abort(final NioExchange exchange) {
+        if (this.over(exchange)) {
+            this.close();
+            this.pool.accept(this);
+        }
+    }
+
+    /**
+     * Register with the Selector. Selector thread only.
+     * @param selector Selector.
+     */
+    void registered(final Selector selector) {
+        try {
+            this.key = this.channel.register(
+                selector, SelectionKey.OP_READ, this
+            );
+        } catch (final IOException ex) {
+            this.fail(ex);
+        }
+    }
+
+    /**
+     * The channel is ready. Selector thread only.
+     * @param ready Selection key.
+     */
+    void ready(final SelectionKey ready) {
+        try {
+            if (ready.isWritable()) {
+                final NioExchange exchange = this.current();
+                if (exchange == null || exchange.flush(this.bytes)) {
+                    this.interest(SelectionKey.OP_WRITE, false);
+                }
+            }
+            if (ready.isValid() && ready.isReadable()) {
+                this.readable();
+            }
+        } catch (final IOException ex) {
+            this.fail(ex);
+        } catch (final CancelledKeyException ex) {
+            this.fail(new IOException("Connection closed", ex));
+        // @checkstyle IllegalCatch (1 line)
+        } catch (final RuntimeException ex) {
+            this.fail(new IOException("Connection failed", ex));
+        }
+    }
+
+    /**
+     * The channel has something to read. Selector thread only.
+     * @throws IOException If it cannot be read.
+     */
+    private void readable() throws IOException {
+        final NioExchange exchange;
+        synchronized (this) {
+            exchange = this.current;
+            if (exchange == null) {
+                final ByteBuffer buffer = this.reactor.buffer();
+                ((Buffer) buffer).clear();
+                if (this.bytes.read(buffer) != 0) {
+                    this.close();
+                }
+            }
+        }
+        if (exchange != null) {
+            if (exchange.done()) {
+                this.interest(SelectionKey.OP_READ, false);
+            } else if (!exchange.read(this.bytes, this.reactor.buffer())) {
+                this.close();
+            } else if (exchange.paused()) {
+                this.interest(SelectionKey.OP_READ, false);
+            }
+        }
+    }
+
+    /**
+     * The connection failed. Selector thread only.
+     * @param reason Why.
+     */
+    void fail(final IOException reason) {
+        final NioExchange exchange = this.current();
+        if (exchange == null) {
+            this.close();
+        } else {
+            exchange.fail(reason);
+        }
+    }
+
+    /**
+     * End the given exchange, if it is the current one.
+     * @param exchange Exchange.
+     * @return True if it was the current one.
+     */
+    private synchronized boolean over(final NioExchange exchange) {
+        final boolean current = this.current == exchange;
+        if (current) {
+            this.current = null;
+        }
+        return current;
+    }
+
+    /**
+     * Current exchange.
+     * @return Exchange, null if the connection is idle.
+     */
+    private synchronized NioExchange current() {
+        return this.current;
+    }
+
+    /**
+     * Turn an operation of interest on or off. Selector thread only.
+     * @param operation Operation.
+     * @param enabled On or off.
+     */
+    private void interest(final int operation, final boolean enabled) {
+        if (this.key != null && this.key.isValid()) {
+            if (enabled) {
+                this.key.interestOps(this.key.interestOps() | operation);
+            } else {
+                this.key.interestOps(this.key.interestOps() & ~operation);
+            }
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.execchain.RequestAbortedException;
+
+/**
+ * One request and its response, over a {@link NioConnection}. The caller
+ * queues the request and reads the response body, the selector thread
+ * writes the queue to the channel and parses what it reads.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class NioExchange
+    implements ResponseParser.Sink, NioBody.Owner, Cancellable {
+
+    /**
+     * Queued request bytes above which the caller waits for the selector.
+     */
+    private static final long PENDING = 1L << 20;
+
+    /**
+     * Buffered response bytes above which the selector stops reading.
+     */
+    private static final long BUFFERED = 1L << 20;
+
+    /**
+     * Size of the buffer of the request body.
+     */
+    private static final int UPLOAD_BUFFER = 16_384;
+
+    /**
+     * The connection.
+     */
+    private final NioConnection connection;
+
+    /**
+     * Parser of the response.
+     */
+    private final ResponseParser parser;
+
+    /**
+     * Body of the response.
+     */
+    private final NioBody body;
+
+    /**
+     * Head of the response.
+     */
+    private final CompletableFuture<HttpResponse> head;
+
+    /**
+     * Request bytes waiting to be written.
+     */
+    private final Deque<ByteBuffer> outbound;
+
+    /**
+     * Milliseconds to wait for the engine, 0 means forever.
+     */
+    private final long timeout;
+
+    /**
+     * Number of queued request bytes. Guarded by the outbound queue.
+     */
+    private long queued;
+
+    /**
+     * Was the whole request queued? Guarded by the outbound queue.
+     */
+    private boolean uploaded;
+
+    /**
+     * Was part of the request dropped? Guarded by the outbound queue.
+     */
+    private boolean dropped;
+
+    /**
+     * Why the exchange failed. Guarded by the outbound queue.
+     */
+    private IOException failure;
+
+    /**
+     * May the connection carry another request after this response?
+     */
+    private volatile boolean persistent;
+
+    /**
+     * Was anything received from the engine?
+     */
+    private volatile boolean received;
+
+    /**
+     * Is reading paused because the body is full? Selector thread only.
+     */
+    private boolean paused;
+
+    /**
+     * Ctor.
+     * @param connection The connection.
+     * @param bodiless Is it a HEAD request, whose response has no body?
+     * @param timeout Milliseconds to wait for the engine, 0 means forever.
+     */
+    NioExchange(
+        final NioConnection connection, final boolean bodiless,
+        final long timeout
+    ) {
+        this.connection = connection;
+        this.parser = new ResponseParser(this, bodiless);
+        this.body = new NioBody(BUFFERED, timeout, this);
+        this.head = new CompletableFuture<>();
+        this.outbound = new ArrayDeque<>();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Queue some bytes of the request. Blocks while too much is queued.
+     * @param bytes Bytes to send.
+     * @throws IOException If the exchange failed or the timeout passed.
+     */
+    void send(final ByteBuffer bytes) throws IOException {
+        final boolean wake;
+        synchronized (this.outbound) {
+            final long deadline = System.currentTimeMillis() + this.timeout;
+            while (this.queued >= PENDING && this.failure == null
+                && !this.head.isDone()) {
+                this.await(this.outbound, deadline, "Write timed out");
+            }
+            if (this.head.isDone() && !this.head.isCompletedExceptionally()
+                && (this.failure != null || this.queued >= PENDING)) {
+                this.dropped = true;
+                wake = false;
+            } else if (this.failure != null) {
+                throw this.failure;
+            } else {
+                wake = this.outbound.isEmpty();
+                this.outbound.add(bytes);
+                this.queued += bytes.remaining();
+            }
+        }
+        if (wake) {
+            this.connection.writing();
+        }
+    }
+
+    /**
+     * Stream for the body of the request.
+     * @param chunked Use the chunked transfer encoding?
+     * @return OutputStream which must be closed at the end of the body.
+     */
+    OutputStream upload(final boolean chunked) {
+        return new BufferedOutputStream(
+            new Upload(chunked), UPLOAD_BUFFER
+        );
+    }
+
+    /**
+     * The whole request was queued.
+     */
+    void uploaded() {
+        synchronized (this.outbound) {
+            this.uploaded = true;
+        }
+    }
+
+    /**
+     * Wait for the head of the response.
+     * @return Response, its entity streams the body.
+     * @throws IOException If the exchange failed or the timeout passed.
+     */
+    HttpResponse response() throws IOException {
+        try {
+            final HttpResponse response;
+            if (this.timeout == 0) {
+                response = this.head.get();
+            } else {
+                response = this.head.get(this.timeout, TimeUnit.MILLISECONDS);
+            }
+            return response;
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        } catch (final TimeoutException ex) {
+            this.fail(new SocketTimeoutException("Read timed out"));
+            throw new SocketTimeoutException("Read timed out");
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.cancel();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for the response"
+            );
+        }
+    }
+
+    /**
+     * Write queued bytes to the channel, as many as it takes.
+     * Selector thread only.
+     * @param channel Channel.
+     * @return True if the queue is empty.
+     * @throws IOException If the channel cannot be written.
+     */
+    boolean flush(final WritableByteChannel channel) throws IOException {
+        synchronized (this.outbound) {
+            boolean full = false;
+            while (!full && !this.outbound.isEmpty()) {
+                final ByteBuffer first = this.outbound.peek();
+                this.queued -= channel.write(first);
+                if (first.hasRemaining()) {
+                    full = true;
+                } else {
+                    this.outbound.poll();
+                }
+            }
+            this.outbound.notifyAll();
+            return this.outbound.isEmpty();
+        }
+    }
+
+    /**
+     * Read and parse what the channel has, until it has nothing more, the
+     * response is complete or the body is full. Selector thread only.
+     * @param channel Channel.
+     * @param buffer Buffer to read into.
+     * @return False if the engine closed the connection.
+     * @throws IOException If the channel cannot be read or the response
+     *  is malformed.
+     */
+    boolean read(final ReadableByteChannel channel, final ByteBuffer buffer)
+        throws IOException {
+        boolean open = true;
+        boolean more = true;
+        while (more && !this.paused && !this.parser.done()) {
+            ((Buffer) buffer).clear();
+            final int read = channel.read(buffer);
+            if (read < 0) {
+                this.parser.closed();
+                open = false;
+                more = false;
+            } else if (read == 0) {
+                more = false;
+            } else {
+                this.received = true;
+                ((Buffer) buffer).flip();
+                this.parser.parse(buffer);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Is the response complete? Selector thread only.
+     * @return True or false.
+     */
+    boolean done() {
+        return this.parser.done();
+    }
+
+    /**
+     * Is reading paused because the body is full? Selector thread only.
+     * @return True or false.
+     */
+    boolean paused() {
+        return this.paused;
+    }
+
+    /**
+     * Reading may go on. Selector thread only.
+     */
+    void resumed() {
+        this.paused = false;
+    }
+
+    /**
+     * Was the exchange over before anything was received? Only then can
+     * the request be retried on another connection.
+     * @return True or false.
+     */
+    boolean pristine() {
+        return !this.received;
+    }
+
+    /**
+     * The exchange failed.
+     * @param reason Why.
+     */
+    void fail(final IOException reason) {
+        this.head.completeExceptionally(reason);
+        this.body.fail(reason);
+        synchronized (this.outbound) {
+            if (this.failure == null) {
+                this.failure = reason;
+            }
+            this.outbound.notifyAll();
+        }
+        this.connection.abort(this);
+    }
+
+    @Override
+    public boolean cancel() {
+        this.fail(new RequestAbortedException("Request aborted"));
+        return true;
+    }
+
+    @Override
+    public void head(final HttpResponse response, final long length) {
+        final BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(this.body);
+        entity.setContentLength(length);
+        entity.setChunked(length < 0);
+        final Header type = response.getLastHeader("Content-Type");
+        if (type != null) {
+            entity.setContentType(type);
+        }
+        final Header encoding = response.getLastHeader("Content-Encoding");
+        if (encoding != null) {
+            entity.setContentEncoding(encoding);
+        }
+        response.setEntity(entity);
+        this.head.complete(response);
+    }
+
+    @Override
+    public void body(final ByteBuffer bytes) {
+        if (!this.body.offer(bytes)) {
+            this.paused = true;
+        }
+    }
+
+    @Override
+    public void end(final boolean reusable) {
+        this.persistent = reusable;
+        this.body.end();
+    }
+
+    @Override
+    public void resume() {
+        this.connection.resume(this);
+    }
+
+    @Override
+    public void release(final boolean complete) {
+        final boolean sent;
+        synchronized (this.outbound) {
+            sent = this.uploaded && !this.dropped && this.outbound.isEmpty();
+        }
+        this.connection.release(this, complete && sent && this.persistent);
+    }
+
+    /**
+     * Wait on the given lock, at most until the deadline.
+     * @param lock Lock, held by the caller.
+     * @param deadline Deadline, meaningless if there is no timeout.
+     * @param message Message of the timeout exception.
+     * @throws IOException If the deadline passed or the thread was
+     *  interrupted.
+     */
+    private void await(
+        final Object lock, final long deadline, final String message
+    ) throws IOException {
+        final long left;
+        if (this.timeout == 0) {
+            left = 0;
+        } else {
+            left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                throw new SocketTimeoutException(message);
+            }
+        }
+        try {
+            lock.wait(left);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(message);
+        }
+    }
+
+    /**
+     * ASCII bytes.
+     * @param text Text.
+     * @return Bytes.
+     */
+    private static ByteBuffer ascii(final String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Body of the request, written to the outbound queue, in chunks if
+     * its length is not known.
+     */
+    private final class Upload extends OutputStream {
+
+        /**
+         * Use the chunked transfer encoding?
+         */
+        private final boolean chunked;
+
+        /**
+         * Ctor.
+         * @param chunked Use the chunked transfer encoding?
+         */
+        Upload(final boolean chunked) {
+            this.chunked = chunked;
+        }
+
+        @Override
+        public void write(final int single) throws IOException {
+            this.write(new byte[] {(byte) single}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int off, final int len)
+            throws IOException {
+            if (len > 0) {
+                if (this.chunked) {
+                    NioExchange.this.send(
+                        NioExchange.ascii(Integer.toHexString(len) + "\r\n")
+                    );
+                }
+                final byte[] copy = new byte[len];
+                System.arraycopy(bytes, off, copy, 0, len);
+                NioExchange.this.send(ByteBuffer.wrap(copy));
+                if (this.chunked) {
+                    NioExchange.this.send(NioExchange.ascii("\r\n"));
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.chunked) {
+                NioExchange.this.send(NioExchange.ascii("0\r\n\r\n"));
+            }
+            NioExchange.this.uploaded();
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * HttpClient which speaks HTTP/1.1 over non-blocking channels, served by
+ * a few selector threads ({@link NioReactor}). An open connection, whether
+ * idle, waiting for a response or streaming events and logs, holds no
+ * thread of its own: only the callers block, while they wait for the head
+ * of the response or read its body. The response bodies are buffered up
+ * to a limit, above which the selector stops reading that connection until
+ * the caller catches up.
+ * <br><br>
+ * Connections are kept alive and reused. Any number of them may be open,
+ * since they do not cost threads; at most {@code idle} of them are kept
+ * when they are not used. There is no separate pool for the streaming
+ * calls, so {@link #streamingPoolStats()} reports the same connections as
+ * {@link #poolStats()}.
+ * <br><br>
+ * The selector threads run until the client is closed. Closing it fails
+ * the exchanges which are still going on and closes all the connections.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle ClassFanOutComplexity (500 lines)
+ * @checkstyle ClassDataAbstractionCoupling (500 lines)
+ */
+final class NioHttpClient implements HttpClient, Pooled, Closeable {
+
+    /**
+     * Carriage return and line feed.
+     */
+    private static final String CRLF = "\r\n";
+
+    /**
+     * Opens the connections.
+     */
+    private final Transport transport;
+
+    /**
+     * The selector threads.
+     */
+    private final NioReactor[] reactors;
+
+    /**
+     * Round-robin over the selector threads.
+     */
+    private final AtomicInteger next;
+
+    /**
+     * Idle connections, most recently used first.
+     */
+    private final Deque<NioConnection> pool;
+
+    /**
+     * Number of connections in use.
+     */
+    private final AtomicInteger leased;
+
+    /**
+     * Maximum number of idle connections.
+     */
+    private final int idle;
+
+    /**
+     * Milliseconds to wait for the engine, 0 means forever.
+     */
+    private final long timeout;
+
+    /**
+     * Idle connections older than this many milliseconds are closed,
+     * 0 means never.
+     */
+    private final long expiry;
+
+    /**
+     * User-Agent header.
+     */
+    private final Header agent;
+
+    /**
+     * Has it been closed?
+     */
+    private final AtomicBoolean closed;
+
+    /**
+     * Ctor.
+     * @param transport Opens the connections.
+     * @param selectors Number of selector threads.
+     * @param idle Maximum number of idle connections.
+     * @param timeout Timeout for waiting for the engine, zero means none.
+     * @param expiry Idle connections are closed after this long, zero
+     *  means never.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    NioHttpClient(
+        final Transport transport, final int selectors, final int idle,
+        final Duration timeout, final Duration expiry
+    ) {
+        this.transport = transport;
+        this.reactors = new NioReactor[selectors];
+        this.next = new AtomicInteger();
+        this.pool = new ConcurrentLinkedDeque<>();
+        this.leased = new AtomicInteger();
+        this.idle = idle;
+        this.timeout = timeout.toMillis();
+        this.expiry = expiry.toMillis();
+        this.agent = NioHttpClient.userAgent();
+        this.closed = new AtomicBoolean();
+        for (int idx = 0; idx < selectors; ++idx) {
+            try {
+                this.reactors[idx] = new NioReactor(transport.selector());
+            } catch (final IOException ex) {
+                for (int started = 0; started < idx; ++started) {
+                    this.reactors[started].close();
+                }
+                throw new UncheckedIOException(ex);
+            }
+            final Thread thread = new Thread(
+                this.reactors[idx], "docker-java-api-selector-" + idx
+            );
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public PoolStats poolStats() {
+        final int available = this.pool.size();
+        return new PoolStats(
+            this.leased.get(), 0, available,
+            Math.max(this.idle, this.leased.get() + available)
+        );
+    }
+
+    @Override
+    public PoolStats streamingPoolStats() {
+        return this.poolStats();
+    }
+
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            for (final NioReactor reactor : this.reactors) {
+                reactor.close();
+            }
+            for (NioConnection connection = this.pool.pollFirst();
+                connection != null; connection = this.pool.pollFirst()) {
+                connection.close();
+            }
+        }
+    }
+
+    @Override
+    public HttpParams getParams() {
+        return new BasicHttpParams();
+    }
+
+    @Override
+    public ClientConnectionManager getConnectionManager() {
+        throw new UnsupportedOperationException(
+            "The non-blocking HttpClient has no ClientConnectionManager."
+        );
+    }
+
+    @Override
+    public HttpResponse execute(final HttpUriRequest request)
+        throws IOException {
+        return this.send(request);
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpUriRequest request, final HttpContext context
+    ) throws IOException {
+        return this.send(request);
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpHost target, final HttpRequest request
+    ) throws IOException {
+        return this.send(request);
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpHost target, final HttpRequest request,
+        final HttpContext context
+    ) throws IOException {
+        return this.send(request);
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        return NioHttpClient.handle(this.send(request), handler);
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler,
+        final HttpContext context
+    ) throws IOException {
+        return NioHttpClient.handle(this.send(request), handler);
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpHost target, final HttpRequest request,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        return NioHttpClient.handle(this.send(request), handler);
+    }
+
+    // @checkstyle ParameterNumber (5 lines)
+    @Override
+    public <T> T execute(
+        final HttpHost target, final HttpRequest request,
+        final ResponseHandler<? extends T> handler,
+        final HttpContext context
+    ) throws IOException {
+        return NioHttpClient.handle(this.send(request), handler);
+    }
+
+    /**
+     * Send the request on a pooled connection. If the engine closed that
+     * connection meanwhile, a request without body is sent again, on a new
+     * connection.
+     * @param request Request.
+     * @return Response, its entity streams the body.
+     * @throws IOException If the request fails.
+     */
+    private HttpResponse send(final HttpRequest request) throws IOException {
+        if (this.closed.get()) {
+            throw new IOException("The HttpClient is closed");
+        }
+        if (request instanceof HttpExecutionAware
+            && ((HttpExecutionAware) request).isAborted()) {
+            throw new RequestAbortedException("Request aborted");
+        }
+        final HttpEntity entity = NioHttpClient.entity(request);
+        final boolean bodiless = "HEAD".equals(
+            request.getRequestLine().getMethod()
+        );
+        NioConnection connection = this.pooled();
+        final boolean retry = connection != null && entity == null;
+        if (connection == null) {
+            connection = this.open();
+        }
+        this.leased.incrementAndGet();
+        final NioExchange exchange = connection.exchange(
+            bodiless, this.timeout
+        );
+        HttpResponse response;
+        try {
+            response = this.exchange(exchange, request, entity);
+        } catch (final IOException ex) {
+            if (!retry || !exchange.pristine()
+                || ex instanceof RequestAbortedException) {
+                throw ex;
+            }
+            final NioConnection fresh = this.open();
+            this.leased.incrementAndGet();
+            response = this.exchange(
+                fresh.exchange(bodiless, this.timeout), request, null
+            );
+        }
+        return response;
+    }
+
+    /**
+     * Send the request and wait for the head of the response.
+     * @param exchange Exchange.
+     * @param request Request.
+     * @param entity Body of the request, null if there is none.
+     * @return Response, its entity streams the body.
+     * @throws IOException If the request fails.
+     */
+    private HttpResponse exchange(
+        final NioExchange exchange, final HttpRequest request,
+        final HttpEntity entity
+    ) throws IOException {
+        if (request instanceof HttpExecutionAware) {
+            ((HttpExecutionAware) request).setCancellable(exchange);
+        }
+        try {
+            exchange.send(ByteBuffer.wrap(this.head(request, entity)));
+            if (entity == null) {
+                exchange.uploaded();
+            } else {
+                try (OutputStream body = exchange.upload(
+                    entity.getContentLength() < 0
+                )) {
+                    entity.writeTo(body);
+                }
+            }
+            return exchange.response();
+        } catch (final IOException ex) {
+            exchange.fail(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * A connection from the pool, closing those which expired.
+     * @return Open connection or null if there is none.
+     */
+    private NioConnection pooled() {
+        NioConnection connection = this.pool.pollFirst();
+        final long now = System.currentTimeMillis();
+        while (connection != null && (!connection.isOpen()
+            || this.expiry > 0 && now - connection.idleSince() > this.expiry)) {
+            connection.close();
+            connection = this.pool.pollFirst();
+        }
+        return connection;
+    }
+
+    /**
+     * Open a new connection, served by the next selector thread.
+     * @return Connection.
+     * @throws IOException If it cannot be opened.
+     */
+    private NioConnection open() throws IOException {
+        final NioReactor reactor = this.reactors[
+            Math.floorMod(this.next.getAndIncrement(), this.reactors.length)
+        ];
+        final NioConnection connection = new NioConnection(
+            this.transport.connect(), reactor, this::idle
+        );
+        reactor.register(connection);
+        return connection;
+    }
+
+    /**
+     * An exchange is over, keep its connection if it is still open.
+     * @param connection Connection.
+     */
+    private void idle(final NioConnection connection) {
+        this.leased.decrementAndGet();
+        if (connection.isOpen()) {
+            if (this.pool.size() < this.idle) {
+                this.pool.addFirst(connection);
+            } else {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Head of the request.
+     * @param request Request.
+     * @param entity Body of the request, null if there is none.
+     * @return Bytes.
+     */
+    private byte[] head(final HttpRequest request, final HttpEntity entity) {
+        final URI uri = NioHttpClient.uri(request);
+        final StringBuilder head = new StringBuilder(256)
+            .append(request.getRequestLine().getMethod()).append(' ');
+        if (uri.getRawPath() == null || uri.getRawPath().isEmpty()) {
+            head.append('/');
+        } else {
+            head.append(uri.getRawPath());
+        }
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1").append(CRLF);
+        if (!request.containsHeader(HttpHeaders.HOST)) {
+            final String host;
+            if (uri.getRawAuthority() == null) {
+                host = "localhost";
+            } else {
+                host = uri.getRawAuthority();
+            }
+            head.append("Host: ").append(host).append(CRLF);
+        }
+        if (!request.containsHeader(HttpHeaders.USER_AGENT)) {
+            NioHttpClient.header(head, this.agent);
+        }
+        for (final Header header : request.getAllHeaders()) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getName())
+                && !HttpHeaders.TRANSFER_ENCODING
+                    .equalsIgnoreCase(header.getName())) {
+                NioHttpClient.header(head, header);
+            }
+        }
+        if (entity != null) {
+            if (entity.getContentLength() < 0) {
+                head.append("Transfer-Encoding: chunked").append(CRLF);
+            } else {
+                head.append("Content-Length: ")
+                    .append(entity.getContentLength()).append(CRLF);
+            }
+            if (entity.getContentType() != null
+                && !request.containsHeader(HttpHeaders.CONTENT_TYPE)) {
+                NioHttpClient.header(head, entity.getContentType());
+            }
+            if (entity.getContentEncoding() != null
+                && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                NioHttpClient.header(head, entity.getContentEncoding());
+            }
+        } else if (request instanceof HttpEntityEnclosingRequest) {
+            head.append("Content-Length: 0").append(CRLF);
+        }
+        return head.append(CRLF).toString()
+            .getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Handle the response and give its connection back.
+     * @param response Response.
+     * @param handler Response handler.
+     * @param <T> Type of the result.
+     * @return Result of the handler.
+     * @throws IOException If the handler fails.
+     */
+    private static <T> T handle(
+        final HttpResponse response,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        try {
+            return handler.handleResponse(response);
+        } finally {
+            response.getEntity().getContent().close();
+        }
+    }
+
+    /**
+     * Body of the request.
+     * @param request Request.
+     * @return Entity or null if there is none.
+     */
+    private static HttpEntity entity(final HttpRequest request) {
+        final HttpEntity entity;
+        if (request instanceof HttpEntityEnclosingRequest) {
+            entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        } else {
+            entity = null;
+        }
+        return entity;
+    }
+
+    /**
+     * URI of the request.
+     * @param request Request.
+     * @return URI.
+     */
+    private static URI uri(final HttpRequest request) {
+        final URI uri;
+        if (request instanceof HttpUriRequest) {
+            uri = ((HttpUriRequest) request).getURI();
+        } else {
+            uri = URI.create(request.getRequestLine().getUri());
+        }
+        return uri;
+    }
+
+    /**
+     * Append a header.
+     * @param head Head of the request.
+     * @param header Header.
+     */
+    private static void header(final StringBuilder head, final Header header) {
+        head.append(header.getName()).append(": ")
+            .append(header.getValue()).append(CRLF);
+    }
+
+    /**
+     * The User-Agent header which the other HttpClients send too.
+     * @return Header.
+     */
+    private static Header userAgent() {
+        final HttpRequest probe = new BasicHttpRequest("GET", "/");
+        try {
+            new UserAgentRequestHeader().process(probe, null);
+        } catch (final HttpException | IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return probe.getFirstHeader(HttpHeaders.USER_AGENT);
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A selector thread of the {@link NioHttpClient}. It serves any number of
+ * connections: it writes their queued requests and reads their responses
+ * as soon as the channels are ready, without ever blocking on one of them.
+ * Everything which touches the registrations runs on this thread, the
+ * other threads submit it as tasks.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class NioReactor implements Runnable {
+
+    /**
+     * Size of the read buffer, shared by all the connections.
+     */
+    private static final int READ_BUFFER = 65_536;
+
+    /**
+     * The Selector.
+     */
+    private final Selector selector;
+
+    /**
+     * Tasks submitted by the other threads.
+     */
+    private final Queue<Runnable> tasks;
+
+    /**
+     * Read buffer, shared by all the connections.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Has it been closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     * @param selector The Selector.
+     */
+    NioReactor(final Selector selector) {
+        this.selector = selector;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.buffer = ByteBuffer.allocate(READ_BUFFER);
+    }
+
+    /**
+     * Run the given task on the selector thread.
+     * @param task Task.
+     */
+    void execute(final Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Register a connection.
+     * @param connection Connection.
+     */
+    void register(final NioConnection connection) {
+        this.execute(() -> connection.registered(this.selector));
+    }
+
+    /**
+     * Stop the selector thread. Its connections are closed and their
+     * exchanges fail.
+     */
+    void close() {
+        this.closed = true;
+        this.selector.wakeup();
+    }
+
+    /**
+     * The read buffer. Selector thread only.
+     * @return Buffer.
+     */
+    ByteBuffer buffer() {
+        return this.buffer;
+    }
+
+    @Override
+    public void run() {
+        while (!this.closed) {
+            try {
+                this.selector.select();
+                this.drain();
+                final Iterator<SelectionKey> keys =
+                    this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    ((NioConnection) key.attachment()).ready(key);
+                }
+            } catch (final IOException | RuntimeException ex) {
+                // the connections fail on their own, the other ones
+                // must still be served
+            }
+        }
+        this.shutdown();
+    }
+
+    /**
+     * Fail the connections of the closed selector thread and close its
+     * Selector.
+     */
+    private void shutdown() {
+        this.drain();
+        final IOException reason = new IOException(
+            "The HttpClient is closed"
+        );
+        for (final SelectionKey key : new ArrayList<>(this.selector.keys())) {
+            ((NioConnection) key.attachment()).fail(reason);
+        }
+        try {
+            this.selector.close();
+        } catch (final IOException ex) {
+            // nothing to do, the thread ends anyway
+        }
+    }
+
+    /**
+     * Run the submitted tasks. Selector thread only.
+     */
+    private void drain() {
+        for (Runnable task = this.tasks.poll(); task != null;
+            task = this.tasks.poll()) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.json.JsonObject;
+
+/**
+ * {@link ExecBatch} run by a fixed pool of daemon threads. Every thread
+ * captures the output in the same two buffers of the given limit, so
+ * nothing grows with the output; only the captured bytes are copied into
+ * the result.
+ * <br><br>
+ * Every Exec runs as an {@link AsyncCall} on the thread which captures it,
+ * so its deadline covers the creation, the start and the inspection of the
+ * Exec: when it passes, or when the batch is closed, the request in flight
+ * is aborted and the output being read is closed. The Containers should
+ * belong to a Docker whose requests can be aborted, such as the one of
+ * {@link AsyncDocker#docker()}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ParallelExecs implements ExecBatch {
+
+    /**
+     * Containers where the Exec runs.
+     */
+    private final List<Container> containers;
+
+    /**
+     * Json config of the Exec.
+     */
+    private final JsonObject config;
+
+    /**
+     * Timeout of an Exec, in nanoseconds.
+     */
+    private final long timeout;
+
+    /**
+     * Threads which run the Execs.
+     */
+    private final ExecutorService threads;
+
+    /**
+     * Output buffers of every thread.
+     */
+    private final ThreadLocal<Capture> captures;
+
+    /**
+     * Results, in the order in which they are ready.
+     */
+    private final BlockingQueue<ExecResult> results;
+
+    /**
+     * Execs which are running.
+     */
+    private final Set<AsyncCall<Integer>> running;
+
+    /**
+     * Results already iterated.
+     */
+    private final AtomicInteger taken;
+
+    /**
+     * Was the batch closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     * @param containers Containers where the Exec runs.
+     * @param config Json config of the Exec.
+     * @param parallelism How many Execs to run at the same time.
+     * @param limit How many bytes of stdout and of stderr to capture.
+     * @param timeout Timeout of an Exec.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    ParallelExecs(
+        final Iterable<Container> containers, final JsonObject config,
+        final int parallelism, final int limit, final Duration timeout
+    ) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                "Parallelism must be at least 1, was " + parallelism
+            );
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException(
+                "Output limit must not be negative, was " + limit
+            );
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException(
+                "Timeout must be positive, was " + timeout
+            );
+        }
+        this.containers = new ArrayList<>();
+        for (final Container container : containers) {
+            this.containers.add(container);
+        }
+        this.config = config;
+        this.timeout = timeout.toNanos();
+        final AtomicInteger count = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(
+            parallelism,
+            task -> {
+                final Thread thread = new Thread(
+                    task, "docker-java-api-exec-" + count.incrementAndGet()
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.captures = ThreadLocal.withInitial(() -> new Capture(limit));
+        this.results = new LinkedBlockingQueue<>();
+        this.running = ConcurrentHashMap.newKeySet();
+        this.taken = new AtomicInteger();
+    }
+
+    /**
+     * Start running the Exec in all the containers.
+     * @return This batch.
+     */
+    ParallelExecs start() {
+        for (final Container container : this.containers) {
+            this.threads.execute(
+                () -> this.results.add(this.run(container))
+            );
+        }
+        this.threads.shutdown();
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return this.containers.size();
+    }
+
+    /**
+     * The results, in the order in which they are ready. There is only
+     * one sequence of results: all the iterators take from it.
+     * @return Iterator which blocks until the next result is ready.
+     */
+    @Override
+    public Iterator<ExecResult> iterator() {
+        return new Iterator<ExecResult>() {
+            @Override
+            public boolean hasNext() {
+                return ParallelExecs.this.taken.get()
+                    < ParallelExecs.this.containers.size();
+            }
+
+            @Override
+            public ExecResult next() {
+                if (ParallelExecs.this.taken.getAndIncrement()
+                    >= ParallelExecs.this.containers.size()) {
+                    throw new NoSuchElementException("No more results.");
+                }
+                try {
+                    return ParallelExecs.this.results.take();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(
+                        "Interrupted while waiting for the next result.", ex
+                    );
+                }
+            }
+        };
+    }
+
+    /**
+     * Abort the running Execs; the ones which did not start yet fail
+     * right away.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        for (final AsyncCall<Integer> call : this.running) {
+            call.completeExceptionally(
+                new IllegalStateException("The batch was closed.")
+            );
+        }
+    }
+
+    /**
+     * Run the Exec in a container.
+     * @param container Container.
+     * @return Result.
+     */
+    private ExecResult run(final Container container) {
+        final long start = System.nanoTime();
+        final Capture capture = this.captures.get();
+        capture.reset();
+        final Attempt attempt = new Attempt(container, capture);
+        final AsyncCall<Integer> call = new AsyncCall<>(
+            container.docker(), attempt
+        );
+        call.whenComplete(
+            (code, error) -> {
+                if (error != null) {
+                    attempt.abort();
+                }
+            }
+        );
+        this.running.add(call);
+        try {
+            if (this.closed) {
+                call.completeExceptionally(
+                    new IllegalStateException("The batch was closed.")
+                );
+            }
+            call.submit(Runnable::run, Duration.ofNanos(this.timeout));
+        } finally {
+            this.running.remove(call);
+        }
+        int code = -1;
+        boolean expired = false;
+        Exception failure = null;
+        try {
+            code = call.join();
+        } catch (final CompletionException ex) {
+            if (ex.getCause() instanceof TimeoutException) {
+                expired = true;
+            } else if (ex.getCause() instanceof Exception) {
+                failure = (Exception) ex.getCause();
+            } else {
+                failure = ex;
+            }
+        }
+        return new ExecResult(
+            container.containerId(), code, capture.stdout(),
+            capture.stderr(), capture.truncated(), expired,
+            Duration.ofNanos(System.nanoTime() - start), failure
+        );
+    }
+
+    /**
+     * Close an output, ignoring any error.
+     * @param output Output of an Exec.
+     */
+    private static void quietly(final ExecFrames output) {
+        try {
+            output.close();
+        } catch (final IOException ex) {
+            //The output is aborted, there is nothing else to do.
+        }
+    }
+
+    /**
+     * Creating and starting the Exec, capturing its output and getting its
+     * exit code. The requests are aborted by the {@link AsyncCall} which
+     * runs it, but the output is read after its request was sent, so it is
+     * closed here.
+     */
+    private final class Attempt implements DockerCall<Integer> {
+
+        /**
+         * Container.
+         */
+        private final Container container;
+
+        /**
+         * Where the output goes.
+         */
+        private final Capture capture;
+
+        /**
+         * Output being read, if the Exec started.
+         */
+        private final AtomicReference<ExecFrames> output;
+
+        /**
+         * Was it aborted?
+         */
+        private volatile boolean aborted;
+
+        /**
+         * Ctor.
+         * @param container Container.
+         * @param capture Where the output goes.
+         */
+        Attempt(final Container container, final Capture capture) {
+            this.container = container;
+            this.capture = capture;
+            this.output = new AtomicReference<>();
+        }
+
+        @Override
+        public Integer call(final Docker docker) throws IOException {
+            if (ParallelExecs.this.closed) {
+                throw new IllegalStateException("The batch was closed.");
+            }
+            final ExecFrames frames = this.container
+                .exec(ParallelExecs.this.config).start();
+            this.output.set(frames);
+            try {
+                if (this.aborted) {
+                    ParallelExecs.quietly(frames);
+                }
+                while (frames.next()) {
+                    this.capture.write(frames.type(), frames.payload());
+                }
+                return frames.exitCode();
+            } finally {
+                frames.close();
+            }
+        }
+
+        /**
+         * Close the output, if it is being read.
+         */
+        void abort() {
+            this.aborted = true;
+            final ExecFrames frames = this.output.get();
+            if (frames != null) {
+                ParallelExecs.quietly(frames);
+            }
+        }
+    }
+
+    /**
+     * Fixed buffers for the stdout and stderr of an Exec.
+     */
+    private static final class Capture {
+
+        /**
+         * Captured stdout.
+         */
+        private final byte[] out;
+
+        /**
+         * Captured stderr.
+         */
+        private final byte[] err;
+
+        /**
+         * Bytes of stdout in the buffer.
+         */
+        private int outs;
+
+        /**
+         * Bytes of stderr in the buffer.
+         */
+        private int errs;
+
+        /**
+         * Was some output dropped?
+         */
+        private boolean dropped;
+
+        /**
+         * Ctor.
+         * @param limit Size of each buffer.
+         */
+        Capture(final int limit) {
+            this.out = new byte[limit];
+            this.err = new byte[limit];
+        }
+
+        /**
+         * Forget the previous Exec.
+         */
+        void reset() {
+            this.outs = 0;
+            this.errs = 0;
+            this.dropped = false;
+        }
+
+        /**
+         * Capture a payload, as much as fits.
+         * @param type Stream of the payload.
+         * @param payload Payload.
+         */
+        void write(final LogFrames.StreamType type, final ByteBuffer payload) {
+            if (type == LogFrames.StreamType.STDERR) {
+                this.errs = this.copy(payload, this.err, this.errs);
+            } else {
+                this.outs = this.copy(payload, this.out, this.outs);
+            }
+        }
+
+        /**
+         * Captured stdout.
+         * @return Bytes.
+         */
+        byte[] stdout() {
+            final byte[] bytes = new byte[this.outs];
+            System.arraycopy(this.out, 0, bytes, 0, this.outs);
+            return bytes;
+        }
+
+        /**
+         * Captured stderr.
+         * @return Bytes.
+         */
+        byte[] stderr() {
+            final byte[] bytes = new byte[this.errs];
+            System.arraycopy(this.err, 0, bytes, 0, this.errs);
+            return bytes;
+        }
+
+        /**
+         * Was some output dropped?
+         * @return True or false.
+         */
+        boolean truncated() {
+            return this.dropped;
+        }
+
+        /**
+         * Copy a payload into a buffer.
+         * @param payload Payload.
+         * @param buffer Buffer.
+         * @param size Bytes already in the buffer.
+         * @return Bytes in the buffer after copying.
+         */
+        private int copy(
+            final ByteBuffer payload, final byte[] buffer, final int size
+        ) {
+            final int length = Math.min(
+                payload.remaining(), buffer.length - size
+            );
+            if (length < payload.remaining()) {
+                this.dropped = true;
+            }
+            payload.get(buffer, size, length);
+            return size + length;
+        }
+    }
+}
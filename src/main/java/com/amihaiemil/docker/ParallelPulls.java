@@ -0,0 +1,415 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+
+/**
+ * {@link ImagePulls} made by a fixed pool of daemon threads. The pulls in
+ * flight are kept in a map, by reference, so a second pull of the same
+ * image only gets the future of the first one.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ParallelPulls implements ImagePulls {
+
+    /**
+     * Images which are pulled.
+     */
+    private final Images images;
+
+    /**
+     * Apache HttpClient which sends the requests.
+     */
+    private final HttpClient client;
+
+    /**
+     * Base URI of the Images API.
+     */
+    private final URI baseUri;
+
+    /**
+     * Threads which pull.
+     */
+    private final ExecutorService threads;
+
+    /**
+     * Pulls in flight, by reference.
+     */
+    private final Map<String, CompletableFuture<PulledImage>> flying;
+
+    /**
+     * Bytes downloaded by all the pulls.
+     */
+    private final AtomicLong downloaded;
+
+    /**
+     * Start of the first pull, end of the last one and how many are running;
+     * guarded by this.
+     */
+    private final long[] timing;
+
+    /**
+     * Ctor.
+     * @param images Images which are pulled.
+     * @param client The http client.
+     * @param uri Base URI of the Images API.
+     * @param parallelism How many images to pull at the same time.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    ParallelPulls(
+        final Images images, final HttpClient client, final URI uri,
+        final int parallelism
+    ) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                "Parallelism must be at least 1, was " + parallelism
+            );
+        }
+        this.images = images;
+        this.client = client;
+        this.baseUri = uri;
+        final AtomicInteger count = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(
+            parallelism,
+            task -> {
+                final Thread thread = new Thread(
+                    task, "docker-java-api-pull-" + count.incrementAndGet()
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.flying = new ConcurrentHashMap<>();
+        this.downloaded = new AtomicLong();
+        this.timing = new long[3];
+    }
+
+    @Override
+    public CompletableFuture<PulledImage> pull(
+        final String name, final String tag
+    ) {
+        final String reference = ParallelPulls.reference(name, tag);
+        final CompletableFuture<PulledImage> created =
+            new CompletableFuture<>();
+        CompletableFuture<PulledImage> shared = this.flying.putIfAbsent(
+            reference, created
+        );
+        if (shared == null) {
+            shared = created;
+            try {
+                this.threads.execute(
+                    () -> {
+                        try {
+                            created.complete(
+                                this.fetch(name, tag, reference)
+                            );
+                        // @checkstyle IllegalCatch (1 line)
+                        } catch (final Exception ex) {
+                            created.completeExceptionally(ex);
+                        } finally {
+                            this.flying.remove(reference, created);
+                        }
+                    }
+                );
+            } catch (final RejectedExecutionException ex) {
+                this.flying.remove(reference, created);
+                created.completeExceptionally(
+                    new IllegalStateException("These pulls are closed.", ex)
+                );
+            }
+        }
+        return shared.thenApply(Function.identity());
+    }
+
+    @Override
+    public Map<String, CompletableFuture<PulledImage>> pull(
+        final Iterable<String> references
+    ) {
+        final Map<String, CompletableFuture<PulledImage>> pulls =
+            new LinkedHashMap<>();
+        for (final String reference : references) {
+            final String[] parts = ParallelPulls.parse(reference);
+            pulls.put(reference, this.pull(parts[0], parts[1]));
+        }
+        return pulls;
+    }
+
+    @Override
+    public long bytes() {
+        return this.downloaded.get();
+    }
+
+    @Override
+    public Duration elapsed() {
+        final long nanos;
+        synchronized (this.timing) {
+            if (this.timing[0] == 0) {
+                nanos = 0;
+            } else if (this.timing[2] > 0) {
+                nanos = System.nanoTime() - this.timing[0];
+            } else {
+                nanos = this.timing[1] - this.timing[0];
+            }
+        }
+        return Duration.ofNanos(nanos);
+    }
+
+    @Override
+    public double throughput() {
+        final long nanos = this.elapsed().toNanos();
+        final double bps;
+        if (nanos == 0) {
+            bps = 0;
+        } else {
+            bps = this.bytes() * (double) Duration.ofSeconds(1).toNanos()
+                / nanos;
+        }
+        return bps;
+    }
+
+    /**
+     * No more pulls are accepted; the ones already requested still finish.
+     */
+    @Override
+    public void close() {
+        this.threads.shutdown();
+    }
+
+    /**
+     * Pull the image, unless it is present.
+     * @param name Name of the image.
+     * @param tag Tag or digest.
+     * @param reference Reference of the image.
+     * @return PulledImage.
+     * @throws IOException If an I/O error occurs.
+     */
+    private PulledImage fetch(
+        final String name, final String tag, final String reference
+    ) throws IOException {
+        final long start = this.started();
+        try {
+            final PulledImage pulled;
+            if (this.present(name, tag, reference)) {
+                pulled = new PulledImage(
+                    reference,
+                    new RtImage(
+                        Json.createObjectBuilder()
+                            .add("Name", reference).build(),
+                        this.client,
+                        URI.create(this.baseUri.toString() + "/" + reference),
+                        this.images.docker()
+                    ),
+                    true,
+                    Duration.ofNanos(System.nanoTime() - start),
+                    0
+                );
+            } else {
+                final Map<String, Long> layers = new ConcurrentHashMap<>();
+                final Image image = this.images.pull(
+                    name, tag,
+                    (layer, status, current, total) -> {
+                        if (total > 0) {
+                            layers.put(layer, total);
+                        }
+                    }
+                );
+                final long bytes = layers.values().stream()
+                    .mapToLong(Long::longValue).sum();
+                this.downloaded.addAndGet(bytes);
+                pulled = new PulledImage(
+                    reference, image, false,
+                    Duration.ofNanos(System.nanoTime() - start), bytes
+                );
+            }
+            return pulled;
+        } finally {
+            this.finished();
+        }
+    }
+
+    /**
+     * Is the image present locally? An image referenced by digest is present
+     * if it can be inspected; an image referenced by tag is present if one
+     * of its RepoDigests is the digest the registry has for the tag.
+     * @param name Name of the image.
+     * @param tag Tag or digest.
+     * @param reference Reference of the image.
+     * @return True or false.
+     * @throws IOException If an I/O error occurs.
+     */
+    private boolean present(
+        final String name, final String tag, final String reference
+    ) throws IOException {
+        boolean present;
+        try {
+            final JsonObject local = new Inspection(
+                this.client, this.baseUri.toString() + "/" + reference + "/json"
+            );
+            if (ParallelPulls.digest(tag)) {
+                present = true;
+            } else {
+                present = false;
+                final String digest = this.remoteDigest(reference);
+                final JsonValue repos = local.get("RepoDigests");
+                if (!digest.isEmpty() && repos instanceof JsonArray) {
+                    for (final JsonValue repo : (JsonArray) repos) {
+                        if (repo instanceof JsonString && ((JsonString) repo)
+                            .getString().endsWith("@" + digest)) {
+                            present = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (final UnexpectedResponseException ex) {
+            if (ex.actualStatus() != HttpStatus.SC_NOT_FOUND) {
+                throw ex;
+            }
+            present = false;
+        }
+        return present;
+    }
+
+    /**
+     * Digest of the image in the registry (GET /distribution/{name}/json).
+     * @param reference Reference of the image.
+     * @return Digest or empty, if the registry could not tell
+     *  (e.g. it needs authentication or it sent no Descriptor).
+     * @throws IOException If an I/O error occurs.
+     */
+    private String remoteDigest(final String reference) throws IOException {
+        String digest = "";
+        try {
+            final JsonValue descriptor = new Inspection(
+                this.client,
+                this.baseUri.resolve("distribution").toString()
+                    + "/" + reference + "/json"
+            ).get("Descriptor");
+            if (descriptor instanceof JsonObject) {
+                digest = ((JsonObject) descriptor).getString("digest", "");
+            }
+        } catch (final UnexpectedResponseException ex) {
+            digest = "";
+        }
+        return digest;
+    }
+
+    /**
+     * A pull started.
+     * @return Start time, in nanoseconds.
+     */
+    private long started() {
+        final long now = System.nanoTime();
+        synchronized (this.timing) {
+            if (this.timing[0] == 0) {
+                this.timing[0] = now;
+            }
+            this.timing[2] = this.timing[2] + 1;
+        }
+        return now;
+    }
+
+    /**
+     * A pull finished.
+     */
+    private void finished() {
+        final long now = System.nanoTime();
+        synchronized (this.timing) {
+            this.timing[1] = now;
+            this.timing[2] = this.timing[2] - 1;
+        }
+    }
+
+    /**
+     * Reference of the image.
+     * @param name Name of the image.
+     * @param tag Tag or digest.
+     * @return String, name:tag or name@digest.
+     */
+    private static String reference(final String name, final String tag) {
+        final String reference;
+        if (ParallelPulls.digest(tag)) {
+            reference = name + "@" + tag;
+        } else {
+            reference = name + ":" + tag;
+        }
+        return reference;
+    }
+
+    /**
+     * Is it a digest or a tag?
+     * @param tag Tag or digest.
+     * @return True if it is a digest.
+     */
+    private static boolean digest(final String tag) {
+        return tag.startsWith("sha256:");
+    }
+
+    /**
+     * Split a reference into name and tag (or digest).
+     * @param reference Reference, e.g. ubuntu:22.04, localhost:5000/app,
+     *  redis@sha256:...
+     * @return Name and tag; the tag is "latest" if missing.
+     */
+    static String[] parse(final String reference) {
+        final String[] parts;
+        final int digest = reference.indexOf('@');
+        final int colon = reference.lastIndexOf(':');
+        if (digest >= 0) {
+            parts = new String[] {
+                reference.substring(0, digest), reference.substring(digest + 1),
+            };
+        } else if (colon > reference.lastIndexOf('/')) {
+            parts = new String[] {
+                reference.substring(0, colon), reference.substring(colon + 1),
+            };
+        } else {
+            parts = new String[] {reference, "latest"};
+        }
+        return parts;
+    }
+}
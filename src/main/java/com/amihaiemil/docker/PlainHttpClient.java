@@ -25,7 +25,10 @@
  */
 package com.amihaiemil.docker;
 
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 
 /**
  * Plain HTTP (no TLS) client.
@@ -39,11 +42,27 @@ final class PlainHttpClient extends HttpClientEnvelope {
      * Ctor.
      */
     PlainHttpClient() {
-        super(() -> HttpClients.custom()
-            .setMaxConnPerRoute(10)
-            .setMaxConnTotal(10)
-            .addInterceptorFirst(new UserAgentRequestHeader())
-            .build()
+        this(new ClientConfig());
+    }
+
+    /**
+     * Ctor.
+     * @param config Configuration of the connections.
+     */
+    PlainHttpClient(final ClientConfig config) {
+        super(
+            () -> new PooledHttpClient(
+                RegistryBuilder
+                    .<ConnectionSocketFactory>create()
+                    .register(
+                        "http", PlainConnectionSocketFactory.getSocketFactory()
+                    )
+                    .register(
+                        "https", SSLConnectionSocketFactory.getSocketFactory()
+                    )
+                    .build(),
+                config
+            )
         );
     }
 }
@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Predicate;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * HttpClient over two connection pools configured by a
+ * {@link ClientConfig}: one for the short calls and one for the calls which
+ * may hold their connection for a long time (see {@link StreamingRequests}).
+ * This way, any number of followed logs or monitored events cannot make
+ * a quick inspect() wait for a connection.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class PooledHttpClient implements HttpClient, Pooled, Closeable {
+
+    /**
+     * Connection pool of the short calls.
+     */
+    private final PoolingHttpClientConnectionManager pool;
+
+    /**
+     * Connection pool of the streaming calls.
+     */
+    private final PoolingHttpClientConnectionManager streamingPool;
+
+    /**
+     * HttpClient for the short calls.
+     */
+    private final HttpClient client;
+
+    /**
+     * HttpClient for the streaming calls.
+     */
+    private final HttpClient streaming;
+
+    /**
+     * Which requests are streaming?
+     */
+    private final Predicate<HttpRequest> isStreaming;
+
+    /**
+     * Ctor.
+     * @param registry Socket factories by scheme.
+     * @param config Client configuration.
+     */
+    PooledHttpClient(
+        final Registry<ConnectionSocketFactory> registry,
+        final ClientConfig config
+    ) {
+        this(
+            config.pool(registry), config.streamingPool(registry),
+            config, new StreamingRequests()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param pool Connection pool of the short calls.
+     * @param streamingPool Connection pool of the streaming calls.
+     * @param config Client configuration.
+     * @param isStreaming Which requests are streaming?
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    private PooledHttpClient(
+        final PoolingHttpClientConnectionManager pool,
+        final PoolingHttpClientConnectionManager streamingPool,
+        final ClientConfig config, final Predicate<HttpRequest> isStreaming
+    ) {
+        this.pool = pool;
+        this.streamingPool = streamingPool;
+        this.client = config.client(pool);
+        this.streaming = config.client(streamingPool);
+        this.isStreaming = isStreaming;
+    }
+
+    @Override
+    public PoolStats poolStats() {
+        return this.pool.getTotalStats();
+    }
+
+    @Override
+    public PoolStats streamingPoolStats() {
+        return this.streamingPool.getTotalStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            PooledHttpClient.close(this.client);
+        } finally {
+            PooledHttpClient.close(this.streaming);
+        }
+    }
+
+    @Override
+    public HttpParams getParams() {
+        return this.client.getParams();
+    }
+
+    @Override
+    public ClientConnectionManager getConnectionManager() {
+        return this.client.getConnectionManager();
+    }
+
+    @Override
+    public HttpResponse execute(final HttpUriRequest request)
+        throws IOException {
+        return this.route(request).execute(request);
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpUriRequest request, final HttpContext context
+    ) throws IOException {
+        return this.route(request).execute(request, context);
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpHost target, final HttpRequest request
+    ) throws IOException {
+        return this.route(request).execute(target, request);
+    }
+
+    @Override
+    public HttpResponse execute(
+        final HttpHost target, final HttpRequest request,
+        final HttpContext context
+    ) throws IOException {
+        return this.route(request).execute(target, request, context);
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        return this.route(request).execute(request, handler);
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpUriRequest request,
+        final ResponseHandler<? extends T> handler,
+        final HttpContext context
+    ) throws IOException {
+        return this.route(request).execute(request, handler, context);
+    }
+
+    @Override
+    public <T> T execute(
+        final HttpHost target, final HttpRequest request,
+        final ResponseHandler<? extends T> handler
+    ) throws IOException {
+        return this.route(request).execute(target, request, handler);
+    }
+
+    // @checkstyle ParameterNumber (5 lines)
+    @Override
+    public <T> T execute(
+        final HttpHost target, final HttpRequest request,
+        final ResponseHandler<? extends T> handler,
+        final HttpContext context
+    ) throws IOException {
+        return this.route(request).execute(
+            target, request, handler, context
+        );
+    }
+
+    /**
+     * Close the given HttpClient, if it can be closed. This also shuts
+     * its connection pool down.
+     * @param client HttpClient.
+     * @throws IOException If it cannot be closed.
+     */
+    private static void close(final HttpClient client) throws IOException {
+        if (client instanceof Closeable) {
+            ((Closeable) client).close();
+        }
+    }
+
+    /**
+     * The HttpClient which should execute the given request.
+     * @param request Request.
+     * @return HttpClient.
+     */
+    private HttpClient route(final HttpRequest request) {
+        final HttpClient chosen;
+        if (this.isStreaming.test(request)) {
+            chosen = this.streaming;
+        } else {
+            chosen = this.client;
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a pull made by {@link ImagePulls}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class PulledImage {
+
+    /**
+     * Reference of the image (name:tag or name@digest).
+     */
+    private final String reference;
+
+    /**
+     * The image.
+     */
+    private final Image image;
+
+    /**
+     * Was it already present?
+     */
+    private final boolean skipped;
+
+    /**
+     * How long did it take?
+     */
+    private final Duration took;
+
+    /**
+     * Bytes of the downloaded layers.
+     */
+    private final long bytes;
+
+    /**
+     * Ctor.
+     * @param reference Reference of the image.
+     * @param image The image.
+     * @param skipped Was it already present?
+     * @param took How long did it take?
+     * @param bytes Bytes of the downloaded layers.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    PulledImage(
+        final String reference, final Image image, final boolean skipped,
+        final Duration took, final long bytes
+    ) {
+        this.reference = reference;
+        this.image = image;
+        this.skipped = skipped;
+        this.took = took;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reference of the image.
+     * @return String, name:tag or name@digest.
+     */
+    public String reference() {
+        return this.reference;
+    }
+
+    /**
+     * The pulled image.
+     * @return Image.
+     */
+    public Image image() {
+        return this.image;
+    }
+
+    /**
+     * Was the image already present locally, so it was not pulled?
+     * @return True or false.
+     */
+    public boolean skipped() {
+        return this.skipped;
+    }
+
+    /**
+     * How long did it take to pull the image (or to find out it is present).
+     * @return Duration.
+     */
+    public Duration took() {
+        return this.took;
+    }
+
+    /**
+     * Bytes of the downloaded layers.
+     * @return Long, 0 if the image was skipped.
+     */
+    public long bytes() {
+        return this.bytes;
+    }
+
+    @Override
+    public String toString() {
+        final String outcome;
+        if (this.skipped) {
+            outcome = "present";
+        } else {
+            outcome = this.bytes + " bytes";
+        }
+        return String.format(
+            "%s: %s in %d ms", this.reference, outcome, this.took.toMillis()
+        );
+    }
+}
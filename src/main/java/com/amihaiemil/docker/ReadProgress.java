@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+
+/**
+ * Handler which reads the progress entries (NDJSON) of a pull, push or
+ * build as they come, hands them to a Consumer and returns the last one,
+ * which says how the operation ended. It throws
+ * {@link StreamedErrorException} at the first entry reporting an error.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ReadProgress implements ResponseHandler<JsonObject> {
+
+    /**
+     * Handlers to be executed before actually reading the progress.
+     */
+    private final ResponseHandler<HttpResponse> other;
+
+    /**
+     * Fails on the entry with an error.
+     */
+    private final FailOnError errors;
+
+    /**
+     * Receives the entries.
+     */
+    private final Consumer<JsonObject> progress;
+
+    /**
+     * Ctor.
+     * @param other Handlers to be executed before reading the progress.
+     * @param endpoint Called endpoint.
+     * @param progress Receives the entries.
+     */
+    ReadProgress(
+        final ResponseHandler<HttpResponse> other, final String endpoint,
+        final Consumer<JsonObject> progress
+    ) {
+        this.other = other;
+        this.errors = new FailOnError(endpoint);
+        this.progress = progress;
+    }
+
+    @Override
+    public JsonObject handleResponse(final HttpResponse httpResponse)
+        throws IOException {
+        final HttpEntity entity = this.other.handleResponse(httpResponse)
+            .getEntity();
+        JsonObject last = Json.createObjectBuilder().build();
+        if (entity != null) {
+            final JsonLines entries = new JsonLines(entity.getContent());
+            while (entries.hasNext()) {
+                last = this.errors.apply(entries.next());
+                this.progress.accept(last);
+            }
+        }
+        return last;
+    }
+}
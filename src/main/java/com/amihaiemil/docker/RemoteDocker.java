@@ -71,8 +71,26 @@ public final class RemoteDocker extends RtDocker {
         final URI uri, final String version,
         final Path keys, final Path trust,
         final char[] storePwd, final char[] keyPwd) {
+        this(uri, version, keys, trust, storePwd, keyPwd, new ClientConfig());
+    }
+
+    /**
+     * Remote Docker engine, with the given configuration of the connections.
+     * @param uri Remote Docker URI.
+     * @param version API version (eg. v1.44).
+     * @param keys Path to the keystore.
+     * @param trust Path to the truststore.
+     * @param storePwd Password for the keystore.
+     * @param keyPwd Passphrase for the key.
+     * @param config Configuration of the connections.
+     */
+    RemoteDocker(
+        final URI uri, final String version,
+        final Path keys, final Path trust,
+        final char[] storePwd, final char[] keyPwd,
+        final ClientConfig config) {
         this(
-            new SslHttpClient(keys, trust, storePwd, keyPwd),
+            new SslHttpClient(keys, trust, storePwd, keyPwd, config),
             uri, version
         );
     }
@@ -100,6 +118,33 @@ public final class RemoteDocker extends RtDocker {
         this(new AuthHttpClient(new PlainHttpClient(), auth), uri);
     }
 
+    /**
+     * Remote Docker engine, with the given configuration of the connections.
+     * 
+     * An insecure docker API v1.44 endpoint is assumed.
+     * 
+     * @param uri Remote Docker URI.
+     * @param config Configuration of the connections.
+     */
+    public RemoteDocker(final URI uri, final ClientConfig config) {
+        this(new PlainHttpClient(config), uri);
+    }
+
+    /**
+     * Remote Docker engine, with the given configuration of the connections.
+     * 
+     * An insecure docker API v1.44 endpoint is assumed.
+     * 
+     * @param uri Remote Docker URI.
+     * @param auth Remote Docker {@link Auth}
+     * @param config Configuration of the connections.
+     */
+    public RemoteDocker(
+        final URI uri, final Auth auth, final ClientConfig config
+    ) {
+        this(new AuthHttpClient(new PlainHttpClient(config), auth), uri);
+    }
+
     /**
      * Remote Docker engine. You have to configure your own HttpClient,
      * most likely with some authentication mechanism, depending on where
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.json.JsonObject;
+
+/**
+ * Events which survive dropped connections.<br><br>
+ * The Stream returned by {@link #monitor()} only ends when it is closed
+ * (or when the "until" timestamp is reached). If the connection drops, it
+ * reconnects with backoff, asking for the events since the last seen
+ * timeNano. Events repeated by the daemon at the boundary are dropped.
+ * If no event was seen yet, it resumes from the since timestamp or, if
+ * none, from the moment of the first connection, as measured by the local
+ * clock.<br><br>
+ * The metrics are shared by all the Streams monitored from this object.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface ResilientEvents extends Events {
+
+    @Override
+    ResilientEvents since(LocalDateTime timestamp);
+
+    @Override
+    ResilientEvents until(LocalDateTime timestamp);
+
+    @Override
+    ResilientEvents filter(Supplier<Map<String, Iterable<String>>> filter);
+
+    /**
+     * Start monitoring these events. The first connection is opened
+     * right away; the reconnects happen while consuming the Stream.
+     * @throws IOException If the first connection cannot be opened.
+     * @throws UnexpectedResponseException If the first response
+     *  is not 200 OK.
+     * @return Stream of events.
+     */
+    @Override
+    Stream<JsonObject> monitor()
+        throws IOException, UnexpectedResponseException;
+
+    /**
+     * How many times the connection was reopened.
+     * @return Number of reconnects.
+     */
+    long reconnects();
+
+    /**
+     * How many events were dropped because they were seen already,
+     * before reconnecting.
+     * @return Number of duplicate events.
+     */
+    long duplicates();
+
+    /**
+     * The timeNano of the last event delivered, 0 if none.
+     * @return Nanoseconds since the epoch.
+     */
+    long lastTimeNano();
+
+    /**
+     * How late the last event was delivered: the time it was received
+     * minus its timeNano, as measured by the local clock.
+     * @return Lag of the last event, zero if none.
+     */
+    Duration lag();
+}
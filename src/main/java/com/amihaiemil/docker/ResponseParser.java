@@ -0,0 +1,470 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.MalformedChunkCodingException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+/**
+ * Incremental parser of one HTTP/1.1 response. It is given the bytes
+ * as they are read from a non-blocking channel, in pieces of any size,
+ * and reports the head, the (de-chunked) body and the end of the message
+ * to a {@link Sink}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle CyclomaticComplexity (400 lines)
+ */
+final class ResponseParser {
+
+    /**
+     * Maximum length of a line in the head of the response.
+     */
+    private static final int MAX_LINE = 65_536;
+
+    /**
+     * Where the parsed message goes.
+     */
+    private final Sink sink;
+
+    /**
+     * Is it the response of a HEAD request, which has no body?
+     */
+    private final boolean bodiless;
+
+    /**
+     * Line being read.
+     */
+    private final StringBuilder line;
+
+    /**
+     * Current state.
+     */
+    private State state;
+
+    /**
+     * Response whose head is being read.
+     */
+    private BasicHttpResponse response;
+
+    /**
+     * Remaining bytes of the body or of the current chunk.
+     */
+    private long remaining;
+
+    /**
+     * Can the connection be reused after this response?
+     */
+    private boolean persistent;
+
+    /**
+     * Ctor.
+     * @param sink Where the parsed message goes.
+     * @param bodiless Is it the response of a HEAD request?
+     */
+    ResponseParser(final Sink sink, final boolean bodiless) {
+        this.sink = sink;
+        this.bodiless = bodiless;
+        this.line = new StringBuilder();
+        this.state = State.STATUS;
+    }
+
+    /**
+     * Parse the given bytes, all of them.
+     * @param bytes Bytes read from the connection.
+     * @throws IOException If the response is malformed or the Sink fails.
+     */
+    void parse(final ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining() && this.state != State.DONE) {
+            if (this.state == State.FIXED || this.state == State.CHUNK
+                || this.state == State.UNTIL_CLOSE) {
+                this.content(bytes);
+            } else if (this.readLine(bytes)) {
+                final String text = this.line.toString();
+                this.line.setLength(0);
+                this.onLine(text);
+            }
+        }
+        if (bytes.hasRemaining()) {
+            throw new ClientProtocolException(
+                "Unexpected bytes after the end of the response"
+            );
+        }
+    }
+
+    /**
+     * The engine closed the connection.
+     * @throws IOException If the response was not complete.
+     */
+    void closed() throws IOException {
+        if (this.state == State.UNTIL_CLOSE) {
+            this.state = State.DONE;
+            this.sink.end(false);
+        } else if (this.state != State.DONE) {
+            throw new ConnectionClosedException(
+                "Connection closed before the end of the response"
+            );
+        }
+    }
+
+    /**
+     * Was the whole response read?
+     * @return True or false.
+     */
+    boolean done() {
+        return this.state == State.DONE;
+    }
+
+    /**
+     * Read the body bytes of the current state.
+     * @param bytes Bytes read from the connection.
+     * @throws IOException If the Sink fails.
+     */
+    private void content(final ByteBuffer bytes) throws IOException {
+        final int take;
+        if (this.state == State.UNTIL_CLOSE) {
+            take = bytes.remaining();
+        } else {
+            take = (int) Math.min(this.remaining, bytes.remaining());
+        }
+        final ByteBuffer slice = bytes.duplicate();
+        ((Buffer) slice).limit(slice.position() + take);
+        ((Buffer) bytes).position(bytes.position() + take);
+        this.sink.body(slice);
+        if (this.state != State.UNTIL_CLOSE) {
+            this.remaining -= take;
+            if (this.remaining == 0) {
+                if (this.state == State.FIXED) {
+                    this.finish();
+                } else {
+                    this.state = State.CHUNK_END;
+                }
+            }
+        }
+    }
+
+    /**
+     * Accumulate the current line.
+     * @param bytes Bytes read from the connection.
+     * @return True if the line is complete.
+     * @throws ClientProtocolException If the line is too long.
+     */
+    private boolean readLine(final ByteBuffer bytes)
+        throws ClientProtocolException {
+        boolean complete = false;
+        while (!complete && bytes.hasRemaining()) {
+            final char chr = (char) (bytes.get() & 0xFF);
+            if (chr == '\n') {
+                final int last = this.line.length() - 1;
+                if (last >= 0 && this.line.charAt(last) == '\r') {
+                    this.line.setLength(last);
+                }
+                complete = true;
+            } else if (this.line.length() < MAX_LINE) {
+                this.line.append(chr);
+            } else {
+                throw new ClientProtocolException(
+                    "Response line is too long"
+                );
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * A complete line was read.
+     * @param text Line, without CRLF.
+     * @throws IOException If the line is malformed or the Sink fails.
+     */
+    private void onLine(final String text) throws IOException {
+        if (this.state == State.STATUS) {
+            if (!text.isEmpty()) {
+                this.response = ResponseParser.status(text);
+                this.state = State.HEADERS;
+            }
+        } else if (this.state == State.HEADERS) {
+            if (text.isEmpty()) {
+                this.headed();
+            } else {
+                final int colon = text.indexOf(':');
+                if (colon <= 0) {
+                    throw new ClientProtocolException(
+                        "Invalid header: " + text
+                    );
+                }
+                this.response.addHeader(
+                    text.substring(0, colon).trim(),
+                    text.substring(colon + 1).trim()
+                );
+            }
+        } else if (this.state == State.SIZE) {
+            final int ext = text.indexOf(';');
+            final String hex;
+            if (ext < 0) {
+                hex = text.trim();
+            } else {
+                hex = text.substring(0, ext).trim();
+            }
+            long size;
+            try {
+                size = Long.parseLong(hex, 16);
+            } catch (final NumberFormatException ex) {
+                size = -1;
+            }
+            if (size < 0) {
+                throw new MalformedChunkCodingException(
+                    "Invalid chunk size: " + text
+                );
+            }
+            this.remaining = size;
+            if (this.remaining == 0) {
+                this.state = State.TRAILERS;
+            } else {
+                this.state = State.CHUNK;
+            }
+        } else if (this.state == State.CHUNK_END) {
+            if (!text.isEmpty()) {
+                throw new MalformedChunkCodingException(
+                    "Missing CRLF after chunk"
+                );
+            }
+            this.state = State.SIZE;
+        } else if (this.state == State.TRAILERS && text.isEmpty()) {
+            this.finish();
+        }
+    }
+
+    /**
+     * The head of the response was read, find out how the body is framed.
+     * Interim (1xx) responses are skipped.
+     * @throws IOException If the Content-Length is invalid or the Sink fails.
+     */
+    private void headed() throws IOException {
+        final int code = this.response.getStatusLine().getStatusCode();
+        if (code >= HttpStatus.SC_CONTINUE
+            && code < HttpStatus.SC_OK
+            && code != HttpStatus.SC_SWITCHING_PROTOCOLS) {
+            this.response = null;
+            this.state = State.STATUS;
+        } else {
+            this.persistent = this.keepAlive();
+            final Header encoding = this.response.getLastHeader(
+                "Transfer-Encoding"
+            );
+            final Header length = this.response.getLastHeader(
+                "Content-Length"
+            );
+            if (this.bodiless || code == HttpStatus.SC_NO_CONTENT
+                || code == HttpStatus.SC_NOT_MODIFIED) {
+                this.sink.head(this.response, 0);
+                this.finish();
+            } else if (encoding != null && encoding.getValue()
+                .toLowerCase(Locale.ENGLISH).contains("chunked")) {
+                this.state = State.SIZE;
+                this.sink.head(this.response, -1);
+            } else if (length != null) {
+                long size;
+                try {
+                    size = Long.parseLong(length.getValue().trim());
+                } catch (final NumberFormatException ex) {
+                    size = -1;
+                }
+                if (size < 0) {
+                    throw new ClientProtocolException(
+                        "Invalid Content-Length: " + length.getValue()
+                    );
+                }
+                this.remaining = size;
+                this.sink.head(this.response, this.remaining);
+                if (this.remaining == 0) {
+                    this.finish();
+                } else {
+                    this.state = State.FIXED;
+                }
+            } else {
+                this.persistent = false;
+                this.state = State.UNTIL_CLOSE;
+                this.sink.head(this.response, -1);
+            }
+        }
+    }
+
+    /**
+     * The whole response was read.
+     * @throws IOException If the Sink fails.
+     */
+    private void finish() throws IOException {
+        this.state = State.DONE;
+        this.sink.end(this.persistent);
+    }
+
+    /**
+     * Does the engine keep the connection open after this response?
+     * @return True or false.
+     */
+    private boolean keepAlive() {
+        final Header connection = this.response.getLastHeader("Connection");
+        final String value;
+        if (connection == null) {
+            value = "";
+        } else {
+            value = connection.getValue().toLowerCase(Locale.ENGLISH);
+        }
+        final boolean alive;
+        if (value.contains("close")) {
+            alive = false;
+        } else if (this.response.getProtocolVersion()
+            .lessEquals(HttpVersion.HTTP_1_0)) {
+            alive = value.contains("keep-alive");
+        } else {
+            alive = true;
+        }
+        return alive;
+    }
+
+    /**
+     * Parse the status line.
+     * @param text Status line, e.g. "HTTP/1.1 200 OK".
+     * @return Response without headers.
+     * @throws ClientProtocolException If the line is malformed.
+     */
+    private static BasicHttpResponse status(final String text)
+        throws ClientProtocolException {
+        final String[] parts = text.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            throw new ClientProtocolException(
+                "Invalid status line: " + text
+            );
+        }
+        final String[] version = parts[0].substring(5).split("\\.");
+        final String reason;
+        if (parts.length == 3) {
+            reason = parts[2];
+        } else {
+            reason = "";
+        }
+        try {
+            return new BasicHttpResponse(
+                new BasicStatusLine(
+                    new ProtocolVersion(
+                        "HTTP",
+                        Integer.parseInt(version[0]),
+                        Integer.parseInt(version[version.length - 1])
+                    ),
+                    Integer.parseInt(parts[1]),
+                    reason
+                )
+            );
+        } catch (final NumberFormatException ex) {
+            throw new ClientProtocolException(
+                "Invalid status line: " + text
+            );
+        }
+    }
+
+    /**
+     * Where the parsed message goes.
+     */
+    interface Sink {
+
+        /**
+         * The head of the response was read.
+         * @param response Response with its status and headers.
+         * @param length Content-Length, or -1 if unknown.
+         * @throws IOException If something goes wrong.
+         */
+        void head(HttpResponse response, long length) throws IOException;
+
+        /**
+         * Some bytes of the body were read. The buffer is only valid for
+         * the duration of the call.
+         * @param bytes Body bytes.
+         * @throws IOException If something goes wrong.
+         */
+        void body(ByteBuffer bytes) throws IOException;
+
+        /**
+         * The whole response was read.
+         * @param reusable Can the connection be used for another request?
+         * @throws IOException If something goes wrong.
+         */
+        void end(boolean reusable) throws IOException;
+    }
+
+    /**
+     * States of the parser.
+     */
+    private enum State {
+        /**
+         * Reading the status line.
+         */
+        STATUS,
+        /**
+         * Reading the headers.
+         */
+        HEADERS,
+        /**
+         * Reading the size line of a chunk.
+         */
+        SIZE,
+        /**
+         * Reading the data of a chunk.
+         */
+        CHUNK,
+        /**
+         * Reading the CRLF after the data of a chunk.
+         */
+        CHUNK_END,
+        /**
+         * Reading the trailers after the last chunk.
+         */
+        TRAILERS,
+        /**
+         * Reading a body of known length.
+         */
+        FIXED,
+        /**
+         * Reading a body which ends when the connection is closed.
+         */
+        UNTIL_CLOSE,
+        /**
+         * The whole response was read.
+         */
+        DONE
+    }
+}
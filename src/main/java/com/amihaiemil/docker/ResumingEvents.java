@@ -0,0 +1,449 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+
+/**
+ * Events which reconnect, resuming from the last seen timeNano.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class ResumingEvents implements ResilientEvents {
+
+    /**
+     * Default wait before the first reconnect attempt.
+     */
+    private static final Duration BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * Default maximum wait between reconnect attempts.
+     */
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * Events to monitor.
+     */
+    private final RtEvents origin;
+
+    /**
+     * Wait before the first reconnect attempt.
+     */
+    private final Duration backoff;
+
+    /**
+     * Maximum wait between reconnect attempts.
+     */
+    private final Duration max;
+
+    /**
+     * Since timestamp, null if none.
+     */
+    private final LocalDateTime since;
+
+    /**
+     * Until timestamp, null if none.
+     */
+    private final LocalDateTime until;
+
+    /**
+     * Number of reconnects.
+     */
+    private final AtomicLong reconnects;
+
+    /**
+     * Number of dropped duplicates.
+     */
+    private final AtomicLong duplicates;
+
+    /**
+     * TimeNano of the last delivered event.
+     */
+    private final AtomicLong last;
+
+    /**
+     * Lag of the last delivered event, in nanoseconds.
+     */
+    private final AtomicLong lag;
+
+    /**
+     * Ctor.
+     * @param origin Events to monitor.
+     */
+    ResumingEvents(final RtEvents origin) {
+        this(origin, BACKOFF, MAX_BACKOFF);
+    }
+
+    /**
+     * Ctor.
+     * @param origin Events to monitor.
+     * @param backoff Wait before the first reconnect attempt.
+     * @param max Maximum wait between reconnect attempts.
+     */
+    ResumingEvents(
+        final RtEvents origin, final Duration backoff, final Duration max
+    ) {
+        this(origin, backoff, max, null, null);
+    }
+
+    /**
+     * Ctor.
+     * @param origin Events to monitor.
+     * @param backoff Wait before the first reconnect attempt.
+     * @param max Maximum wait between reconnect attempts.
+     * @param since Since timestamp, null if none.
+     * @param until Until timestamp, null if none.
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    ResumingEvents(
+        final RtEvents origin, final Duration backoff, final Duration max,
+        final LocalDateTime since, final LocalDateTime until
+    ) {
+        this.origin = origin;
+        this.backoff = backoff;
+        this.max = max;
+        this.since = since;
+        this.until = until;
+        this.reconnects = new AtomicLong();
+        this.duplicates = new AtomicLong();
+        this.last = new AtomicLong();
+        this.lag = new AtomicLong();
+    }
+
+    @Override
+    public ResilientEvents since(final LocalDateTime timestamp) {
+        return new ResumingEvents(
+            this.origin.since(timestamp), this.backoff, this.max,
+            timestamp, this.until
+        );
+    }
+
+    @Override
+    public ResilientEvents until(final LocalDateTime timestamp) {
+        return new ResumingEvents(
+            this.origin.until(timestamp), this.backoff, this.max,
+            this.since, timestamp
+        );
+    }
+
+    @Override
+    public ResilientEvents filter(
+        final Supplier<Map<String, Iterable<String>>> filter
+    ) {
+        return new ResumingEvents(
+            this.origin.filter(filter), this.backoff, this.max,
+            this.since, this.until
+        );
+    }
+
+    @Override
+    public ResilientEvents resilient() {
+        return this.resilient(BACKOFF, MAX_BACKOFF);
+    }
+
+    @Override
+    public ResilientEvents resilient(
+        final Duration first, final Duration limit
+    ) {
+        return new ResumingEvents(
+            this.origin, first, limit, this.since, this.until
+        );
+    }
+
+    @Override
+    public Stream<JsonObject> monitor()
+        throws IOException, UnexpectedResponseException {
+        final long start;
+        if (this.since == null) {
+            start = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        } else {
+            final Instant instant = ZonedDateTime.of(
+                this.since, ZoneId.systemDefault()
+            ).toInstant();
+            start = TimeUnit.SECONDS.toNanos(instant.getEpochSecond())
+                + instant.getNano();
+        }
+        final Resumed events = new Resumed(start, this.origin.monitor());
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                events, Spliterator.ORDERED | Spliterator.NONNULL
+            ),
+            false
+        ).onClose(events::close);
+    }
+
+    @Override
+    public Docker docker() {
+        return this.origin.docker();
+    }
+
+    @Override
+    public long reconnects() {
+        return this.reconnects.get();
+    }
+
+    @Override
+    public long duplicates() {
+        return this.duplicates.get();
+    }
+
+    @Override
+    public long lastTimeNano() {
+        return this.last.get();
+    }
+
+    @Override
+    public Duration lag() {
+        return Duration.ofNanos(this.lag.get());
+    }
+
+    /**
+     * Iterator over the events of consecutive connections.
+     */
+    private final class Resumed implements Iterator<JsonObject> {
+
+        /**
+         * Counted down when the Stream is closed, to stop waiting.
+         */
+        private final CountDownLatch closed;
+
+        /**
+         * Events seen at the last timeNano, to recognize duplicates.
+         */
+        private final Set<JsonObject> seen;
+
+        /**
+         * Resume point while no event was delivered.
+         */
+        private final long start;
+
+        /**
+         * Newest timeNano delivered, 0 if none.
+         */
+        private long resume;
+
+        /**
+         * Are we in the replay right after a reconnect, where the events
+         * up to the resume point were delivered already?
+         */
+        private boolean replay;
+
+        /**
+         * Events of the current connection.
+         */
+        private volatile Stream<JsonObject> current;
+
+        /**
+         * Iterator over the current events.
+         */
+        private Iterator<JsonObject> events;
+
+        /**
+         * Next event.
+         */
+        private JsonObject next;
+
+        /**
+         * Ctor.
+         * @param start Resume point while no event was delivered.
+         * @param first Events of the first connection.
+         */
+        Resumed(final long start, final Stream<JsonObject> first) {
+            this.closed = new CountDownLatch(1);
+            this.seen = new HashSet<>();
+            this.start = start;
+            this.current = first;
+            this.events = first.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && this.events != null) {
+                try {
+                    if (this.events.hasNext()) {
+                        final JsonObject event = this.events.next();
+                        if (this.fresh(event)) {
+                            this.next = event;
+                        } else {
+                            ResumingEvents.this.duplicates.incrementAndGet();
+                        }
+                    } else {
+                        this.reconnect();
+                    }
+                } catch (final IllegalStateException ex) {
+                    this.reconnect();
+                }
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public JsonObject next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("No more events.");
+            }
+            final JsonObject event = this.next;
+            this.next = null;
+            return event;
+        }
+
+        /**
+         * Stop monitoring.
+         */
+        void close() {
+            this.closed.countDown();
+            final Stream<JsonObject> stream = this.current;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+
+        /**
+         * Is this event new? Right after a reconnect, Docker replays the
+         * events since the resume point: there, the events older than the
+         * newest delivered one, or seen already at its timeNano, are
+         * duplicates. The replay ends with the first newer event; outside
+         * of it everything passes, since Docker may send the timeNanos
+         * slightly out of order.
+         * @param event Event.
+         * @return True if it was not delivered before.
+         */
+        private boolean fresh(final JsonObject event) {
+            final JsonNumber nanos = event.getJsonNumber("timeNano");
+            final boolean fresh;
+            if (nanos == null) {
+                fresh = true;
+            } else {
+                final long time = nanos.longValue();
+                if (time > this.resume) {
+                    this.resume = time;
+                    this.replay = false;
+                    this.seen.clear();
+                    fresh = this.seen.add(event);
+                } else if (time == this.resume) {
+                    fresh = this.seen.add(event);
+                } else {
+                    fresh = !this.replay;
+                }
+                if (fresh) {
+                    ResumingEvents.this.last.set(time);
+                    ResumingEvents.this.lag.set(
+                        Math.max(
+                            0L,
+                            TimeUnit.MILLISECONDS.toNanos(
+                                System.currentTimeMillis()
+                            ) - time
+                        )
+                    );
+                }
+            }
+            return fresh;
+        }
+
+        /**
+         * Close the current connection and open a new one, resuming
+         * from the last seen event. Waits with backoff while the
+         * connection cannot be opened. If the Stream was closed or the
+         * until timestamp passed, there are no more events.
+         */
+        private void reconnect() {
+            this.current.close();
+            this.current = null;
+            this.events = null;
+            long wait = ResumingEvents.this.backoff.toNanos();
+            while (this.events == null && this.open()) {
+                try {
+                    if (this.closed.await(wait, TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                try {
+                    final Stream<JsonObject> stream = ResumingEvents.this
+                        .origin.resumed(this.point()).monitor();
+                    this.current = stream;
+                    this.events = stream.iterator();
+                    this.replay = true;
+                    ResumingEvents.this.reconnects.incrementAndGet();
+                    if (this.closed.getCount() == 0) {
+                        stream.close();
+                    }
+                } catch (final IOException
+                    | UnexpectedResponseException ex) {
+                    wait = Math.min(
+                        wait * 2, ResumingEvents.this.max.toNanos()
+                    );
+                }
+            }
+        }
+
+        /**
+         * Where to resume from: right at the last delivered event or,
+         * if none, at the start.
+         * @return TimeNano.
+         */
+        private long point() {
+            long point = this.resume;
+            if (point == 0) {
+                point = this.start;
+            }
+            return point;
+        }
+
+        /**
+         * Should we keep monitoring?
+         * @return True if the Stream is open and until did not pass.
+         */
+        private boolean open() {
+            final LocalDateTime end = ResumingEvents.this.until;
+            return this.closed.getCount() > 0
+                && (end == null || LocalDateTime.now().isBefore(end));
+        }
+    }
+}
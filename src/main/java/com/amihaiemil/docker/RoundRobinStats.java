@@ -0,0 +1,403 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * {@link StatsSampler} scheduling the containers in a DelayQueue, by the
+ * time they are due for sampling. A daemon thread takes them in order,
+ * waits for the rate and for a free thread, then sends the one-shot stats
+ * request on a fixed pool of daemon threads. A container goes back in the
+ * queue, one period later, only after its request is done, so it is never
+ * sampled twice at the same time.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class RoundRobinStats implements StatsSampler {
+
+    /**
+     * Filter of the running containers.
+     */
+    private static final Map<String, Iterable<String>> RUNNING =
+        Collections.singletonMap(
+            "status", Collections.singletonList("running")
+        );
+
+    /**
+     * Containers to sample.
+     */
+    private final ContainerCache cache;
+
+    /**
+     * Sampling period, in nanoseconds.
+     */
+    private final long period;
+
+    /**
+     * Minimum time between two requests, in nanoseconds.
+     */
+    private final long interval;
+
+    /**
+     * How many samples to keep per container.
+     */
+    private final int capacity;
+
+    /**
+     * Free threads.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Threads which send the requests.
+     */
+    private final ExecutorService threads;
+
+    /**
+     * Containers waiting for their next sample.
+     */
+    private final DelayQueue<Slot> queue;
+
+    /**
+     * Sampled containers, by ID.
+     */
+    private final Map<String, Slot> slots;
+
+    /**
+     * Failed samples.
+     */
+    private final AtomicLong failed;
+
+    /**
+     * Thread which schedules the requests.
+     */
+    private final Thread dispatcher;
+
+    /**
+     * Order in which the containers were found, to break the ties
+     * between containers due at the same time.
+     */
+    private long found;
+
+    /**
+     * Lag of the latest request, in nanoseconds.
+     */
+    private volatile long late;
+
+    /**
+     * Was this sampler closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     * @param cache Containers to sample.
+     * @param period How often to sample every container.
+     * @param concurrency How many requests may be in flight.
+     * @param rate How many requests may be sent per second.
+     * @param capacity How many samples to keep per container.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    RoundRobinStats(
+        final ContainerCache cache, final Duration period,
+        final int concurrency, final double rate, final int capacity
+    ) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException(
+                "Concurrency must be at least 1, was " + concurrency
+            );
+        }
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException(
+                "Rate must be positive, was " + rate
+            );
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity must be at least 1, was " + capacity
+            );
+        }
+        this.cache = cache;
+        this.period = period.toNanos();
+        this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        this.capacity = capacity;
+        this.permits = new Semaphore(concurrency);
+        final AtomicInteger count = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(
+            concurrency,
+            task -> {
+                final Thread thread = new Thread(
+                    task, "docker-java-api-stats-" + count.incrementAndGet()
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.queue = new DelayQueue<>();
+        this.slots = new ConcurrentHashMap<>();
+        this.failed = new AtomicLong();
+        this.dispatcher = new Thread(
+            this::dispatch, "docker-java-api-stats-sampler"
+        );
+        this.dispatcher.setDaemon(true);
+    }
+
+    /**
+     * Start sampling.
+     * @return This sampler.
+     */
+    RoundRobinStats start() {
+        this.dispatcher.start();
+        return this;
+    }
+
+    @Override
+    public Collection<StatsSamples> samples() {
+        return Collections.unmodifiableList(
+            this.slots.values().stream()
+                .map(slot -> slot.ring)
+                .collect(Collectors.toList())
+        );
+    }
+
+    @Override
+    public StatsSamples samples(final String containerId) {
+        final Slot slot = this.slots.get(containerId);
+        StatsSamples samples = null;
+        if (slot != null) {
+            samples = slot.ring;
+        }
+        return samples;
+    }
+
+    @Override
+    public Duration lag() {
+        return Duration.ofNanos(this.late);
+    }
+
+    @Override
+    public long failures() {
+        return this.failed.get();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.dispatcher.interrupt();
+        this.threads.shutdownNow();
+        this.cache.close();
+    }
+
+    /**
+     * Send the requests, in the order the containers are due, until this
+     * sampler is closed. The running containers are looked up in the cache
+     * once per period; if that fails, the failure is counted and the
+     * containers found before are sampled until the next period.
+     */
+    private void dispatch() {
+        long refresh = System.nanoTime();
+        long next = refresh;
+        try {
+            this.cache.awaitSynced(this.period, TimeUnit.NANOSECONDS);
+            while (!this.closed) {
+                if (System.nanoTime() - refresh >= 0) {
+                    try {
+                        this.refresh();
+                    // @checkstyle IllegalCatch (1 line)
+                    } catch (final RuntimeException ex) {
+                        this.failed.incrementAndGet();
+                    }
+                    refresh = System.nanoTime() + this.period;
+                }
+                final Slot slot = this.queue.poll(
+                    refresh - System.nanoTime(), TimeUnit.NANOSECONDS
+                );
+                if (slot != null && !slot.removed) {
+                    TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+                    this.permits.acquire();
+                    final long now = System.nanoTime();
+                    next = now + this.interval;
+                    this.late = Math.max(0, now - slot.due);
+                    slot.due = Math.max(slot.due + this.period, now);
+                    this.submit(slot);
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Start sampling the new running containers and stop sampling the
+     * ones which are gone.
+     */
+    private void refresh() {
+        final Set<String> running = new HashSet<>();
+        for (final Container container : this.cache.filter(RUNNING)) {
+            final String id = container.containerId();
+            running.add(id);
+            if (!this.slots.containsKey(id)) {
+                final Slot slot = new Slot(
+                    container, new StatsRing(id, this.capacity),
+                    System.nanoTime(), this.found
+                );
+                this.found = this.found + 1;
+                this.slots.put(id, slot);
+                this.queue.add(slot);
+            }
+        }
+        final Iterator<Slot> sampled = this.slots.values().iterator();
+        while (sampled.hasNext()) {
+            final Slot slot = sampled.next();
+            if (!running.contains(slot.ring.containerId())) {
+                slot.removed = true;
+                sampled.remove();
+                this.queue.remove(slot);
+            }
+        }
+    }
+
+    /**
+     * Sample a container on one of the threads. The permit for the thread
+     * is already taken.
+     * @param slot The container.
+     */
+    private void submit(final Slot slot) {
+        try {
+            this.threads.execute(() -> this.sample(slot));
+        } catch (final RejectedExecutionException ex) {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Take one sample of a container and put it back in the queue.
+     * @param slot The container.
+     */
+    private void sample(final Slot slot) {
+        try (final StatsFrames frames = slot.container.stats()
+            .oneShot().frames()) {
+            if (frames.next()) {
+                slot.ring.add(frames);
+            }
+        // @checkstyle IllegalCatch (1 line)
+        } catch (final IOException | RuntimeException ex) {
+            this.failed.incrementAndGet();
+        } finally {
+            this.permits.release();
+            if (!this.closed && !slot.removed) {
+                this.queue.add(slot);
+            }
+        }
+    }
+
+    /**
+     * A sampled container, in the queue.
+     */
+    private static final class Slot implements Delayed {
+
+        /**
+         * The container.
+         */
+        private final Container container;
+
+        /**
+         * Its samples.
+         */
+        private final StatsRing ring;
+
+        /**
+         * Order in which it was found.
+         */
+        private final long order;
+
+        /**
+         * When it is due for sampling, in System.nanoTime().
+         */
+        private volatile long due;
+
+        /**
+         * Did it stop running?
+         */
+        private volatile boolean removed;
+
+        /**
+         * Ctor.
+         * @param container The container.
+         * @param ring Its samples.
+         * @param due When it is due for sampling.
+         * @param order Order in which it was found.
+         * @checkstyle ParameterNumber (5 lines)
+         */
+        Slot(
+            final Container container, final StatsRing ring,
+            final long due, final long order
+        ) {
+            this.container = container;
+            this.ring = ring;
+            this.due = due;
+            this.order = order;
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(
+                this.due - System.nanoTime(), TimeUnit.NANOSECONDS
+            );
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            final Slot slot = (Slot) other;
+            int compared = Long.signum(this.due - slot.due);
+            if (compared == 0) {
+                compared = Long.compare(this.order, slot.order);
+            }
+            return compared;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.json.Json;
+import javax.json.JsonObject;
+
+/**
+ * Runtime {@link AsyncDocker}: every call is an {@link AsyncCall} on the
+ * given Executor, against an {@link AbortableDocker}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class RtAsyncDocker implements AsyncDocker {
+
+    /**
+     * The blocking Docker API, whose requests can be aborted.
+     */
+    private final Docker docker;
+
+    /**
+     * Base URI of the Docker API.
+     */
+    private final URI baseUri;
+
+    /**
+     * Executor which makes the calls.
+     */
+    private final Executor executor;
+
+    /**
+     * Default deadline of the calls.
+     */
+    private final Duration deadline;
+
+    /**
+     * Ctor.
+     * @param docker The blocking Docker API, whose requests can be aborted.
+     * @param baseUri Base URI of the Docker API.
+     * @param executor Executor which makes the calls.
+     * @param deadline Default deadline of the calls, zero for none.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    RtAsyncDocker(
+        final Docker docker, final URI baseUri, final Executor executor,
+        final Duration deadline
+    ) {
+        this.docker = docker;
+        this.baseUri = baseUri;
+        this.executor = executor;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> call(final DockerCall<T> call) {
+        return this.call(call, this.deadline);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> call(
+        final DockerCall<T> call, final Duration time
+    ) {
+        return new AsyncCall<>(this.docker, call).submit(this.executor, time);
+    }
+
+    @Override
+    public AsyncDocker withDeadline(final Duration time) {
+        return new RtAsyncDocker(
+            this.docker, this.baseUri, this.executor, time
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> ping() {
+        return this.call(Docker::ping);
+    }
+
+    @Override
+    public CompletableFuture<Version> version() {
+        return this.call(Docker::version);
+    }
+
+    @Override
+    public CompletableFuture<Info> info() {
+        return this.call(Docker::info);
+    }
+
+    @Override
+    public AsyncContainer container(final String containerId) {
+        return new AsyncRtContainer(containerId);
+    }
+
+    @Override
+    public AsyncImage image(final String name) {
+        return new AsyncRtImage(name);
+    }
+
+    @Override
+    public AsyncNetwork network(final String networkId) {
+        return new AsyncRtNetwork(networkId);
+    }
+
+    @Override
+    public AsyncVolume volume(final String name) {
+        return new AsyncRtVolume(name);
+    }
+
+    @Override
+    public Docker docker() {
+        return this.docker;
+    }
+
+    /**
+     * JSON representation with the given ID.
+     * @param key Name of the attribute, e.g. Id or Name.
+     * @param value ID.
+     * @return JsonObject.
+     */
+    private static JsonObject rep(final String key, final String value) {
+        return Json.createObjectBuilder().add(key, value).build();
+    }
+
+    /**
+     * URI of a resource.
+     * @param path Path of the resource, e.g. /images/ubuntu.
+     * @return URI.
+     */
+    private URI uri(final String path) {
+        return URI.create(this.baseUri.toString() + path);
+    }
+
+    /**
+     * AsyncContainer.
+     */
+    private final class AsyncRtContainer implements AsyncContainer {
+
+        /**
+         * ID or name of the container.
+         */
+        private final String id;
+
+        /**
+         * Ctor.
+         * @param id ID or name of the container.
+         */
+        AsyncRtContainer(final String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String containerId() {
+            return this.id;
+        }
+
+        @Override
+        public CompletableFuture<JsonObject> inspect() {
+            return RtAsyncDocker.this.call(
+                dkr -> dkr.containers().get(this.id).inspect()
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> start() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    dkr.containers().get(this.id).start();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> stop() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    dkr.containers().get(this.id).stop();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> kill() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    dkr.containers().get(this.id).kill();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> restart() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    dkr.containers().get(this.id).restart();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> pause() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    dkr.containers().get(this.id).pause();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> unpause() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    dkr.containers().get(this.id).unpause();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> remove() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    dkr.containers().get(this.id).remove();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Integer> waitOn(final String state) {
+            return RtAsyncDocker.this.call(
+                dkr -> dkr.containers().get(this.id).waitOn(state)
+            );
+        }
+    }
+
+    /**
+     * AsyncImage.
+     */
+    private final class AsyncRtImage implements AsyncImage {
+
+        /**
+         * The image.
+         */
+        private final Image image;
+
+        /**
+         * Ctor.
+         * @param name ID or name of the image.
+         */
+        AsyncRtImage(final String name) {
+            this.image = new RtImage(
+                RtAsyncDocker.rep("Id", name),
+                RtAsyncDocker.this.docker.httpClient(),
+                RtAsyncDocker.this.uri("/images/" + name),
+                RtAsyncDocker.this.docker
+            );
+        }
+
+        @Override
+        public CompletableFuture<JsonObject> inspect() {
+            return RtAsyncDocker.this.call(dkr -> this.image.inspect());
+        }
+
+        @Override
+        public CompletableFuture<Void> delete() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    this.image.delete();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> tag(
+            final String repo, final String name
+        ) {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    this.image.tag(repo, name);
+                    return null;
+                }
+            );
+        }
+    }
+
+    /**
+     * AsyncNetwork.
+     */
+    private final class AsyncRtNetwork implements AsyncNetwork {
+
+        /**
+         * The network.
+         */
+        private final Network network;
+
+        /**
+         * Ctor.
+         * @param id ID or name of the network.
+         */
+        AsyncRtNetwork(final String id) {
+            this.network = new RtNetwork(
+                RtAsyncDocker.rep("Id", id),
+                RtAsyncDocker.this.docker.httpClient(),
+                RtAsyncDocker.this.uri("/networks/" + id),
+                RtAsyncDocker.this.docker
+            );
+        }
+
+        @Override
+        public CompletableFuture<JsonObject> inspect() {
+            return RtAsyncDocker.this.call(dkr -> this.network.inspect());
+        }
+
+        @Override
+        public CompletableFuture<Void> remove() {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    this.network.remove();
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> connect(final String containerId) {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    this.network.connect(containerId);
+                    return null;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> disconnect(final String containerId) {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    this.network.disconnect(containerId);
+                    return null;
+                }
+            );
+        }
+    }
+
+    /**
+     * AsyncVolume.
+     */
+    private final class AsyncRtVolume implements AsyncVolume {
+
+        /**
+         * The volume.
+         */
+        private final Volume volume;
+
+        /**
+         * Ctor.
+         * @param name Name of the volume.
+         */
+        AsyncRtVolume(final String name) {
+            this.volume = new RtVolume(
+                RtAsyncDocker.rep("Name", name),
+                RtAsyncDocker.this.docker.httpClient(),
+                RtAsyncDocker.this.uri("/volumes/" + name),
+                RtAsyncDocker.this.docker
+            );
+        }
+
+        @Override
+        public CompletableFuture<JsonObject> inspect() {
+            return RtAsyncDocker.this.call(dkr -> this.volume.inspect());
+        }
+
+        @Override
+        public CompletableFuture<Void> remove(final boolean force) {
+            return RtAsyncDocker.this.call(
+                dkr -> {
+                    this.volume.remove(force);
+                    return null;
+                }
+            );
+        }
+    }
+}
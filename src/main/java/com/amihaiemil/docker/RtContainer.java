@@ -197,6 +197,13 @@ final class RtContainer extends JsonResource implements Container {
         );
     }
 
+    @Override
+    public Stats stats() {
+        return new RtStats(
+            this, this.client, URI.create(this.baseUri.toString() + "/stats")
+        );
+    }
+
     @Override
     public Docker docker() {
         return this.docker;
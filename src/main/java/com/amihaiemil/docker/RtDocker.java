@@ -27,10 +27,13 @@ package com.amihaiemil.docker;
 
 import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.Executor;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.pool.PoolStats;
 
 /**
  * Restful Docker.
@@ -50,14 +53,32 @@ abstract class RtDocker implements Docker {
      */
     private final URI baseUri;
 
+    /**
+     * Events hub of this Docker, created on the first call of
+     * {@link #eventHub()}.
+     */
+    private volatile EventHub hub;
+
     /**
      * Ctor.
      * @param client Given HTTP Client.
      * @param baseUri Base URI.
      */
     RtDocker(final HttpClient client, final URI baseUri) {
+        this(client, baseUri, null);
+    }
+
+    /**
+     * Ctor.
+     * @param client Given HTTP Client.
+     * @param baseUri Base URI.
+     * @param hub Events hub of another Docker, to share its connection,
+     *  null if this Docker should have its own.
+     */
+    RtDocker(final HttpClient client, final URI baseUri, final EventHub hub) {
         this.client = client;
         this.baseUri = baseUri;
+        this.hub = hub;
     }
 
     @Override
@@ -77,6 +98,27 @@ abstract class RtDocker implements Docker {
         );
     }
 
+    @Override
+    public final EventHub eventHub() {
+        EventHub shared = this.hub;
+        if (shared == null) {
+            synchronized (this) {
+                shared = this.hub;
+                if (shared == null) {
+                    shared = new SharedEvents(
+                        new RtEvents(
+                            this.client,
+                            URI.create(this.baseUri.toString() + "/events"),
+                            this
+                        ).resilient()
+                    );
+                    this.hub = shared;
+                }
+            }
+        }
+        return shared;
+    }
+
     @Override
     public final Containers containers() {
         return new ListedContainers(
@@ -180,8 +222,38 @@ abstract class RtDocker implements Docker {
         }
     }
 
+    @Override
+    public AsyncDocker async(final Executor executor) {
+        return new RtAsyncDocker(
+            new AbortableDocker(
+                this.client, this.baseUri, this.eventHub()
+            ),
+            this.baseUri, executor, Duration.ZERO
+        );
+    }
+
     @Override
     public HttpClient httpClient() {
         return this.client;
     }
+
+    @Override
+    public PoolStats poolStats() {
+        if (!(this.client instanceof Pooled)) {
+            throw new UnsupportedOperationException(
+                "The connection pool of this HttpClient is not known."
+            );
+        }
+        return ((Pooled) this.client).poolStats();
+    }
+
+    @Override
+    public PoolStats streamingPoolStats() {
+        if (!(this.client instanceof Pooled)) {
+            throw new UnsupportedOperationException(
+                "The connection pool of this HttpClient is not known."
+            );
+        }
+        return ((Pooled) this.client).streamingPoolStats();
+    }
 }
@@ -28,22 +28,20 @@ package com.amihaiemil.docker;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
 
 import javax.json.Json;
 import javax.json.JsonObject;
-import javax.json.JsonReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -60,11 +58,16 @@ final class RtEvents implements Events {
     private final Map<String, Iterable<String>> filters;
 
     /**
-     * Since tim
-     * estamp.
+     * Since timestamp.
      */
     private final LocalDateTime since;
 
+    /**
+     * Resume point, in nanoseconds since the epoch; 0 if none.
+     * It takes precedence over the since timestamp.
+     */
+    private final long resume;
+
     /**
      * Until timestamp.
      */
@@ -110,6 +113,27 @@ final class RtEvents implements Events {
         final Map<String, Iterable<String>> filters,
         final LocalDateTime since,
         final LocalDateTime until
+    ) {
+        this(client, baseUri, dkr, filters, since, until, 0L);
+    }
+
+    /**
+     * Ctor.
+     * @param client Given HTTP Client.
+     * @param baseUri Base URI, ending with /containers.
+     * @param dkr Docker where these Containers are from.
+     * @param filters Filters to apply on these events.
+     * @param since Since timestamp.
+     * @param until Until timestamp.
+     * @param resume Resume point (timeNano), 0 if none.
+     * @checkstyle ParameterNumber (2 lines)
+     */
+    RtEvents(
+        final HttpClient client, final URI baseUri, final Docker dkr,
+        final Map<String, Iterable<String>> filters,
+        final LocalDateTime since,
+        final LocalDateTime until,
+        final long resume
     ) {
         this.client = client;
         this.baseUri = baseUri;
@@ -117,10 +141,11 @@ final class RtEvents implements Events {
         this.filters = filters;
         this.since = since;
         this.until = until;
+        this.resume = resume;
     }
 
     @Override
-    public Events since(final LocalDateTime timestamp) {
+    public RtEvents since(final LocalDateTime timestamp) {
         return new RtEvents(
             this.client,
             this.baseUri,
@@ -132,7 +157,7 @@ final class RtEvents implements Events {
     }
 
     @Override
-    public Events until(final LocalDateTime timestamp) {
+    public RtEvents until(final LocalDateTime timestamp) {
         return new RtEvents(
             this.client,
             this.baseUri,
@@ -144,7 +169,7 @@ final class RtEvents implements Events {
     }
 
     @Override
-    public Events filter(
+    public RtEvents filter(
         final Supplier<Map<String, Iterable<String>>> filter
     ) {
         final Map<String, Iterable<String>> merged = new HashMap<>(
@@ -161,14 +186,47 @@ final class RtEvents implements Events {
         );
     }
 
+    @Override
+    public ResilientEvents resilient() {
+        return new ResumingEvents(this);
+    }
+
+    @Override
+    public ResilientEvents resilient(
+        final Duration backoff, final Duration max
+    ) {
+        return new ResumingEvents(this, backoff, max);
+    }
+
+    /**
+     * These events, resumed right at the given moment. Unlike
+     * {@link #since(LocalDateTime)}, the moment is sent with nanosecond
+     * precision, so that nothing is lost between two connections.
+     * @param timeNano Moment, in nanoseconds since the epoch.
+     * @return Events.
+     */
+    RtEvents resumed(final long timeNano) {
+        return new RtEvents(
+            this.client,
+            this.baseUri,
+            this.docker,
+            this.filters,
+            this.since,
+            this.until,
+            timeNano
+        );
+    }
+
     /**
      * Unlike other methods, we cannot implement this one using Response
      * Handlers, because Apache HTTP Client tries to consume the remaining
      * content after all the handlers have been executed, which results in
      * a blockage, since the underlying InputStream is potentially infinite.
+     * <br><br>
+     * The events are newline-delimited, they are decoded by
+     * {@link JsonLines}. The Stream ends if the server closes
+     * the connection.
      *
-     * @checkstyle CommentsIndentation (100 lines)
-     * @checkstyle Indentation (100 lines)
      * @return Stream of Events.
      * @throws IOException If any I/O problem occurs.
      * @throws UnexpectedResponseException If the response status is not 200.
@@ -180,52 +238,16 @@ final class RtEvents implements Events {
         final HttpResponse response = this.client.execute(monitor);
         final int actual = response.getStatusLine().getStatusCode();
         if(actual != HttpStatus.SC_OK) {
+            monitor.releaseConnection();
             throw new UnexpectedResponseException(
                 this.buildMonitorUri().toString(),
                 actual, HttpStatus.SC_OK,
                 Json.createObjectBuilder().build()
             );
-        } else {
-            final InputStream content = response.getEntity().getContent();
-            final Stream<JsonObject> stream = Stream.generate(
-                () -> {
-                    JsonObject read = null;
-                    try {
-                        final byte[] tmp = new byte[4096];
-                        while (content.read(tmp) != -1) {
-                            try {
-                                final JsonReader reader = Json.createReader(
-                                    new ByteArrayInputStream(tmp)
-                                );
-                                read = reader.readObject();
-                                break;
-                            //@checkstyle IllegalCatch (1 line)
-                            } catch (final Exception exception) {
-                                //Couldn't parse byte[] to Json,
-                                //try to read more bytes.
-                            }
-                        }
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(
-                            "IOException when reading streamed JsonObjects!"
-                        );
-                    }
-                    return read;
-                }
-            ).onClose(
-                () -> {
-                    try {
-                        ((CloseableHttpResponse) response).close();
-                    } catch (final IOException ex) {
-                        //There is a bug in Apache HTTPClient, when closing
-                        //an infinite InputStream: IOException is thrown
-                        //because the client still tries to read the remainder
-                        // of the closed Stream. We should ignore this case.
-                    }
-                }
-            );
-            return stream;
         }
+        return new JsonLines(
+            new AbortOnClose(monitor, response.getEntity().getContent())
+        ).stream();
     }
 
     @Override
@@ -243,7 +265,16 @@ final class RtEvents implements Events {
         final URIBuilder uriBuilder = new UncheckedUriBuilder(
                 this.baseUri.toString()
         );
-        if (this.since != null) {
+        if (this.resume > 0) {
+            uriBuilder.addParameter(
+                "since",
+                String.format(
+                    "%d.%09d",
+                    TimeUnit.NANOSECONDS.toSeconds(this.resume),
+                    this.resume % TimeUnit.SECONDS.toNanos(1)
+                )
+            );
+        } else if (this.since != null) {
             uriBuilder.addParameter(
                 "since",
                 String.valueOf(
@@ -25,11 +25,17 @@
  */
 package com.amihaiemil.docker;
 
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 
 import javax.json.JsonObject;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Exec. A batch of commands that are running inside a Container.
@@ -38,6 +44,18 @@ import java.net.URI;
  * @since 0.0.12
  */
 final class RtExec implements Exec {
+    /**
+     * Body for starting an Exec attached.
+     */
+    private static final byte[] ATTACHED =
+        "{\"Detach\":false,\"Tty\":false}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Body for starting an Exec detached.
+     */
+    private static final byte[] DETACHED =
+        "{\"Detach\":true,\"Tty\":false}".getBytes(StandardCharsets.UTF_8);
+
     /**
      * Apache HttpClient which sends the requests.
      */
@@ -72,4 +90,61 @@ final class RtExec implements Exec {
         return new Inspection(this.client, this.baseUri.toString() + "/json");
     }
 
+    /**
+     * Start this Exec attached. The output is streamed in the response,
+     * which ends when the process closes its stdout and stderr. Like
+     * in the case of the logs, we cannot use a ResponseHandler here.
+     * @return ExecFrames.
+     * @throws IOException If something goes wrong.
+     * @throws UnexpectedResponseException If the status response is not
+     *  the expected one.
+     */
+    @Override
+    public ExecFrames start()
+        throws IOException, UnexpectedResponseException {
+        final HttpPost start = this.request(ATTACHED);
+        final HttpResponse response = this.client.execute(start);
+        try {
+            new MatchStatus(
+                start.getURI(),
+                HttpStatus.SC_OK
+            ).handleResponse(response);
+            return new AttachedExec(
+                this, start, new MultiplexedFrames(response.getEntity())
+            );
+        } catch (final UnexpectedResponseException | IOException ex) {
+            start.releaseConnection();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void startDetached()
+        throws IOException, UnexpectedResponseException {
+        final HttpPost start = this.request(DETACHED);
+        try {
+            this.client.execute(
+                start,
+                new MatchStatus(start.getURI(), HttpStatus.SC_OK)
+            );
+        } finally {
+            start.releaseConnection();
+        }
+    }
+
+    /**
+     * Request which starts this Exec.
+     * @param body Json body of the request.
+     * @return HttpPost.
+     */
+    private HttpPost request(final byte[] body) {
+        final HttpPost start = new HttpPost(
+            this.baseUri.toString() + "/start"
+        );
+        start.setEntity(
+            new ByteArrayEntity(body, ContentType.APPLICATION_JSON)
+        );
+        return start;
+    }
+
 }
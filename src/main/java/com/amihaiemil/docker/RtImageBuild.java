@@ -0,0 +1,333 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+
+/**
+ * Runtime {@link ImageBuild}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class RtImageBuild implements ImageBuild {
+
+    /**
+     * Apache HttpClient which sends the requests.
+     */
+    private final HttpClient client;
+
+    /**
+     * Base URI of the Images API.
+     */
+    private final URI baseUri;
+
+    /**
+     * Docker API.
+     */
+    private final Docker docker;
+
+    /**
+     * The build context.
+     */
+    private final Path context;
+
+    /**
+     * Tags of the image.
+     */
+    private final List<String> tags;
+
+    /**
+     * Path of the Dockerfile within the context.
+     */
+    private final String dockerfile;
+
+    /**
+     * Build-time variables.
+     */
+    private final Map<String, String> args;
+
+    /**
+     * Gzip the context?
+     */
+    private final boolean gzip;
+
+    /**
+     * Index file of the build cache, if any.
+     */
+    private final Optional<Path> index;
+
+    /**
+     * Ctor.
+     * @param client The http client.
+     * @param uri Base URI of the Images API.
+     * @param dkr The docker entry point.
+     * @param context The build context.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    RtImageBuild(
+        final HttpClient client, final URI uri, final Docker dkr,
+        final Path context
+    ) {
+        this(
+            client, uri, dkr, context, Collections.emptyList(), "Dockerfile",
+            Collections.emptyMap(), false, Optional.empty()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param client The http client.
+     * @param uri Base URI of the Images API.
+     * @param dkr The docker entry point.
+     * @param context The build context.
+     * @param tags Tags of the image.
+     * @param dockerfile Path of the Dockerfile within the context.
+     * @param args Build-time variables.
+     * @param gzip Gzip the context?
+     * @param index Index file of the build cache, if any.
+     * @checkstyle ParameterNumber (7 lines)
+     */
+    private RtImageBuild(
+        final HttpClient client, final URI uri, final Docker dkr,
+        final Path context, final List<String> tags, final String dockerfile,
+        final Map<String, String> args, final boolean gzip,
+        final Optional<Path> index
+    ) {
+        this.client = client;
+        this.baseUri = uri;
+        this.docker = dkr;
+        this.context = context;
+        this.tags = tags;
+        this.dockerfile = dockerfile;
+        this.args = args;
+        this.gzip = gzip;
+        this.index = index;
+    }
+
+    @Override
+    public ImageBuild withTag(final String tag) {
+        final List<String> more = new ArrayList<>(this.tags);
+        more.add(tag);
+        return new RtImageBuild(
+            this.client, this.baseUri, this.docker, this.context,
+            Collections.unmodifiableList(more), this.dockerfile, this.args,
+            this.gzip, this.index
+        );
+    }
+
+    @Override
+    public ImageBuild withDockerfile(final String path) {
+        return new RtImageBuild(
+            this.client, this.baseUri, this.docker, this.context,
+            this.tags, path, this.args, this.gzip, this.index
+        );
+    }
+
+    @Override
+    public ImageBuild withBuildArg(final String name, final String value) {
+        final Map<String, String> more = new LinkedHashMap<>(this.args);
+        more.put(name, value);
+        return new RtImageBuild(
+            this.client, this.baseUri, this.docker, this.context,
+            this.tags, this.dockerfile, Collections.unmodifiableMap(more),
+            this.gzip, this.index
+        );
+    }
+
+    @Override
+    public ImageBuild withGzip(final boolean zip) {
+        return new RtImageBuild(
+            this.client, this.baseUri, this.docker, this.context,
+            this.tags, this.dockerfile, this.args, zip, this.index
+        );
+    }
+
+    @Override
+    public ImageBuild withCache(final Path file) {
+        return new RtImageBuild(
+            this.client, this.baseUri, this.docker, this.context,
+            this.tags, this.dockerfile, this.args, this.gzip,
+            Optional.of(file)
+        );
+    }
+
+    @Override
+    public Image run(final Consumer<String> log)
+        throws IOException, UnexpectedResponseException {
+        final Image image;
+        if (this.index.isPresent()) {
+            image = this.cached(new BuildCache(this.index.get()), log);
+        } else {
+            image = this.upload(log);
+        }
+        return image;
+    }
+
+    /**
+     * Return the image built before from the same context, if it is still
+     * there, or build it and remember it.
+     * @param cache The build cache.
+     * @param log Receives the lines of the build output.
+     * @return The Image.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    private Image cached(final BuildCache cache, final Consumer<String> log)
+        throws IOException, UnexpectedResponseException {
+        final String digest = new ContextDigest(
+            this.context, this.dockerfile, cache
+        ).digest();
+        final String key = this.key(digest);
+        final String known = cache.image(key);
+        Image image = null;
+        if (!known.isEmpty()) {
+            final Image candidate = this.image(known);
+            try {
+                candidate.inspect();
+                log.accept(
+                    String.format(
+                        "Using cached image %s, context %s", known, digest
+                    )
+                );
+                for (final String tag : this.tags) {
+                    final String[] parts = ParallelPulls.parse(tag);
+                    candidate.tag(parts[0], parts[1]);
+                }
+                image = candidate;
+            } catch (final UnexpectedResponseException ex) {
+                if (ex.actualStatus() != HttpStatus.SC_NOT_FOUND) {
+                    throw ex;
+                }
+                cache.forget(key);
+            }
+        }
+        if (image == null) {
+            image = this.upload(log);
+            cache.remember(key, image.getString("Id"));
+        }
+        cache.save();
+        return image;
+    }
+
+    /**
+     * Send the context and build the image.
+     * @param log Receives the lines of the build output.
+     * @return The built Image.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    private Image upload(final Consumer<String> log)
+        throws IOException, UnexpectedResponseException {
+        final UncheckedUriBuilder uri = new UncheckedUriBuilder(
+            this.baseUri.resolve("build").toString()
+        );
+        for (final String tag : this.tags) {
+            uri.addParameter("t", tag);
+        }
+        uri.addParameter("dockerfile", this.dockerfile);
+        if (!this.args.isEmpty()) {
+            final JsonObjectBuilder vars = Json.createObjectBuilder();
+            this.args.forEach(vars::add);
+            uri.addParameter("buildargs", vars.build().toString());
+        }
+        final HttpPost build = new HttpPost(uri.build());
+        build.setEntity(
+            new BuildContext(this.context, this.dockerfile, this.gzip)
+        );
+        final BuildLog lines = new BuildLog(log);
+        try {
+            this.client.execute(
+                build,
+                new ReadProgress(
+                    new MatchStatus(build.getURI(), HttpStatus.SC_OK),
+                    build.getURI().toString(),
+                    lines
+                )
+            );
+        } finally {
+            lines.flush();
+            build.releaseConnection();
+        }
+        if (lines.image().isEmpty()) {
+            throw new IllegalStateException(
+                "The build did not report the ID of the image."
+            );
+        }
+        return this.image(lines.image());
+    }
+
+    /**
+     * Key of the build in the cache: what goes into the image besides
+     * the tags, i.e. the context, the Dockerfile and the build args.
+     * @param digest Digest of the context.
+     * @return Key.
+     */
+    private String key(final String digest) {
+        final MessageDigest sha = BuildCache.sha256();
+        final JsonObjectBuilder vars = Json.createObjectBuilder();
+        new TreeMap<>(this.args).forEach(vars::add);
+        sha.update(
+            String.join(
+                "\u0000", digest, this.dockerfile, vars.build().toString()
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        return "sha256:" + BuildCache.hex(sha.digest());
+    }
+
+    /**
+     * The image with the given ID.
+     * @param id ID of the image.
+     * @return Image.
+     */
+    private Image image(final String id) {
+        return new RtImage(
+            Json.createObjectBuilder().add("Id", id).build(),
+            this.client,
+            URI.create(this.baseUri.toString() + "/" + id),
+            this.docker
+        );
+    }
+}
@@ -27,20 +27,29 @@ package com.amihaiemil.docker;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.net.URI;
 import java.net.URL;
-import java.nio.file.Files;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.StringJoiner;
+import java.util.stream.Stream;
 import javax.json.Json;
+import javax.json.JsonObject;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 
 /**
  * Runtime {@link Images}.
@@ -81,16 +90,22 @@ abstract class RtImages implements Images {
     public Image pull(
         final String name, final String tag
     ) throws IOException, UnexpectedResponseException {
-        final HttpPost create  = new HttpPost(
-            new UncheckedUriBuilder(this.baseUri.toString().concat("/create"))
-                .addParameter("fromImage", name)
-                .addParameter("tag", tag)
-                .build()
-        );
+        return this.pull(name, tag, (layer, status, current, total) -> { });
+    }
+
+    @Override
+    public Image pull(
+        final String name, final String tag, final PullProgress progress
+    ) throws IOException, UnexpectedResponseException {
+        final HttpPost create = this.create(name, tag);
         try {
             this.client.execute(
                 create,
-                new MatchStatus(create.getURI(), HttpStatus.SC_OK)
+                new ReadProgress(
+                    new MatchStatus(create.getURI(), HttpStatus.SC_OK),
+                    create.getURI().toString(),
+                    new LayerProgress(progress)
+                )
             );
             return new RtImage(
                 Json.createObjectBuilder().add("Name", name).build(),
@@ -105,6 +120,55 @@ abstract class RtImages implements Images {
         }
     }
 
+    @Override
+    public Stream<JsonObject> pulling(
+        final String name, final String tag
+    ) throws IOException, UnexpectedResponseException {
+        final HttpPost create = this.create(name, tag);
+        final HttpResponse response = this.client.execute(create);
+        final HttpEntity entity;
+        try {
+            entity = new MatchStatus(create.getURI(), HttpStatus.SC_OK)
+                .handleResponse(response)
+                .getEntity();
+        } catch (final UnexpectedResponseException ex) {
+            create.releaseConnection();
+            throw ex;
+        }
+        final Stream<JsonObject> entries;
+        if (entity == null) {
+            create.releaseConnection();
+            entries = Stream.empty();
+        } else {
+            entries = new JsonLines(
+                new AbortOnClose(create, entity.getContent())
+            ).stream().map(new FailOnError(create.getURI().toString()));
+        }
+        return entries;
+    }
+
+    @Override
+    public ImagePulls pulls(final int parallelism) {
+        return new ParallelPulls(
+            this, this.client, this.baseUri, parallelism
+        );
+    }
+
+    @Override
+    public ImageBuild build(final Path context) {
+        return new RtImageBuild(
+            this.client, this.baseUri, this.docker, context
+        );
+    }
+
+    @Override
+    public ImageCache cache(final int capacity)
+        throws IOException, UnexpectedResponseException {
+        return new CachedImages(
+            this.client, this.baseUri, this.docker, capacity
+        ).start();
+    }
+
     @Override
     public Image importImage(
         final URL source, final String repo
@@ -136,27 +200,29 @@ abstract class RtImages implements Images {
     @Override
     public Images importFromTar(
         final String file) throws IOException, UnexpectedResponseException {
-        final HttpPost load  = new HttpPost(
-            new UncheckedUriBuilder(this.baseUri.toString().concat("/load"))
-                .build()
-        );
-        try {
-            load.setEntity(
-                new StringEntity(
-                    new String(
-                        Files.readAllBytes(Paths.get(file))
-                    ),
-                    ContentType.DEFAULT_BINARY
-                )
-            );
-            this.client.execute(
-                load,
-                new MatchStatus(load.getURI(), HttpStatus.SC_OK)
-            );
-        } finally {
-            load.releaseConnection();
+        return this.importFromTar(Paths.get(file));
+    }
+
+    @Override
+    public Images importFromTar(final Path tar)
+        throws IOException, UnexpectedResponseException {
+        try (final FileChannel channel = FileChannel.open(
+            tar, StandardOpenOption.READ
+        )) {
+            return this.load(new ChannelEntity(channel, channel.size()));
         }
-        return this;
+    }
+
+    @Override
+    public Images importFromTar(final InputStream tar)
+        throws IOException, UnexpectedResponseException {
+        return this.load(new ChannelEntity(Channels.newChannel(tar), -1));
+    }
+
+    @Override
+    public Images importFromTar(final ReadableByteChannel tar)
+        throws IOException, UnexpectedResponseException {
+        return this.load(new ChannelEntity(tar, -1));
     }
 
     @Override
@@ -202,6 +268,94 @@ abstract class RtImages implements Images {
     }
 
 
+    @Override
+    public long save(final Iterable<String> names, final OutputStream tar)
+        throws IOException, UnexpectedResponseException {
+        return this.save(names, Channels.newChannel(tar));
+    }
+
+    @Override
+    public long save(final Iterable<String> names, final Path tar)
+        throws IOException, UnexpectedResponseException {
+        try (final FileChannel channel = FileChannel.open(
+            tar, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            return this.save(names, channel);
+        }
+    }
+
+    @Override
+    public long save(
+        final Iterable<String> names, final WritableByteChannel tar
+    ) throws IOException, UnexpectedResponseException {
+        final UncheckedUriBuilder uri = new UncheckedUriBuilder(
+            this.baseUri.toString().concat("/get")
+        );
+        boolean any = false;
+        for (final String name : names) {
+            uri.addParameter("names", name);
+            any = true;
+        }
+        long written = 0;
+        if (any) {
+            final HttpGet save = new HttpGet(uri.build());
+            try {
+                written = this.client.execute(
+                    save,
+                    new CopyContent(
+                        new MatchStatus(save.getURI(), HttpStatus.SC_OK),
+                        tar
+                    )
+                );
+            } finally {
+                save.releaseConnection();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * The request which pulls an image.
+     * @param name Name of the image to pull.
+     * @param tag Tag or digest for the image.
+     * @return HttpPost.
+     */
+    private HttpPost create(final String name, final String tag) {
+        return new HttpPost(
+            new UncheckedUriBuilder(this.baseUri.toString().concat("/create"))
+                .addParameter("fromImage", name)
+                .addParameter("tag", tag)
+                .build()
+        );
+    }
+
+    /**
+     * Load images from a tar.
+     * @param tar Tar containing the images.
+     * @return These Images.
+     * @throws IOException If an I/O error occurs.
+     * @throws UnexpectedResponseException If the API responds with an
+     *  unexpected status.
+     */
+    private Images load(final HttpEntity tar)
+        throws IOException, UnexpectedResponseException {
+        final HttpPost load  = new HttpPost(
+            new UncheckedUriBuilder(this.baseUri.toString().concat("/load"))
+                .build()
+        );
+        try {
+            load.setEntity(tar);
+            this.client.execute(
+                load,
+                new MatchStatus(load.getURI(), HttpStatus.SC_OK)
+            );
+        } finally {
+            load.releaseConnection();
+        }
+        return this;
+    }
+
     @Override
     public Docker docker() {
         return this.docker;
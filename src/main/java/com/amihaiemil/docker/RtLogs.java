@@ -26,14 +26,19 @@
 package com.amihaiemil.docker;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
 
 /**
  * Restful container logs.
@@ -122,8 +127,26 @@ final class RtLogs implements Logs {
         }
     }
 
+    /**
+     * Follow the logs as a Reader. The frame headers are dropped. Like
+     * in the case of Events, we cannot use a ResponseHandler here, because
+     * Apache HTTP Client would try to consume the remaining (infinite)
+     * content after the handler is executed.
+     * @return Reader of the logs.
+     * @throws IOException If something goes wrong.
+     * @throws UnexpectedResponseException If the status response is not
+     *  the expected one.
+     */
     @Override
     public Reader follow()
+        throws IOException, UnexpectedResponseException {
+        return new InputStreamReader(
+            new FramesInputStream(this.frames()), StandardCharsets.UTF_8
+        );
+    }
+
+    @Override
+    public LogFrames frames()
         throws IOException, UnexpectedResponseException {
         final HttpGet follow = new HttpGet(
             new UncheckedUriBuilder(this.baseUri.toString())
@@ -136,14 +159,20 @@ final class RtLogs implements Logs {
                 )
                 .build()
         );
-        return this.client.execute(
-            follow,
-            new ReadStream(
-                new MatchStatus(
-                    follow.getURI(),
-                    HttpStatus.SC_OK
-                )
-            )
+        final HttpResponse response = this.client.execute(follow);
+        try {
+            new MatchStatus(
+                follow.getURI(),
+                HttpStatus.SC_OK
+            ).handleResponse(response);
+        } catch (final UnexpectedResponseException ex) {
+            follow.releaseConnection();
+            throw ex;
+        }
+        final HttpEntity entity = response.getEntity();
+        return new MultiplexedFrames(
+            new AbortOnClose(follow, entity.getContent()),
+            ContentType.getOrDefault(entity).getMimeType()
         );
     }
 
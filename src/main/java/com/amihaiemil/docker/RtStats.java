@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+
+/**
+ * Restful container stats.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class RtStats implements Stats {
+
+    /**
+     * Container which owns these stats.
+     */
+    private final Container owner;
+
+    /**
+     * Apache HttpClient which sends the requests.
+     */
+    private final HttpClient client;
+
+    /**
+     * Base URI of these stats.
+     */
+    private final URI baseUri;
+
+    /**
+     * One sample only?
+     */
+    private final boolean single;
+
+    /**
+     * Ctor.
+     * @param owner Container which has these stats.
+     * @param client Given HTTP Client.
+     * @param baseUri Base URI of these stats.
+     */
+    RtStats(final Container owner, final HttpClient client, final URI baseUri) {
+        this(owner, client, baseUri, false);
+    }
+
+    /**
+     * Ctor.
+     * @param owner Container which has these stats.
+     * @param client Given HTTP Client.
+     * @param baseUri Base URI of these stats.
+     * @param single One sample only?
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    private RtStats(final Container owner, final HttpClient client,
+        final URI baseUri, final boolean single) {
+        this.owner = owner;
+        this.client = client;
+        this.baseUri = baseUri;
+        this.single = single;
+    }
+
+    /**
+     * Request the stats. A stream is infinite, so its content aborts the
+     * request when closed. A single sample is read to its end, so the
+     * connection goes back to the pool.
+     * @return StatsFrames.
+     * @throws IOException If something goes wrong.
+     * @throws UnexpectedResponseException If the status response is not
+     *  the expected one.
+     */
+    @Override
+    public StatsFrames frames()
+        throws IOException, UnexpectedResponseException {
+        final UncheckedUriBuilder uri = new UncheckedUriBuilder(
+            this.baseUri.toString()
+        ).addParameter("stream", String.valueOf(!this.single));
+        if (this.single) {
+            uri.addParameter("one-shot", "true");
+        }
+        final HttpGet stats = new HttpGet(uri.build());
+        final HttpResponse response = this.client.execute(stats);
+        try {
+            new MatchStatus(
+                stats.getURI(),
+                HttpStatus.SC_OK
+            ).handleResponse(response);
+        } catch (final UnexpectedResponseException ex) {
+            stats.releaseConnection();
+            throw ex;
+        }
+        final InputStream content;
+        if (this.single) {
+            content = response.getEntity().getContent();
+        } else {
+            content = new AbortOnClose(
+                stats, response.getEntity().getContent()
+            );
+        }
+        return new JsonStatsFrames(content);
+    }
+
+    @Override
+    public Stats oneShot() {
+        return new RtStats(this.owner, this.client, this.baseUri, true);
+    }
+
+    @Override
+    public Container container() {
+        return this.owner;
+    }
+}
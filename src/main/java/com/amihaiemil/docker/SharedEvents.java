@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * EventHub which monitors some {@link Events} on a daemon thread and
+ * fans them out to its subscribers.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class SharedEvents implements EventHub {
+
+    /**
+     * Default capacity of a subscription's queue.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Marks the end of a subscription's queue.
+     */
+    private static final JsonObject END = JsonValue.EMPTY_JSON_OBJECT;
+
+    /**
+     * Upstream events.
+     */
+    private final Events events;
+
+    /**
+     * Current subscriptions.
+     */
+    private final List<Queued> subscribers;
+
+    /**
+     * Upstream events Stream, null if there are no subscribers.
+     */
+    private Stream<JsonObject> upstream;
+
+    /**
+     * Ctor.
+     * @param events Upstream events.
+     */
+    SharedEvents(final Events events) {
+        this.events = events;
+        this.subscribers = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public Subscription subscribe(final Predicate<JsonObject> filter)
+        throws IOException, UnexpectedResponseException {
+        return this.subscribe(filter, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public synchronized Subscription subscribe(
+        final Predicate<JsonObject> filter, final int capacity
+    ) throws IOException, UnexpectedResponseException {
+        final Queued subscription = new Queued(this, filter, capacity);
+        if (this.upstream == null) {
+            final Stream<JsonObject> stream = this.events.monitor();
+            final Thread pump = new Thread(
+                () -> this.pump(stream), "docker-java-api-event-hub"
+            );
+            pump.setDaemon(true);
+            this.upstream = stream;
+            pump.start();
+        }
+        this.subscribers.add(subscription);
+        return subscription;
+    }
+
+    @Override
+    public Collection<Subscription> subscriptions() {
+        return Collections.unmodifiableList(this.subscribers);
+    }
+
+    @Override
+    public Collection<Subscription> lagging() {
+        return this.subscribers.stream()
+            .filter(sub -> sub.dropped() > 0)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized void close() {
+        this.subscribers.forEach(Queued::end);
+        this.subscribers.clear();
+        this.stop();
+    }
+
+    /**
+     * Unsubscribe. The upstream connection is closed if this was
+     * the last subscription.
+     * @param subscription Subscription to remove.
+     */
+    private synchronized void unsubscribe(final Queued subscription) {
+        this.subscribers.remove(subscription);
+        subscription.end();
+        if (this.subscribers.isEmpty()) {
+            this.stop();
+        }
+    }
+
+    /**
+     * Close the upstream Stream, if any.
+     */
+    private void stop() {
+        if (this.upstream != null) {
+            final Stream<JsonObject> stream = this.upstream;
+            this.upstream = null;
+            stream.close();
+        }
+    }
+
+    /**
+     * Pump the events from upstream to the subscribers.
+     * @param stream Upstream events.
+     */
+    private void pump(final Stream<JsonObject> stream) {
+        try {
+            stream.forEach(
+                event -> this.subscribers.forEach(sub -> sub.offer(event))
+            );
+        } catch (final IllegalStateException ex) {
+            //The upstream connection was closed or broke. Either way, the
+            //subscriptions are ended below.
+        } finally {
+            this.ended(stream);
+        }
+    }
+
+    /**
+     * The upstream Stream ended, end the subscriptions too
+     * (unless a new upstream was already started).
+     * @param stream The Stream which ended.
+     */
+    private synchronized void ended(final Stream<JsonObject> stream) {
+        if (this.upstream == stream) {
+            this.upstream = null;
+            this.subscribers.forEach(Queued::end);
+            this.subscribers.clear();
+            stream.close();
+        }
+    }
+
+    /**
+     * Subscription with a bounded queue.
+     */
+    private static final class Queued implements Subscription {
+
+        /**
+         * Hub of this subscription.
+         */
+        private final SharedEvents hub;
+
+        /**
+         * Filter of the events.
+         */
+        private final Predicate<JsonObject> filter;
+
+        /**
+         * Maximum number of queued events.
+         */
+        private final int capacity;
+
+        /**
+         * Queued events, with room for the end mark.
+         */
+        private final BlockingQueue<JsonObject> queue;
+
+        /**
+         * Received events.
+         */
+        private final AtomicLong received;
+
+        /**
+         * Dropped events.
+         */
+        private final AtomicLong dropped;
+
+        /**
+         * Did this subscription end?
+         */
+        private volatile boolean ended;
+
+        /**
+         * Ctor.
+         * @param hub Hub of this subscription.
+         * @param filter Filter of the events.
+         * @param capacity Capacity of the queue.
+         */
+        Queued(
+            final SharedEvents hub, final Predicate<JsonObject> filter,
+            final int capacity
+        ) {
+            this.hub = hub;
+            this.filter = filter;
+            this.capacity = capacity;
+            this.queue = new ArrayBlockingQueue<>(capacity + 1);
+            this.received = new AtomicLong();
+            this.dropped = new AtomicLong();
+        }
+
+        @Override
+        public Stream<JsonObject> events() {
+            return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                    new Taken(this.queue),
+                    Spliterator.ORDERED | Spliterator.NONNULL
+                ),
+                false
+            ).onClose(this::close);
+        }
+
+        @Override
+        public JsonObject poll(final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+            JsonObject event = this.queue.poll(timeout, unit);
+            if (event == END) {
+                this.queue.offer(END);
+                event = null;
+            }
+            return event;
+        }
+
+        @Override
+        public boolean ended() {
+            return this.ended;
+        }
+
+        @Override
+        public long received() {
+            return this.received.get();
+        }
+
+        @Override
+        public long dropped() {
+            return this.dropped.get();
+        }
+
+        @Override
+        public int backlog() {
+            int backlog = this.queue.size();
+            if (this.ended && backlog > 0) {
+                backlog = backlog - 1;
+            }
+            return backlog;
+        }
+
+        @Override
+        public void close() {
+            if (!this.ended) {
+                this.hub.unsubscribe(this);
+            }
+        }
+
+        /**
+         * Queue the event if it matches. Never blocks: if the queue is full,
+         * the event is dropped.
+         * @param event Event.
+         */
+        void offer(final JsonObject event) {
+            boolean matches;
+            try {
+                matches = !this.ended && this.filter.test(event);
+            //@checkstyle IllegalCatch (1 line)
+            } catch (final RuntimeException ex) {
+                //A broken filter must not break the hub for everyone else.
+                matches = false;
+            }
+            if (matches) {
+                if (this.queue.size() < this.capacity
+                    && this.queue.offer(event)) {
+                    this.received.incrementAndGet();
+                } else {
+                    this.dropped.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * End this subscription: mark the end of the queue, making room
+         * for the mark if needed.
+         */
+        void end() {
+            if (!this.ended) {
+                this.ended = true;
+                while (!this.queue.offer(END)) {
+                    if (this.queue.poll() != null) {
+                        this.dropped.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterator which takes the events from a queue, until the end mark.
+     */
+    private static final class Taken implements Iterator<JsonObject> {
+
+        /**
+         * Queue of events.
+         */
+        private final BlockingQueue<JsonObject> queue;
+
+        /**
+         * Next event.
+         */
+        private JsonObject next;
+
+        /**
+         * Ctor.
+         * @param queue Queue of events.
+         */
+        Taken(final BlockingQueue<JsonObject> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null) {
+                try {
+                    this.next = this.queue.take();
+                    if (this.next == END) {
+                        this.queue.offer(END);
+                    }
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    this.next = END;
+                }
+            }
+            return this.next != END;
+        }
+
+        @Override
+        public JsonObject next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("Subscription ended.");
+            }
+            final JsonObject event = this.next;
+            this.next = null;
+            return event;
+        }
+    }
+}
@@ -31,7 +31,10 @@ import java.security.GeneralSecurityException;
 import java.util.function.Supplier;
 
 import org.apache.http.client.HttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.ssl.SSLContexts;
 
 /**
@@ -53,19 +56,44 @@ final class SslHttpClient extends HttpClientEnvelope {
     SslHttpClient(
         final Path keys, final Path trust,
         final char[] storePwd, final char[] keyPwd) {
+        this(keys, trust, storePwd, keyPwd, new ClientConfig());
+    }
+
+    /**
+     * Ctor.
+     * @param keys Path to the keystore.
+     * @param trust Path to the truststore.
+     * @param storePwd Password for the keystore.
+     * @param keyPwd Passphrase for the key.
+     * @param config Configuration of the connections.
+     */
+    SslHttpClient(
+        final Path keys, final Path trust,
+        final char[] storePwd, final char[] keyPwd,
+        final ClientConfig config) {
         this(() -> {
             try {
-                return HttpClients.custom()
-                    .setMaxConnPerRoute(10)
-                    .setMaxConnTotal(10)
-                    .setSSLContext(
-                        SSLContexts.custom()
-                            .loadTrustMaterial(trust.toFile())
-                            .loadKeyMaterial(keys.toFile(), storePwd, keyPwd)
-                            .build()
-                    )
-                    .addInterceptorFirst(new UserAgentRequestHeader())
-                    .build();
+                return new PooledHttpClient(
+                    RegistryBuilder
+                        .<ConnectionSocketFactory>create()
+                        .register(
+                            "http",
+                            PlainConnectionSocketFactory.getSocketFactory()
+                        )
+                        .register(
+                            "https",
+                            new SSLConnectionSocketFactory(
+                                SSLContexts.custom()
+                                    .loadTrustMaterial(trust.toFile())
+                                    .loadKeyMaterial(
+                                        keys.toFile(), storePwd, keyPwd
+                                    )
+                                    .build()
+                            )
+                        )
+                        .build(),
+                    config
+                );
             } catch (final IOException | GeneralSecurityException ex) {
                 throw new IllegalStateException(ex);
             }
@@ -0,0 +1,414 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.Arrays;
+
+/**
+ * A block of compressed stats samples of one container, in one
+ * {@link BitStream}. Every sample is a timestamp, in milliseconds,
+ * and a row of integer values (the columns).<br><br>
+ * The timestamps are encoded as delta-of-delta, like in Facebook's
+ * Gorilla: samples taken at a regular interval cost 1 bit, jitter of
+ * a few milliseconds costs 9 bits. The values are counters or slowly
+ * changing gauges, so each one is encoded as the XOR between its delta
+ * (zigzag-encoded) and the previous delta of the same column: a value
+ * which does not change, or a counter which grows steadily, costs 1
+ * bit; otherwise only the meaningful bits of the XOR are written, in
+ * the window of the previous ones when they fit.<br><br>
+ * The first sample is written whole. Samples are only appended; the
+ * block is not thread-safe.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (400 lines)
+ */
+final class StatsBlock {
+
+    /**
+     * The bits.
+     */
+    private final BitStream bits;
+
+    /**
+     * Number of columns.
+     */
+    private final int columns;
+
+    /**
+     * Timestamp of the first sample.
+     */
+    private final long first;
+
+    /**
+     * Timestamp of the last sample.
+     */
+    private long last;
+
+    /**
+     * Delta between the last two timestamps.
+     */
+    private long delta;
+
+    /**
+     * Number of samples.
+     */
+    private int count;
+
+    /**
+     * State of the encoder, per column.
+     */
+    private final Columns state;
+
+    /**
+     * Ctor.
+     * @param time Timestamp of the first sample, in milliseconds.
+     * @param row Values of the first sample.
+     */
+    StatsBlock(final long time, final long[] row) {
+        this.bits = new BitStream(row.length + 4);
+        this.columns = row.length;
+        this.first = time;
+        this.last = time;
+        this.state = new Columns(row.length);
+        for (int col = 0; col < row.length; ++col) {
+            this.bits.write(row[col], 64);
+            this.state.values[col] = row[col];
+        }
+        this.count = 1;
+    }
+
+    /**
+     * Append a sample.
+     * @param time Timestamp, in milliseconds, after the last one.
+     * @param row Values.
+     */
+    void add(final long time, final long[] row) {
+        final long gap = time - this.last;
+        this.timestamp(gap - this.delta);
+        this.delta = gap;
+        this.last = time;
+        for (int col = 0; col < this.columns; ++col) {
+            final long zigzag = StatsBlock.zigzag(
+                row[col] - this.state.values[col]
+            );
+            this.xor(col, zigzag ^ this.state.deltas[col]);
+            this.state.values[col] = row[col];
+            this.state.deltas[col] = zigzag;
+        }
+        this.count = this.count + 1;
+    }
+
+    /**
+     * Number of samples.
+     * @return Count.
+     */
+    int count() {
+        return this.count;
+    }
+
+    /**
+     * Timestamp of the first sample.
+     * @return Milliseconds.
+     */
+    long first() {
+        return this.first;
+    }
+
+    /**
+     * Timestamp of the last sample.
+     * @return Milliseconds.
+     */
+    long last() {
+        return this.last;
+    }
+
+    /**
+     * Memory used by the bits.
+     * @return Bytes.
+     */
+    long bytes() {
+        return this.bits.bytes();
+    }
+
+    /**
+     * No more samples will come, drop the unused capacity.
+     */
+    void seal() {
+        this.bits.trim();
+    }
+
+    /**
+     * Read the samples, in order.
+     * @return Cursor over the samples.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Write a delta-of-delta.
+     * @param dod Delta-of-delta of the timestamp.
+     */
+    private void timestamp(final long dod) {
+        if (dod == 0) {
+            this.bits.write(0b0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            this.bits.write(0b10, 2);
+            this.bits.write(dod + 63, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            this.bits.write(0b110, 3);
+            this.bits.write(dod + 255, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            this.bits.write(0b1110, 4);
+            this.bits.write(dod + 2047, 12);
+        } else {
+            this.bits.write(0b1111, 4);
+            this.bits.write(dod, 64);
+        }
+    }
+
+    /**
+     * Write the XOR of a column.
+     * @param col Column.
+     * @param xor XOR between the current and the previous delta.
+     */
+    private void xor(final int col, final long xor) {
+        if (xor == 0) {
+            this.bits.bit(false);
+        } else {
+            this.bits.bit(true);
+            final int leading = Long.numberOfLeadingZeros(xor);
+            final int trailing = Long.numberOfTrailingZeros(xor);
+            final int[] lead = this.state.leading;
+            final int[] trail = this.state.trailing;
+            if (lead[col] >= 0 && leading >= lead[col]
+                && trailing >= trail[col]) {
+                this.bits.bit(false);
+                this.bits.write(
+                    xor >>> trail[col], 64 - lead[col] - trail[col]
+                );
+            } else {
+                final int meaningful = 64 - leading - trailing;
+                this.bits.bit(true);
+                this.bits.write(leading, 6);
+                this.bits.write(meaningful - 1, 6);
+                this.bits.write(xor >>> trailing, meaningful);
+                lead[col] = leading;
+                trail[col] = trailing;
+            }
+        }
+    }
+
+    /**
+     * Zigzag encoding: small negative and positive numbers both become
+     * small positive numbers.
+     * @param value Value.
+     * @return Encoded value.
+     */
+    private static long zigzag(final long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    /**
+     * Zigzag decoding.
+     * @param value Encoded value.
+     * @return Value.
+     */
+    private static long unzigzag(final long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * State of the encoder or decoder, per column.
+     */
+    private static final class Columns {
+
+        /**
+         * Last values.
+         */
+        private final long[] values;
+
+        /**
+         * Last deltas, zigzag-encoded.
+         */
+        private final long[] deltas;
+
+        /**
+         * Leading zeros of the last XOR window, -1 if there is none.
+         */
+        private final int[] leading;
+
+        /**
+         * Trailing zeros of the last XOR window.
+         */
+        private final int[] trailing;
+
+        /**
+         * Ctor.
+         * @param columns Number of columns.
+         */
+        Columns(final int columns) {
+            this.values = new long[columns];
+            this.deltas = new long[columns];
+            this.leading = new int[columns];
+            this.trailing = new int[columns];
+            Arrays.fill(this.leading, -1);
+        }
+    }
+
+    /**
+     * Cursor over the samples of this block. It decodes the samples which
+     * were in the block when it was created.
+     */
+    final class Cursor {
+
+        /**
+         * Reader of the bits.
+         */
+        private final BitStream.Reader reader;
+
+        /**
+         * State of the decoder.
+         */
+        private final Columns decoded;
+
+        /**
+         * Samples in the block.
+         */
+        private final int total;
+
+        /**
+         * Samples decoded.
+         */
+        private int read;
+
+        /**
+         * Timestamp of the current sample.
+         */
+        private long time;
+
+        /**
+         * Delta between the last two timestamps.
+         */
+        private long gap;
+
+        /**
+         * Ctor.
+         */
+        Cursor() {
+            this.reader = StatsBlock.this.bits.reader();
+            this.decoded = new Columns(StatsBlock.this.columns);
+            this.total = StatsBlock.this.count;
+        }
+
+        /**
+         * Move to the next sample.
+         * @return True if there is one.
+         */
+        boolean next() {
+            final boolean more = this.read < this.total;
+            if (more && this.read == 0) {
+                this.time = StatsBlock.this.first;
+                for (int col = 0; col < this.decoded.values.length; ++col) {
+                    this.decoded.values[col] = this.reader.read(64);
+                }
+            } else if (more) {
+                this.gap = this.gap + this.dod();
+                this.time = this.time + this.gap;
+                for (int col = 0; col < this.decoded.values.length; ++col) {
+                    final long zigzag = this.decoded.deltas[col]
+                        ^ this.xor(col);
+                    this.decoded.deltas[col] = zigzag;
+                    this.decoded.values[col] = this.decoded.values[col]
+                        + StatsBlock.unzigzag(zigzag);
+                }
+            }
+            if (more) {
+                this.read = this.read + 1;
+            }
+            return more;
+        }
+
+        /**
+         * Timestamp of the current sample.
+         * @return Milliseconds.
+         */
+        long time() {
+            return this.time;
+        }
+
+        /**
+         * Value of the current sample.
+         * @param col Column.
+         * @return Value.
+         */
+        long value(final int col) {
+            return this.decoded.values[col];
+        }
+
+        /**
+         * Read a delta-of-delta.
+         * @return Delta-of-delta.
+         */
+        private long dod() {
+            final long dod;
+            if (!this.reader.bit()) {
+                dod = 0;
+            } else if (!this.reader.bit()) {
+                dod = this.reader.read(7) - 63;
+            } else if (!this.reader.bit()) {
+                dod = this.reader.read(9) - 255;
+            } else if (!this.reader.bit()) {
+                dod = this.reader.read(12) - 2047;
+            } else {
+                dod = this.reader.read(64);
+            }
+            return dod;
+        }
+
+        /**
+         * Read the XOR of a column.
+         * @param col Column.
+         * @return XOR.
+         */
+        private long xor(final int col) {
+            long xor = 0;
+            if (this.reader.bit()) {
+                final int[] lead = this.decoded.leading;
+                final int[] trail = this.decoded.trailing;
+                if (this.reader.bit()) {
+                    lead[col] = (int) this.reader.read(6);
+                    trail[col] = 64 - lead[col]
+                        - ((int) this.reader.read(6) + 1);
+                }
+                xor = this.reader.read(64 - lead[col] - trail[col])
+                    << trail[col];
+            }
+            return xor;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Resource usage statistics of a Container, frame by frame, as Docker sends
+ * them. Every frame is one sample: the current frame is decoded into
+ * primitive fields, which are overwritten by {@link #next()}, so nothing
+ * is allocated per sample.<br><br>
+ * The counters are cumulative, as Docker reports them; the deltas are
+ * computed against the previous sample taken by Docker ("precpu_stats"),
+ * which is missing in the first frame of a stream and in one-shot samples
+ * (the deltas and the CPU percent are 0 then).
+ * Example:
+ * <pre>
+ *   try (final StatsFrames stats = container.stats().frames()) {
+ *       while (stats.next()) {
+ *           cpu.record(stats.cpuPercent());
+ *           memory.record(stats.memoryUsage());
+ *       }
+ *   }
+ * </pre>
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface StatsFrames extends Closeable {
+
+    /**
+     * Move to the next sample.
+     * @return True if there is a next sample, false if the stream ended.
+     * @throws IOException If something goes wrong.
+     */
+    boolean next() throws IOException;
+
+    /**
+     * When the sample was taken.
+     * @return Nanoseconds since the epoch.
+     */
+    long read();
+
+    /**
+     * CPU time used by the container.
+     * @return Cumulative nanoseconds.
+     */
+    long cpuTotal();
+
+    /**
+     * CPU time of the host.
+     * @return Cumulative nanoseconds.
+     */
+    long systemCpu();
+
+    /**
+     * CPU time used by the container since the previous sample.
+     * @return Nanoseconds, 0 if there is no previous sample.
+     */
+    long cpuDelta();
+
+    /**
+     * CPU time of the host since the previous sample.
+     * @return Nanoseconds, 0 if there is no previous sample.
+     */
+    long systemCpuDelta();
+
+    /**
+     * Number of CPUs available to the container.
+     * @return Online CPUs.
+     */
+    int onlineCpus();
+
+    /**
+     * CPU usage since the previous sample, like "docker stats" shows it:
+     * 100% is one whole CPU.
+     * @return Percent, 0 if there is no previous sample.
+     */
+    double cpuPercent();
+
+    /**
+     * Memory used by the container, without the inactive page cache,
+     * like "docker stats" shows it.
+     * @return Bytes.
+     */
+    long memoryUsage();
+
+    /**
+     * Memory limit of the container.
+     * @return Bytes.
+     */
+    long memoryLimit();
+
+    /**
+     * Bytes received, on all the network interfaces.
+     * @return Cumulative bytes.
+     */
+    long networkRx();
+
+    /**
+     * Bytes sent, on all the network interfaces.
+     * @return Cumulative bytes.
+     */
+    long networkTx();
+
+    /**
+     * Bytes read from block devices.
+     * @return Cumulative bytes.
+     */
+    long blockRead();
+
+    /**
+     * Bytes written to block devices.
+     * @return Cumulative bytes.
+     */
+    long blockWrite();
+
+    /**
+     * Number of processes or threads in the container.
+     * @return Pids.
+     */
+    long pids();
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+/**
+ * A metric of the container stats, as kept by a {@link StatsStore}. The
+ * metrics have the meaning of the same fields of {@link StatsFrames}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public enum StatsMetric {
+
+    /**
+     * CPU time used by the container, cumulative nanoseconds.
+     */
+    CPU_TOTAL,
+
+    /**
+     * CPU time of the host, cumulative nanoseconds.
+     */
+    SYSTEM_CPU,
+
+    /**
+     * Number of CPUs available to the container.
+     */
+    ONLINE_CPUS,
+
+    /**
+     * Memory used by the container, without the inactive page cache,
+     * in bytes.
+     */
+    MEMORY_USAGE,
+
+    /**
+     * Memory limit of the container, in bytes.
+     */
+    MEMORY_LIMIT,
+
+    /**
+     * Bytes received on all the network interfaces, cumulative.
+     */
+    NETWORK_RX,
+
+    /**
+     * Bytes sent on all the network interfaces, cumulative.
+     */
+    NETWORK_TX,
+
+    /**
+     * Bytes read from block devices, cumulative.
+     */
+    BLOCK_READ,
+
+    /**
+     * Bytes written to block devices, cumulative.
+     */
+    BLOCK_WRITE,
+
+    /**
+     * Number of processes or threads.
+     */
+    PIDS,
+
+    /**
+     * CPU usage between a sample and the previous one, 100% being one whole
+     * CPU. It is computed from the CPU times when queried, so the first
+     * sample of a container has no CPU percent.
+     */
+    CPU_PERCENT
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+/**
+ * {@link StatsSamples} in primitive arrays, one per field, allocated once:
+ * adding a sample only copies the fields of the current frame.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class StatsRing implements StatsSamples {
+
+    /**
+     * ID of the sampled container.
+     */
+    private final String id;
+
+    /**
+     * Field "read" of the samples.
+     */
+    private final long[] read;
+
+    /**
+     * Field "cpuTotal" of the samples.
+     */
+    private final long[] cpu;
+
+    /**
+     * Field "systemCpu" of the samples.
+     */
+    private final long[] system;
+
+    /**
+     * Field "onlineCpus" of the samples.
+     */
+    private final int[] cpus;
+
+    /**
+     * Field "memoryUsage" of the samples.
+     */
+    private final long[] memory;
+
+    /**
+     * Field "memoryLimit" of the samples.
+     */
+    private final long[] limit;
+
+    /**
+     * Field "networkRx" of the samples.
+     */
+    private final long[] received;
+
+    /**
+     * Field "networkTx" of the samples.
+     */
+    private final long[] sent;
+
+    /**
+     * Field "blockRead" of the samples.
+     */
+    private final long[] reads;
+
+    /**
+     * Field "blockWrite" of the samples.
+     */
+    private final long[] writes;
+
+    /**
+     * Field "pids" of the samples.
+     */
+    private final long[] pids;
+
+    /**
+     * How many samples were added; guarded by this.
+     */
+    private long added;
+
+    /**
+     * Ctor.
+     * @param containerId ID of the sampled container.
+     * @param capacity How many samples to keep.
+     */
+    StatsRing(final String containerId, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity must be at least 1, was " + capacity
+            );
+        }
+        this.id = containerId;
+        this.read = new long[capacity];
+        this.cpu = new long[capacity];
+        this.system = new long[capacity];
+        this.cpus = new int[capacity];
+        this.memory = new long[capacity];
+        this.limit = new long[capacity];
+        this.received = new long[capacity];
+        this.sent = new long[capacity];
+        this.reads = new long[capacity];
+        this.writes = new long[capacity];
+        this.pids = new long[capacity];
+    }
+
+    /**
+     * Add the current frame as the latest sample, overwriting the oldest
+     * one if the ring is full.
+     * @param frame Current frame.
+     */
+    synchronized void add(final StatsFrames frame) {
+        final int slot = (int) (this.added % this.read.length);
+        this.read[slot] = frame.read();
+        this.cpu[slot] = frame.cpuTotal();
+        this.system[slot] = frame.systemCpu();
+        this.cpus[slot] = frame.onlineCpus();
+        this.memory[slot] = frame.memoryUsage();
+        this.limit[slot] = frame.memoryLimit();
+        this.received[slot] = frame.networkRx();
+        this.sent[slot] = frame.networkTx();
+        this.reads[slot] = frame.blockRead();
+        this.writes[slot] = frame.blockWrite();
+        this.pids[slot] = frame.pids();
+        this.added = this.added + 1;
+    }
+
+    @Override
+    public String containerId() {
+        return this.id;
+    }
+
+    @Override
+    public int capacity() {
+        return this.read.length;
+    }
+
+    @Override
+    public synchronized int size() {
+        return (int) Math.min(this.added, this.read.length);
+    }
+
+    @Override
+    public synchronized long count() {
+        return this.added;
+    }
+
+    @Override
+    public synchronized long read(final long sample) {
+        return this.read[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long cpuTotal(final long sample) {
+        return this.cpu[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long systemCpu(final long sample) {
+        return this.system[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized double cpuPercent(final long sample) {
+        final int slot = this.slot(sample);
+        double percent = 0;
+        if (sample > this.added - this.size()) {
+            final int previous = this.slot(sample - 1);
+            final long host = this.system[slot] - this.system[previous];
+            final long used = this.cpu[slot] - this.cpu[previous];
+            if (host > 0 && used > 0) {
+                percent = (double) used / host * this.cpus[slot] * 100.0;
+            }
+        }
+        return percent;
+    }
+
+    @Override
+    public synchronized long memoryUsage(final long sample) {
+        return this.memory[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long memoryLimit(final long sample) {
+        return this.limit[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long networkRx(final long sample) {
+        return this.received[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long networkTx(final long sample) {
+        return this.sent[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long blockRead(final long sample) {
+        return this.reads[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long blockWrite(final long sample) {
+        return this.writes[this.slot(sample)];
+    }
+
+    @Override
+    public synchronized long pids(final long sample) {
+        return this.pids[this.slot(sample)];
+    }
+
+    /**
+     * Slot of a sample, which must still be kept.
+     * @param sample Number of the sample.
+     * @return Index in the arrays.
+     */
+    private int slot(final long sample) {
+        if (sample < this.added - this.size() || sample >= this.added) {
+            throw new IndexOutOfBoundsException(
+                "Sample " + sample + " is not kept, the samples kept are "
+                + (this.added - this.size()) + " to " + (this.added - 1)
+            );
+        }
+        return (int) (sample % this.read.length);
+    }
+}
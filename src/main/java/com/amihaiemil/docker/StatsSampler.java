@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Stats of all the running containers, sampled periodically by a bounded
+ * number of threads.<br><br>
+ * Every container is sampled once per period, with one-shot stats requests,
+ * round-robin: the container which has been waiting longest goes first.
+ * At most "concurrency" requests are in flight and at most "rate" requests
+ * are sent per second, no matter how many containers there are; if the
+ * budget is too small for all of them, the samples are simply late, which
+ * is reported by {@link #lag()}. The containers are kept current from the
+ * listing and the container events (see {@link ContainerCache}): new ones
+ * start being sampled, the samples of removed or stopped ones are dropped.
+ * <pre>
+ *   try (final StatsSampler sampler = docker.containers().sampler(
+ *       Duration.ofSeconds(5), 16, 200, 120
+ *   )) {
+ *       ...
+ *       for (final StatsSamples samples : sampler.samples()) {
+ *           final long latest = samples.count() - 1;
+ *           ...
+ *       }
+ *   }
+ * </pre>
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface StatsSampler extends Closeable {
+
+    /**
+     * Samples of all the sampled containers.
+     * @return Unmodifiable collection of samples.
+     */
+    Collection<StatsSamples> samples();
+
+    /**
+     * Samples of a container.
+     * @param containerId Full ID of the container.
+     * @return Samples or null if the container is not sampled.
+     */
+    StatsSamples samples(String containerId);
+
+    /**
+     * How late the latest request was: the time between the moment its
+     * container was due for sampling and the moment it was sent. It grows
+     * if the concurrency or the rate cannot cover all the containers in
+     * a period.
+     * @return Duration.
+     */
+    Duration lag();
+
+    /**
+     * How many samples failed so far (e.g. the container was removed in
+     * the meantime).
+     * @return Count.
+     */
+    long failures();
+
+    /**
+     * Stop sampling.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+/**
+ * The latest stats samples of a Container, kept in a ring: only the
+ * last {@link #capacity()} samples are kept, older ones are overwritten.
+ * <br><br>
+ * The samples are numbered from 0, in the order they were taken, so
+ * a number keeps pointing to the same sample while new ones come:
+ * <pre>
+ *   final StatsSamples samples = sampler.samples(containerId);
+ *   final long latest = samples.count() - 1;
+ *   if (latest &gt; 0) {
+ *       System.out.printf(
+ *           "CPU %.1f%%, memory %d bytes%n",
+ *           samples.cpuPercent(latest), samples.memoryUsage(latest)
+ *       );
+ *   }
+ * </pre>
+ * A number is valid from {@code count() - size()} to {@code count() - 1};
+ * the others throw IndexOutOfBoundsException. The fields have the meaning
+ * of the same fields of {@link StatsFrames}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface StatsSamples {
+
+    /**
+     * ID of the sampled Container.
+     * @return String.
+     */
+    String containerId();
+
+    /**
+     * How many samples are kept at most.
+     * @return Capacity of the ring.
+     */
+    int capacity();
+
+    /**
+     * How many samples are kept now.
+     * @return Size, at most the capacity.
+     */
+    int size();
+
+    /**
+     * How many samples were taken so far, including the overwritten ones.
+     * @return Count.
+     */
+    long count();
+
+    /**
+     * When the sample was taken.
+     * @param sample Number of the sample.
+     * @return Nanoseconds since the epoch.
+     */
+    long read(long sample);
+
+    /**
+     * CPU time used by the container.
+     * @param sample Number of the sample.
+     * @return Cumulative nanoseconds.
+     */
+    long cpuTotal(long sample);
+
+    /**
+     * CPU time of the host.
+     * @param sample Number of the sample.
+     * @return Cumulative nanoseconds.
+     */
+    long systemCpu(long sample);
+
+    /**
+     * CPU usage between the previous sample and this one, 100% being
+     * one whole CPU.
+     * @param sample Number of the sample.
+     * @return Percent, 0 for the first sample kept.
+     */
+    double cpuPercent(long sample);
+
+    /**
+     * Memory used by the container, without the inactive page cache.
+     * @param sample Number of the sample.
+     * @return Bytes.
+     */
+    long memoryUsage(long sample);
+
+    /**
+     * Memory limit of the container.
+     * @param sample Number of the sample.
+     * @return Bytes.
+     */
+    long memoryLimit(long sample);
+
+    /**
+     * Bytes received, on all the network interfaces.
+     * @param sample Number of the sample.
+     * @return Cumulative bytes.
+     */
+    long networkRx(long sample);
+
+    /**
+     * Bytes sent, on all the network interfaces.
+     * @param sample Number of the sample.
+     * @return Cumulative bytes.
+     */
+    long networkTx(long sample);
+
+    /**
+     * Bytes read from block devices.
+     * @param sample Number of the sample.
+     * @return Cumulative bytes.
+     */
+    long blockRead(long sample);
+
+    /**
+     * Bytes written to block devices.
+     * @param sample Number of the sample.
+     * @return Cumulative bytes.
+     */
+    long blockWrite(long sample);
+
+    /**
+     * Number of processes or threads in the container.
+     * @param sample Number of the sample.
+     * @return Pids.
+     */
+    long pids(long sample);
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import javax.json.JsonObject;
+
+/**
+ * Stats samples of many containers, kept in memory, compressed, for
+ * hours: a few bytes per metric per sample instead of a few hundred
+ * for the decoded Json.
+ * <pre>
+ *   final StatsStore store = new CompressedStats(Duration.ofHours(6));
+ *   try (final StatsFrames stats = container.stats().frames()) {
+ *       while (stats.next()) {
+ *           store.add(container.containerId(), stats);
+ *       }
+ *   }
+ *   ...
+ *   final StatsSeries memory = store.downsample(
+ *       containerId, StatsMetric.MEMORY_USAGE,
+ *       Instant.now().minus(Duration.ofHours(1)), Instant.now(),
+ *       Duration.ofMinutes(1), StatsStore.Aggregate.MAX
+ *   );
+ * </pre>
+ * The timestamps are kept with millisecond precision. A sample which is
+ * not newer than the last one of its container is ignored.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public interface StatsStore {
+
+    /**
+     * Add the current frame as a sample of a container.
+     * @param containerId ID of the container.
+     * @param frame Current frame.
+     */
+    void add(String containerId, StatsFrames frame);
+
+    /**
+     * Add a sample of a container, as Docker's Json stats.
+     * @param containerId ID of the container.
+     * @param sample Json stats, as returned by the stats API.
+     */
+    void add(String containerId, JsonObject sample);
+
+    /**
+     * The points of a metric, in a time range.
+     * @param containerId ID of the container.
+     * @param metric Metric.
+     * @param from Start of the range, inclusive.
+     * @param until End of the range, exclusive.
+     * @return Series, empty if the container has no samples in the range.
+     */
+    StatsSeries range(
+        String containerId, StatsMetric metric, Instant from, Instant until
+    );
+
+    /**
+     * The points of a metric, in a time range, aggregated per interval.
+     * Intervals without samples have no point.
+     * @param containerId ID of the container.
+     * @param metric Metric.
+     * @param from Start of the range, inclusive; the first interval
+     *  starts here.
+     * @param until End of the range, exclusive.
+     * @param step Length of an interval.
+     * @param aggregate How the points of an interval are aggregated.
+     * @return Series with one point per interval.
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    StatsSeries downsample(
+        String containerId, StatsMetric metric, Instant from, Instant until,
+        Duration step, Aggregate aggregate
+    );
+
+    /**
+     * IDs of the containers which have samples.
+     * @return Unmodifiable set.
+     */
+    Set<String> containers();
+
+    /**
+     * Forget the samples of a container.
+     * @param containerId ID of the container.
+     */
+    void remove(String containerId);
+
+    /**
+     * How many samples are kept, for all the containers.
+     * @return Samples.
+     */
+    long samples();
+
+    /**
+     * Memory used by the compressed samples.
+     * @return Bytes.
+     */
+    long bytes();
+
+    /**
+     * How the points of an interval are aggregated.
+     */
+    enum Aggregate {
+        /**
+         * Average of the points.
+         */
+        AVG,
+
+        /**
+         * Smallest point.
+         */
+        MIN,
+
+        /**
+         * Biggest point.
+         */
+        MAX,
+
+        /**
+         * Last point.
+         */
+        LAST
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import javax.json.JsonObject;
+
+/**
+ * The Docker engine reported an error in the middle of a streamed
+ * response (e.g. a pull which fails after it started), which came with
+ * status 200 OK.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class StreamedErrorException extends RuntimeException {
+
+    /**
+     * Called endpoint.
+     */
+    private final String endpoint;
+
+    /**
+     * The entry with the error.
+     */
+    private final JsonObject entry;
+
+    /**
+     * Ctor.
+     * @param endpoint Endpoint that was called.
+     * @param entry The streamed entry with the error.
+     */
+    public StreamedErrorException(
+        final String endpoint, final JsonObject entry
+    ) {
+        super(
+            String.format(
+                "Error streamed by %s: %s",
+                endpoint, StreamedErrorException.message(entry)
+            )
+        );
+        this.endpoint = endpoint;
+        this.entry = entry;
+    }
+
+    /**
+     * Called endpoint.
+     * @return String.
+     */
+    public String endpoint() {
+        return this.endpoint;
+    }
+
+    /**
+     * The streamed entry with the error, with errorDetail and/or error.
+     * @return JsonObject.
+     */
+    public JsonObject entry() {
+        return this.entry;
+    }
+
+    /**
+     * Message of the error.
+     * @param entry Entry with the error.
+     * @return Message.
+     */
+    private static String message(final JsonObject entry) {
+        final JsonObject detail = entry.getJsonObject("errorDetail");
+        final String message;
+        if (detail != null && detail.containsKey("message")) {
+            message = detail.getString("message");
+        } else {
+            message = entry.getString("error", entry.toString());
+        }
+        return message;
+    }
+}
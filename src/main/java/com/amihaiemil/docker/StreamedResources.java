@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator over Docker resources (Containers, Images etc) which parses
+ * the JsonArray element by element, as it comes from the socket.<br><br>
+ * Unlike {@link ResourcesIterator}, it does not read the whole array in
+ * memory, so heap usage stays flat no matter how many resources are listed.
+ * The HTTP connection is held until the array ends or until the iterator
+ * is closed, so make sure to always close it if you do not consume it fully.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @param <T> The Json resource (Image, Container etc) returned by the API.
+ */
+final class StreamedResources<T extends JsonObject>
+    implements Iterator<T>, Closeable {
+
+    /**
+     * HTTP Request which is streaming the resources.
+     */
+    private final HttpGet request;
+
+    /**
+     * The streamed response.
+     */
+    private final HttpResponse response;
+
+    /**
+     * Json parser over the response's content.
+     */
+    private final JsonParser parser;
+
+    /**
+     * Function which should map the received JsonObject
+     * to the specified resource.
+     */
+    private final Function<JsonObject, T> mapper;
+
+    /**
+     * The next resource, already parsed but not yet returned.
+     */
+    private T current;
+
+    /**
+     * Did we reach the end of the array or was this iterator closed?
+     */
+    private boolean done;
+
+    /**
+     * Ctor.
+     * @param client Used HTTP Client.
+     * @param request HTTP Request.
+     * @param mapper Function which should map the received JsonObject
+     *  to the specified resource.
+     */
+    StreamedResources(
+        final HttpClient client, final HttpGet request,
+        final Function<JsonObject, T> mapper
+    ) {
+        this.request = request;
+        this.mapper = mapper;
+        try {
+            this.response = new MatchStatus(
+                request.getURI(), HttpStatus.SC_OK
+            ).handleResponse(client.execute(request));
+            this.parser = Json.createParser(
+                this.response.getEntity().getContent()
+            );
+            if (!this.parser.hasNext()
+                || this.parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IllegalStateException(
+                    "Expected a JsonArray when calling " + request.getURI()
+                );
+            }
+        } catch (final IOException ex) {
+            request.releaseConnection();
+            throw new IllegalStateException(
+                "IOException when calling " + request.getURI().toString(), ex
+            );
+        } catch (final UnexpectedResponseException
+            | IllegalStateException | JsonException ex) {
+            request.releaseConnection();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.current == null && !this.done) {
+            final JsonParser.Event event;
+            try {
+                event = this.parser.next();
+                if (event == JsonParser.Event.START_OBJECT) {
+                    this.current = this.mapper.apply(this.parser.getObject());
+                }
+            // @checkstyle IllegalCatch (1 line)
+            } catch (final RuntimeException ex) {
+                this.close();
+                throw ex;
+            }
+            if (event == JsonParser.Event.END_ARRAY) {
+                this.finish();
+            } else if (event != JsonParser.Event.START_OBJECT) {
+                this.close();
+                throw new IllegalStateException(
+                    "Unexpected " + event + " when streaming resources from "
+                    + this.request.getURI()
+                );
+            }
+        }
+        return this.current != null;
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException(
+                "No more resources at " + this.request.getURI()
+            );
+        }
+        final T next = this.current;
+        this.current = null;
+        return next;
+    }
+
+    /**
+     * These resources as a sequential Stream. Closing the Stream closes
+     * this iterator.
+     * @return Stream of resources.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL
+            ),
+            false
+        ).onClose(this::close);
+    }
+
+    /**
+     * Stop streaming. The underlying connection is aborted, since reading
+     * the rest of a potentially huge array only to reuse it is not worth it.
+     */
+    @Override
+    public void close() {
+        if (!this.done) {
+            this.done = true;
+            this.current = null;
+            this.request.releaseConnection();
+            try {
+                this.parser.close();
+            } catch (final JsonException ex) {
+                //The connection was aborted, the remainder of the content
+                //cannot be read anymore. We should ignore this case.
+            }
+        }
+    }
+
+    /**
+     * The array ended: consume what is left of the entity, so the
+     * connection can go back to the pool and be reused.
+     */
+    private void finish() {
+        this.done = true;
+        try {
+            EntityUtils.consume(this.response.getEntity());
+        } catch (final IOException ex) {
+            throw new IllegalStateException(
+                "IOException when finishing " + this.request.getURI(), ex
+            );
+        } finally {
+            this.request.releaseConnection();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.apache.http.HttpRequest;
+
+/**
+ * Is this a request which may hold its connection for a long time?
+ * These are the streaming calls (events, followed logs, stats, attach,
+ * exec start), the blocking ones (wait) and the image transfers (pull,
+ * push, build, load, export).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class StreamingRequests implements Predicate<HttpRequest> {
+
+    /**
+     * Paths which are always long.
+     */
+    private static final Pattern LONG = Pattern.compile(
+        ".*/(events|containers/[^/]+/(wait|attach)|exec/[^/]+/start"
+        + "|images/create|images/.+/push|images/(.+/)?get|images/load"
+        + "|build)"
+    );
+
+    /**
+     * Logs are long only if followed.
+     */
+    private static final Pattern LOGS = Pattern.compile(
+        ".*/containers/[^/]+/logs"
+    );
+
+    /**
+     * Stats are long unless stream=false.
+     */
+    private static final Pattern STATS = Pattern.compile(
+        ".*/containers/[^/]+/stats"
+    );
+
+    @Override
+    public boolean test(final HttpRequest request) {
+        final String uri = request.getRequestLine().getUri();
+        final int mark = uri.indexOf('?');
+        final String path;
+        final String query;
+        if (mark < 0) {
+            path = uri;
+            query = "";
+        } else {
+            path = uri.substring(0, mark);
+            query = '&' + uri.substring(mark + 1) + '&';
+        }
+        final boolean streaming;
+        if (LOGS.matcher(path).matches()) {
+            streaming = query.contains("&follow=true&")
+                || query.contains("&follow=1&");
+        } else if (STATS.matcher(path).matches()) {
+            streaming = !query.contains("&stream=false&")
+                && !query.contains("&stream=0&");
+        } else {
+            streaming = LONG.matcher(path).matches();
+        }
+        return streaming;
+    }
+}
@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tar archive (POSIX ustar, with pax headers for long names and big files)
+ * written straight into an OutputStream, entry by entry, without staging
+ * anything on disk.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+final class TarStream {
+
+    /**
+     * Size of a tar block.
+     */
+    private static final int BLOCK = 512;
+
+    /**
+     * Biggest size the 11 octal digits of a ustar header can hold.
+     */
+    private static final long MAX_SIZE = 077777777777L;
+
+    /**
+     * Where the archive is written.
+     */
+    private final OutputStream out;
+
+    /**
+     * Buffer for the headers and the content.
+     */
+    private final byte[] buffer;
+
+    /**
+     * Ctor.
+     * @param out Where the archive is written.
+     */
+    TarStream(final OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[64 * 1024];
+    }
+
+    /**
+     * Write a directory.
+     * @param name Name, relative to the root of the archive.
+     * @param mode Permissions.
+     * @param mtime Modification time, in seconds.
+     * @throws IOException If an I/O error occurs.
+     */
+    void directory(final String name, final int mode, final long mtime)
+        throws IOException {
+        this.header(name + "/", mode, 0, mtime, '5', "");
+    }
+
+    /**
+     * Write a symbolic link.
+     * @param name Name, relative to the root of the archive.
+     * @param target Where the link points.
+     * @param mtime Modification time, in seconds.
+     * @throws IOException If an I/O error occurs.
+     */
+    void link(final String name, final String target, final long mtime)
+        throws IOException {
+        this.header(name, 0777, 0, mtime, '2', target);
+    }
+
+    /**
+     * Write a regular file. Exactly size bytes are written: if the content
+     * is shorter (the file shrank meanwhile), it is padded with zeros.
+     * @param name Name, relative to the root of the archive.
+     * @param mode Permissions.
+     * @param mtime Modification time, in seconds.
+     * @param size Size of the file.
+     * @param content Content of the file.
+     * @throws IOException If an I/O error occurs.
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    void file(
+        final String name, final int mode, final long mtime, final long size,
+        final InputStream content
+    ) throws IOException {
+        this.header(name, mode, size, mtime, '0', "");
+        long left = size;
+        while (left > 0) {
+            final int read = content.read(
+                this.buffer, 0, (int) Math.min(this.buffer.length, left)
+            );
+            if (read < 0) {
+                break;
+            }
+            this.out.write(this.buffer, 0, read);
+            left -= read;
+        }
+        if (left > 0) {
+            Arrays.fill(this.buffer, (byte) 0);
+            while (left > 0) {
+                final int zeros = (int) Math.min(this.buffer.length, left);
+                this.out.write(this.buffer, 0, zeros);
+                left -= zeros;
+            }
+        }
+        this.pad(size);
+    }
+
+    /**
+     * End the archive with two empty blocks. The OutputStream is flushed,
+     * but not closed.
+     * @throws IOException If an I/O error occurs.
+     */
+    void finish() throws IOException {
+        Arrays.fill(this.buffer, 0, 2 * BLOCK, (byte) 0);
+        this.out.write(this.buffer, 0, 2 * BLOCK);
+        this.out.flush();
+    }
+
+    /**
+     * Write the header of an entry, preceded by a pax header if the name,
+     * the link target or the size do not fit in the ustar header.
+     * @param name Name.
+     * @param mode Permissions.
+     * @param size Size of the content.
+     * @param mtime Modification time, in seconds.
+     * @param type Type of the entry.
+     * @param target Target of the link, if it is a link.
+     * @throws IOException If an I/O error occurs.
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private void header(
+        final String name, final int mode, final long size, final long mtime,
+        final char type, final String target
+    ) throws IOException {
+        final byte[] path = name.getBytes(StandardCharsets.UTF_8);
+        final byte[] link = target.getBytes(StandardCharsets.UTF_8);
+        final StringBuilder pax = new StringBuilder();
+        if (path.length > 100) {
+            pax.append(TarStream.record("path", name));
+        }
+        if (link.length > 100) {
+            pax.append(TarStream.record("linkpath", target));
+        }
+        if (size > MAX_SIZE) {
+            pax.append(TarStream.record("size", String.valueOf(size)));
+        }
+        if (pax.length() > 0) {
+            final byte[] records = pax.toString()
+                .getBytes(StandardCharsets.UTF_8);
+            this.block(
+                TarStream.ascii("PaxHeaders/" + name, 100), 0644,
+                records.length, mtime, 'x', new byte[0]
+            );
+            this.out.write(records);
+            this.pad(records.length);
+        }
+        this.block(
+            Arrays.copyOf(path, Math.min(path.length, 100)), mode,
+            Math.min(size, MAX_SIZE), mtime, type,
+            Arrays.copyOf(link, Math.min(link.length, 100))
+        );
+    }
+
+    /**
+     * Write one ustar header block.
+     * @param name Name, at most 100 bytes.
+     * @param mode Permissions.
+     * @param size Size of the content.
+     * @param mtime Modification time, in seconds.
+     * @param type Type of the entry.
+     * @param link Target of the link, at most 100 bytes.
+     * @throws IOException If an I/O error occurs.
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private void block(
+        final byte[] name, final int mode, final long size, final long mtime,
+        final char type, final byte[] link
+    ) throws IOException {
+        final byte[] header = this.buffer;
+        Arrays.fill(header, 0, BLOCK, (byte) 0);
+        System.arraycopy(name, 0, header, 0, name.length);
+        TarStream.octal(header, 100, 8, mode & 07777);
+        TarStream.octal(header, 108, 8, 0);
+        TarStream.octal(header, 116, 8, 0);
+        TarStream.octal(header, 124, 12, size);
+        TarStream.octal(header, 136, 12, Math.max(mtime, 0));
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = (byte) type;
+        System.arraycopy(link, 0, header, 157, link.length);
+        System.arraycopy(
+            "ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0,
+            header, 257, 8
+        );
+        long sum = 0;
+        for (int idx = 0; idx < BLOCK; ++idx) {
+            sum += header[idx] & 0xff;
+        }
+        TarStream.octal(header, 148, 7, sum);
+        this.out.write(header, 0, BLOCK);
+    }
+
+    /**
+     * Pad the content of an entry up to a full block.
+     * @param size Size of the content.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void pad(final long size) throws IOException {
+        final int rest = (int) (size % BLOCK);
+        if (rest > 0) {
+            Arrays.fill(this.buffer, 0, BLOCK - rest, (byte) 0);
+            this.out.write(this.buffer, 0, BLOCK - rest);
+        }
+    }
+
+    /**
+     * Write a number as zero-padded octal, followed by NUL.
+     * @param header Header.
+     * @param offset Where the field starts.
+     * @param length Length of the field, including the NUL.
+     * @param value The number.
+     */
+    private static void octal(
+        final byte[] header, final int offset, final int length,
+        final long value
+    ) {
+        final String digits = Long.toOctalString(value);
+        final int zeros = length - 1 - digits.length();
+        for (int idx = 0; idx < zeros; ++idx) {
+            header[offset + idx] = (byte) '0';
+        }
+        for (int idx = 0; idx < digits.length(); ++idx) {
+            header[offset + zeros + idx] = (byte) digits.charAt(idx);
+        }
+        header[offset + length - 1] = 0;
+    }
+
+    /**
+     * A pax record: "length key=value\n", where the length counts itself.
+     * @param key Key.
+     * @param value Value.
+     * @return The record.
+     */
+    private static String record(final String key, final String value) {
+        final int rest = key.getBytes(StandardCharsets.UTF_8).length
+            + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int length = rest + String.valueOf(rest).length();
+        if (String.valueOf(length).length() > String.valueOf(rest).length()) {
+            length += 1;
+        }
+        return String.format("%d %s=%s\n", length, key, value);
+    }
+
+    /**
+     * The name, cut to fit in a header field.
+     * @param name Name.
+     * @param max Maximum bytes.
+     * @return Bytes.
+     */
+    private static byte[] ascii(final String name, final int max) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return Arrays.copyOf(bytes, Math.min(bytes.length, max));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+
+/**
+ * How the connections to the local Docker engine are opened: as
+ * non-blocking channels for the {@link NioHttpClient} or as Sockets for
+ * the blocking {@link UnixSocketFactory}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+interface Transport {
+
+    /**
+     * Open a new connection to the Docker engine.
+     * @return Connected channel, in non-blocking mode. It is also a
+     *  {@link java.nio.channels.ByteChannel}.
+     * @throws IOException If the connection cannot be opened.
+     */
+    SelectableChannel connect() throws IOException;
+
+    /**
+     * Start a new connection to the Docker engine, without waiting for it.
+     * @return Channel in non-blocking mode, connected or still connecting
+     *  (see {@link #finish(SelectableChannel)}). It is also a
+     *  {@link java.nio.channels.ByteChannel}.
+     * @throws IOException If the connection cannot be started.
+     */
+    SelectableChannel open() throws IOException;
+
+    /**
+     * Finish the connection of a channel given by {@link #open()}; if it
+     * is still connecting, wait for OP_CONNECT and try again.
+     * @param channel Channel.
+     * @return True if it is connected, false if it is still connecting.
+     * @throws IOException If the connection failed.
+     */
+    boolean finish(SelectableChannel channel) throws IOException;
+
+    /**
+     * Open a Selector which can serve the channels of this transport.
+     * @return Selector.
+     * @throws IOException If it cannot be opened.
+     */
+    Selector selector() throws IOException;
+
+    /**
+     * A new, unconnected Socket.
+     * @return Socket.
+     * @throws IOException If it cannot be created.
+     */
+    Socket socket() throws IOException;
+
+    /**
+     * Connect a Socket created by {@link #socket()} to the Docker engine.
+     * @param socket Socket.
+     * @param timeout Connect timeout in milliseconds, 0 means none.
+     * @return The connected Socket.
+     * @throws IOException If the connection cannot be opened.
+     */
+    Socket connect(Socket socket, int timeout) throws IOException;
+}
@@ -25,7 +25,9 @@
  */
 package com.amihaiemil.docker;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import org.apache.http.client.HttpClient;
 
@@ -37,15 +39,20 @@ import org.apache.http.client.HttpClient;
  *     final Docker docker = new LocalUnixDocker("unix:///var/run/docker.sock");
  * </pre>
  * 
- * This implementation manages an internal pool of 10 http connections. Users
- * who wish to alter this behaviour may provide their own {@link HttpClient}
- * via the specific constructor.
+ * This implementation manages an internal pool of 10 http connections, plus
+ * 10 more for the streaming calls (events, followed logs etc). Users who
+ * wish to alter this behaviour may give a {@link ClientConfig} or provide
+ * their own {@link HttpClient} via the specific constructors. A
+ * {@link ClientConfig} with selector threads (see
+ * {@link ClientConfig#withSelectors(int)}) switches to a non-blocking
+ * engine, where thousands of open connections (e.g. followed logs) need
+ * only a few threads. Those threads run until the UnixDocker is closed.
  *
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.1
  */
-public final class UnixDocker extends RtDocker {
+public final class UnixDocker extends RtDocker implements Closeable {
 
     /**
      * Unix Docker engine.
@@ -66,6 +73,29 @@ public final class UnixDocker extends RtDocker {
         this(new UnixHttpClient(unixSocket), version);
     }
 
+    /**
+     * Unix Docker engine, with the given configuration of the connections.
+     * @param unixSocket Unix socket File on disk.
+     *     (most likely /var/run/docker.sock).
+     * @param config Configuration of the connections.
+     */
+    public UnixDocker(final File unixSocket, final ClientConfig config) {
+        this(unixSocket, "v1.44", config);
+    }
+
+    /**
+     * Unix Docker engine, with the given configuration of the connections.
+     * @param unixSocket Unix socket File on disk.
+     *     (most likely /var/run/docker.sock).
+     * @param version API version (e.g. v1.30).
+     * @param config Configuration of the connections.
+     */
+    public UnixDocker(
+        final File unixSocket, final String version, final ClientConfig config
+    ) {
+        this(new UnixHttpClient(unixSocket, config), version);
+    }
+
     /**
      * Unix Docker engine.
      * <p>
@@ -78,4 +108,16 @@ public final class UnixDocker extends RtDocker {
         super(client, URI.create("unix://localhost:80/" + version));
     }
 
+    /**
+     * Close the HttpClient, if it can be closed: its connections are closed
+     * and, with the non-blocking engine, its selector threads stop. This
+     * UnixDocker cannot be used afterwards.
+     * @throws IOException If the HttpClient cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.httpClient() instanceof Closeable) {
+            ((Closeable) this.httpClient()).close();
+        }
+    }
 }
@@ -28,10 +28,8 @@ package com.amihaiemil.docker;
 import org.apache.http.client.HttpClient;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.impl.client.HttpClientBuilder;
 import java.io.File;
 import java.util.function.Supplier;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 /**
  * An HttpClient which works over a UnixSocket.
@@ -48,21 +46,35 @@ final class UnixHttpClient extends HttpClientEnvelope {
      * @param socketFile Unix socket on disk.
      */
     UnixHttpClient(final File socketFile) {
-        this(() -> {
-            final PoolingHttpClientConnectionManager pool =
-                new PoolingHttpClientConnectionManager(
-                    RegistryBuilder
-                        .<ConnectionSocketFactory>create()
-                        .register("unix", new UnixSocketFactory(socketFile))
-                        .build()
-                );
-            pool.setDefaultMaxPerRoute(10);
-            pool.setMaxTotal(10);
-            return HttpClientBuilder.create()
-                .setConnectionManager(pool)
-                .addInterceptorFirst(new UserAgentRequestHeader())
-                .build();
-        });
+        this(socketFile, new ClientConfig());
+    }
+
+    /**
+     * Ctor. The connections go through the non-blocking engine if the
+     * configuration has selector threads.
+     * @param socketFile Unix socket on disk.
+     * @param config Configuration of the connections.
+     */
+    UnixHttpClient(final File socketFile, final ClientConfig config) {
+        this(
+            () -> {
+                final HttpClient client;
+                if (config.nonBlocking()) {
+                    client = config.client(new UnixTransport(socketFile));
+                } else {
+                    client = new PooledHttpClient(
+                        RegistryBuilder
+                            .<ConnectionSocketFactory>create()
+                            .register(
+                                "unix", new UnixSocketFactory(socketFile)
+                            )
+                            .build(),
+                        config
+                    );
+                }
+                return client;
+            }
+        );
     }
 
     /**
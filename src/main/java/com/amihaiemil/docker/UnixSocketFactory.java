@@ -29,14 +29,14 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import jnr.unixsocket.UnixSocketAddress;
-import jnr.unixsocket.UnixSocketChannel;
 import org.apache.http.HttpHost;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.protocol.HttpContext;
 
 /**
- * Provides unix sockets connecting to a given unix socket file.
+ * Provides unix sockets connecting to a given unix socket file. On Java 16
+ * and newer they are the JDK's own unix domain sockets, on older versions
+ * they come from jnr-unixsocket (see {@link UnixTransport}).
  *
  * @author George Aristy (george.aristy@gmail.com)
  * @version $Id$
@@ -45,21 +45,29 @@ import org.apache.http.protocol.HttpContext;
  */
 public final class UnixSocketFactory implements ConnectionSocketFactory {
     /**
-     * File pointing to the unix socket.
+     * Opens the sockets.
      */
-    private final File unixSocket;
+    private final Transport transport;
 
     /**
      * Ctor.
      * @param unixSocket File pointing to the unix socket.
      */
     public UnixSocketFactory(final File unixSocket) {
-        this.unixSocket = unixSocket;
+        this(new UnixTransport(unixSocket));
+    }
+
+    /**
+     * Ctor.
+     * @param transport Opens the sockets.
+     */
+    UnixSocketFactory(final Transport transport) {
+        this.transport = transport;
     }
 
     @Override
     public Socket createSocket(final HttpContext context) throws IOException {
-        return UnixSocketChannel.open().socket();
+        return this.transport.socket();
     }
 
     @Override
@@ -67,10 +75,6 @@ public final class UnixSocketFactory implements ConnectionSocketFactory {
         final HttpHost host, final InetSocketAddress remoteAddress,
         final InetSocketAddress localAddress, final HttpContext context)
         throws IOException {
-        socket.setSoTimeout(connectTimeout);
-        socket.getChannel().connect(
-            new UnixSocketAddress(this.unixSocket)
-        );
-        return socket;
+        return this.transport.connect(socket, connectTimeout);
     }
 }
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Unix sockets of the running JVM: since Java 16, the JDK's own unix domain
+ * SocketChannels (JEP 380), served by the default Selectors. Unlike
+ * jnr-unixsocket, they need no native library to be loaded, which makes
+ * the first call of a short-lived JVM noticeably faster. This class
+ * replaces the Java 8 version (which uses jnr) in the multi-release jar.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+final class UnixTransport implements Transport {
+
+    /**
+     * Address of the unix socket.
+     */
+    private final UnixDomainSocketAddress address;
+
+    /**
+     * Ctor.
+     * @param socket Unix socket on disk.
+     */
+    UnixTransport(final File socket) {
+        this.address = UnixDomainSocketAddress.of(socket.toPath());
+    }
+
+    @Override
+    public SelectableChannel connect() throws IOException {
+        final SocketChannel channel = SocketChannel.open(
+            StandardProtocolFamily.UNIX
+        );
+        try {
+            channel.connect(this.address);
+            channel.configureBlocking(false);
+        } catch (final IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return channel;
+    }
+
+    @Override
+    public SelectableChannel open() throws IOException {
+        final SocketChannel channel = SocketChannel.open(
+            StandardProtocolFamily.UNIX
+        );
+        try {
+            channel.configureBlocking(false);
+            channel.connect(this.address);
+        } catch (final IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return channel;
+    }
+
+    @Override
+    public boolean finish(final SelectableChannel channel)
+        throws IOException {
+        return ((SocketChannel) channel).finishConnect();
+    }
+
+    @Override
+    public Selector selector() throws IOException {
+        return Selector.open();
+    }
+
+    @Override
+    public Socket socket() {
+        return new ChannelSocket(this);
+    }
+
+    @Override
+    public Socket connect(final Socket socket, final int timeout)
+        throws IOException {
+        socket.connect(null, timeout);
+        return socket;
+    }
+}
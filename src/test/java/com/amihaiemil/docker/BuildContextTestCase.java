@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link BuildContext}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ */
+public final class BuildContextTestCase {
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The context is written as tar, sorted, without the ignored files,
+     * but always with the Dockerfile and the .dockerignore.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void writesTarWithoutIgnoredFiles() throws Exception {
+        final Path root = this.context();
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        new BuildContext(root, "Dockerfile", false).writeTo(tar);
+        MatcherAssert.assertThat(
+            BuildContextTestCase.names(
+                new ByteArrayInputStream(tar.toByteArray())
+            ),
+            Matchers.contains(
+                ".dockerignore", "Dockerfile", "app.jar", "src/",
+                "src/Main.java"
+            )
+        );
+        MatcherAssert.assertThat(
+            tar.size() % 512, Matchers.is(0)
+        );
+    }
+
+    /**
+     * The context can be gzipped and it can be written again.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void writesGzippedTarRepeatedly() throws Exception {
+        final BuildContext context = new BuildContext(
+            this.context(), "Dockerfile", true
+        );
+        MatcherAssert.assertThat(context.isRepeatable(), Matchers.is(true));
+        MatcherAssert.assertThat(context.isChunked(), Matchers.is(true));
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        context.writeTo(first);
+        final ByteArrayOutputStream second = new ByteArrayOutputStream();
+        context.writeTo(second);
+        MatcherAssert.assertThat(
+            BuildContextTestCase.names(
+                new GZIPInputStream(
+                    new ByteArrayInputStream(second.toByteArray())
+                )
+            ),
+            Matchers.hasSize(5)
+        );
+        MatcherAssert.assertThat(
+            first.toByteArray(), Matchers.equalTo(second.toByteArray())
+        );
+    }
+
+    /**
+     * Names longer than 100 bytes go into pax headers, whose own names are
+     * cut to 100 bytes.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void writesLongNames() throws Exception {
+        final Path root = this.folder.newFolder().toPath();
+        final char[] dir = new char[60];
+        Arrays.fill(dir, 'd');
+        final Path deep = root.resolve(new String(dir))
+            .resolve(new String(dir));
+        Files.createDirectories(deep);
+        Files.write(deep.resolve("f.txt"), "x".getBytes());
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        new BuildContext(root, "Dockerfile", false).writeTo(tar);
+        MatcherAssert.assertThat(
+            BuildContextTestCase.names(
+                new ByteArrayInputStream(tar.toByteArray())
+            ),
+            Matchers.hasItem(
+                Matchers.startsWith("PaxHeaders/" + new String(dir))
+            )
+        );
+    }
+
+    /**
+     * A build context with ignored files.
+     * @return Its root.
+     * @throws IOException If something goes wrong.
+     */
+    private Path context() throws IOException {
+        final Path root = this.folder.newFolder().toPath();
+        Files.write(root.resolve("Dockerfile"), "FROM scratch\n".getBytes());
+        Files.write(
+            root.resolve(".dockerignore"),
+            "Dockerfile\n.dockerignore\n*.log\ntarget\n".getBytes()
+        );
+        Files.write(root.resolve("app.jar"), new byte[1000]);
+        Files.write(root.resolve("build.log"), "log".getBytes());
+        Files.createDirectories(root.resolve("src"));
+        Files.write(root.resolve("src/Main.java"), "class Main {}".getBytes());
+        Files.createDirectories(root.resolve("target/classes"));
+        Files.write(root.resolve("target/classes/Main.class"), new byte[10]);
+        return root;
+    }
+
+    /**
+     * Names of the entries of a tar.
+     * @param tar The tar.
+     * @return Names.
+     * @throws IOException If something goes wrong.
+     */
+    private static List<String> names(final InputStream tar)
+        throws IOException {
+        final List<String> names = new ArrayList<>();
+        final byte[] header = new byte[512];
+        while (BuildContextTestCase.fill(tar, header) && header[0] != 0) {
+            int end = 0;
+            while (end < 100 && header[end] != 0) {
+                ++end;
+            }
+            names.add(new String(header, 0, end, StandardCharsets.UTF_8));
+            final long size = Long.parseLong(
+                new String(header, 124, 11, StandardCharsets.US_ASCII), 8
+            );
+            final byte[] content = new byte[(int) ((size + 511) / 512 * 512)];
+            BuildContextTestCase.fill(tar, content);
+        }
+        return names;
+    }
+
+    /**
+     * Read exactly the length of the buffer.
+     * @param tar The tar.
+     * @param buffer The buffer.
+     * @return False if the tar ended.
+     * @throws IOException If something goes wrong.
+     */
+    private static boolean fill(final InputStream tar, final byte[] buffer)
+        throws IOException {
+        int done = 0;
+        while (done < buffer.length) {
+            final int read = tar.read(buffer, done, buffer.length - done);
+            if (read < 0) {
+                break;
+            }
+            done += read;
+        }
+        return done == buffer.length;
+    }
+}
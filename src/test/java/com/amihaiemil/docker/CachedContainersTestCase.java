@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link CachedContainers}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (500 lines)
+ */
+public final class CachedContainersTestCase {
+
+    /**
+     * CachedContainers lists the containers once and serves them from
+     * memory afterwards.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void servesListedContainersFromMemory() throws Exception {
+        final Container first = CachedContainersTestCase.container("1");
+        final Container second = CachedContainersTestCase.container("2");
+        final AtomicInteger listings = new AtomicInteger();
+        final Containers source = Mockito.mock(Containers.class);
+        Mockito.when(source.streamAll()).thenAnswer(
+            invocation -> {
+                listings.incrementAndGet();
+                return Arrays.asList(first, second).stream();
+            }
+        );
+        final BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        try (final ContainerCache cache = new CachedContainers(
+            source, CachedContainersTestCase.hub(queue), Duration.ofHours(1)
+        ).start()) {
+            MatcherAssert.assertThat(
+                cache.awaitSynced(5, TimeUnit.SECONDS), Matchers.is(true)
+            );
+            MatcherAssert.assertThat(cache.hasSynced(), Matchers.is(true));
+            MatcherAssert.assertThat(
+                cache.all(), Matchers.containsInAnyOrder(first, second)
+            );
+            MatcherAssert.assertThat(cache.get("2"), Matchers.is(second));
+            MatcherAssert.assertThat(cache.get("3"), Matchers.nullValue());
+            MatcherAssert.assertThat(
+                cache.filter(container -> "1".equals(container.containerId())),
+                Matchers.contains(first)
+            );
+            MatcherAssert.assertThat(listings.get(), Matchers.is(1));
+        }
+    }
+
+    /**
+     * CachedContainers lists again only the container an event is about
+     * and forgets the destroyed ones.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void appliesContainerEvents() throws Exception {
+        final Container first = CachedContainersTestCase.container("1");
+        final Container created = CachedContainersTestCase.container("2");
+        final Containers single = Mockito.mock(Containers.class);
+        Mockito.when(single.streamAll()).thenAnswer(
+            invocation -> Collections.singletonList(created).stream()
+        );
+        final Containers source = Mockito.mock(Containers.class);
+        Mockito.when(source.streamAll()).thenAnswer(
+            invocation -> Collections.singletonList(first).stream()
+        );
+        Mockito.when(source.filter(Mockito.anyMap()))
+            .thenReturn(single);
+        final BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        try (final ContainerCache cache = new CachedContainers(
+            source, CachedContainersTestCase.hub(queue), Duration.ofHours(1)
+        ).start()) {
+            cache.awaitSynced(5, TimeUnit.SECONDS);
+            queue.add(CachedContainersTestCase.event("create", "2"));
+            queue.add(CachedContainersTestCase.event("destroy", "1"));
+            final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(5);
+            while (cache.get("1") != null && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            MatcherAssert.assertThat(
+                cache.all(), Matchers.contains(created)
+            );
+        }
+        Mockito.verify(source).filter(
+            Collections.singletonMap("id", Collections.singletonList("2"))
+        );
+    }
+
+    /**
+     * CachedContainers keeps the inspection of a container until the next
+     * event about it.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void keepsInspectionUntilNextEvent() throws Exception {
+        final Container first = CachedContainersTestCase.container("1");
+        final JsonObject inspection = Json.createObjectBuilder()
+            .add("Id", "1").build();
+        Mockito.when(first.inspect()).thenReturn(inspection);
+        final Containers source = Mockito.mock(Containers.class);
+        Mockito.when(source.streamAll()).thenAnswer(
+            invocation -> Collections.singletonList(first).stream()
+        );
+        final BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        try (final ContainerCache cache = new CachedContainers(
+            source, CachedContainersTestCase.hub(queue), Duration.ofHours(1)
+        ).start()) {
+            cache.awaitSynced(5, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(
+                cache.inspect("1"), Matchers.is(inspection)
+            );
+            MatcherAssert.assertThat(
+                cache.inspect("1"), Matchers.is(inspection)
+            );
+        }
+        Mockito.verify(first, Mockito.times(1)).inspect();
+    }
+
+    /**
+     * CachedContainers survives a malformed event: it lists the containers
+     * again and keeps applying the next events.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void survivesMalformedEvents() throws Exception {
+        final Container first = CachedContainersTestCase.container("1");
+        final AtomicInteger listings = new AtomicInteger();
+        final Containers source = Mockito.mock(Containers.class);
+        Mockito.when(source.streamAll()).thenAnswer(
+            invocation -> {
+                listings.incrementAndGet();
+                return Collections.singletonList(first).stream();
+            }
+        );
+        final BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        try (final ContainerCache cache = new CachedContainers(
+            source, CachedContainersTestCase.hub(queue), Duration.ofHours(1)
+        ).start()) {
+            cache.awaitSynced(5, TimeUnit.SECONDS);
+            queue.add(
+                Json.createObjectBuilder()
+                    .add("Type", "container")
+                    .add("Action", "start")
+                    .add("Actor", Json.createObjectBuilder())
+                    .build()
+            );
+            queue.add(CachedContainersTestCase.event("destroy", "1"));
+            final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(10);
+            while (cache.get("1") != null && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            MatcherAssert.assertThat(cache.all(), Matchers.empty());
+            MatcherAssert.assertThat(listings.get(), Matchers.is(2));
+        }
+    }
+
+    /**
+     * Mock a listed Container.
+     * @param containerId ID of the container.
+     * @return Container.
+     */
+    private static Container container(final String containerId) {
+        final Container container = Mockito.mock(Container.class);
+        Mockito.when(container.containerId()).thenReturn(containerId);
+        return container;
+    }
+
+    /**
+     * A container event.
+     * @param action Action.
+     * @param containerId ID of the container.
+     * @return Event.
+     */
+    private static JsonObject event(
+        final String action, final String containerId
+    ) {
+        return Json.createObjectBuilder()
+            .add("Type", "container")
+            .add("Action", action)
+            .add("Actor", Json.createObjectBuilder().add("ID", containerId))
+            .build();
+    }
+
+    /**
+     * Mock an EventHub whose only subscription polls the given queue.
+     * @param queue Events.
+     * @return EventHub.
+     * @throws Exception If something goes wrong.
+     */
+    private static EventHub hub(final BlockingQueue<JsonObject> queue)
+        throws Exception {
+        final EventHub.Subscription subscription = Mockito.mock(
+            EventHub.Subscription.class
+        );
+        Mockito.when(
+            subscription.poll(
+                Mockito.anyLong(), Mockito.any(TimeUnit.class)
+            )
+        ).thenAnswer(
+            invocation -> queue.poll(
+                (Long) invocation.getArguments()[0],
+                (TimeUnit) invocation.getArguments()[1]
+            )
+        );
+        final EventHub hub = Mockito.mock(EventHub.class);
+        Mockito.when(hub.subscribe(Mockito.any())).thenReturn(
+            subscription
+        );
+        return hub;
+    }
+}
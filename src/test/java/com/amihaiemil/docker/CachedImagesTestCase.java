@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.Response;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link CachedImages}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+public final class CachedImagesTestCase {
+
+    /**
+     * Full ID of an image.
+     */
+    private static final String FIRST = "sha256:" + String.join(
+        "", Collections.nCopies(64, "a")
+    );
+
+    /**
+     * Full ID of another image.
+     */
+    private static final String SECOND = "sha256:" + String.join(
+        "", Collections.nCopies(64, "b")
+    );
+
+    /**
+     * CachedImages fetches inspect() and history() once per image ID.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void servesImagesFromMemory() throws Exception {
+        final AtomicInteger requests = new AtomicInteger();
+        try (final ImageCache cache = new CachedImages(
+            CachedImagesTestCase.daemon(requests),
+            URI.create("http://localhost/images"),
+            CachedImagesTestCase.docker(new LinkedBlockingQueue<>()),
+            10
+        ).start()) {
+            final Image image = cache.get(FIRST);
+            MatcherAssert.assertThat(
+                image.inspect().getString("Id"), Matchers.equalTo(FIRST)
+            );
+            MatcherAssert.assertThat(
+                cache.inspect(FIRST.substring("sha256:".length())),
+                Matchers.sameInstance(image.inspect())
+            );
+            MatcherAssert.assertThat(
+                image.history(), Matchers.iterableWithSize(2)
+            );
+            MatcherAssert.assertThat(
+                cache.history(FIRST), Matchers.hasSize(2)
+            );
+            MatcherAssert.assertThat(requests.get(), Matchers.is(2));
+            MatcherAssert.assertThat(cache.hits(), Matchers.is(3L));
+            MatcherAssert.assertThat(cache.misses(), Matchers.is(2L));
+        }
+    }
+
+    /**
+     * Names are not cached, since they can move to other images.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void doesNotCacheNames() throws Exception {
+        final AtomicInteger requests = new AtomicInteger();
+        try (final ImageCache cache = new CachedImages(
+            CachedImagesTestCase.daemon(requests),
+            URI.create("http://localhost/images"),
+            CachedImagesTestCase.docker(new LinkedBlockingQueue<>()),
+            10
+        ).start()) {
+            cache.inspect("ubuntu:22.04");
+            cache.inspect("ubuntu:22.04");
+            MatcherAssert.assertThat(requests.get(), Matchers.is(2));
+            MatcherAssert.assertThat(cache.size(), Matchers.is(0));
+        }
+    }
+
+    /**
+     * The least recently used image is evicted when the cache is full.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        final AtomicInteger requests = new AtomicInteger();
+        try (final ImageCache cache = new CachedImages(
+            CachedImagesTestCase.daemon(requests),
+            URI.create("http://localhost/images"),
+            CachedImagesTestCase.docker(new LinkedBlockingQueue<>()),
+            1
+        ).start()) {
+            cache.inspect(FIRST);
+            cache.inspect(SECOND);
+            cache.inspect(SECOND);
+            cache.inspect(FIRST);
+            MatcherAssert.assertThat(requests.get(), Matchers.is(3));
+            MatcherAssert.assertThat(cache.size(), Matchers.is(1));
+        }
+    }
+
+    /**
+     * An image is fetched again after it was deleted.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void invalidatesDeletedImages() throws Exception {
+        final AtomicInteger requests = new AtomicInteger();
+        final BlockingQueue<JsonObject> events = new LinkedBlockingQueue<>();
+        try (final ImageCache cache = new CachedImages(
+            CachedImagesTestCase.daemon(requests),
+            URI.create("http://localhost/images"),
+            CachedImagesTestCase.docker(events),
+            10
+        ).start()) {
+            cache.inspect(FIRST);
+            cache.inspect(SECOND);
+            events.add(
+                Json.createObjectBuilder()
+                    .add("Type", "image")
+                    .add("Action", "delete")
+                    .add("Actor", Json.createObjectBuilder().add("ID", FIRST))
+                    .build()
+            );
+            final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(5);
+            while (cache.size() > 1 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            cache.inspect(SECOND);
+            cache.inspect(FIRST);
+            MatcherAssert.assertThat(requests.get(), Matchers.is(3));
+        }
+    }
+
+    /**
+     * CachedImages survives a malformed event: it invalidates everything,
+     * subscribes again and keeps following the events.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void survivesMalformedEvents() throws Exception {
+        final AtomicInteger requests = new AtomicInteger();
+        final BlockingQueue<JsonObject> events = new LinkedBlockingQueue<>();
+        final Docker docker = CachedImagesTestCase.docker(events);
+        try (final ImageCache cache = new CachedImages(
+            CachedImagesTestCase.daemon(requests),
+            URI.create("http://localhost/images"),
+            docker,
+            10
+        ).start()) {
+            cache.inspect(FIRST);
+            events.add(
+                Json.createObjectBuilder()
+                    .add("Type", "image")
+                    .add("Action", "tag")
+                    .add("Actor", "not an object")
+                    .build()
+            );
+            Mockito.verify(docker.eventHub(), Mockito.timeout(5000).times(2))
+                .subscribe(Mockito.any());
+            cache.inspect(FIRST);
+            MatcherAssert.assertThat(cache.size(), Matchers.is(1));
+            events.add(
+                Json.createObjectBuilder()
+                    .add("Type", "image")
+                    .add("Action", "delete")
+                    .add("Actor", Json.createObjectBuilder().add("ID", FIRST))
+                    .build()
+            );
+            final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(5);
+            while (cache.size() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            MatcherAssert.assertThat(cache.size(), Matchers.is(0));
+            MatcherAssert.assertThat(requests.get(), Matchers.is(2));
+        }
+    }
+
+    /**
+     * Docker whose event hub gives the events from the given queue.
+     * @param queue Events.
+     * @return Docker.
+     * @throws Exception If something goes wrong.
+     */
+    private static Docker docker(final BlockingQueue<JsonObject> queue)
+        throws Exception {
+        final EventHub.Subscription subscription = Mockito.mock(
+            EventHub.Subscription.class
+        );
+        Mockito.when(
+            subscription.poll(
+                Mockito.anyLong(), Mockito.any(TimeUnit.class)
+            )
+        ).thenAnswer(
+            invocation -> queue.poll(
+                (Long) invocation.getArguments()[0],
+                (TimeUnit) invocation.getArguments()[1]
+            )
+        );
+        final EventHub hub = Mockito.mock(EventHub.class);
+        Mockito.when(hub.subscribe(Mockito.any())).thenReturn(subscription);
+        final Docker docker = Mockito.mock(Docker.class);
+        Mockito.when(docker.eventHub()).thenReturn(hub);
+        return docker;
+    }
+
+    /**
+     * HttpClient which answers image inspections and histories, counting
+     * the requests.
+     * @param requests Counter of the requests.
+     * @return HttpClient.
+     * @throws Exception If something goes wrong.
+     */
+    @SuppressWarnings("unchecked")
+    private static HttpClient daemon(final AtomicInteger requests)
+        throws Exception {
+        final HttpClient client = Mockito.mock(HttpClient.class);
+        Mockito.when(
+            client.execute(
+                Mockito.any(HttpUriRequest.class),
+                Mockito.any(ResponseHandler.class)
+            )
+        ).thenAnswer(
+            invocation -> {
+                requests.incrementAndGet();
+                final String path = ((HttpUriRequest) invocation
+                    .getArguments()[0]).getURI().getPath();
+                final String image = path.split("/")[2];
+                final Response response;
+                if (path.endsWith("/history")) {
+                    response = new Response(
+                        HttpStatus.SC_OK, "[{\"Id\":\"l1\"},{\"Id\":\"l2\"}]"
+                    );
+                } else {
+                    response = new Response(
+                        HttpStatus.SC_OK,
+                        Json.createObjectBuilder().add("Id", image).build()
+                            .toString()
+                    );
+                }
+                return ((ResponseHandler<Object>) invocation
+                    .getArguments()[1]).handleResponse(response);
+            }
+        );
+        return client;
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ChannelSocket}, against an echo server listening
+ * on a unix socket.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ */
+public final class ChannelSocketTestCase {
+
+    /**
+     * Folder of the unix socket.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Threads of the echo server.
+     */
+    private ExecutorService threads;
+
+    /**
+     * Server channel of the echo server.
+     */
+    private UnixServerSocketChannel server;
+
+    /**
+     * Transport to the echo server.
+     */
+    private Transport transport;
+
+    /**
+     * Start the echo server. It sends back every byte it gets.
+     * @throws Exception If something goes wrong.
+     */
+    @Before
+    public void start() throws Exception {
+        final File socket = new File(this.folder.getRoot(), "echo.sock");
+        this.server = UnixServerSocketChannel.open();
+        this.server.socket().bind(new UnixSocketAddress(socket));
+        this.threads = Executors.newCachedThreadPool();
+        this.threads.submit(
+            () -> {
+                while (this.server.isOpen()) {
+                    final UnixSocketChannel channel = this.server.accept();
+                    this.threads.submit(
+                        () -> {
+                            final ByteBuffer buffer = ByteBuffer.allocate(64);
+                            while (channel.read(buffer) >= 0) {
+                                buffer.flip();
+                                channel.write(buffer);
+                                buffer.clear();
+                            }
+                            channel.close();
+                            return null;
+                        }
+                    );
+                }
+                return null;
+            }
+        );
+        this.transport = new JnrTransport(socket);
+    }
+
+    /**
+     * Stop the echo server.
+     * @throws Exception If something goes wrong.
+     */
+    @After
+    public void stop() throws Exception {
+        this.server.close();
+        this.threads.shutdownNow();
+    }
+
+    /**
+     * ChannelSocket writes and reads through its streams.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void writesAndReads() throws Exception {
+        try (Socket socket = new ChannelSocket(this.transport)) {
+            socket.connect(null, 1000);
+            MatcherAssert.assertThat(
+                socket.isConnected(), Matchers.is(true)
+            );
+            final OutputStream out = socket.getOutputStream();
+            out.write("ping".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            final InputStream in = socket.getInputStream();
+            final byte[] echo = new byte[4];
+            int read = 0;
+            while (read < echo.length) {
+                read += in.read(echo, read, echo.length - read);
+            }
+            MatcherAssert.assertThat(
+                new String(echo, StandardCharsets.US_ASCII),
+                Matchers.equalTo("ping")
+            );
+        }
+    }
+
+    /**
+     * ChannelSocket gives up reading after the socket timeout.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = SocketTimeoutException.class)
+    public void timesOutReading() throws Exception {
+        try (Socket socket = new ChannelSocket(this.transport)) {
+            socket.connect(null, 1000);
+            socket.setSoTimeout(200);
+            socket.getInputStream().read();
+        }
+    }
+
+    /**
+     * ChannelSocket waits for the whole read timeout, not less, and gives
+     * up right after it.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void waitsForTheWholeTimeout() throws Exception {
+        try (Socket socket = new ChannelSocket(this.transport)) {
+            socket.connect(null, 1000);
+            socket.setSoTimeout(300);
+            final long start = System.nanoTime();
+            try {
+                socket.getInputStream().read();
+                MatcherAssert.assertThat("Timeout expected", false);
+            } catch (final SocketTimeoutException ex) {
+                final long took = TimeUnit.NANOSECONDS.toMillis(
+                    System.nanoTime() - start
+                );
+                MatcherAssert.assertThat(
+                    took, Matchers.greaterThanOrEqualTo(300L)
+                );
+                MatcherAssert.assertThat(took, Matchers.lessThan(3000L));
+            }
+        }
+    }
+
+    /**
+     * ChannelSocket cannot be used after it is closed.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void closes() throws Exception {
+        final Socket socket = new ChannelSocket(this.transport);
+        socket.connect(null, 1000);
+        socket.close();
+        MatcherAssert.assertThat(socket.isClosed(), Matchers.is(true));
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.File;
+import java.net.URI;
+import java.time.Duration;
+import org.apache.http.client.HttpClient;
+import org.apache.http.pool.PoolStats;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link ClientConfig}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (100 lines)
+ */
+public final class ClientConfigTestCase {
+
+    /**
+     * By default, each pool has 10 connections, none of them leased.
+     */
+    @Test
+    public void defaultPoolsHaveTenConnections() {
+        final PoolStats stats = new UnixDocker(
+            new File("/var/run/docker.sock")
+        ).poolStats();
+        MatcherAssert.assertThat(stats.getMax(), Matchers.is(10));
+        MatcherAssert.assertThat(stats.getLeased(), Matchers.is(0));
+        MatcherAssert.assertThat(stats.getAvailable(), Matchers.is(0));
+        MatcherAssert.assertThat(stats.getPending(), Matchers.is(0));
+        MatcherAssert.assertThat(
+            new UnixDocker(new File("/var/run/docker.sock"))
+                .streamingPoolStats().getMax(),
+            Matchers.is(10)
+        );
+    }
+
+    /**
+     * The configured pool size reaches the Unix and the TCP clients,
+     * also through the authenticated one.
+     */
+    @Test
+    public void configuresPoolSize() {
+        final ClientConfig config = new ClientConfig()
+            .withMaxConnections(64)
+            .withConnectionTtl(Duration.ofMinutes(5))
+            .withIdleTimeout(Duration.ofSeconds(30))
+            .withValidateAfterInactivity(Duration.ofSeconds(1))
+            .withConnectTimeout(Duration.ofSeconds(5))
+            .withSocketTimeout(Duration.ofMinutes(1))
+            .withRequestTimeout(Duration.ofSeconds(10))
+            .withKeepAlive(Duration.ofSeconds(20));
+        MatcherAssert.assertThat(
+            new UnixDocker(new File("/var/run/docker.sock"), config)
+                .poolStats().getMax(),
+            Matchers.is(64)
+        );
+        MatcherAssert.assertThat(
+            new TcpDocker(URI.create("http://localhost"), config)
+                .poolStats().getMax(),
+            Matchers.is(64)
+        );
+        MatcherAssert.assertThat(
+            new RemoteDocker(
+                URI.create("http://localhost"),
+                Mockito.mock(Auth.class),
+                config.withMaxConnections(3)
+            ).poolStats().getMax(),
+            Matchers.is(3)
+        );
+    }
+
+    /**
+     * The pool of a given HttpClient is not known.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void unknownPoolOfGivenClient() {
+        new TcpDocker(
+            Mockito.mock(HttpClient.class), URI.create("http://localhost")
+        ).poolStats();
+    }
+
+    /**
+     * At least one connection is needed.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesEmptyPool() {
+        new ClientConfig().withMaxConnections(0);
+    }
+
+    /**
+     * The non-blocking engine has one set of connections, with room for
+     * the configured number of idle ones.
+     */
+    @Test
+    public void nonBlockingEngineReportsItsConnections() {
+        final UnixDocker docker = new UnixDocker(
+            new File("/var/run/docker.sock"),
+            new ClientConfig().withMaxConnections(32).withSelectors(2)
+        );
+        MatcherAssert.assertThat(
+            docker.poolStats().getMax(), Matchers.is(32)
+        );
+        MatcherAssert.assertThat(
+            docker.streamingPoolStats().getMax(), Matchers.is(32)
+        );
+    }
+
+    /**
+     * The number of selector threads cannot be negative.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesNegativeSelectors() {
+        new ClientConfig().withSelectors(-1);
+    }
+}
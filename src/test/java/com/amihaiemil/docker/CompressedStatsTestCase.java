@@ -0,0 +1,401 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import javax.json.Json;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CompressedStats}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (400 lines)
+ */
+public final class CompressedStatsTestCase {
+
+    /**
+     * Timestamp of the first synthetic sample, in milliseconds.
+     */
+    private static final long START = 1_700_000_000_000L;
+
+    /**
+     * CompressedStats returns the exact samples of a time range,
+     * across blocks.
+     */
+    @Test
+    public void returnsRange() {
+        final StatsStore store = new CompressedStats(Duration.ofDays(1), 64);
+        final Sample sample = new Sample(new Random(1));
+        final long[] memory = new long[300];
+        final long[] times = new long[memory.length];
+        for (int idx = 0; idx < memory.length; ++idx) {
+            sample.next();
+            memory[idx] = sample.memoryUsage();
+            times[idx] = sample.read() / 1_000_000L;
+            store.add("123", sample);
+        }
+        final StatsSeries series = store.range(
+            "123", StatsMetric.MEMORY_USAGE,
+            Instant.ofEpochMilli(START + 100_000L),
+            Instant.ofEpochMilli(START + 200_000L)
+        );
+        MatcherAssert.assertThat(series.size(), Matchers.is(100));
+        for (int idx = 0; idx < series.size(); ++idx) {
+            MatcherAssert.assertThat(
+                series.time(idx), Matchers.is(times[idx + 100])
+            );
+            MatcherAssert.assertThat(
+                series.value(idx), Matchers.is((double) memory[idx + 100])
+            );
+        }
+        MatcherAssert.assertThat(store.samples(), Matchers.is(300L));
+        MatcherAssert.assertThat(
+            store.containers(), Matchers.contains("123")
+        );
+    }
+
+    /**
+     * CompressedStats aggregates the samples per step and leaves out
+     * the empty steps.
+     */
+    @Test
+    public void downsamples() {
+        final StatsStore store = new CompressedStats(Duration.ofDays(1));
+        final Sample sample = new Sample(new Random(2));
+        for (int idx = 0; idx < 120; ++idx) {
+            sample.next();
+            store.add("123", sample);
+        }
+        final Instant from = Instant.ofEpochMilli(START);
+        final Instant until = Instant.ofEpochMilli(START + 600_000L);
+        final StatsSeries pids = store.downsample(
+            "123", StatsMetric.PIDS, from, until,
+            Duration.ofMinutes(1), StatsStore.Aggregate.LAST
+        );
+        MatcherAssert.assertThat(pids.size(), Matchers.is(2));
+        MatcherAssert.assertThat(pids.time(1), Matchers.is(START + 60_000L));
+        MatcherAssert.assertThat(pids.value(1), Matchers.is(12.0));
+        final StatsSeries average = store.downsample(
+            "123", StatsMetric.NETWORK_TX, from, until,
+            Duration.ofMinutes(1), StatsStore.Aggregate.AVG
+        );
+        final StatsSeries raw = store.range(
+            "123", StatsMetric.NETWORK_TX, from, until
+        );
+        double sum = 0;
+        for (int idx = 0; idx < 60; ++idx) {
+            sum = sum + raw.value(idx);
+        }
+        MatcherAssert.assertThat(
+            average.value(0), Matchers.closeTo(sum / 60, 0.001)
+        );
+        MatcherAssert.assertThat(
+            store.downsample(
+                "123", StatsMetric.NETWORK_TX, from, until,
+                Duration.ofMinutes(1), StatsStore.Aggregate.MAX
+            ).value(1),
+            Matchers.is(raw.value(119))
+        );
+    }
+
+    /**
+     * CompressedStats computes the CPU percent from consecutive samples,
+     * also when the previous sample is in an older block.
+     */
+    @Test
+    public void computesCpuPercent() {
+        final StatsStore store = new CompressedStats(Duration.ofDays(1), 10);
+        final Sample sample = new Sample(new Random(3));
+        for (int idx = 0; idx < 30; ++idx) {
+            sample.next();
+            store.add("123", sample);
+        }
+        final StatsSeries all = store.range(
+            "123", StatsMetric.CPU_PERCENT,
+            Instant.ofEpochMilli(START), Instant.ofEpochMilli(START + 30_000L)
+        );
+        MatcherAssert.assertThat(all.size(), Matchers.is(29));
+        final StatsSeries block = store.range(
+            "123", StatsMetric.CPU_PERCENT,
+            Instant.ofEpochMilli(START + 10_000L),
+            Instant.ofEpochMilli(START + 11_000L)
+        );
+        MatcherAssert.assertThat(block.size(), Matchers.is(1));
+        MatcherAssert.assertThat(
+            block.value(0), Matchers.closeTo(all.value(9), 0.0001)
+        );
+        MatcherAssert.assertThat(
+            block.value(0), Matchers.closeTo(2.0, 0.1)
+        );
+    }
+
+    /**
+     * CompressedStats drops the blocks older than the retention.
+     */
+    @Test
+    public void dropsExpiredBlocks() {
+        final StatsStore store = new CompressedStats(
+            Duration.ofMinutes(1), 10
+        );
+        final Sample sample = new Sample(new Random(4));
+        for (int idx = 0; idx < 200; ++idx) {
+            sample.next();
+            store.add("123", sample);
+        }
+        MatcherAssert.assertThat(
+            store.samples(),
+            Matchers.allOf(
+                Matchers.greaterThanOrEqualTo(60L),
+                Matchers.lessThanOrEqualTo(80L)
+            )
+        );
+        MatcherAssert.assertThat(
+            store.range(
+                "123", StatsMetric.PIDS,
+                Instant.ofEpochMilli(START),
+                Instant.ofEpochMilli(START + 60_000L)
+            ).size(),
+            Matchers.is(0)
+        );
+        store.remove("123");
+        MatcherAssert.assertThat(store.containers(), Matchers.empty());
+        MatcherAssert.assertThat(store.bytes(), Matchers.is(0L));
+    }
+
+    /**
+     * CompressedStats can store Json stats, as returned by the stats API.
+     */
+    @Test
+    public void addsJsonStats() {
+        final StatsStore store = new CompressedStats(Duration.ofHours(1));
+        store.add(
+            "123",
+            Json.createObjectBuilder()
+                .add("read", "2024-03-05T10:00:02.123456789Z")
+                .add(
+                    "memory_stats",
+                    Json.createObjectBuilder()
+                        .add("usage", 1024)
+                        .add("limit", 4096)
+                ).build()
+        );
+        final StatsSeries limit = store.range(
+            "123", StatsMetric.MEMORY_LIMIT,
+            Instant.parse("2024-03-05T10:00:00Z"),
+            Instant.parse("2024-03-05T10:01:00Z")
+        );
+        MatcherAssert.assertThat(limit.size(), Matchers.is(1));
+        MatcherAssert.assertThat(
+            limit.time(0),
+            Matchers.is(
+                Instant.parse("2024-03-05T10:00:02.123Z").toEpochMilli()
+            )
+        );
+        MatcherAssert.assertThat(limit.value(0), Matchers.is(4096.0));
+    }
+
+    /**
+     * CompressedStats needs less than 4 bytes per point for samples taken
+     * every second, with busy counters.
+     */
+    @Test
+    public void compressesSamples() {
+        final StatsStore store = new CompressedStats(Duration.ofDays(1));
+        final Sample sample = new Sample(new Random(5));
+        for (int idx = 0; idx < 5000; ++idx) {
+            sample.next();
+            store.add("123", sample);
+        }
+        MatcherAssert.assertThat(
+            (double) store.bytes() / (store.samples() * 10),
+            Matchers.lessThan(4.0)
+        );
+    }
+
+    /**
+     * Synthetic samples of a busy container, taken every second, with
+     * a few milliseconds of jitter.
+     */
+    static final class Sample implements StatsFrames {
+
+        /**
+         * Randomness.
+         */
+        private final Random random;
+
+        /**
+         * Sample number.
+         */
+        private long index;
+
+        /**
+         * Read timestamp, in milliseconds.
+         */
+        private long time;
+
+        /**
+         * Container CPU time.
+         */
+        private long cpu;
+
+        /**
+         * Host CPU time.
+         */
+        private long system;
+
+        /**
+         * Memory usage.
+         */
+        private long memory;
+
+        /**
+         * Received bytes.
+         */
+        private long received;
+
+        /**
+         * Sent bytes.
+         */
+        private long sent;
+
+        /**
+         * Written bytes.
+         */
+        private long written;
+
+        /**
+         * Ctor.
+         * @param random Randomness.
+         */
+        Sample(final Random random) {
+            this.random = random;
+            this.memory = 50_000_000L;
+        }
+
+        @Override
+        public boolean next() {
+            this.time = START + this.index * 1000L;
+            if (this.index > 0 && this.random.nextInt(10) == 0) {
+                this.time = this.time + this.random.nextInt(5);
+            }
+            this.index = this.index + 1;
+            this.cpu = this.cpu + 20_000_000L
+                + this.random.nextInt(1_000_000);
+            this.system = this.system + 4_000_000_000L;
+            if (this.random.nextInt(5) == 0) {
+                this.memory = this.memory
+                    + (this.random.nextInt(8) - 4) * 4096L;
+            }
+            this.received = this.received + this.random.nextInt(2000);
+            this.sent = this.sent + this.random.nextInt(1000);
+            if (this.random.nextInt(10) == 0) {
+                this.written = this.written + 8192;
+            }
+            return true;
+        }
+
+        @Override
+        public long read() {
+            return this.time * 1_000_000L;
+        }
+
+        @Override
+        public long cpuTotal() {
+            return this.cpu;
+        }
+
+        @Override
+        public long systemCpu() {
+            return this.system;
+        }
+
+        @Override
+        public long cpuDelta() {
+            return 0;
+        }
+
+        @Override
+        public long systemCpuDelta() {
+            return 0;
+        }
+
+        @Override
+        public int onlineCpus() {
+            return 4;
+        }
+
+        @Override
+        public double cpuPercent() {
+            return 0;
+        }
+
+        @Override
+        public long memoryUsage() {
+            return this.memory;
+        }
+
+        @Override
+        public long memoryLimit() {
+            return 2_147_483_648L;
+        }
+
+        @Override
+        public long networkRx() {
+            return this.received;
+        }
+
+        @Override
+        public long networkTx() {
+            return this.sent;
+        }
+
+        @Override
+        public long blockRead() {
+            return 0;
+        }
+
+        @Override
+        public long blockWrite() {
+            return this.written;
+        }
+
+        @Override
+        public long pids() {
+            return 12;
+        }
+
+        @Override
+        public void close() {
+            //nothing to close
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import javax.json.Json;
+import org.apache.http.client.HttpClient;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link ContainerIndex}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class ContainerIndexTestCase {
+
+    /**
+     * ContainerIndex finds the containers by label and status, all the
+     * labels having to match.
+     */
+    @Test
+    public void findsByLabelAndStatus() {
+        final ContainerIndex index = new ContainerIndex();
+        final Container payments = ContainerIndexTestCase.container(
+            "1", "running", "sha256:a", "payments", "bridge"
+        );
+        index.put(payments);
+        index.put(
+            ContainerIndexTestCase.container(
+                "2", "exited", "sha256:a", "payments", "bridge"
+            )
+        );
+        index.put(
+            ContainerIndexTestCase.container(
+                "3", "running", "sha256:b", "billing", "host"
+            )
+        );
+        final Map<String, Iterable<String>> filters = new HashMap<>();
+        filters.put("label", Arrays.asList("team=payments", "tier"));
+        filters.put("status", Collections.singletonList("running"));
+        MatcherAssert.assertThat(
+            index.find(filters), Matchers.contains(payments)
+        );
+        filters.put("label", Collections.singletonList("team=nobody"));
+        MatcherAssert.assertThat(index.find(filters), Matchers.empty());
+    }
+
+    /**
+     * ContainerIndex matches any of the values of the same filter and
+     * finds by image and network name or ID.
+     */
+    @Test
+    public void findsByAnyValue() {
+        final ContainerIndex index = new ContainerIndex();
+        index.put(
+            ContainerIndexTestCase.container(
+                "1", "running", "sha256:a", "payments", "bridge"
+            )
+        );
+        index.put(
+            ContainerIndexTestCase.container(
+                "2", "exited", "sha256:a", "payments", "bridge"
+            )
+        );
+        index.put(
+            ContainerIndexTestCase.container(
+                "3", "paused", "sha256:b", "billing", "host"
+            )
+        );
+        MatcherAssert.assertThat(
+            index.find(
+                Collections.singletonMap(
+                    "status", Arrays.asList("running", "exited")
+                )
+            ),
+            Matchers.iterableWithSize(2)
+        );
+        MatcherAssert.assertThat(
+            index.find(
+                Collections.singletonMap(
+                    "image", Collections.singletonList("sha256:b")
+                )
+            ).get(0).containerId(),
+            Matchers.equalTo("3")
+        );
+        MatcherAssert.assertThat(
+            index.find(
+                Collections.singletonMap(
+                    "network", Arrays.asList("bridge", "net-bridge")
+                )
+            ),
+            Matchers.iterableWithSize(2)
+        );
+        MatcherAssert.assertThat(
+            index.find(Collections.emptyMap()), Matchers.iterableWithSize(3)
+        );
+    }
+
+    /**
+     * ContainerIndex reindexes a replaced container and unindexes the
+     * removed ones.
+     */
+    @Test
+    public void updatesIncrementally() {
+        final ContainerIndex index = new ContainerIndex();
+        index.put(
+            ContainerIndexTestCase.container(
+                "1", "running", "sha256:a", "payments", "bridge"
+            )
+        );
+        index.put(
+            ContainerIndexTestCase.container(
+                "2", "running", "sha256:a", "payments", "bridge"
+            )
+        );
+        index.put(
+            ContainerIndexTestCase.container(
+                "1", "exited", "sha256:a", "payments", "bridge"
+            )
+        );
+        final Map<String, Iterable<String>> running = Collections
+            .singletonMap("status", Collections.singletonList("running"));
+        MatcherAssert.assertThat(
+            index.find(running).get(0).containerId(), Matchers.equalTo("2")
+        );
+        index.retain(new HashSet<>(Collections.singletonList("1")));
+        MatcherAssert.assertThat(index.find(running), Matchers.empty());
+        MatcherAssert.assertThat(index.all(), Matchers.iterableWithSize(1));
+        index.remove("1");
+        MatcherAssert.assertThat(index.get("1"), Matchers.nullValue());
+    }
+
+    /**
+     * ContainerIndex refuses unknown filters.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesUnsupportedFilter() {
+        new ContainerIndex().find(
+            Collections.singletonMap(
+                "health", Collections.singletonList("healthy")
+            )
+        );
+    }
+
+    /**
+     * A listed container.
+     * @param id ID.
+     * @param state State.
+     * @param image Image ID.
+     * @param team Value of the label "team".
+     * @param network Name of the network.
+     * @return Container.
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    private static Container container(
+        final String id, final String state, final String image,
+        final String team, final String network
+    ) {
+        return new RtContainer(
+            Json.createObjectBuilder()
+                .add("Id", id)
+                .add("State", state)
+                .add("ImageID", image)
+                .add(
+                    "Labels",
+                    Json.createObjectBuilder()
+                        .add("team", team)
+                        .add("tier", "backend")
+                )
+                .add(
+                    "NetworkSettings",
+                    Json.createObjectBuilder().add(
+                        "Networks",
+                        Json.createObjectBuilder().add(
+                            network,
+                            Json.createObjectBuilder()
+                                .add("NetworkID", "net-" + network)
+                        )
+                    )
+                )
+                .build(),
+            Mockito.mock(HttpClient.class),
+            URI.create("http://localhost/containers/" + id),
+            Mockito.mock(Docker.class)
+        );
+    }
+}
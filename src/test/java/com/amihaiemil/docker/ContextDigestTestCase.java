@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ContextDigest} and {@link BuildCache}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+public final class ContextDigestTestCase {
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The digest depends on the contents, not on the modification times
+     * or the ignored files.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void digestsWhatIsSent() throws Exception {
+        final Path root = this.folder.newFolder().toPath();
+        Files.write(root.resolve("Dockerfile"), "FROM scratch".getBytes());
+        Files.write(root.resolve(".dockerignore"), "*.log".getBytes());
+        Files.write(root.resolve("app.txt"), "v1".getBytes());
+        final BuildCache cache = new BuildCache(root.resolve("../index"));
+        final String first = new ContextDigest(root, "Dockerfile", cache)
+            .digest();
+        Files.write(root.resolve("build.log"), "ignored".getBytes());
+        Files.setLastModifiedTime(
+            root.resolve("Dockerfile"), FileTime.fromMillis(1000)
+        );
+        MatcherAssert.assertThat(
+            new ContextDigest(root, "Dockerfile", cache).digest(),
+            Matchers.equalTo(first)
+        );
+        Files.write(root.resolve("app.txt"), "v22".getBytes());
+        MatcherAssert.assertThat(
+            new ContextDigest(root, "Dockerfile", cache).digest(),
+            Matchers.not(Matchers.equalTo(first))
+        );
+    }
+
+    /**
+     * A file whose size and modification time did not change is not read
+     * again.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsUnchangedFiles() throws Exception {
+        final Path root = this.folder.newFolder().toPath();
+        final Path file = root.resolve("app.txt");
+        Files.write(file, "aaaa".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(5000));
+        final BuildCache cache = new BuildCache(root.resolve("../index"));
+        final String first = new ContextDigest(root, "Dockerfile", cache)
+            .digest();
+        Files.write(file, "bbbb".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(5000));
+        MatcherAssert.assertThat(
+            new ContextDigest(root, "Dockerfile", cache).digest(),
+            Matchers.equalTo(first)
+        );
+    }
+
+    /**
+     * The index survives in its file.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void savesIndex() throws Exception {
+        final Path index = this.folder.getRoot().toPath()
+            .resolve("cache/builds.json");
+        final BuildCache cache = new BuildCache(index);
+        cache.remember("sha256:ctx", "sha256:img");
+        cache.save();
+        final BuildCache loaded = new BuildCache(index);
+        MatcherAssert.assertThat(
+            loaded.image("sha256:ctx"), Matchers.equalTo("sha256:img")
+        );
+        loaded.forget("sha256:ctx");
+        MatcherAssert.assertThat(
+            loaded.image("sha256:ctx"), Matchers.isEmptyString()
+        );
+    }
+
+    /**
+     * The hashes of the files survive in the index file too.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void savesFileHashes() throws Exception {
+        final Path root = this.folder.newFolder().toPath();
+        final Path file = root.resolve("app.txt");
+        Files.write(file, "aaaa".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(5000));
+        final Path index = root.resolve("../builds.json");
+        final BuildCache cache = new BuildCache(index);
+        final String first = new ContextDigest(root, "Dockerfile", cache)
+            .digest();
+        cache.save();
+        Files.write(file, "bbbb".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(5000));
+        MatcherAssert.assertThat(
+            new ContextDigest(root, "Dockerfile", new BuildCache(index))
+                .digest(),
+            Matchers.equalTo(first)
+        );
+    }
+
+    /**
+     * The files which are not part of the context anymore are pruned from
+     * the index, the files of other contexts are kept.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void prunesRemovedFiles() throws Exception {
+        final Path root = this.folder.newFolder().toPath();
+        final Path other = this.folder.newFolder().toPath();
+        final Path file = root.resolve("app.txt");
+        final Path kept = other.resolve("lib.txt");
+        Files.write(file, "aaaa".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(5000));
+        Files.write(kept, "cccc".getBytes());
+        Files.setLastModifiedTime(kept, FileTime.fromMillis(5000));
+        final BuildCache cache = new BuildCache(root.resolve("../index"));
+        final String first = new ContextDigest(root, "Dockerfile", cache)
+            .digest();
+        final String lib = new ContextDigest(other, "Dockerfile", cache)
+            .digest();
+        Files.delete(file);
+        new ContextDigest(root, "Dockerfile", cache).digest();
+        Files.write(file, "bbbb".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(5000));
+        MatcherAssert.assertThat(
+            new ContextDigest(root, "Dockerfile", cache).digest(),
+            Matchers.not(Matchers.equalTo(first))
+        );
+        Files.write(kept, "dddd".getBytes());
+        Files.setLastModifiedTime(kept, FileTime.fromMillis(5000));
+        MatcherAssert.assertThat(
+            new ContextDigest(other, "Dockerfile", cache).digest(),
+            Matchers.equalTo(lib)
+        );
+    }
+}
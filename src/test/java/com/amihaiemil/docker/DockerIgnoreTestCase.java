@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.Arrays;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DockerIgnore}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class DockerIgnoreTestCase {
+
+    /**
+     * A rule matching a directory excludes everything inside it.
+     */
+    @Test
+    public void excludesDirectoryContent() {
+        final DockerIgnore ignore = new DockerIgnore(
+            Arrays.asList("# comment", "", "/node_modules/", "./target")
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("node_modules/left-pad/index.js"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("target"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("src/node_modules"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * "*" and "?" do not cross directories, "**" does.
+     */
+    @Test
+    public void matchesWildcards() {
+        final DockerIgnore ignore = new DockerIgnore(
+            Arrays.asList("*.log", "**/*.tmp", "docs/?.md", "out**x")
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("build.log"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("logs/build.log"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("a.tmp"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("a/b/c.tmp"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("docs/a.md"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("docs/ab.md"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("out/a/b.x"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("out/a/b.y"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * The last matching rule decides, so "!" brings back a path.
+     */
+    @Test
+    public void lastMatchingRuleWins() {
+        final DockerIgnore ignore = new DockerIgnore(
+            Arrays.asList("*.md", "!README.md", "README*")
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("CHANGES.md"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            ignore.excluded("README.md"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            new DockerIgnore(Arrays.asList("*.md", "!README.md"))
+                .excluded("README.md"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(ignore.hasExceptions(), Matchers.is(true));
+    }
+}
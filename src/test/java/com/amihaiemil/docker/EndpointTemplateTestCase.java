@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link EndpointTemplate}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class EndpointTemplateTestCase {
+
+    /**
+     * Base URI of the requests.
+     */
+    private static final String BASE = "unix://localhost:80/v1.44";
+
+    /**
+     * IDs are taken out of the container paths, the collection
+     * endpoints stay as they are.
+     */
+    @Test
+    public void templatesContainerEndpoints() {
+        final EndpointTemplate template = new EndpointTemplate();
+        MatcherAssert.assertThat(
+            template.apply(new HttpPost(BASE + "/containers/3ab9f/start")),
+            Matchers.equalTo("POST /containers/{id}/start")
+        );
+        MatcherAssert.assertThat(
+            template.apply(new HttpGet(BASE + "/containers/json?all=true")),
+            Matchers.equalTo("GET /containers/json")
+        );
+        MatcherAssert.assertThat(
+            template.apply(new HttpDelete(BASE + "/containers/3ab9f")),
+            Matchers.equalTo("DELETE /containers/{id}")
+        );
+        MatcherAssert.assertThat(
+            template.apply(new HttpGet(BASE + "/_ping")),
+            Matchers.equalTo("GET /_ping")
+        );
+        MatcherAssert.assertThat(
+            template.apply(new HttpGet(BASE + "/system/df")),
+            Matchers.equalTo("GET /system/df")
+        );
+    }
+
+    /**
+     * Image names may contain slashes.
+     */
+    @Test
+    public void templatesImageEndpoints() {
+        final EndpointTemplate template = new EndpointTemplate();
+        MatcherAssert.assertThat(
+            template.apply(new HttpGet(BASE + "/images/library/ubuntu/json")),
+            Matchers.equalTo("GET /images/{name}/json")
+        );
+        MatcherAssert.assertThat(
+            template.apply(new HttpDelete(BASE + "/images/library/ubuntu")),
+            Matchers.equalTo("DELETE /images/{name}")
+        );
+        MatcherAssert.assertThat(
+            template.apply(new HttpPost(BASE + "/images/create?fromImage=db")),
+            Matchers.equalTo("POST /images/create")
+        );
+    }
+}
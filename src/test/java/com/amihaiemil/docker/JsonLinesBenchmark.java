@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the events decoding. Every operation replays the recorded
+ * event stream from src/test/resources/events.ndjson a number of times, as
+ * it would come from the socket, in chunks of 1500 bytes.<br><br>
+ * The "events" secondary result is the number of decoded events per second.
+ * The legacy decoding (what RtEvents.monitor() did before
+ * {@link JsonLines}) is kept here only as a baseline: note that it
+ * loses most of the events.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonLinesBenchmark {
+
+    /**
+     * How many times the recording is replayed per operation.
+     */
+    private static final int REPLAYS = 20;
+
+    /**
+     * Bytes per read, like a typical TCP segment.
+     */
+    private static final int CHUNK = 1500;
+
+    /**
+     * Replayed event stream.
+     */
+    private byte[] stream;
+
+    /**
+     * Prepare the replayed stream.
+     * @throws IOException If something goes wrong.
+     */
+    @Setup
+    public void setup() throws IOException {
+        final byte[] recorded = IOUtils.toByteArray(
+            JsonLinesBenchmark.class.getResourceAsStream("/events.ndjson")
+        );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int idx = 0; idx < REPLAYS; ++idx) {
+            out.write(recorded);
+        }
+        this.stream = out.toByteArray();
+    }
+
+    /**
+     * Decode the events with {@link JsonLines}.
+     * @param decoded Counter of decoded events.
+     * @param hole Blackhole.
+     */
+    @Benchmark
+    public void decode(final Decoded decoded, final Blackhole hole) {
+        final JsonLines events = new JsonLines(this.socket());
+        while (events.hasNext()) {
+            hole.consume(events.next());
+            decoded.events = decoded.events + 1;
+        }
+    }
+
+    /**
+     * Decode the events the legacy way: a new array for every read,
+     * trying to parse the whole array as one event.
+     * @param decoded Counter of decoded events.
+     * @param hole Blackhole.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    public void legacy(final Decoded decoded, final Blackhole hole)
+        throws IOException {
+        final InputStream content = this.socket();
+        boolean more = true;
+        while (more) {
+            JsonObject read = null;
+            final byte[] tmp = new byte[4096];
+            more = false;
+            while (content.read(tmp) != -1) {
+                more = true;
+                try {
+                    final JsonReader reader = Json.createReader(
+                        new ByteArrayInputStream(tmp)
+                    );
+                    read = reader.readObject();
+                    break;
+                //@checkstyle IllegalCatch (1 line)
+                } catch (final Exception exception) {
+                    //Couldn't parse byte[] to Json, try to read more bytes.
+                }
+            }
+            if (read != null) {
+                hole.consume(read);
+                decoded.events = decoded.events + 1;
+            }
+        }
+    }
+
+    /**
+     * The replayed stream, coming in chunks.
+     * @return InputStream.
+     */
+    private InputStream socket() {
+        return new ByteArrayInputStream(this.stream) {
+            @Override
+            public synchronized int read(
+                final byte[] bytes, final int off, final int len
+            ) {
+                return super.read(bytes, off, Math.min(len, CHUNK));
+            }
+        };
+    }
+
+    /**
+     * Counter of decoded events, reported as events per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Decoded {
+
+        /**
+         * Decoded events.
+         * @checkstyle VisibilityModifier (2 lines)
+         */
+        public long events;
+
+        /**
+         * Reset the counter before every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.events = 0;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.json.JsonObject;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link JsonLines}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class JsonLinesTestCase {
+
+    /**
+     * JsonLines reads all the objects which come in one chunk.
+     */
+    @Test
+    public void readsManyObjectsInOneChunk() {
+        final List<String> ids = new JsonLines(
+            JsonLinesTestCase.content(
+                "{\"id\":\"a\"}\n{\"id\":\"b\"}\n{\"id\":\"c\"}\n"
+            )
+        ).stream().map(json -> json.getString("id"))
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(ids, Matchers.contains("a", "b", "c"));
+    }
+
+    /**
+     * JsonLines reads objects spanning more chunks, even if the content
+     * comes a few bytes at a time.
+     */
+    @Test
+    public void readsObjectsSpanningChunks() {
+        final List<String> ids = new JsonLines(
+            new Trickle(
+                JsonLinesTestCase.content(
+                    "{\"id\":\"first\"}\n{\"id\":\"second\"}\r\n"
+                    + "{\"id\":\"third\"}\n"
+                ),
+                3
+            ),
+            8
+        ).stream().map(json -> json.getString("id"))
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(
+            ids, Matchers.contains("first", "second", "third")
+        );
+    }
+
+    /**
+     * JsonLines skips blank lines and reads the last object even if it
+     * is not followed by a newline.
+     */
+    @Test
+    public void skipsBlankLinesAndReadsLastObject() {
+        final List<String> ids = new JsonLines(
+            JsonLinesTestCase.content(
+                "\n{\"id\":\"a\"}\n  \n\n{\"id\":\"b\"}"
+            )
+        ).stream().map(json -> json.getString("id"))
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(ids, Matchers.contains("a", "b"));
+    }
+
+    /**
+     * JsonLines does not merge an incomplete object with the next line.
+     */
+    @Test
+    public void failsOnObjectSpanningLines() {
+        final JsonLines lines = new JsonLines(
+            JsonLinesTestCase.content(
+                "{\"id\":\"a\"}\n{\"ids\":[1\n2]}\n{\"id\":\"b\"}\n"
+            )
+        );
+        MatcherAssert.assertThat(
+            lines.next().getString("id"), Matchers.equalTo("a")
+        );
+        try {
+            lines.hasNext();
+            MatcherAssert.assertThat("Exception expected", false);
+        } catch (final IllegalStateException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.containsString("{\"ids\":[1")
+            );
+        }
+        MatcherAssert.assertThat(lines.hasNext(), Matchers.is(false));
+    }
+
+    /**
+     * JsonLines fails on a line which is not a JsonObject.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void failsOnLineWhichIsNotAnObject() {
+        new JsonLines(
+            JsonLinesTestCase.content("{\"id\":\"a\"}\n[1, 2]\n")
+        ).stream().count();
+    }
+
+    /**
+     * JsonLines grows the buffer for lines bigger than it.
+     */
+    @Test
+    public void readsLinesBiggerThanTheBuffer() {
+        final StringBuilder value = new StringBuilder();
+        for (int idx = 0; idx < 1000; ++idx) {
+            value.append("ü");
+        }
+        final List<JsonObject> read = new JsonLines(
+            JsonLinesTestCase.content(
+                "{\"big\":\"" + value + "\"}\n{\"id\":\"small\"}\n"
+            ),
+            16
+        ).stream().collect(Collectors.toList());
+        MatcherAssert.assertThat(read, Matchers.iterableWithSize(2));
+        MatcherAssert.assertThat(
+            read.get(0).getString("big"),
+            Matchers.equalTo(value.toString())
+        );
+    }
+
+    /**
+     * JsonLines reads every event of a recorded event stream,
+     * exactly once.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsRecordedEvents() throws Exception {
+        final byte[] recorded = IOUtils.toByteArray(
+            this.getClass().getResourceAsStream("/events.ndjson")
+        );
+        final List<Long> times = new JsonLines(
+            new Trickle(new ByteArrayInputStream(recorded), 1000)
+        ).stream().map(json -> json.getJsonNumber("timeNano").longValue())
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(times, Matchers.iterableWithSize(106));
+        MatcherAssert.assertThat(
+            times.stream().distinct().count(),
+            Matchers.equalTo(106L)
+        );
+    }
+
+    /**
+     * Content from a String.
+     * @param text Content.
+     * @return InputStream.
+     */
+    private static InputStream content(final String text) {
+        return new ByteArrayInputStream(
+            text.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * InputStream which returns at most a few bytes per read, like
+     * a slow socket.
+     */
+    private static final class Trickle extends FilterInputStream {
+
+        /**
+         * Maximum bytes per read.
+         */
+        private final int max;
+
+        /**
+         * Ctor.
+         * @param origin Original stream.
+         * @param max Maximum bytes per read.
+         */
+        Trickle(final InputStream origin, final int max) {
+            super(origin);
+            this.max = max;
+        }
+
+        @Override
+        public int read(
+            final byte[] bytes, final int off, final int len
+        ) throws IOException {
+            return super.read(bytes, off, Math.min(len, this.max));
+        }
+    }
+}
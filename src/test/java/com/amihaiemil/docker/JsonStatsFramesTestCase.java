@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link JsonStatsFrames}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+public final class JsonStatsFramesTestCase {
+
+    /**
+     * JsonStatsFrames decodes every frame of the recorded stats stream.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void decodesAllFrames() throws Exception {
+        int count = 0;
+        try (final StatsFrames stats = new JsonStatsFrames(this.recorded())) {
+            while (stats.next()) {
+                count = count + 1;
+                MatcherAssert.assertThat(
+                    stats.pids(), Matchers.equalTo(11L + count)
+                );
+            }
+        }
+        MatcherAssert.assertThat(count, Matchers.is(3));
+    }
+
+    /**
+     * JsonStatsFrames decodes the fields of a frame which has
+     * a previous sample.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void decodesFields() throws Exception {
+        final StatsFrames stats = new JsonStatsFrames(this.recorded());
+        stats.next();
+        stats.next();
+        MatcherAssert.assertThat(
+            stats.read(), Matchers.equalTo(1709632802123456789L)
+        );
+        MatcherAssert.assertThat(
+            stats.cpuTotal(), Matchers.equalTo(150000000L)
+        );
+        MatcherAssert.assertThat(
+            stats.cpuDelta(), Matchers.equalTo(50000000L)
+        );
+        MatcherAssert.assertThat(
+            stats.systemCpuDelta(), Matchers.equalTo(4000000000L)
+        );
+        MatcherAssert.assertThat(stats.onlineCpus(), Matchers.is(4));
+        MatcherAssert.assertThat(
+            stats.cpuPercent(), Matchers.closeTo(5.0, 0.0001)
+        );
+        MatcherAssert.assertThat(
+            stats.memoryUsage(), Matchers.equalTo(19922944L)
+        );
+        MatcherAssert.assertThat(
+            stats.memoryLimit(), Matchers.equalTo(8589934592L)
+        );
+        MatcherAssert.assertThat(
+            stats.networkRx(), Matchers.equalTo(2024L)
+        );
+        MatcherAssert.assertThat(
+            stats.networkTx(), Matchers.equalTo(1012L)
+        );
+        MatcherAssert.assertThat(
+            stats.blockRead(), Matchers.equalTo(8192L)
+        );
+        MatcherAssert.assertThat(
+            stats.blockWrite(), Matchers.equalTo(16384L)
+        );
+    }
+
+    /**
+     * JsonStatsFrames has no deltas for the first frame, which has
+     * no previous sample.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void noDeltasWithoutPreviousSample() throws Exception {
+        final StatsFrames stats = new JsonStatsFrames(this.recorded());
+        stats.next();
+        MatcherAssert.assertThat(
+            stats.cpuTotal(), Matchers.equalTo(100000000L)
+        );
+        MatcherAssert.assertThat(stats.cpuDelta(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(
+            stats.cpuPercent(), Matchers.equalTo(0.0)
+        );
+    }
+
+    /**
+     * JsonStatsFrames decodes the same frames no matter how they are
+     * split between the reads, growing its buffer for frames bigger
+     * than it.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void decodesFramesSplitBetweenReads() throws Exception {
+        final byte[] recorded = IOUtils.toByteArray(this.recorded());
+        final InputStream trickle = new ByteArrayInputStream(recorded) {
+            @Override
+            public synchronized int read(
+                final byte[] bytes, final int off, final int len
+            ) {
+                return super.read(bytes, off, Math.min(len, 7));
+            }
+        };
+        long memory = 0;
+        try (final StatsFrames stats = new JsonStatsFrames(trickle, 16)) {
+            while (stats.next()) {
+                memory = memory + stats.memoryUsage();
+            }
+        }
+        MatcherAssert.assertThat(
+            memory, Matchers.equalTo(18874368L + 19922944L + 20971520L)
+        );
+    }
+
+    /**
+     * JsonStatsFrames reads a one-shot sample, which is not followed by
+     * a newline, and the cgroup v1 names of the fields.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void decodesCgroupOneSample() throws Exception {
+        final StatsFrames stats = new JsonStatsFrames(
+            JsonStatsFramesTestCase.stream(
+                "{\"read\":\"2015-01-08T22:57:31.547920715Z\","
+                + "\"pids_stats\":{\"current\":3},"
+                + "\"memory_stats\":{\"usage\":6537216,\"limit\":67108864,"
+                + "\"stats\":{\"cache\":0,\"total_inactive_file\":1000,"
+                + "\"inactive_file\":7}},"
+                + "\"blkio_stats\":{\"io_service_bytes_recursive\":["
+                + "{\"major\":8,\"op\":\"Read\",\"value\":100},"
+                + "{\"op\":\"Write\",\"value\":20},"
+                + "{\"op\":\"Total\",\"value\":120}]},"
+                + "\"cpu_stats\":{\"cpu_usage\":{\"percpu_usage\":[1,2],"
+                + "\"total_usage\":3},\"system_cpu_usage\":10},"
+                + "\"precpu_stats\":{\"cpu_usage\":{\"total_usage\":0}},"
+                + "\"name\":\"/a \\\"quoted\\\" name\"}"
+            )
+        );
+        MatcherAssert.assertThat(stats.next(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            stats.read(), Matchers.equalTo(1420757851547920715L)
+        );
+        MatcherAssert.assertThat(
+            stats.memoryUsage(), Matchers.equalTo(6536216L)
+        );
+        MatcherAssert.assertThat(stats.blockRead(), Matchers.equalTo(100L));
+        MatcherAssert.assertThat(stats.blockWrite(), Matchers.equalTo(20L));
+        MatcherAssert.assertThat(stats.onlineCpus(), Matchers.is(2));
+        MatcherAssert.assertThat(stats.next(), Matchers.is(false));
+    }
+
+    /**
+     * JsonStatsFrames skips the null values and the blank lines.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsNullsAndBlankLines() throws Exception {
+        final StatsFrames stats = new JsonStatsFrames(
+            JsonStatsFramesTestCase.stream(
+                "\n  \n{\"networks\":null,\"memory_stats\":{},"
+                + "\"blkio_stats\":{\"io_service_bytes_recursive\":null},"
+                + "\"pids_stats\":{\"current\":null}}\n\n"
+            )
+        );
+        MatcherAssert.assertThat(stats.next(), Matchers.is(true));
+        MatcherAssert.assertThat(stats.networkRx(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(stats.pids(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(stats.next(), Matchers.is(false));
+    }
+
+    /**
+     * JsonStatsFrames complains about a truncated frame.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void complainsAboutTruncatedFrame() throws Exception {
+        new JsonStatsFrames(
+            JsonStatsFramesTestCase.stream("{\"cpu_stats\":{\"cpu_usage\"")
+        ).next();
+    }
+
+    /**
+     * The recorded stats stream, with three frames.
+     * @return InputStream.
+     */
+    private InputStream recorded() {
+        return JsonStatsFramesTestCase.class.getResourceAsStream(
+            "/stats.ndjson"
+        );
+    }
+
+    /**
+     * Content of a stream.
+     * @param content Content.
+     * @return InputStream.
+     */
+    private static InputStream stream(final String content) {
+        return new ByteArrayInputStream(
+            content.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
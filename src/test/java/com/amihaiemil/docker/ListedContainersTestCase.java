@@ -35,6 +35,7 @@ import org.hamcrest.Matchers;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Unit tests for {@link ListedContainers}.
@@ -192,4 +193,55 @@ public final class ListedContainersTestCase {
         ).containers().filter(initial).filter(added).withSize(true).iterator();
     }
 
+    /**
+     * {@link ListedContainers} can stream all containers.
+     */
+    @Test
+    public void streamsAll() {
+        final List<String> ids = new UnixDocker(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "[{\"Id\": \"abc1\"}, {\"Id\":\"cde2\"}]"
+                ),
+                new Condition(
+                    "streamAll() must send a GET request",
+                    req -> "GET".equals(req.getRequestLine().getMethod())
+                ),
+                new Condition(
+                    "URI must be '/containers/json?all=true'",
+                    req -> req.getRequestLine().getUri()
+                        .endsWith("/containers/json?all=true")
+                )
+            ),
+            "v1.35"
+        ).containers().streamAll()
+            .map(Container::containerId)
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(ids, Matchers.contains("abc1", "cde2"));
+    }
+
+    /**
+     * {@link ListedContainers} can stream the running containers.
+     */
+    @Test
+    public void streamsRunning() {
+        final List<String> ids = new UnixDocker(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "[{\"Id\": \"abc1\"}]"
+                ),
+                new Condition(
+                    "URI must be '/containers/json'",
+                    req -> req.getRequestLine().getUri()
+                        .endsWith("/containers/json")
+                )
+            ),
+            "v1.35"
+        ).containers().stream()
+            .map(Container::containerId)
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(ids, Matchers.contains("abc1"));
+    }
 }
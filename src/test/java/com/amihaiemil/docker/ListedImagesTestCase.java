@@ -39,6 +39,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.apache.http.NameValuePair;
 
 /**
@@ -173,4 +174,27 @@ public final class ListedImagesTestCase {
         ).filter(added).iterator();
     }
 
+    /**
+     * {@link ListedImages} can stream the images.
+     */
+    @Test
+    public void streamsImages() {
+        final List<String> ids = new ListedImages(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "[{\"Id\": \"abc1\"}, {\"Id\":\"cde2\"}]"
+                ),
+                new Condition(
+                    "stream() resource URL must be '/images/json'",
+                    req -> req.getRequestLine()
+                        .getUri().endsWith("/images/json")
+                )
+            ),
+            URI.create("http://localhost/images"),
+            Mockito.mock(Docker.class)
+        ).stream().map(img -> img.getString("Id"))
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(ids, Matchers.contains("abc1", "cde2"));
+    }
 }
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.CharArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the logs demultiplexing. Every operation decodes 1 MB of
+ * multiplexed logs, so the score (ops/s) is the throughput in MB/s and,
+ * with the GC profiler, gc.alloc.rate.norm is the allocation per MB.
+ * <br><br>
+ * The legacy handler is the char-based decoding which ReadLogString used
+ * before {@link MultiplexedFrames}; it is kept here only as a baseline.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogFramesBenchmark {
+
+    /**
+     * Size of the decoded logs, per operation.
+     */
+    private static final int MEGABYTE = 1024 * 1024;
+
+    /**
+     * Multiplexed logs: lines of ASCII output on stdout and stderr.
+     */
+    private byte[] logs;
+
+    /**
+     * Prepare the multiplexed logs.
+     * @throws IOException If something goes wrong.
+     */
+    @Setup
+    public void setup() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = 0;
+        int line = 0;
+        while (written < MEGABYTE) {
+            final byte[] payload = String.format(
+                "%tFT%<tT.%<tLZ worker-%d handled request %d in %d ms%n",
+                System.currentTimeMillis(), line % 16, line, line % 250
+            ).getBytes(StandardCharsets.UTF_8);
+            out.write(
+                ByteBuffer.allocate(8)
+                    .put((byte) (1 + line % 2))
+                    .put(new byte[3])
+                    .putInt(payload.length)
+                    .array()
+            );
+            out.write(payload);
+            written = written + payload.length;
+            line = line + 1;
+        }
+        this.logs = out.toByteArray();
+    }
+
+    /**
+     * Decode the frames with {@link MultiplexedFrames}, without building
+     * a String, only touching the payloads.
+     * @param hole Blackhole.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    public void frames(final Blackhole hole) throws IOException {
+        final LogFrames frames = new MultiplexedFrames(
+            new ByteArrayInputStream(this.logs)
+        );
+        while (frames.next()) {
+            hole.consume(frames.type());
+            hole.consume(frames.payload().remaining());
+        }
+    }
+
+    /**
+     * Fetch the logs as a String with {@link ReadLogString}.
+     * @return Logs.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    public String fetch() throws IOException {
+        return new ReadLogString(resp -> resp).handleResponse(
+            this.response()
+        );
+    }
+
+    /**
+     * Fetch the logs as a String with the legacy char-based handler.
+     * @return Logs.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    public String legacyFetch() throws IOException {
+        final CharArrayBuffer buffer = new CharArrayBuffer(this.logs.length);
+        final Reader reader = new InputStreamReader(
+            new ByteArrayInputStream(this.logs), StandardCharsets.UTF_8
+        );
+        final char[] control = new char[8];
+        while (reader.read(control) != -1) {
+            if (control[0] != 0) {
+                long left = (long) control[7] & 0xFF
+                    | ((long) control[6] & 0xFF) << 8
+                    | ((long) control[5] & 0xFF) << 16
+                    | ((long) control[4] & 0xFF) << 24;
+                final char[] stdout = new char[(int) Math.min(left, 1024)];
+                while (left > 0) {
+                    final int len = reader.read(stdout);
+                    left = left - len;
+                    if (len != -1) {
+                        buffer.append(stdout, 0, len);
+                    }
+                }
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Response carrying the multiplexed logs.
+     * @return HttpResponse.
+     */
+    private HttpResponse response() {
+        final HttpResponse response = new BasicHttpResponse(
+            HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK"
+        );
+        response.setEntity(
+            new ByteArrayEntity(
+                this.logs,
+                ContentType.create(MultiplexedFrames.MULTIPLEXED)
+            )
+        );
+        return response;
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the overhead of {@link MeteredHttpClient}. Both benchmarks
+ * call an in-memory HttpClient which answers right away, so the difference
+ * between their scores (ns/op) is the whole cost of the metering: endpoint
+ * template, counters, histogram and the counted response body. A real call
+ * to the Docker engine takes tens of microseconds at least.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class MeteredHttpClientBenchmark {
+
+    /**
+     * Body of the responses.
+     */
+    private static final byte[] BODY =
+        "{\"Id\":\"3ab9f\",\"State\":\"running\"}".getBytes(
+            StandardCharsets.UTF_8
+        );
+
+    /**
+     * HttpClient which is not metered.
+     */
+    private HttpClient plain;
+
+    /**
+     * Metered HttpClient.
+     */
+    private HttpClient metered;
+
+    /**
+     * Prepare the clients.
+     */
+    @Setup
+    public void setup() {
+        this.plain = new InMemory();
+        this.metered = new MeteredHttpClient(
+            InMemory::new, new EndpointMetrics()
+        );
+    }
+
+    /**
+     * Inspect a container without metering.
+     * @return Status.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    public int plain() throws IOException {
+        return MeteredHttpClientBenchmark.inspect(this.plain);
+    }
+
+    /**
+     * Inspect a container with metering.
+     * @return Status.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    public int metered() throws IOException {
+        return MeteredHttpClientBenchmark.inspect(this.metered);
+    }
+
+    /**
+     * Inspect a container and consume the response.
+     * @param client HttpClient.
+     * @return Status.
+     * @throws IOException If something goes wrong.
+     */
+    private static int inspect(final HttpClient client) throws IOException {
+        final HttpResponse response = client.execute(
+            new HttpGet("unix://localhost:80/v1.44/containers/3ab9f/json")
+        );
+        EntityUtils.consume(response.getEntity());
+        return response.getStatusLine().getStatusCode();
+    }
+
+    /**
+     * HttpClient which answers every request with the same body.
+     */
+    private static final class InMemory implements HttpClient {
+
+        @Override
+        public HttpResponse execute(final HttpUriRequest request) {
+            final HttpResponse response = new BasicHttpResponse(
+                HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK"
+            );
+            response.setEntity(new ByteArrayEntity(BODY));
+            return response;
+        }
+
+        @Override
+        public HttpParams getParams() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public HttpResponse execute(
+            final HttpUriRequest request, final HttpContext context
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public HttpResponse execute(
+            final HttpHost target, final HttpRequest request
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public HttpResponse execute(
+            final HttpHost target, final HttpRequest request,
+            final HttpContext context
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T execute(
+            final HttpUriRequest request,
+            final ResponseHandler<? extends T> handler
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T execute(
+            final HttpUriRequest request,
+            final ResponseHandler<? extends T> handler,
+            final HttpContext context
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T execute(
+            final HttpHost target, final HttpRequest request,
+            final ResponseHandler<? extends T> handler
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        // @checkstyle ParameterNumber (5 lines)
+        @Override
+        public <T> T execute(
+            final HttpHost target, final HttpRequest request,
+            final ResponseHandler<? extends T> handler,
+            final HttpContext context
+        ) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
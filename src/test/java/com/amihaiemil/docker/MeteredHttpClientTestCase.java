@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link MeteredHttpClient} and {@link EndpointMetrics}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ */
+public final class MeteredHttpClientTestCase {
+
+    /**
+     * Base URI of the requests.
+     */
+    private static final String BASE = "unix://localhost:80/v1.44";
+
+    /**
+     * Calls, errors by status and bytes are counted per endpoint template.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void countsCallsByEndpoint() throws Exception {
+        final HttpClient origin = Mockito.mock(HttpClient.class);
+        Mockito.when(origin.execute(Mockito.any(HttpUriRequest.class)))
+            .thenAnswer(
+                invocation -> MeteredHttpClientTestCase.response(
+                    HttpStatus.SC_OK, "{\"Id\":\"abc\"}"
+                )
+            )
+            .thenAnswer(
+                invocation -> MeteredHttpClientTestCase.response(
+                    HttpStatus.SC_NOT_FOUND, "{\"message\":\"no such\"}"
+                )
+            );
+        final EndpointMetrics metrics = new EndpointMetrics();
+        final HttpClient metered = new MeteredHttpClient(
+            () -> origin, metrics
+        );
+        EntityUtils.consume(
+            metered.execute(new HttpGet(BASE + "/containers/abc/json"))
+                .getEntity()
+        );
+        EntityUtils.consume(
+            metered.execute(new HttpGet(BASE + "/containers/xyz/json"))
+                .getEntity()
+        );
+        final EndpointMetrics.Endpoint inspect = metrics.endpoint(
+            "GET /containers/{id}/json"
+        );
+        MatcherAssert.assertThat(inspect.count(), Matchers.is(2L));
+        MatcherAssert.assertThat(inspect.failures(), Matchers.is(0L));
+        MatcherAssert.assertThat(
+            inspect.errors(),
+            Matchers.equalTo(Collections.singletonMap(404, 1L))
+        );
+        MatcherAssert.assertThat(inspect.bytesReceived(), Matchers.is(33L));
+        MatcherAssert.assertThat(
+            inspect.latency(0.5), Matchers.greaterThan(0L)
+        );
+        MatcherAssert.assertThat(
+            inspect.latency(0.99),
+            Matchers.greaterThanOrEqualTo(inspect.latency(0.5))
+        );
+        MatcherAssert.assertThat(
+            metrics.endpoints().keySet(),
+            Matchers.contains("GET /containers/{id}/json")
+        );
+    }
+
+    /**
+     * The request body is counted and calls without a response are
+     * failures.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void countsFailuresAndBytesSent() throws Exception {
+        final HttpClient origin = Mockito.mock(HttpClient.class);
+        Mockito.when(origin.execute(Mockito.any(HttpUriRequest.class)))
+            .thenThrow(new ConnectException("refused"));
+        final EndpointMetrics metrics = new EndpointMetrics();
+        final HttpClient metered = new MeteredHttpClient(
+            () -> origin, metrics
+        );
+        final HttpPost create = new HttpPost(BASE + "/containers/create");
+        create.setEntity(new StringEntity("{\"Image\":\"ubuntu\"}"));
+        try {
+            metered.execute(create);
+            MatcherAssert.assertThat("IOException expected", false);
+        } catch (final IOException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.equalTo("refused")
+            );
+        }
+        final EndpointMetrics.Endpoint endpoint = metrics.endpoint(
+            "POST /containers/create"
+        );
+        MatcherAssert.assertThat(endpoint.count(), Matchers.is(0L));
+        MatcherAssert.assertThat(endpoint.failures(), Matchers.is(1L));
+        MatcherAssert.assertThat(endpoint.bytesSent(), Matchers.is(18L));
+    }
+
+    /**
+     * Calls with a ResponseHandler are metered too.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void metersHandledCalls() throws Exception {
+        final HttpClient origin = Mockito.mock(HttpClient.class);
+        Mockito.when(
+            origin.execute(
+                Mockito.any(HttpUriRequest.class),
+                Mockito.any(ResponseHandler.class)
+            )
+        ).thenAnswer(
+            invocation -> ((ResponseHandler<?>) invocation.getArguments()[1])
+                .handleResponse(
+                    MeteredHttpClientTestCase.response(
+                        HttpStatus.SC_NO_CONTENT, ""
+                    )
+                )
+        );
+        final EndpointMetrics metrics = new EndpointMetrics();
+        new MeteredHttpClient(() -> origin, metrics).execute(
+            new HttpPost(BASE + "/containers/abc/start"),
+            response -> response.getStatusLine().getStatusCode()
+        );
+        MatcherAssert.assertThat(
+            metrics.endpoint("POST /containers/{id}/start").count(),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * A body of unknown length is counted when it is released, even if
+     * the handler never read it.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void countsUnreadBodies() throws Exception {
+        final HttpClient origin = Mockito.mock(HttpClient.class);
+        Mockito.when(
+            origin.execute(
+                Mockito.any(HttpUriRequest.class),
+                Mockito.any(ResponseHandler.class)
+            )
+        ).thenAnswer(
+            invocation -> {
+                final HttpResponse response = new BasicHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "reason"
+                );
+                final BasicHttpEntity body = new BasicHttpEntity();
+                body.setContent(
+                    new ByteArrayInputStream(
+                        "0123456789".getBytes(StandardCharsets.UTF_8)
+                    )
+                );
+                response.setEntity(body);
+                try {
+                    return ((ResponseHandler<?>) invocation.getArguments()[1])
+                        .handleResponse(response);
+                } finally {
+                    EntityUtils.consume(response.getEntity());
+                }
+            }
+        );
+        final EndpointMetrics metrics = new EndpointMetrics();
+        new MeteredHttpClient(() -> origin, metrics).execute(
+            new HttpGet(BASE + "/containers/abc/top"),
+            response -> response.getStatusLine().getStatusCode()
+        );
+        MatcherAssert.assertThat(
+            metrics.endpoint("GET /containers/{id}/top").bytesReceived(),
+            Matchers.is(10L)
+        );
+    }
+
+    /**
+     * Response with the given status and body.
+     * @param status Status.
+     * @param body Body.
+     * @return HttpResponse.
+     * @throws Exception If something goes wrong.
+     */
+    private static HttpResponse response(final int status, final String body)
+        throws Exception {
+        final HttpResponse response = new BasicHttpResponse(
+            HttpVersion.HTTP_1_1, status, "reason"
+        );
+        response.setEntity(new StringEntity(body));
+        return response;
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MultiplexedFrames} and {@link FramesInputStream}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class MultiplexedFramesTestCase {
+
+    /**
+     * MultiplexedFrames can read the stream type and payload of each frame.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsTypesAndPayloads() throws Exception {
+        final LogFrames frames = new MultiplexedFrames(
+            new ByteArrayInputStream(
+                MultiplexedFramesTestCase.frames(
+                    1, "out", 2, "err", 0, "in"
+                )
+            )
+        );
+        MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            frames.type(), Matchers.is(LogFrames.StreamType.STDOUT)
+        );
+        MatcherAssert.assertThat(
+            MultiplexedFramesTestCase.text(frames.payload()),
+            Matchers.equalTo("out")
+        );
+        MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            frames.type(), Matchers.is(LogFrames.StreamType.STDERR)
+        );
+        MatcherAssert.assertThat(
+            MultiplexedFramesTestCase.text(frames.payload()),
+            Matchers.equalTo("err")
+        );
+        MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            frames.type(), Matchers.is(LogFrames.StreamType.STDIN)
+        );
+        MatcherAssert.assertThat(
+            MultiplexedFramesTestCase.text(frames.payload()),
+            Matchers.equalTo("in")
+        );
+        MatcherAssert.assertThat(frames.next(), Matchers.is(false));
+    }
+
+    /**
+     * MultiplexedFrames uses the byte length of the frames, so non-ASCII
+     * output (multi-byte characters) is read correctly.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsNonAsciiOutput() throws Exception {
+        MatcherAssert.assertThat(
+            IOUtils.toString(
+                new FramesInputStream(
+                    new MultiplexedFrames(
+                        new ByteArrayInputStream(
+                            MultiplexedFramesTestCase.frames(
+                                1, "ünïcödé ", 2, "日本語", 1, " ok"
+                            )
+                        )
+                    )
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo("ünïcödé 日本語 ok")
+        );
+    }
+
+    /**
+     * A frame bigger than the buffer is delivered in more payloads,
+     * all of the same type.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void splitsBigFrames() throws Exception {
+        final LogFrames frames = new MultiplexedFrames(
+            new ByteArrayInputStream(
+                MultiplexedFramesTestCase.frames(2, "0123456789abcdefXY")
+            ),
+            MultiplexedFrames.MULTIPLEXED,
+            8
+        );
+        final StringBuilder read = new StringBuilder();
+        int payloads = 0;
+        while (frames.next()) {
+            MatcherAssert.assertThat(
+                frames.type(), Matchers.is(LogFrames.StreamType.STDERR)
+            );
+            MatcherAssert.assertThat(
+                frames.payload().remaining(),
+                Matchers.lessThanOrEqualTo(8)
+            );
+            read.append(MultiplexedFramesTestCase.text(frames.payload()));
+            payloads = payloads + 1;
+        }
+        MatcherAssert.assertThat(
+            read.toString(), Matchers.equalTo("0123456789abcdefXY")
+        );
+        MatcherAssert.assertThat(payloads, Matchers.equalTo(3));
+    }
+
+    /**
+     * MultiplexedFrames reads raw (TTY) streams as stdout.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsRawStreams() throws Exception {
+        final LogFrames frames = new MultiplexedFrames(
+            new ByteArrayInputStream(
+                "just some raw tty output".getBytes(StandardCharsets.UTF_8)
+            )
+        );
+        final StringBuilder read = new StringBuilder();
+        while (frames.next()) {
+            MatcherAssert.assertThat(
+                frames.type(), Matchers.is(LogFrames.StreamType.STDOUT)
+            );
+            read.append(MultiplexedFramesTestCase.text(frames.payload()));
+        }
+        MatcherAssert.assertThat(
+            read.toString(), Matchers.equalTo("just some raw tty output")
+        );
+    }
+
+    /**
+     * MultiplexedFrames can read short raw streams and empty streams.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsShortAndEmptyStreams() throws Exception {
+        MatcherAssert.assertThat(
+            IOUtils.toString(
+                new FramesInputStream(
+                    new MultiplexedFrames(
+                        new ByteArrayInputStream(
+                            "hi".getBytes(StandardCharsets.UTF_8)
+                        )
+                    )
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo("hi")
+        );
+        MatcherAssert.assertThat(
+            new MultiplexedFrames(
+                new ByteArrayInputStream(new byte[0])
+            ).next(),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * MultiplexedFrames trusts the raw-stream content type, even if the
+     * content looks like a frame header.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void trustsRawContentType() throws Exception {
+        final byte[] content = MultiplexedFramesTestCase.frames(1, "x");
+        final LogFrames frames = new MultiplexedFrames(
+            new ByteArrayInputStream(content), MultiplexedFrames.RAW
+        );
+        MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            frames.payload().remaining(), Matchers.equalTo(content.length)
+        );
+    }
+
+    /**
+     * Build multiplexed content out of stream type and payload pairs.
+     * @param frames Pairs of stream type (Integer) and payload (String).
+     * @return Multiplexed bytes.
+     * @throws IOException If something goes wrong.
+     */
+    static byte[] frames(final Object... frames) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int idx = 0; idx < frames.length; idx = idx + 2) {
+            final byte[] payload = ((String) frames[idx + 1])
+                .getBytes(StandardCharsets.UTF_8);
+            out.write(
+                ByteBuffer.allocate(8)
+                    .put((byte) ((Integer) frames[idx]).intValue())
+                    .put(new byte[3])
+                    .putInt(payload.length)
+                    .array()
+            );
+            out.write(payload);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Read a payload as UTF-8 text.
+     * @param payload Payload.
+     * @return String.
+     */
+    private static String text(final ByteBuffer payload) {
+        final byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
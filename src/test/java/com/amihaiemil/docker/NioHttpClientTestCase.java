@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+import org.apache.http.HttpResponse;
+import org.apache.http.MalformedChunkCodingException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.util.EntityUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link NioHttpClient}, against a fake Docker engine
+ * listening on a unix socket.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (400 lines)
+ */
+public final class NioHttpClientTestCase {
+
+    /**
+     * Folder of the unix socket.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Connections accepted by the fake engine.
+     */
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    /**
+     * Threads of the fake engine.
+     */
+    private ExecutorService threads;
+
+    /**
+     * Server channel of the fake engine.
+     */
+    private UnixServerSocketChannel server;
+
+    /**
+     * The client under test.
+     */
+    private NioHttpClient client;
+
+    /**
+     * Start the fake engine. It answers GET /ping with "OK", streams
+     * "hello world" in chunks for GET /chunked, sends a negative chunk size
+     * for GET /negative, tells how many bytes it got for POST /upload and
+     * never answers anything else.
+     * @throws Exception If something goes wrong.
+     */
+    @Before
+    public void start() throws Exception {
+        final File socket = new File(
+            this.folder.getRoot(), "docker.sock"
+        );
+        this.server = UnixServerSocketChannel.open();
+        this.server.socket().bind(new UnixSocketAddress(socket));
+        this.threads = Executors.newCachedThreadPool();
+        this.threads.submit(
+            () -> {
+                while (this.server.isOpen()) {
+                    final UnixSocketChannel channel = this.server.accept();
+                    this.accepted.incrementAndGet();
+                    this.threads.submit(() -> this.serve(channel));
+                }
+                return null;
+            }
+        );
+        this.client = new NioHttpClient(
+            new JnrTransport(socket), 2, 10, Duration.ofSeconds(10),
+            Duration.ZERO
+        );
+    }
+
+    /**
+     * Stop the fake engine.
+     * @throws Exception If something goes wrong.
+     */
+    @After
+    public void stop() throws Exception {
+        this.client.close();
+        this.server.close();
+        this.threads.shutdownNow();
+    }
+
+    /**
+     * NioHttpClient reuses the same connection for consecutive requests.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void reusesConnection() throws Exception {
+        for (int idx = 0; idx < 3; ++idx) {
+            MatcherAssert.assertThat(
+                this.client.execute(
+                    new HttpGet("unix://localhost:80/v1.44/ping"),
+                    response -> EntityUtils.toString(response.getEntity())
+                ),
+                Matchers.equalTo("OK")
+            );
+        }
+        MatcherAssert.assertThat(this.accepted.get(), Matchers.is(1));
+    }
+
+    /**
+     * NioHttpClient can stream a chunked response.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsChunkedResponse() throws Exception {
+        MatcherAssert.assertThat(
+            EntityUtils.toString(
+                this.client.execute(
+                    new HttpGet("unix://localhost:80/v1.44/chunked")
+                ).getEntity()
+            ),
+            Matchers.equalTo("hello world")
+        );
+    }
+
+    /**
+     * NioHttpClient sends a body of unknown length in chunks.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void sendsChunkedBody() throws Exception {
+        final HttpPost post = new HttpPost("unix://localhost:80/v1.44/upload");
+        post.setEntity(
+            new InputStreamEntity(
+                new ByteArrayInputStream(new byte[100_000]), -1
+            )
+        );
+        MatcherAssert.assertThat(
+            this.client.execute(
+                post, response -> EntityUtils.toString(response.getEntity())
+            ),
+            Matchers.equalTo("100000")
+        );
+    }
+
+    /**
+     * Aborting a request which waits for its response frees the caller.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = RequestAbortedException.class)
+    public void abortsWaitingRequest() throws Exception {
+        final HttpGet hang = new HttpGet("unix://localhost:80/v1.44/hang");
+        this.threads.submit(
+            () -> {
+                TimeUnit.MILLISECONDS.sleep(200);
+                hang.abort();
+                return null;
+            }
+        );
+        this.client.execute(hang);
+    }
+
+    /**
+     * A malformed body fails the request instead of leaving it waiting.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = MalformedChunkCodingException.class)
+    public void failsOnMalformedChunk() throws Exception {
+        EntityUtils.toString(
+            this.client.execute(
+                new HttpGet("unix://localhost:80/v1.44/negative")
+            ).getEntity()
+        );
+    }
+
+    /**
+     * Closing the NioHttpClient stops its selector threads.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void stopsSelectorThreadsOnClose() throws Exception {
+        final Set<Thread> before = NioHttpClientTestCase.selectorThreads();
+        final NioHttpClient other = new NioHttpClient(
+            new JnrTransport(new File(this.folder.getRoot(), "docker.sock")),
+            3, 10, Duration.ofSeconds(10), Duration.ZERO
+        );
+        final Set<Thread> started = NioHttpClientTestCase.selectorThreads();
+        started.removeAll(before);
+        MatcherAssert.assertThat(started, Matchers.hasSize(3));
+        other.close();
+        for (final Thread thread : started) {
+            thread.join(5_000);
+            MatcherAssert.assertThat(thread.isAlive(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * Closing the NioHttpClient fails the requests which wait for their
+     * response, and the ones sent afterwards.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void failsRequestsOnClose() throws Exception {
+        final Future<HttpResponse> hang = this.threads.submit(
+            () -> this.client.execute(
+                new HttpGet("unix://localhost:80/v1.44/hang")
+            )
+        );
+        TimeUnit.MILLISECONDS.sleep(200);
+        this.client.close();
+        try {
+            hang.get(5, TimeUnit.SECONDS);
+            MatcherAssert.assertThat("Request did not fail", false);
+        } catch (final ExecutionException ex) {
+            MatcherAssert.assertThat(
+                ex.getCause(), Matchers.instanceOf(IOException.class)
+            );
+        }
+        try {
+            this.client.execute(new HttpGet("unix://localhost:80/v1.44/ping"));
+            MatcherAssert.assertThat("Request was sent", false);
+        } catch (final IOException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.equalTo("The HttpClient is closed")
+            );
+        }
+    }
+
+    /**
+     * Live selector threads.
+     * @return Threads.
+     */
+    private static Set<Thread> selectorThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(Thread::isAlive)
+            .filter(
+                thread -> thread.getName().startsWith(
+                    "docker-java-api-selector-"
+                )
+            ).collect(Collectors.toSet());
+    }
+
+    /**
+     * Serve the requests of a connection.
+     * @param channel Connection.
+     * @return Nothing.
+     * @throws Exception If something goes wrong.
+     */
+    private Void serve(final UnixSocketChannel channel) throws Exception {
+        final InputStream input = new BufferedInputStream(
+            Channels.newInputStream(channel)
+        );
+        final OutputStream output = Channels.newOutputStream(channel);
+        for (String line = NioHttpClientTestCase.line(input);
+            line != null && !line.isEmpty();
+            line = NioHttpClientTestCase.line(input)) {
+            final Map<String, String> headers = new HashMap<>();
+            for (String header = NioHttpClientTestCase.line(input);
+                !header.isEmpty(); header = NioHttpClientTestCase.line(input)) {
+                final int colon = header.indexOf(':');
+                headers.put(
+                    header.substring(0, colon).toLowerCase(Locale.ENGLISH),
+                    header.substring(colon + 1).trim()
+                );
+            }
+            final long received = NioHttpClientTestCase.body(input, headers);
+            final String path = line.split(" ")[1];
+            if (path.endsWith("/ping")) {
+                output.write(
+                    NioHttpClientTestCase.ascii(
+                        "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nOK"
+                    )
+                );
+            } else if (path.endsWith("/chunked")) {
+                output.write(
+                    NioHttpClientTestCase.ascii(
+                        "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                    )
+                );
+                for (final String part : new String[] {"hel", "lo ", "world"}) {
+                    output.write(
+                        NioHttpClientTestCase.ascii(
+                            part.length() + "\r\n" + part + "\r\n"
+                        )
+                    );
+                    TimeUnit.MILLISECONDS.sleep(50);
+                }
+                output.write(NioHttpClientTestCase.ascii("0\r\n\r\n"));
+            } else if (path.endsWith("/negative")) {
+                output.write(
+                    NioHttpClientTestCase.ascii(
+                        "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                        + "-1\r\nabc\r\n"
+                    )
+                );
+            } else if (path.endsWith("/upload")) {
+                final String size = String.valueOf(received);
+                output.write(
+                    NioHttpClientTestCase.ascii(
+                        "HTTP/1.1 201 Created\r\nContent-Length: "
+                        + size.length() + "\r\n\r\n" + size
+                    )
+                );
+            } else {
+                TimeUnit.MINUTES.sleep(1);
+            }
+        }
+        channel.close();
+        return null;
+    }
+
+    /**
+     * Read and count the body of a request.
+     * @param input Request stream.
+     * @param headers Headers of the request.
+     * @return Number of bytes of the body.
+     * @throws IOException If something goes wrong.
+     */
+    private static long body(
+        final InputStream input, final Map<String, String> headers
+    ) throws IOException {
+        long received = 0;
+        if (headers.containsKey("content-length")) {
+            received = Long.parseLong(headers.get("content-length"));
+            for (long idx = 0; idx < received; ++idx) {
+                input.read();
+            }
+        } else if ("chunked".equals(headers.get("transfer-encoding"))) {
+            for (int size = Integer.parseInt(
+                NioHttpClientTestCase.line(input), 16
+            ); size > 0; size = Integer.parseInt(
+                NioHttpClientTestCase.line(input), 16
+            )) {
+                for (int idx = 0; idx < size; ++idx) {
+                    input.read();
+                }
+                received += size;
+                NioHttpClientTestCase.line(input);
+            }
+            NioHttpClientTestCase.line(input);
+        }
+        return received;
+    }
+
+    /**
+     * Read a line, without CRLF.
+     * @param input Stream.
+     * @return Line or null at the end of the stream.
+     * @throws IOException If something goes wrong.
+     */
+    private static String line(final InputStream input) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int chr = input.read();
+        while (chr >= 0 && chr != '\n') {
+            if (chr != '\r') {
+                line.append((char) chr);
+            }
+            chr = input.read();
+        }
+        final String read;
+        if (chr < 0 && line.length() == 0) {
+            read = null;
+        } else {
+            read = line.toString();
+        }
+        return read;
+    }
+
+    /**
+     * ASCII bytes.
+     * @param text Text.
+     * @return Bytes.
+     */
+    private static byte[] ascii(final String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
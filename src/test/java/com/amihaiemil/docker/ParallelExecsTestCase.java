@@ -0,0 +1,411 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link ParallelExecs}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (400 lines)
+ */
+public final class ParallelExecsTestCase {
+
+    /**
+     * Json config of the Exec.
+     */
+    private static final JsonObject CONFIG = Json.createObjectBuilder()
+        .add("Cmd", Json.createArrayBuilder().add("uptime"))
+        .build();
+
+    /**
+     * Execs running at the same time.
+     */
+    private final AtomicInteger flying = new AtomicInteger();
+
+    /**
+     * Most Execs running at the same time.
+     */
+    private final AtomicInteger most = new AtomicInteger();
+
+    /**
+     * ParallelExecs returns the results as they are ready, not in the
+     * order of the containers.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void returnsResultsAsTheyAreReady() throws Exception {
+        final CountDownLatch slow = new CountDownLatch(1);
+        try (final ExecBatch batch = new ParallelExecs(
+            Arrays.asList(
+                this.container("slow", new Output(slow, 0, "late")),
+                this.container("fast", new Output(null, 3, "early"))
+            ),
+            CONFIG, 2, 1024, Duration.ofSeconds(10)
+        ).start()) {
+            MatcherAssert.assertThat(batch.size(), Matchers.is(2));
+            final Iterator<ExecResult> results = batch.iterator();
+            final ExecResult fast = results.next();
+            MatcherAssert.assertThat(fast.containerId(), Matchers.is("fast"));
+            MatcherAssert.assertThat(fast.exitCode(), Matchers.is(3));
+            MatcherAssert.assertThat(
+                new String(fast.stdout(), StandardCharsets.UTF_8),
+                Matchers.is("early")
+            );
+            MatcherAssert.assertThat(fast.error(), Matchers.nullValue());
+            slow.countDown();
+            final ExecResult late = results.next();
+            MatcherAssert.assertThat(late.containerId(), Matchers.is("slow"));
+            MatcherAssert.assertThat(late.exitCode(), Matchers.is(0));
+            MatcherAssert.assertThat(results.hasNext(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * ParallelExecs keeps only the first bytes of stdout and stderr.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void truncatesOutput() throws Exception {
+        try (final ExecBatch batch = new ParallelExecs(
+            Collections.singletonList(
+                this.container(
+                    "123",
+                    new Output(null, 1, "0123456789", "!error!", "more")
+                )
+            ),
+            CONFIG, 1, 4, Duration.ofSeconds(10)
+        ).start()) {
+            final ExecResult result = batch.iterator().next();
+            MatcherAssert.assertThat(
+                new String(result.stdout(), StandardCharsets.UTF_8),
+                Matchers.is("0123")
+            );
+            MatcherAssert.assertThat(
+                new String(result.stderr(), StandardCharsets.UTF_8),
+                Matchers.is("!err")
+            );
+            MatcherAssert.assertThat(result.truncated(), Matchers.is(true));
+            MatcherAssert.assertThat(result.exitCode(), Matchers.is(1));
+        }
+    }
+
+    /**
+     * ParallelExecs aborts the Execs which go over the timeout.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void abortsExpiredExecs() throws Exception {
+        try (final ExecBatch batch = new ParallelExecs(
+            Collections.singletonList(
+                this.container(
+                    "123", new Output(new CountDownLatch(1), 0, "partial")
+                )
+            ),
+            CONFIG, 1, 1024, Duration.ofMillis(200)
+        ).start()) {
+            final ExecResult result = batch.iterator().next();
+            MatcherAssert.assertThat(result.timedOut(), Matchers.is(true));
+            MatcherAssert.assertThat(result.exitCode(), Matchers.is(-1));
+            MatcherAssert.assertThat(result.error(), Matchers.nullValue());
+            MatcherAssert.assertThat(
+                new String(result.stdout(), StandardCharsets.UTF_8),
+                Matchers.is("partial")
+            );
+            MatcherAssert.assertThat(
+                result.took(),
+                Matchers.greaterThanOrEqualTo(Duration.ofMillis(200))
+            );
+        }
+    }
+
+    /**
+     * ParallelExecs aborts the creation of an Exec which goes over the
+     * timeout, instead of waiting for Docker to answer.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void abortsExpiredCreation() throws Exception {
+        final HttpClient hanging = Mockito.mock(HttpClient.class);
+        Mockito.when(
+            hanging.execute(
+                Mockito.any(HttpUriRequest.class),
+                Mockito.any(ResponseHandler.class)
+            )
+        ).thenAnswer(
+            invocation -> {
+                final HttpRequestBase request = (HttpRequestBase) invocation
+                    .getArguments()[0];
+                final long deadline = System.nanoTime()
+                    + TimeUnit.SECONDS.toNanos(10);
+                while (!request.isAborted()
+                    && System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+                throw new IOException("Aborted");
+            }
+        );
+        final Container container = new RtContainer(
+            Json.createObjectBuilder().add("Id", "123").build(),
+            new AbortableHttpClient(() -> hanging),
+            URI.create("http://localhost/containers/123"),
+            Mockito.mock(Docker.class)
+        );
+        try (final ExecBatch batch = new ParallelExecs(
+            Collections.singletonList(container),
+            CONFIG, 1, 1024, Duration.ofMillis(200)
+        ).start()) {
+            final ExecResult result = batch.iterator().next();
+            MatcherAssert.assertThat(result.timedOut(), Matchers.is(true));
+            MatcherAssert.assertThat(result.error(), Matchers.nullValue());
+            MatcherAssert.assertThat(
+                result.took(), Matchers.lessThan(Duration.ofSeconds(5))
+            );
+        }
+    }
+
+    /**
+     * ParallelExecs reports the Execs which could not run.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void reportsFailures() throws Exception {
+        final Container stopped = Mockito.mock(Container.class);
+        Mockito.when(stopped.containerId()).thenReturn("stopped");
+        Mockito.when(stopped.exec(Mockito.any(JsonObject.class))).thenThrow(
+            new IOException("container is not running")
+        );
+        try (final ExecBatch batch = new ParallelExecs(
+            Collections.singletonList(stopped),
+            CONFIG, 1, 1024, Duration.ofSeconds(10)
+        ).start()) {
+            final ExecResult result = batch.iterator().next();
+            MatcherAssert.assertThat(
+                result.error().getMessage(),
+                Matchers.is("container is not running")
+            );
+            MatcherAssert.assertThat(result.exitCode(), Matchers.is(-1));
+            MatcherAssert.assertThat(result.timedOut(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * ParallelExecs runs at most "parallelism" Execs at the same time
+     * and returns one result per container.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void boundsParallelism() throws Exception {
+        final List<Container> containers = new ArrayList<>();
+        for (int idx = 0; idx < 12; ++idx) {
+            containers.add(
+                this.container("c" + idx, new Output(null, idx, "ok"))
+            );
+        }
+        final List<String> done = new ArrayList<>();
+        try (final ExecBatch batch = new ParallelExecs(
+            containers, CONFIG, 3, 16, Duration.ofSeconds(10)
+        ).start()) {
+            for (final ExecResult result : batch) {
+                done.add(result.containerId());
+            }
+        }
+        MatcherAssert.assertThat(done, Matchers.hasSize(12));
+        MatcherAssert.assertThat(
+            this.most.get(), Matchers.lessThanOrEqualTo(3)
+        );
+    }
+
+    /**
+     * ParallelExecs complains about a parallelism below 1.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void complainsAboutParallelism() {
+        new ParallelExecs(
+            Collections.emptyList(), CONFIG, 0, 1024, Duration.ofSeconds(1)
+        );
+    }
+
+    /**
+     * Mock container whose Exec produces the given output.
+     * @param id ID of the container.
+     * @param output Output of the Exec.
+     * @return Container.
+     * @throws Exception If something goes wrong.
+     */
+    private Container container(final String id, final Output output)
+        throws Exception {
+        final Exec exec = Mockito.mock(Exec.class);
+        Mockito.when(exec.start()).thenAnswer(
+            invocation -> {
+                this.most.accumulateAndGet(
+                    this.flying.incrementAndGet(), Math::max
+                );
+                return output;
+            }
+        );
+        final Container container = Mockito.mock(Container.class);
+        Mockito.when(container.containerId()).thenReturn(id);
+        Mockito.when(container.exec(ParallelExecsTestCase.CONFIG))
+            .thenReturn(exec);
+        return container;
+    }
+
+    /**
+     * Output of an Exec: payloads alternating between stdout and stderr.
+     */
+    private final class Output implements ExecFrames {
+
+        /**
+         * Opened when the output may end, null if it ends right away.
+         */
+        private final CountDownLatch gate;
+
+        /**
+         * Exit code.
+         */
+        private final int code;
+
+        /**
+         * Payloads.
+         */
+        private final String[] payloads;
+
+        /**
+         * Closed when the output is closed.
+         */
+        private final CountDownLatch closed;
+
+        /**
+         * Index of the current payload.
+         */
+        private int index;
+
+        /**
+         * Current payload.
+         */
+        private ByteBuffer current;
+
+        /**
+         * Ctor.
+         * @param gate Opened when the output may end, null for no wait.
+         * @param code Exit code.
+         * @param payloads Payloads, the first one on stdout.
+         */
+        Output(
+            final CountDownLatch gate, final int code,
+            final String... payloads
+        ) {
+            this.gate = gate;
+            this.code = code;
+            this.payloads = payloads;
+            this.closed = new CountDownLatch(1);
+            this.index = -1;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            this.index = this.index + 1;
+            final boolean next = this.index < this.payloads.length;
+            if (next) {
+                this.current = ByteBuffer.wrap(
+                    this.payloads[this.index].getBytes(StandardCharsets.UTF_8)
+                );
+            } else if (this.gate != null) {
+                try {
+                    while (!this.gate.await(10, TimeUnit.MILLISECONDS)) {
+                        if (this.closed.getCount() == 0) {
+                            throw new IOException("Aborted");
+                        }
+                    }
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ex);
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public StreamType type() {
+            final StreamType type;
+            if (this.index % 2 == 0) {
+                type = StreamType.STDOUT;
+            } else {
+                type = StreamType.STDERR;
+            }
+            return type;
+        }
+
+        @Override
+        public ByteBuffer payload() {
+            return this.current;
+        }
+
+        @Override
+        public int exitCode() {
+            return this.code;
+        }
+
+        @Override
+        public Exec exec() {
+            return Mockito.mock(Exec.class);
+        }
+
+        @Override
+        public void close() {
+            if (this.closed.getCount() > 0) {
+                ParallelExecsTestCase.this.flying.decrementAndGet();
+            }
+            this.closed.countDown();
+        }
+    }
+}
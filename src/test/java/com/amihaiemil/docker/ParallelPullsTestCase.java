@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.Response;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link ParallelPulls}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ * @checkstyle ExecutableStatementCount (200 lines)
+ */
+public final class ParallelPullsTestCase {
+
+    /**
+     * Concurrent pulls of the same image share one pull.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void sharesPullInFlight() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Images images = Mockito.mock(Images.class);
+        Mockito.when(
+            images.pull(
+                Mockito.eq("ubuntu"), Mockito.eq("22.04"),
+                Mockito.any(PullProgress.class)
+            )
+        ).thenAnswer(
+            invocation -> {
+                calls.incrementAndGet();
+                release.await();
+                ((PullProgress) invocation.getArguments()[2])
+                    .progress("a1", "Downloading", 10, 100);
+                return Mockito.mock(Image.class);
+            }
+        );
+        try (final ImagePulls pulls = new ParallelPulls(
+            images,
+            ParallelPullsTestCase.daemon(
+                uri -> new Response(HttpStatus.SC_NOT_FOUND)
+            ),
+            URI.create("http://localhost/images"),
+            4
+        )) {
+            final CompletableFuture<PulledImage> first = pulls.pull(
+                "ubuntu", "22.04"
+            );
+            final Map<String, CompletableFuture<PulledImage>> batch =
+                pulls.pull(Arrays.asList("ubuntu:22.04", "ubuntu:22.04"));
+            release.countDown();
+            final PulledImage pulled = first.get(5, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(
+                batch.get("ubuntu:22.04").get(5, TimeUnit.SECONDS)
+                    .reference(),
+                Matchers.equalTo("ubuntu:22.04")
+            );
+            MatcherAssert.assertThat(calls.get(), Matchers.is(1));
+            MatcherAssert.assertThat(pulled.skipped(), Matchers.is(false));
+            MatcherAssert.assertThat(pulled.bytes(), Matchers.is(100L));
+            MatcherAssert.assertThat(pulls.bytes(), Matchers.is(100L));
+        }
+    }
+
+    /**
+     * An image whose local RepoDigests contain the digest of its tag in
+     * the registry is not pulled.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsImagePresentByDigest() throws Exception {
+        final Images images = Mockito.mock(Images.class);
+        try (final ImagePulls pulls = new ParallelPulls(
+            images,
+            ParallelPullsTestCase.daemon(
+                uri -> {
+                    final Response response;
+                    if (uri.startsWith("/distribution/ubuntu:22.04")) {
+                        response = new Response(
+                            HttpStatus.SC_OK,
+                            "{\"Descriptor\":{\"digest\":\"sha256:abc\"}}"
+                        );
+                    } else {
+                        response = new Response(
+                            HttpStatus.SC_OK,
+                            "{\"RepoDigests\":[\"ubuntu@sha256:abc\"]}"
+                        );
+                    }
+                    return response;
+                }
+            ),
+            URI.create("http://localhost/images"),
+            2
+        )) {
+            final PulledImage pulled = pulls.pull(
+                Arrays.asList("ubuntu:22.04")
+            ).get("ubuntu:22.04").get(5, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(pulled.skipped(), Matchers.is(true));
+            Mockito.verify(images, Mockito.never()).pull(
+                Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(PullProgress.class)
+            );
+        }
+    }
+
+    /**
+     * An image is pulled if the registry does not tell its digest, e.g.
+     * the answer has no Descriptor.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void pullsWhenRegistryHasNoDigest() throws Exception {
+        final Images images = Mockito.mock(Images.class);
+        Mockito.when(
+            images.pull(
+                Mockito.eq("ubuntu"), Mockito.eq("22.04"),
+                Mockito.any(PullProgress.class)
+            )
+        ).thenReturn(Mockito.mock(Image.class));
+        try (final ImagePulls pulls = new ParallelPulls(
+            images,
+            ParallelPullsTestCase.daemon(
+                uri -> {
+                    final Response response;
+                    if (uri.startsWith("/distribution/ubuntu:22.04")) {
+                        response = new Response(HttpStatus.SC_OK, "{}");
+                    } else {
+                        response = new Response(
+                            HttpStatus.SC_OK,
+                            "{\"RepoDigests\":[\"ubuntu@sha256:abc\"]}"
+                        );
+                    }
+                    return response;
+                }
+            ),
+            URI.create("http://localhost/images"),
+            2
+        )) {
+            final PulledImage pulled = pulls.pull("ubuntu", "22.04")
+                .get(5, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(pulled.skipped(), Matchers.is(false));
+            Mockito.verify(images).pull(
+                Mockito.eq("ubuntu"), Mockito.eq("22.04"),
+                Mockito.any(PullProgress.class)
+            );
+        }
+    }
+
+    /**
+     * HttpClient which answers from the given function.
+     * @param answers Response by request path.
+     * @return HttpClient.
+     * @throws Exception If something goes wrong.
+     */
+    @SuppressWarnings("unchecked")
+    private static HttpClient daemon(
+        final Function<String, Response> answers
+    ) throws Exception {
+        final HttpClient client = Mockito.mock(HttpClient.class);
+        Mockito.when(
+            client.execute(
+                Mockito.any(HttpUriRequest.class),
+                Mockito.any(ResponseHandler.class)
+            )
+        ).thenAnswer(
+            invocation -> ((ResponseHandler<Object>) invocation
+                .getArguments()[1]).handleResponse(
+                    answers.apply(
+                        ((HttpUriRequest) invocation.getArguments()[0])
+                            .getURI().getPath()
+                    )
+                )
+        );
+        return client;
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PooledHttpClient}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ * @checkstyle ExecutableStatementCount (200 lines)
+ */
+public final class PooledHttpClientTestCase {
+
+    /**
+     * While the streaming pool is exhausted (all its connections held by
+     * followed events and more calls waiting), the short calls still get
+     * their connections right away, from their own pool.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void shortCallsKeepLatencyWhileStreamingPoolIsExhausted()
+        throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService handlers = Executors.newCachedThreadPool();
+        final HttpServer daemon = HttpServer.create(
+            new InetSocketAddress("localhost", 0), 0
+        );
+        daemon.setExecutor(handlers);
+        daemon.createContext(
+            "/v1.44/events",
+            exchange -> {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().write(
+                    "{}\n".getBytes(StandardCharsets.UTF_8)
+                );
+                exchange.getResponseBody().flush();
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+            }
+        );
+        daemon.createContext(
+            "/v1.44/containers/abc/json",
+            exchange -> {
+                final byte[] body = "{\"Id\":\"abc\"}".getBytes(
+                    StandardCharsets.UTF_8
+                );
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        );
+        daemon.start();
+        final String base = "http://localhost:"
+            + daemon.getAddress().getPort() + "/v1.44";
+        final PlainHttpClient client = new PlainHttpClient(
+            new ClientConfig()
+                .withMaxConnections(2)
+                .withStreamingConnections(2)
+                .withRequestTimeout(Duration.ofSeconds(5))
+        );
+        final ExecutorService followers = Executors.newFixedThreadPool(3);
+        try {
+            for (int idx = 0; idx < 3; ++idx) {
+                followers.submit(
+                    () -> {
+                        final HttpResponse events = client.execute(
+                            new HttpGet(base + "/events")
+                        );
+                        EntityUtils.consume(events.getEntity());
+                        return null;
+                    }
+                );
+            }
+            final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(10);
+            while ((client.streamingPoolStats().getLeased() < 2
+                || client.streamingPoolStats().getPending() < 1)
+                && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            MatcherAssert.assertThat(
+                client.streamingPoolStats().getLeased(), Matchers.is(2)
+            );
+            MatcherAssert.assertThat(
+                client.streamingPoolStats().getPending(), Matchers.is(1)
+            );
+            long slowest = 0;
+            for (int idx = 0; idx < 20; ++idx) {
+                final long start = System.nanoTime();
+                PooledHttpClientTestCase.inspect(client, base);
+                slowest = Math.max(slowest, System.nanoTime() - start);
+            }
+            MatcherAssert.assertThat(
+                slowest,
+                Matchers.lessThan(TimeUnit.SECONDS.toNanos(1))
+            );
+            MatcherAssert.assertThat(
+                client.poolStats().getLeased(), Matchers.is(0)
+            );
+        } finally {
+            release.countDown();
+            followers.shutdown();
+            followers.awaitTermination(10, TimeUnit.SECONDS);
+            daemon.stop(0);
+            handlers.shutdownNow();
+        }
+    }
+
+    /**
+     * Inspect the fake container.
+     * @param client HttpClient.
+     * @param base Base URI.
+     * @throws Exception If something goes wrong.
+     */
+    private static void inspect(final HttpClient client, final String base)
+        throws Exception {
+        final HttpResponse response = client.execute(
+            new HttpGet(base + "/containers/abc/json")
+        );
+        MatcherAssert.assertThat(
+            response.getStatusLine().getStatusCode(), Matchers.is(200)
+        );
+        EntityUtils.consume(response.getEntity());
+    }
+}
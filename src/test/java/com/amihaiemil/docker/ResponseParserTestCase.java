@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.HttpResponse;
+import org.apache.http.MalformedChunkCodingException;
+import org.apache.http.client.ClientProtocolException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ResponseParser}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class ResponseParserTestCase {
+
+    /**
+     * ResponseParser can parse a chunked response given one byte at a time,
+     * skipping the interim response, the chunk extensions and the trailers.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void parsesChunkedResponseByteByByte() throws Exception {
+        final Collected sink = new Collected();
+        final ResponseParser parser = new ResponseParser(sink, false);
+        final byte[] bytes = (
+            "HTTP/1.1 100 Continue\r\n\r\n"
+            + "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+            + "5;name=value\r\nhello\r\n6\r\n world\r\n0\r\nX-A: b\r\n\r\n"
+        ).getBytes(StandardCharsets.US_ASCII);
+        for (final byte single : bytes) {
+            parser.parse(ByteBuffer.wrap(new byte[] {single}));
+        }
+        MatcherAssert.assertThat(
+            sink.head.get().getStatusLine().getStatusCode(),
+            Matchers.is(200)
+        );
+        MatcherAssert.assertThat(sink.body(), Matchers.equalTo("hello world"));
+        MatcherAssert.assertThat(sink.reusable.get(), Matchers.is(true));
+        MatcherAssert.assertThat(parser.done(), Matchers.is(true));
+    }
+
+    /**
+     * ResponseParser can parse a response with Content-Length.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void parsesResponseWithLength() throws Exception {
+        final Collected sink = new Collected();
+        final ResponseParser parser = new ResponseParser(sink, false);
+        parser.parse(
+            ByteBuffer.wrap(
+                "HTTP/1.1 404 Not Found\r\nContent-Length: 7\r\n\r\nmissing"
+                    .getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+        MatcherAssert.assertThat(
+            sink.head.get().getStatusLine().getReasonPhrase(),
+            Matchers.equalTo("Not Found")
+        );
+        MatcherAssert.assertThat(sink.body(), Matchers.equalTo("missing"));
+        MatcherAssert.assertThat(sink.reusable.get(), Matchers.is(true));
+    }
+
+    /**
+     * ResponseParser reads a body without length until the connection is
+     * closed, after which the connection cannot be reused.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsBodyUntilClose() throws Exception {
+        final Collected sink = new Collected();
+        final ResponseParser parser = new ResponseParser(sink, false);
+        parser.parse(
+            ByteBuffer.wrap(
+                "HTTP/1.1 200 OK\r\n\r\nstreamed"
+                    .getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+        MatcherAssert.assertThat(parser.done(), Matchers.is(false));
+        parser.closed();
+        MatcherAssert.assertThat(sink.body(), Matchers.equalTo("streamed"));
+        MatcherAssert.assertThat(sink.reusable.get(), Matchers.is(false));
+    }
+
+    /**
+     * The response to a HEAD request has no body, whatever its
+     * Content-Length says.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void headResponseHasNoBody() throws Exception {
+        final Collected sink = new Collected();
+        final ResponseParser parser = new ResponseParser(sink, true);
+        parser.parse(
+            ByteBuffer.wrap(
+                "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+        MatcherAssert.assertThat(parser.done(), Matchers.is(true));
+        MatcherAssert.assertThat(sink.body(), Matchers.isEmptyString());
+    }
+
+    /**
+     * The engine does not keep the connection if it says so.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void honoursConnectionClose() throws Exception {
+        final Collected sink = new Collected();
+        new ResponseParser(sink, false).parse(
+            ByteBuffer.wrap(
+                "HTTP/1.1 204 No Content\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+        MatcherAssert.assertThat(sink.reusable.get(), Matchers.is(false));
+    }
+
+    /**
+     * A connection closed in the middle of a response is an error.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = ConnectionClosedException.class)
+    public void failsOnTruncatedResponse() throws Exception {
+        final ResponseParser parser = new ResponseParser(
+            new Collected(), false
+        );
+        parser.parse(
+            ByteBuffer.wrap(
+                "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nshort"
+                    .getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+        parser.closed();
+    }
+
+    /**
+     * A malformed status line is an error.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void failsOnMalformedStatus() throws Exception {
+        new ResponseParser(new Collected(), false).parse(
+            ByteBuffer.wrap(
+                "SSH-2.0-OpenSSH\r\n".getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+    }
+
+    /**
+     * ResponseParser rejects a negative chunk size.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = MalformedChunkCodingException.class)
+    public void failsOnNegativeChunkSize() throws Exception {
+        new ResponseParser(new Collected(), false).parse(
+            ByteBuffer.wrap(
+                (
+                    "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                    + "-1\r\nabc\r\n"
+                ).getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+    }
+
+    /**
+     * ResponseParser rejects a negative Content-Length.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = ClientProtocolException.class)
+    public void failsOnNegativeContentLength() throws Exception {
+        new ResponseParser(new Collected(), false).parse(
+            ByteBuffer.wrap(
+                "HTTP/1.1 200 OK\r\nContent-Length: -5\r\n\r\nabc"
+                    .getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+    }
+
+    /**
+     * Sink which collects the parsed message.
+     */
+    private static final class Collected implements ResponseParser.Sink {
+
+        /**
+         * Head of the response.
+         */
+        private final AtomicReference<HttpResponse> head =
+            new AtomicReference<>();
+
+        /**
+         * Body of the response.
+         */
+        private final ByteArrayOutputStream content =
+            new ByteArrayOutputStream();
+
+        /**
+         * Can the connection be reused?
+         */
+        private final AtomicBoolean reusable = new AtomicBoolean();
+
+        @Override
+        public void head(final HttpResponse response, final long length) {
+            this.head.set(response);
+        }
+
+        @Override
+        public void body(final ByteBuffer bytes) {
+            while (bytes.hasRemaining()) {
+                this.content.write(bytes.get());
+            }
+        }
+
+        @Override
+        public void end(final boolean persistent) {
+            this.reusable.set(persistent);
+        }
+
+        /**
+         * The body, as text.
+         * @return Body.
+         */
+        private String body() {
+            return new String(
+                this.content.toByteArray(), StandardCharsets.US_ASCII
+            );
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.Response;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.json.JsonObject;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link ResumingEvents}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (500 lines)
+ */
+public final class ResumingEventsTestCase {
+
+    /**
+     * ResumingEvents reconnects after the connection drops, resuming at
+     * the last seen timeNano and dropping the duplicates.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void resumesAfterDroppedConnection() throws Exception {
+        final List<String> uris = new ArrayList<>();
+        final ResilientEvents events = new RtEvents(
+            ResumingEventsTestCase.daemon(
+                uris,
+                "{\"id\":\"a\",\"timeNano\":100}\n"
+                + "{\"id\":\"b\",\"timeNano\":200}\n"
+                + "{\"id\":\"c\",\"timeNano\":200}\n",
+                null,
+                "{\"id\":\"b\",\"timeNano\":200}\n"
+                + "{\"id\":\"c\",\"timeNano\":200}\n"
+                + "{\"id\":\"d\",\"timeNano\":300}\n"
+            ),
+            URI.create("http://localhost/1.40/events"),
+            Mockito.mock(Docker.class)
+        ).resilient(Duration.ofMillis(1), Duration.ofMillis(10));
+        try (final Stream<JsonObject> stream = events.monitor()) {
+            MatcherAssert.assertThat(
+                stream.limit(4).map(event -> event.getString("id"))
+                    .collect(Collectors.toList()),
+                Matchers.contains("a", "b", "c", "d")
+            );
+        }
+        MatcherAssert.assertThat(uris, Matchers.hasSize(3));
+        MatcherAssert.assertThat(
+            uris.get(0), Matchers.endsWith("/events")
+        );
+        MatcherAssert.assertThat(
+            uris.get(1), Matchers.endsWith("/events?since=0.000000200")
+        );
+        MatcherAssert.assertThat(
+            uris.get(2), Matchers.endsWith("/events?since=0.000000200")
+        );
+        MatcherAssert.assertThat(events.reconnects(), Matchers.is(1L));
+        MatcherAssert.assertThat(events.duplicates(), Matchers.is(2L));
+        MatcherAssert.assertThat(events.lastTimeNano(), Matchers.is(300L));
+        MatcherAssert.assertThat(
+            events.lag(), Matchers.greaterThan(Duration.ZERO)
+        );
+    }
+
+    /**
+     * ResumingEvents drops the older events only in the replay after a
+     * reconnect; otherwise, events slightly out of order are delivered.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void deliversEventsOutOfOrder() throws Exception {
+        final ResilientEvents events = new RtEvents(
+            ResumingEventsTestCase.daemon(
+                new ArrayList<>(),
+                "{\"id\":\"a\",\"timeNano\":100}\n"
+                + "{\"id\":\"b\",\"timeNano\":200}\n"
+                + "{\"id\":\"z\",\"timeNano\":150}\n",
+                "{\"id\":\"z\",\"timeNano\":150}\n"
+                + "{\"id\":\"b\",\"timeNano\":200}\n"
+                + "{\"id\":\"c\",\"timeNano\":300}\n"
+                + "{\"id\":\"y\",\"timeNano\":250}\n"
+            ),
+            URI.create("http://localhost/1.40/events"),
+            Mockito.mock(Docker.class)
+        ).resilient(Duration.ofMillis(1), Duration.ofMillis(10));
+        try (final Stream<JsonObject> stream = events.monitor()) {
+            MatcherAssert.assertThat(
+                stream.limit(5).map(event -> event.getString("id"))
+                    .collect(Collectors.toList()),
+                Matchers.contains("a", "b", "z", "c", "y")
+            );
+        }
+        MatcherAssert.assertThat(events.duplicates(), Matchers.is(2L));
+    }
+
+    /**
+     * The Stream of ResumingEvents ends when it is closed, even if it is
+     * waiting to reconnect.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void endsWhenClosed() throws Exception {
+        final Stream<JsonObject> stream = new RtEvents(
+            ResumingEventsTestCase.daemon(new ArrayList<>(), ""),
+            URI.create("http://localhost/1.40/events"),
+            Mockito.mock(Docker.class)
+        ).resilient(Duration.ofMinutes(1), Duration.ofMinutes(1)).monitor();
+        final Thread closer = new Thread(
+            () -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                stream.close();
+            }
+        );
+        closer.start();
+        final long start = System.nanoTime();
+        MatcherAssert.assertThat(stream.count(), Matchers.is(0L));
+        MatcherAssert.assertThat(
+            System.nanoTime() - start,
+            Matchers.lessThan(TimeUnit.SECONDS.toNanos(30))
+        );
+        closer.join();
+    }
+
+    /**
+     * ResumingEvents does not reconnect after the until timestamp.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void endsAfterUntil() throws Exception {
+        final List<String> uris = new ArrayList<>();
+        final ResilientEvents events = new RtEvents(
+            ResumingEventsTestCase.daemon(
+                uris, "{\"id\":\"a\",\"timeNano\":100}\n"
+            ),
+            URI.create("http://localhost/1.40/events"),
+            Mockito.mock(Docker.class)
+        ).resilient(Duration.ofMillis(1), Duration.ofMillis(1))
+            .until(LocalDateTime.now().minusSeconds(1));
+        try (final Stream<JsonObject> stream = events.monitor()) {
+            MatcherAssert.assertThat(stream.count(), Matchers.is(1L));
+        }
+        MatcherAssert.assertThat(uris, Matchers.hasSize(1));
+        MatcherAssert.assertThat(events.reconnects(), Matchers.is(0L));
+    }
+
+    /**
+     * Fake daemon which answers the events requests, in order, with the
+     * given payloads; a null payload means it is down. When there are no
+     * more payloads, it is down.
+     * @param uris List where the requested URIs are recorded.
+     * @param payloads NDJSON payloads.
+     * @return HttpClient.
+     * @throws Exception If something goes wrong.
+     */
+    private static HttpClient daemon(
+        final List<String> uris, final String... payloads
+    ) throws Exception {
+        final Iterator<String> answers = Arrays.asList(payloads).iterator();
+        final HttpClient client = Mockito.mock(HttpClient.class);
+        Mockito.when(client.execute(Mockito.any(HttpUriRequest.class)))
+            .thenAnswer(
+                invocation -> {
+                    uris.add(
+                        URLDecoder.decode(
+                            invocation.getArgumentAt(0, HttpUriRequest.class)
+                                .getURI().toString(),
+                            "UTF-8"
+                        )
+                    );
+                    if (!answers.hasNext()) {
+                        throw new IOException("Docker is down.");
+                    }
+                    final String payload = answers.next();
+                    if (payload == null) {
+                        throw new IOException("Docker is restarting.");
+                    }
+                    return new Response(HttpStatus.SC_OK, payload);
+                }
+            );
+        return client;
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link RoundRobinStats}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+public final class RoundRobinStatsTestCase {
+
+    /**
+     * Requests in flight.
+     */
+    private final AtomicInteger flying = new AtomicInteger();
+
+    /**
+     * Most requests in flight at the same time.
+     */
+    private final AtomicInteger most = new AtomicInteger();
+
+    /**
+     * RoundRobinStats samples every running container, periodically,
+     * with at most "concurrency" requests in flight.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void samplesAllRunningContainers() throws Exception {
+        final List<Container> running = new ArrayList<>();
+        for (int idx = 0; idx < 6; ++idx) {
+            running.add(this.container("c" + idx));
+        }
+        try (final StatsSampler sampler = new RoundRobinStats(
+            RoundRobinStatsTestCase.cache(new AtomicReference<>(running)),
+            Duration.ofMillis(100), 2, 1000, 4
+        ).start()) {
+            RoundRobinStatsTestCase.await(
+                () -> sampler.samples().size() == 6
+                    && sampler.samples().stream()
+                        .allMatch(samples -> samples.count() >= 3)
+            );
+            final StatsSamples samples = sampler.samples("c3");
+            MatcherAssert.assertThat(samples.capacity(), Matchers.is(4));
+            MatcherAssert.assertThat(
+                samples.pids(samples.count() - 1), Matchers.is(7L)
+            );
+            MatcherAssert.assertThat(sampler.failures(), Matchers.is(0L));
+        }
+        MatcherAssert.assertThat(this.most.get(), Matchers.lessThan(3));
+    }
+
+    /**
+     * RoundRobinStats starts sampling the new containers and drops
+     * the ones which are not running anymore.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void followsTheRunningContainers() throws Exception {
+        final AtomicReference<List<Container>> running =
+            new AtomicReference<>(
+                Arrays.asList(this.container("a"), this.container("b"))
+            );
+        try (final StatsSampler sampler = new RoundRobinStats(
+            RoundRobinStatsTestCase.cache(running),
+            Duration.ofMillis(50), 2, 1000, 4
+        ).start()) {
+            RoundRobinStatsTestCase.await(
+                () -> sampler.samples("a") != null
+                    && sampler.samples("a").count() > 0
+            );
+            running.set(
+                Arrays.asList(this.container("b"), this.container("c"))
+            );
+            RoundRobinStatsTestCase.await(
+                () -> sampler.samples("a") == null
+                    && sampler.samples("c") != null
+                    && sampler.samples("c").count() > 0
+            );
+            MatcherAssert.assertThat(
+                sampler.samples("b").count(), Matchers.greaterThan(0L)
+            );
+        }
+    }
+
+    /**
+     * RoundRobinStats respects the rate and reports the lag when the rate
+     * cannot cover all the containers in a period.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void reportsLag() throws Exception {
+        final List<Container> running = new ArrayList<>();
+        for (int idx = 0; idx < 10; ++idx) {
+            running.add(this.container("c" + idx));
+        }
+        try (final StatsSampler sampler = new RoundRobinStats(
+            RoundRobinStatsTestCase.cache(new AtomicReference<>(running)),
+            Duration.ofMillis(50), 4, 20, 4
+        ).start()) {
+            RoundRobinStatsTestCase.await(
+                () -> sampler.lag().toMillis() >= 200
+            );
+            final long requests = sampler.samples().stream()
+                .mapToLong(StatsSamples::count)
+                .sum();
+            MatcherAssert.assertThat(requests, Matchers.lessThan(40L));
+        }
+    }
+
+    /**
+     * RoundRobinStats counts the failed samples and keeps sampling.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void countsFailures() throws Exception {
+        final Container broken = Mockito.mock(Container.class);
+        final Stats stats = Mockito.mock(Stats.class);
+        Mockito.when(broken.containerId()).thenReturn("broken");
+        Mockito.when(broken.stats()).thenReturn(stats);
+        Mockito.when(stats.oneShot()).thenReturn(stats);
+        Mockito.when(stats.frames()).thenThrow(new IOException("Gone"));
+        try (final StatsSampler sampler = new RoundRobinStats(
+            RoundRobinStatsTestCase.cache(
+                new AtomicReference<>(Arrays.asList(broken))
+            ),
+            Duration.ofMillis(20), 1, 1000, 4
+        ).start()) {
+            RoundRobinStatsTestCase.await(() -> sampler.failures() >= 3);
+            MatcherAssert.assertThat(
+                sampler.samples("broken").count(), Matchers.is(0L)
+            );
+        }
+    }
+
+    /**
+     * RoundRobinStats counts the unexpected failures of the cache and of
+     * the samples, and keeps sampling.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void survivesUnexpectedFailures() throws Exception {
+        final Container broken = Mockito.mock(Container.class);
+        final Stats stats = Mockito.mock(Stats.class);
+        Mockito.when(broken.containerId()).thenReturn("broken");
+        Mockito.when(broken.stats()).thenReturn(stats);
+        Mockito.when(stats.oneShot()).thenReturn(stats);
+        Mockito.when(stats.frames()).thenThrow(
+            new IllegalArgumentException("Malformed")
+        );
+        final ContainerCache cache = RoundRobinStatsTestCase.cache(
+            new AtomicReference<>(new ArrayList<>())
+        );
+        final AtomicInteger lookups = new AtomicInteger();
+        final List<Container> running = Arrays.asList(
+            broken, this.container("ok")
+        );
+        Mockito.when(cache.filter(Mockito.any(Map.class))).thenAnswer(
+            invocation -> {
+                if (lookups.getAndIncrement() == 0) {
+                    throw new IllegalStateException("Cache is broken");
+                }
+                return running;
+            }
+        );
+        try (final StatsSampler sampler = new RoundRobinStats(
+            cache, Duration.ofMillis(20), 1, 1000, 4
+        ).start()) {
+            RoundRobinStatsTestCase.await(
+                () -> sampler.samples("ok") != null
+                    && sampler.samples("ok").count() >= 2
+                    && sampler.failures() >= 3
+            );
+            MatcherAssert.assertThat(
+                sampler.samples("broken").count(), Matchers.is(0L)
+            );
+        }
+    }
+
+    /**
+     * RoundRobinStats closes the cache when closed.
+     */
+    @Test
+    public void closesCache() {
+        final ContainerCache cache = RoundRobinStatsTestCase.cache(
+            new AtomicReference<>(new ArrayList<>())
+        );
+        new RoundRobinStats(
+            cache, Duration.ofSeconds(1), 1, 1, 1
+        ).start().close();
+        Mockito.verify(cache).close();
+    }
+
+    /**
+     * RoundRobinStats needs at least one thread.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroConcurrency() {
+        new RoundRobinStats(
+            Mockito.mock(ContainerCache.class), Duration.ofSeconds(1),
+            0, 1, 1
+        );
+    }
+
+    /**
+     * A container whose one-shot stats take 10 milliseconds.
+     * @param containerId ID of the container.
+     * @return Container.
+     * @throws Exception If something goes wrong.
+     */
+    private Container container(final String containerId) throws Exception {
+        final Container container = Mockito.mock(Container.class);
+        final Stats stats = Mockito.mock(Stats.class);
+        Mockito.when(container.containerId()).thenReturn(containerId);
+        Mockito.when(container.stats()).thenReturn(stats);
+        Mockito.when(stats.oneShot()).thenReturn(stats);
+        Mockito.when(stats.frames()).thenAnswer(
+            invocation -> {
+                this.most.accumulateAndGet(
+                    this.flying.incrementAndGet(), Math::max
+                );
+                TimeUnit.MILLISECONDS.sleep(10);
+                this.flying.decrementAndGet();
+                return new JsonStatsFrames(
+                    new ByteArrayInputStream(
+                        "{\"pids_stats\":{\"current\":7}}"
+                            .getBytes(StandardCharsets.UTF_8)
+                    )
+                );
+            }
+        );
+        return container;
+    }
+
+    /**
+     * A synced cache with the given running containers.
+     * @param running Running containers.
+     * @return ContainerCache.
+     */
+    @SuppressWarnings("unchecked")
+    private static ContainerCache cache(
+        final AtomicReference<List<Container>> running
+    ) {
+        final ContainerCache cache = Mockito.mock(ContainerCache.class);
+        try {
+            Mockito.when(
+                cache.awaitSynced(Mockito.anyLong(), Mockito.any())
+            ).thenReturn(true);
+        } catch (final InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+        Mockito.when(cache.filter(Mockito.any(Map.class))).thenAnswer(
+            invocation -> running.get()
+        );
+        return cache;
+    }
+
+    /**
+     * Wait, at most 10 seconds, until the condition is met.
+     * @param condition Condition.
+     * @throws Exception If something goes wrong.
+     */
+    private static void await(final BooleanSupplier condition)
+        throws Exception {
+        final long deadline = System.nanoTime()
+            + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met in 10 seconds");
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link RtAsyncDocker}, against a fake Docker engine.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+public final class RtAsyncDockerTestCase {
+
+    /**
+     * Releases the waiting requests.
+     */
+    private CountDownLatch release;
+
+    /**
+     * Threads of the fake Docker engine.
+     */
+    private ExecutorService handlers;
+
+    /**
+     * Fake Docker engine.
+     */
+    private HttpServer daemon;
+
+    /**
+     * The single thread which makes the async calls.
+     */
+    private ExecutorService caller;
+
+    /**
+     * Async Docker API.
+     */
+    private AsyncDocker async;
+
+    /**
+     * Start the fake Docker engine: /containers/abc/wait never answers,
+     * /containers/abc/json answers right away, anything else is 404.
+     * @throws Exception If something goes wrong.
+     */
+    @Before
+    public void start() throws Exception {
+        this.release = new CountDownLatch(1);
+        this.handlers = Executors.newCachedThreadPool();
+        this.daemon = HttpServer.create(
+            new InetSocketAddress("localhost", 0), 0
+        );
+        this.daemon.setExecutor(this.handlers);
+        this.daemon.createContext(
+            "/v1.44/containers/abc/wait",
+            exchange -> {
+                try {
+                    this.release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+            }
+        );
+        this.daemon.createContext(
+            "/v1.44/containers/abc/json",
+            exchange -> {
+                final byte[] body = "{\"Id\":\"abc\"}".getBytes(
+                    StandardCharsets.UTF_8
+                );
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        );
+        this.daemon.createContext(
+            "/",
+            exchange -> {
+                final byte[] body = "{\"message\":\"No such container\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add(
+                    "Content-Type", "application/json"
+                );
+                exchange.sendResponseHeaders(404, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        );
+        this.daemon.start();
+        this.caller = Executors.newSingleThreadExecutor();
+        this.async = new RemoteDocker(
+            new PlainHttpClient(new ClientConfig()),
+            URI.create(
+                "http://localhost:" + this.daemon.getAddress().getPort()
+            )
+        ).async(this.caller);
+    }
+
+    /**
+     * Stop the fake Docker engine.
+     * @throws Exception If something goes wrong.
+     */
+    @After
+    public void stop() throws Exception {
+        this.release.countDown();
+        this.caller.shutdownNow();
+        this.daemon.stop(0);
+        this.handlers.shutdownNow();
+    }
+
+    /**
+     * A call whose deadline passes fails with TimeoutException and its
+     * request is aborted, so the only calling thread is free again.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void abortsCallAfterDeadline() throws Exception {
+        final CompletableFuture<Integer> exit = this.async
+            .withDeadline(Duration.ofMillis(200))
+            .container("abc").waitOn("not-running");
+        try {
+            exit.get(5, TimeUnit.SECONDS);
+        } catch (final ExecutionException ex) {
+            MatcherAssert.assertThat(
+                ex.getCause(), Matchers.instanceOf(TimeoutException.class)
+            );
+        }
+        MatcherAssert.assertThat(
+            exit.isCompletedExceptionally(), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            this.async.container("abc").inspect()
+                .get(5, TimeUnit.SECONDS).getString("Id"),
+            Matchers.equalTo("abc")
+        );
+    }
+
+    /**
+     * Cancelling a call aborts its request, so the only calling thread is
+     * free again.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void abortsCancelledCall() throws Exception {
+        final CompletableFuture<Integer> exit = this.async.call(
+            docker -> docker.containers().get("abc").waitOn("not-running")
+        );
+        TimeUnit.MILLISECONDS.sleep(200);
+        MatcherAssert.assertThat(exit.cancel(true), Matchers.is(true));
+        final JsonObject inspection = this.async.container("abc").inspect()
+            .get(5, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(
+            inspection.getString("Id"), Matchers.equalTo("abc")
+        );
+    }
+
+    /**
+     * A failed call completes exceptionally with the exception of the
+     * blocking API.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void failsWithBlockingException() throws Exception {
+        try {
+            this.async.container("missing").inspect()
+                .get(5, TimeUnit.SECONDS);
+            MatcherAssert.assertThat("404 expected", false);
+        } catch (final ExecutionException ex) {
+            MatcherAssert.assertThat(
+                ex.getCause(),
+                Matchers.instanceOf(UnexpectedResponseException.class)
+            );
+            MatcherAssert.assertThat(
+                ((UnexpectedResponseException) ex.getCause())
+                    .actualStatus(),
+                Matchers.is(404)
+            );
+        }
+    }
+
+    /**
+     * The async Docker shares the event hub of the blocking Docker, so
+     * there is only one connection to /events.
+     */
+    @Test
+    public void sharesEventHub() {
+        final Docker docker = new RemoteDocker(
+            new PlainHttpClient(new ClientConfig()),
+            URI.create(
+                "http://localhost:" + this.daemon.getAddress().getPort()
+            )
+        );
+        MatcherAssert.assertThat(
+            docker.async(this.caller).docker().eventHub(),
+            Matchers.sameInstance(docker.eventHub())
+        );
+    }
+}
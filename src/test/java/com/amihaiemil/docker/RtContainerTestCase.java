@@ -631,6 +631,27 @@ public final class RtContainerTestCase {
         );
     }
 
+    /**
+     * RtContainer can return its stats.
+     */
+    @Test
+    public void getsStats() {
+        final Container container = new RtContainer(
+            Json.createObjectBuilder().build(),
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK
+                )
+            ),
+            URI.create("http://localhost:80/1.41/containers/123"),
+            Mockito.mock(Docker.class)
+        );
+        MatcherAssert.assertThat(
+            container.stats().container(),
+            Matchers.sameInstance(container)
+        );
+    }
+
     /**
      * RtContainer can wait with no problem.
      * @throws Exception If something goes wrong.
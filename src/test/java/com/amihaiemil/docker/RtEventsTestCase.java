@@ -262,4 +262,30 @@ public final class RtEventsTestCase {
             Matchers.equalTo("eventId")
         );
     }
+
+    /**
+     * RtEvents returns every event, exactly once, even if more events come
+     * at once and some of them span the chunks read from the socket.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void monitorsEveryEvent() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        for (int idx = 0; idx < 500; ++idx) {
+            content.append("{\"id\": \"event").append(idx).append("\"}\n");
+        }
+        final Events all = new RtEvents(
+            new AssertRequest(
+                new Response(HttpStatus.SC_OK, content.toString())
+            ),
+            URI.create("http://localhost/1.40/events"),
+            Mockito.mock(Docker.class)
+        );
+        final List<String> ids = all.monitor()
+            .map(event -> event.getString("id"))
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(ids, Matchers.iterableWithSize(500));
+        MatcherAssert.assertThat(ids.get(0), Matchers.equalTo("event0"));
+        MatcherAssert.assertThat(ids.get(499), Matchers.equalTo("event499"));
+    }
 }
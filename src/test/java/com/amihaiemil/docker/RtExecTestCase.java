@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.AssertRequest;
+import com.amihaiemil.docker.mock.Condition;
+import com.amihaiemil.docker.mock.Response;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link RtExec}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (300 lines)
+ */
+public final class RtExecTestCase {
+
+    /**
+     * RtExec can start attached, demultiplex the output and fetch the
+     * exit code once the output ended.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void startsAttached() throws Exception {
+        final HttpClient client = RtExecTestCase.client(
+            new Response(
+                HttpStatus.SC_OK,
+                RtExecTestCase.frame(1, "hello ")
+                    + RtExecTestCase.frame(2, "oops")
+                    + RtExecTestCase.frame(1, "world")
+            ),
+            "{\"ID\":\"exec123\",\"Running\":false,\"ExitCode\":3}"
+        );
+        final Exec exec = new RtExec(
+            client, URI.create("http://localhost/exec/exec123"),
+            Mockito.mock(Docker.class)
+        );
+        final StringBuilder out = new StringBuilder();
+        final StringBuilder err = new StringBuilder();
+        try (final ExecFrames output = exec.start()) {
+            while (output.next()) {
+                if (output.type() == LogFrames.StreamType.STDOUT) {
+                    out.append(RtExecTestCase.text(output.payload()));
+                } else {
+                    err.append(RtExecTestCase.text(output.payload()));
+                }
+            }
+            MatcherAssert.assertThat(output.exitCode(), Matchers.is(3));
+            MatcherAssert.assertThat(output.exec(), Matchers.is(exec));
+        }
+        MatcherAssert.assertThat(out.toString(), Matchers.is("hello world"));
+        MatcherAssert.assertThat(err.toString(), Matchers.is("oops"));
+        final ArgumentCaptor<HttpUriRequest> start =
+            ArgumentCaptor.forClass(HttpUriRequest.class);
+        Mockito.verify(client).execute(start.capture());
+        MatcherAssert.assertThat(
+            start.getValue().getMethod(), Matchers.is("POST")
+        );
+        MatcherAssert.assertThat(
+            start.getValue().getURI().toString(),
+            Matchers.is("http://localhost/exec/exec123/start")
+        );
+        MatcherAssert.assertThat(
+            EntityUtils.toString(((HttpPost) start.getValue()).getEntity()),
+            Matchers.is("{\"Detach\":false,\"Tty\":false}")
+        );
+    }
+
+    /**
+     * RtExec inspects the Exec again while it is still running after
+     * its output ended.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void waitsForExitCode() throws Exception {
+        final Exec exec = new RtExec(
+            RtExecTestCase.client(
+                new Response(HttpStatus.SC_OK, RtExecTestCase.frame(1, "x")),
+                "{\"ID\":\"exec123\",\"Running\":true,\"ExitCode\":null}",
+                "{\"ID\":\"exec123\",\"Running\":true,\"ExitCode\":null}",
+                "{\"ID\":\"exec123\",\"Running\":false,\"ExitCode\":0}"
+            ),
+            URI.create("http://localhost/exec/exec123"),
+            Mockito.mock(Docker.class)
+        );
+        try (final ExecFrames output = exec.start()) {
+            while (output.next()) {
+                MatcherAssert.assertThat(
+                    output.type(), Matchers.is(LogFrames.StreamType.STDOUT)
+                );
+            }
+            MatcherAssert.assertThat(output.exitCode(), Matchers.is(0));
+        }
+    }
+
+    /**
+     * RtExec does not know the exit code before the output ended.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void noExitCodeBeforeTheEnd() throws Exception {
+        final Exec exec = new RtExec(
+            RtExecTestCase.client(
+                new Response(HttpStatus.SC_OK, RtExecTestCase.frame(1, "x")),
+                "{\"ID\":\"exec123\",\"Running\":false,\"ExitCode\":0}"
+            ),
+            URI.create("http://localhost/exec/exec123"),
+            Mockito.mock(Docker.class)
+        );
+        try (final ExecFrames output = exec.start()) {
+            output.exitCode();
+        }
+    }
+
+    /**
+     * RtExec complains if the Exec cannot be started.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = UnexpectedResponseException.class)
+    public void complainsIfNotStarted() throws Exception {
+        new RtExec(
+            RtExecTestCase.client(
+                new Response(HttpStatus.SC_NOT_FOUND), "{}"
+            ),
+            URI.create("http://localhost/exec/exec123"),
+            Mockito.mock(Docker.class)
+        ).start();
+    }
+
+    /**
+     * RtExec can start detached.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void startsDetached() throws Exception {
+        new RtExec(
+            new AssertRequest(
+                new Response(HttpStatus.SC_OK),
+                new Condition(
+                    "startDetached() must send a POST request",
+                    req -> "POST".equals(req.getRequestLine().getMethod())
+                ),
+                new Condition(
+                    "startDetached() resource URL must end with '/start'",
+                    req -> req.getRequestLine().getUri()
+                        .endsWith("/exec123/start")
+                ),
+                new Condition(
+                    "startDetached() must ask for a detached Exec",
+                    req -> {
+                        try {
+                            return EntityUtils.toString(
+                                ((HttpPost) req).getEntity()
+                            ).contains("\"Detach\":true");
+                        } catch (final IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                )
+            ),
+            URI.create("http://localhost/exec/exec123"),
+            Mockito.mock(Docker.class)
+        ).startDetached();
+    }
+
+    /**
+     * Mock HttpClient which streams the given output and answers the
+     * inspections in order, repeating the last one.
+     * @param output Response with the output of the Exec.
+     * @param inspections Json inspections of the Exec.
+     * @return HttpClient.
+     * @throws Exception If something goes wrong.
+     */
+    @SuppressWarnings("unchecked")
+    private static HttpClient client(
+        final Response output, final String... inspections
+    ) throws Exception {
+        final HttpClient client = Mockito.mock(HttpClient.class);
+        Mockito.when(
+            client.execute(Mockito.any(HttpUriRequest.class))
+        ).thenReturn(output);
+        final AtomicInteger inspected = new AtomicInteger();
+        Mockito.when(
+            client.execute(
+                Mockito.any(HttpUriRequest.class),
+                Mockito.any(ResponseHandler.class)
+            )
+        ).thenAnswer(
+            invocation -> ((ResponseHandler<Object>) invocation
+                .getArguments()[1]).handleResponse(
+                    new Response(
+                        HttpStatus.SC_OK,
+                        inspections[
+                            Math.min(
+                                inspected.getAndIncrement(),
+                                inspections.length - 1
+                            )
+                        ]
+                    )
+                )
+        );
+        return client;
+    }
+
+    /**
+     * A frame of a multiplexed stream.
+     * @param type Stream type.
+     * @param payload Short ASCII payload.
+     * @return The frame, as a String.
+     */
+    private static String frame(final int type, final String payload) {
+        final char[] header = new char[8];
+        header[0] = (char) type;
+        header[7] = (char) payload.length();
+        return new String(header) + payload;
+    }
+
+    /**
+     * The text of a payload.
+     * @param payload Payload.
+     * @return String.
+     */
+    private static String text(final ByteBuffer payload) {
+        final byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
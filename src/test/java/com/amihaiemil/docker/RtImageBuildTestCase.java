@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.Response;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.json.Json;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link RtImageBuild}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class RtImageBuildTestCase {
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Requests sent, as "METHOD path?query".
+     */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /**
+     * Is the built image still there?
+     */
+    private final AtomicBoolean present = new AtomicBoolean(true);
+
+    /**
+     * RtImageBuild with a cache sends the context only once; the next
+     * build of the same context only applies the tags to the image built
+     * before.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsUploadOnCacheHit() throws Exception {
+        final Path context = this.context();
+        final Path index = this.folder.getRoot().toPath()
+            .resolve("builds.json");
+        final Image first = this.build(context).withCache(index)
+            .run(line -> { });
+        MatcherAssert.assertThat(
+            first.getString("Id"), Matchers.is("sha256:built")
+        );
+        MatcherAssert.assertThat(
+            this.requests,
+            Matchers.contains("POST /build?dockerfile=Dockerfile")
+        );
+        this.requests.clear();
+        final Image second = this.build(context)
+            .withTag("app:1.0").withCache(index)
+            .run(line -> { });
+        MatcherAssert.assertThat(
+            second.getString("Id"), Matchers.is("sha256:built")
+        );
+        MatcherAssert.assertThat(
+            this.requests,
+            Matchers.contains(
+                "GET /images/sha256:built/json",
+                "POST /images/sha256:built/tag?repo=app&tag=1.0"
+            )
+        );
+    }
+
+    /**
+     * RtImageBuild with a cache builds the image again if the one built
+     * before was removed, and remembers the new one.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void rebuildsRemovedImage() throws Exception {
+        final Path context = this.context();
+        final Path index = this.folder.getRoot().toPath()
+            .resolve("builds.json");
+        this.build(context).withCache(index).run(line -> { });
+        this.present.set(false);
+        this.requests.clear();
+        this.build(context).withCache(index).run(line -> { });
+        MatcherAssert.assertThat(
+            this.requests,
+            Matchers.contains(
+                "GET /images/sha256:built/json",
+                "POST /build?dockerfile=Dockerfile"
+            )
+        );
+        this.present.set(true);
+        this.requests.clear();
+        this.build(context).withCache(index).run(line -> { });
+        MatcherAssert.assertThat(
+            this.requests,
+            Matchers.contains("GET /images/sha256:built/json")
+        );
+    }
+
+    /**
+     * A build context with a Dockerfile.
+     * @return Root of the context.
+     * @throws Exception If something goes wrong.
+     */
+    private Path context() throws Exception {
+        final Path root = this.folder.newFolder().toPath();
+        Files.write(root.resolve("Dockerfile"), "FROM scratch".getBytes());
+        return root;
+    }
+
+    /**
+     * Build of the given context, against a Docker engine which records
+     * the requests.
+     * @param context Root of the context.
+     * @return ImageBuild.
+     * @throws Exception If something goes wrong.
+     */
+    @SuppressWarnings("unchecked")
+    private ImageBuild build(final Path context) throws Exception {
+        final HttpClient client = Mockito.mock(HttpClient.class);
+        Mockito.when(
+            client.execute(
+                Mockito.any(HttpUriRequest.class),
+                Mockito.any(ResponseHandler.class)
+            )
+        ).thenAnswer(
+            invocation -> {
+                final HttpUriRequest request = (HttpUriRequest) invocation
+                    .getArguments()[0];
+                final URI uri = request.getURI();
+                String line = request.getMethod() + " " + uri.getPath();
+                if (uri.getQuery() != null) {
+                    line = line + "?" + uri.getQuery();
+                }
+                this.requests.add(line);
+                final Response response;
+                if ("/build".equals(uri.getPath())) {
+                    response = new Response(
+                        HttpStatus.SC_OK,
+                        "{\"aux\":{\"ID\":\"sha256:built\"}}\n"
+                    );
+                } else if (uri.getPath().endsWith("/tag")) {
+                    response = new Response(HttpStatus.SC_CREATED);
+                } else if (this.present.get()) {
+                    response = new Response(
+                        HttpStatus.SC_OK,
+                        Json.createObjectBuilder()
+                            .add("Id", "sha256:built").build().toString()
+                    );
+                } else {
+                    response = new Response(
+                        HttpStatus.SC_NOT_FOUND,
+                        "{\"message\":\"No such image\"}"
+                    );
+                }
+                return ((ResponseHandler<Object>) invocation
+                    .getArguments()[1]).handleResponse(response);
+            }
+        );
+        return new RtImageBuild(
+            client, URI.create("http://localhost/images"),
+            Mockito.mock(Docker.class), context
+        );
+    }
+}
@@ -28,17 +28,31 @@ package com.amihaiemil.docker;
 import com.amihaiemil.docker.mock.AssertRequest;
 import com.amihaiemil.docker.mock.Condition;
 import com.amihaiemil.docker.mock.Response;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import javax.json.Json;
+import javax.json.JsonObject;
 import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.util.EntityUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -48,6 +62,7 @@ import org.mockito.Mockito;
  * @version $Id$
  * @since 0.0.1
  * @checkstyle MethodName (500 lines)
+ * @checkstyle MagicNumber (500 lines)
  */
 public final class RtImagesTestCase {
     /**
@@ -184,6 +199,156 @@ public final class RtImagesTestCase {
         ).pull("", "");
     }
 
+    /**
+     * RtImages.pull(name, tag, progress) reports the progress of each layer,
+     * in the order the Docker engine streams it.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void pullReportsLayerProgress() throws Exception {
+        final List<String> progress = new ArrayList<>();
+        new ListedImages(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    String.join(
+                        "\n",
+                        "{\"status\":\"Pulling from library/ubuntu\"}",
+                        "{\"status\":\"Pulling fs layer\",\"id\":\"a1\"}",
+                        // @checkstyle LineLength (1 line)
+                        "{\"status\":\"Downloading\",\"id\":\"a1\",\"progressDetail\":{\"current\":512,\"total\":1024}}",
+                        // @checkstyle LineLength (1 line)
+                        "{\"status\":\"Pull complete\",\"id\":\"a1\",\"progressDetail\":{}}"
+                    )
+                )
+            ),
+            URI.create("http://localhost/images"),
+            DOCKER
+        ).pull(
+            "ubuntu", "22.04",
+            (layer, status, current, total) -> progress.add(
+                String.format("%s %s %d/%d", layer, status, current, total)
+            )
+        );
+        MatcherAssert.assertThat(
+            progress,
+            Matchers.contains(
+                " Pulling from library/ubuntu 0/0",
+                "a1 Pulling fs layer 0/0",
+                "a1 Downloading 512/1024",
+                "a1 Pull complete 0/0"
+            )
+        );
+    }
+
+    /**
+     * RtImages.pull(name, tag) must fail if the Docker engine streams an
+     * error after it responded with 200 OK.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = StreamedErrorException.class)
+    public void pullFailsOnStreamedError() throws Exception {
+        new ListedImages(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    String.join(
+                        "\n",
+                        "{\"status\":\"Pulling from library/ubuntu\"}",
+                        // @checkstyle LineLength (1 line)
+                        "{\"errorDetail\":{\"message\":\"manifest unknown\"},\"error\":\"manifest unknown\"}"
+                    )
+                )
+            ),
+            URI.create("http://localhost/images"),
+            DOCKER
+        ).pull("ubuntu", "nope");
+    }
+
+    /**
+     * RtImages.pulling(name, tag) streams the progress entries and throws
+     * StreamedErrorException when it reaches the error.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void pullingStreamsEntriesUntilError() throws Exception {
+        final List<String> statuses = new ArrayList<>();
+        try (Stream<JsonObject> pull = new ListedImages(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    String.join(
+                        "\n",
+                        "{\"status\":\"Pulling from library/ubuntu\"}",
+                        "{\"status\":\"Pulling fs layer\",\"id\":\"a1\"}",
+                        "{\"error\":\"no space left on device\"}",
+                        "{\"status\":\"never read\"}"
+                    )
+                )
+            ),
+            URI.create("http://localhost/images"),
+            DOCKER
+        ).pulling("ubuntu", "22.04")) {
+            pull.forEach(entry -> statuses.add(entry.getString("status")));
+            Assert.fail("StreamedErrorException expected.");
+        } catch (final StreamedErrorException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(),
+                Matchers.endsWith("no space left on device")
+            );
+        }
+        MatcherAssert.assertThat(
+            statuses,
+            Matchers.contains("Pulling from library/ubuntu", "Pulling fs layer")
+        );
+    }
+
+    /**
+     * RtImages.build(...).run(...) sends the directory as a chunked tar to
+     * /build and decodes the output into lines and the image ID.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void buildsImageFromDirectory() throws Exception {
+        final Path context = Files.createTempDirectory("context");
+        Files.write(context.resolve("Dockerfile"), "FROM scratch".getBytes());
+        final List<String> lines = new ArrayList<>();
+        final Image built = new ListedImages(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    String.join(
+                        "\n",
+                        "{\"stream\":\"Step 1/1 : FROM scratch\\n\"}",
+                        "{\"stream\":\" ---\\u003e \"}",
+                        "{\"stream\":\"done\\n\"}",
+                        "{\"aux\":{\"ID\":\"sha256:abc\"}}"
+                    )
+                ),
+                new Condition(
+                    "build() must send the tags and Dockerfile to /build",
+                    req -> req.getRequestLine().getUri().endsWith(
+                        "/build?t=app%3A1.0&dockerfile=Dockerfile"
+                    )
+                ),
+                new Condition(
+                    "build() must send the context chunked",
+                    req -> ((HttpEntityEnclosingRequest) req).getEntity()
+                        .isChunked()
+                )
+            ),
+            URI.create("http://localhost/images"),
+            DOCKER
+        ).build(context).withTag("app:1.0").run(lines::add);
+        MatcherAssert.assertThat(
+            lines,
+            Matchers.contains("Step 1/1 : FROM scratch", " ---> done")
+        );
+        MatcherAssert.assertThat(
+            built.getString("Id"), Matchers.equalTo("sha256:abc")
+        );
+    }
+
     /**
      * RtImages.prune() sends correct request and exist successfully on
      * response code 200.
@@ -286,6 +451,133 @@ public final class RtImagesTestCase {
                 this.getClass().getResource("/images.tar.txt").getFile());
     }
 
+    /**
+     * RtImages sends a tar stream byte by byte, chunked, without decoding
+     * it as text.
+     * @throws Exception If something goes wrong
+     */
+    @Test
+    public void importsBinaryTarStream() throws Exception {
+        final byte[] tar = new byte[200 * 1024];
+        for (int idx = 0; idx < tar.length; ++idx) {
+            tar[idx] = (byte) (idx * 31);
+        }
+        new ListedImages(
+            new AssertRequest(
+                new Response(HttpStatus.SC_OK),
+                new Condition(
+                    "import() resource URL must be '/images/load'",
+                    req -> req.getRequestLine()
+                        .getUri().endsWith("/images/load")
+                ),
+                new Condition(
+                    "import() body must be sent chunked",
+                    req -> ((HttpEntityEnclosingRequest) req).getEntity()
+                        .isChunked()
+                ),
+                new Condition(
+                    "import() body must be the exact bytes of the tar",
+                    req -> {
+                        boolean condition;
+                        try {
+                            condition = Arrays.equals(
+                                tar,
+                                EntityUtils.toByteArray(
+                                    ((HttpEntityEnclosingRequest) req)
+                                        .getEntity()
+                                )
+                            );
+                        } catch (final IOException error) {
+                            condition = false;
+                        }
+                        return condition;
+                    }
+                )
+            ),
+            URI.create("http://localhost/images"),
+            DOCKER
+        ).importFromTar(new ByteArrayInputStream(tar));
+    }
+
+    /**
+     * RtImages saves the given images byte by byte into a stream and
+     * returns the number of bytes written.
+     * @throws Exception If something goes wrong
+     */
+    @Test
+    public void savesGivenImagesIntoStream() throws Exception {
+        final byte[] tar = new byte[150 * 1024];
+        for (int idx = 0; idx < tar.length; ++idx) {
+            tar[idx] = (byte) (idx * 17);
+        }
+        final HttpResponse response = new BasicHttpResponse(
+            HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK"
+        );
+        response.setEntity(new ByteArrayEntity(tar));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long written = new ListedImages(
+            new AssertRequest(
+                response,
+                new Condition(
+                    "save() must send a GET request",
+                    req -> "GET".equals(req.getRequestLine().getMethod())
+                ),
+                new Condition(
+                    "save() must ask for the given names",
+                    req -> req.getRequestLine().getUri().endsWith(
+                        "/images/get?names=ubuntu%3A22.04&names=sha256%3Aabc"
+                    )
+                )
+            ),
+            URI.create("http://localhost/images"),
+            DOCKER
+        ).save(Arrays.asList("ubuntu:22.04", "sha256:abc"), out);
+        MatcherAssert.assertThat(written, Matchers.is((long) tar.length));
+        MatcherAssert.assertThat(out.toByteArray(), Matchers.equalTo(tar));
+    }
+
+    /**
+     * RtImages saves the given images into a file, replacing what was
+     * in it.
+     * @throws Exception If something goes wrong
+     */
+    @Test
+    public void savesGivenImagesIntoFile() throws Exception {
+        final byte[] tar = new byte[70 * 1024];
+        for (int idx = 0; idx < tar.length; ++idx) {
+            tar[idx] = (byte) (idx * 31);
+        }
+        final HttpResponse response = new BasicHttpResponse(
+            HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK"
+        );
+        response.setEntity(new ByteArrayEntity(tar));
+        final Path file = Files.createTempFile("images", ".tar");
+        try {
+            Files.write(file, new byte[100 * 1024]);
+            final long written = new ListedImages(
+                new AssertRequest(
+                    response,
+                    new Condition(
+                        "save() must ask for the given name",
+                        req -> req.getRequestLine().getUri().endsWith(
+                            "/images/get?names=redis"
+                        )
+                    )
+                ),
+                URI.create("http://localhost/images"),
+                DOCKER
+            ).save(Arrays.asList("redis"), file);
+            MatcherAssert.assertThat(
+                written, Matchers.is((long) tar.length)
+            );
+            MatcherAssert.assertThat(
+                Files.readAllBytes(file), Matchers.equalTo(tar)
+            );
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     /**
      * {@link RtImages#importImage(URL, String)} must construct the
      * URL with parameters correctly.
@@ -30,6 +30,8 @@ import com.amihaiemil.docker.mock.Condition;
 import com.amihaiemil.docker.mock.Response;
 import java.io.BufferedReader;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.stream.Collectors;
 import javax.json.Json;
 import org.apache.http.HttpStatus;
@@ -252,4 +254,94 @@ public final class RtLogsTestCase {
         );
     }
 
+    /**
+     * RtLogs can fetch non-ASCII logs: the frame size is in bytes,
+     * not in chars.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void fetchesNonAsciiLogs() throws Exception {
+        final String message = "ünïcödé lögs 日本語";
+        final char[] header = new char[8];
+        header[0] = 2;
+        header[7] = (char) message.getBytes(StandardCharsets.UTF_8).length;
+        final Logs logs = new RtLogs(
+            Mockito.mock(Container.class),
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    new String(header) + message + this.prepareMessage("!")
+                )
+            ),
+            URI.create("http://localhost:80/1.30/containers/123/logs")
+        );
+        MatcherAssert.assertThat(
+            logs.fetch(),
+            Matchers.equalTo("ünïcödé lögs 日本語!")
+        );
+    }
+
+    /**
+     * RtLogs can follow the Container's logs frame by frame.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void followsFrames() throws Exception {
+        final Logs logs = new RtLogs(
+            Mockito.mock(Container.class),
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    this.prepareMessage("framed logs")
+                ),
+                new Condition(
+                    "Resource path must be /123/logs?follow=true",
+                    req -> req.getRequestLine().getUri().endsWith(
+                        "/123/logs?follow=true&stdout=true&stderr=true"
+                    )
+                )
+            ),
+            URI.create("http://localhost:80/1.30/containers/123/logs")
+        );
+        try (final LogFrames frames = logs.frames()) {
+            MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+            MatcherAssert.assertThat(
+                frames.type(),
+                Matchers.is(LogFrames.StreamType.STDOUT)
+            );
+            final ByteBuffer payload = frames.payload();
+            final byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            MatcherAssert.assertThat(
+                new String(bytes, StandardCharsets.UTF_8),
+                Matchers.equalTo("framed logs")
+            );
+            MatcherAssert.assertThat(frames.next(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * RtLogs.follow() drops the frame headers of multiplexed logs.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void followsMultiplexedLogs() throws Exception {
+        final Logs logs = new RtLogs(
+            Mockito.mock(Container.class),
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    this.prepareMessage("first ")
+                        + this.prepareMessage("second")
+                )
+            ),
+            URI.create("http://localhost:80/1.30/containers/123/logs")
+        );
+        try (final BufferedReader bfr = new BufferedReader(logs.follow())) {
+            MatcherAssert.assertThat(
+                bfr.readLine(),
+                Matchers.equalTo("first second")
+            );
+        }
+    }
 }
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.AssertRequest;
+import com.amihaiemil.docker.mock.Condition;
+import com.amihaiemil.docker.mock.Response;
+import java.net.URI;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link RtStats}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (150 lines)
+ */
+public final class RtStatsTestCase {
+
+    /**
+     * RtStats can return the Container which owns them.
+     */
+    @Test
+    public void getsContainer() {
+        final Container owner = Mockito.mock(Container.class);
+        final Stats stats = new RtStats(
+            owner,
+            Mockito.mock(HttpClient.class),
+            URI.create("http://localhost:80/1.41/containers/123/stats")
+        );
+        MatcherAssert.assertThat(
+            stats.container(), Matchers.sameInstance(owner)
+        );
+        MatcherAssert.assertThat(
+            stats.oneShot().container(), Matchers.sameInstance(owner)
+        );
+    }
+
+    /**
+     * RtStats can stream the Container's stats.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void streamsStats() throws Exception {
+        final Stats stats = new RtStats(
+            Mockito.mock(Container.class),
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "{\"pids_stats\":{\"current\":1}}\n"
+                    + "{\"pids_stats\":{\"current\":2}}\n"
+                ),
+                new Condition(
+                    "Method should be a GET",
+                    req -> req.getRequestLine().getMethod().equals("GET")
+                ),
+                new Condition(
+                    "Resource path must be /123/stats?stream=true",
+                    req -> req.getRequestLine().getUri().endsWith(
+                        "/123/stats?stream=true"
+                    )
+                )
+            ),
+            URI.create("http://localhost:80/1.41/containers/123/stats")
+        );
+        try (final StatsFrames frames = stats.frames()) {
+            MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+            MatcherAssert.assertThat(frames.pids(), Matchers.equalTo(1L));
+            MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+            MatcherAssert.assertThat(frames.pids(), Matchers.equalTo(2L));
+            MatcherAssert.assertThat(frames.next(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * RtStats can take one sample of the Container's stats.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void samplesStatsOnce() throws Exception {
+        final Stats stats = new RtStats(
+            Mockito.mock(Container.class),
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "{\"memory_stats\":{\"usage\":100,\"limit\":1000}}"
+                ),
+                new Condition(
+                    "Resource path must be /123/stats?stream=false&one-shot",
+                    req -> req.getRequestLine().getUri().endsWith(
+                        "/123/stats?stream=false&one-shot=true"
+                    )
+                )
+            ),
+            URI.create("http://localhost:80/1.41/containers/123/stats")
+        ).oneShot();
+        try (final StatsFrames frames = stats.frames()) {
+            MatcherAssert.assertThat(frames.next(), Matchers.is(true));
+            MatcherAssert.assertThat(
+                frames.memoryUsage(), Matchers.equalTo(100L)
+            );
+            MatcherAssert.assertThat(
+                frames.memoryLimit(), Matchers.equalTo(1000L)
+            );
+            MatcherAssert.assertThat(frames.next(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * RtStats throws UnexpectedResponseException if the response status
+     * is not 200 OK.
+     * @throws Exception If something goes wrong.
+     */
+    @Test(expected = UnexpectedResponseException.class)
+    public void unexpectedStatus() throws Exception {
+        new RtStats(
+            Mockito.mock(Container.class),
+            new AssertRequest(new Response(HttpStatus.SC_NOT_FOUND)),
+            URI.create("http://localhost:80/1.41/containers/123/stats")
+        ).frames();
+    }
+}
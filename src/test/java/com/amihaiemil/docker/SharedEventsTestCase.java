@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link SharedEvents}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (500 lines)
+ */
+public final class SharedEventsTestCase {
+
+    /**
+     * SharedEvents fans the events of one upstream connection out to
+     * the matching subscribers.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void fansOutToFilteredSubscribers() throws Exception {
+        final Upstream upstream = new Upstream();
+        final EventHub hub = new SharedEvents(upstream.events());
+        final EventHub.Subscription dies = hub.subscribe(
+            event -> "die".equals(event.getString("Action"))
+        );
+        final EventHub.Subscription all = hub.subscribe(event -> true);
+        upstream.push("start", "die", "start", "die", "die");
+        upstream.end();
+        MatcherAssert.assertThat(
+            dies.events().map(event -> event.getString("Action"))
+                .collect(Collectors.toList()),
+            Matchers.contains("die", "die", "die")
+        );
+        MatcherAssert.assertThat(
+            all.events().count(),
+            Matchers.is(5L)
+        );
+        MatcherAssert.assertThat(upstream.opened(), Matchers.is(1));
+        MatcherAssert.assertThat(
+            hub.subscriptions(), Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * A slow subscriber loses events, without slowing down the others,
+     * and it is reported as lagging.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void dropsEventsForLaggingSubscriber() throws Exception {
+        final Upstream upstream = new Upstream();
+        final EventHub hub = new SharedEvents(upstream.events());
+        final EventHub.Subscription slow = hub.subscribe(event -> true, 2);
+        final EventHub.Subscription fast = hub.subscribe(event -> true);
+        upstream.push("a", "b", "c", "d", "e");
+        while (fast.received() < 5) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        MatcherAssert.assertThat(slow.received(), Matchers.is(2L));
+        MatcherAssert.assertThat(slow.dropped(), Matchers.is(3L));
+        MatcherAssert.assertThat(slow.backlog(), Matchers.is(2));
+        MatcherAssert.assertThat(fast.dropped(), Matchers.is(0L));
+        MatcherAssert.assertThat(
+            hub.lagging(), Matchers.contains(slow)
+        );
+        hub.close();
+        MatcherAssert.assertThat(
+            slow.events().map(event -> event.getString("Action"))
+                .collect(Collectors.toList()),
+            Matchers.contains("a", "b")
+        );
+        MatcherAssert.assertThat(upstream.closed(), Matchers.is(true));
+    }
+
+    /**
+     * The upstream connection is closed after the last subscriber leaves
+     * and opened again for the next one.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void closesUpstreamAfterLastUnsubscribe() throws Exception {
+        final Upstream upstream = new Upstream();
+        final EventHub hub = new SharedEvents(upstream.events());
+        final EventHub.Subscription first = hub.subscribe(event -> true);
+        final EventHub.Subscription second = hub.subscribe(event -> true);
+        first.close();
+        MatcherAssert.assertThat(upstream.closed(), Matchers.is(false));
+        second.close();
+        MatcherAssert.assertThat(upstream.closed(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            first.poll(1, TimeUnit.SECONDS), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(first.events().count(), Matchers.is(0L));
+        hub.subscribe(event -> true).close();
+        MatcherAssert.assertThat(upstream.opened(), Matchers.is(2));
+    }
+
+    /**
+     * A filter which throws does not break the hub.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void survivesBrokenFilter() throws Exception {
+        final Upstream upstream = new Upstream();
+        final EventHub hub = new SharedEvents(upstream.events());
+        hub.subscribe(
+            event -> {
+                throw new IllegalArgumentException("broken filter");
+            }
+        );
+        final EventHub.Subscription good = hub.subscribe(event -> true);
+        upstream.push("start", "stop");
+        MatcherAssert.assertThat(
+            good.poll(5, TimeUnit.SECONDS).getString("Action"),
+            Matchers.equalTo("start")
+        );
+        MatcherAssert.assertThat(
+            good.poll(5, TimeUnit.SECONDS).getString("Action"),
+            Matchers.equalTo("stop")
+        );
+        hub.close();
+    }
+
+    /**
+     * Fake upstream events, pushed by the test.
+     */
+    private static final class Upstream {
+
+        /**
+         * End mark.
+         */
+        private static final JsonObject END = Json.createObjectBuilder()
+            .add("end", true).build();
+
+        /**
+         * Pushed events.
+         */
+        private final BlockingQueue<JsonObject> queue =
+            new LinkedBlockingQueue<>();
+
+        /**
+         * How many times was the upstream opened.
+         */
+        private final AtomicInteger opens = new AtomicInteger();
+
+        /**
+         * How many times was the upstream closed.
+         */
+        private final AtomicInteger closes = new AtomicInteger();
+
+        /**
+         * Events mock, monitoring this upstream.
+         * @return Events.
+         * @throws Exception If something goes wrong.
+         */
+        Events events() throws Exception {
+            final Events events = Mockito.mock(Events.class);
+            Mockito.when(events.monitor()).thenAnswer(
+                invocation -> this.stream()
+            );
+            return events;
+        }
+
+        /**
+         * Push events with the given actions.
+         * @param actions Actions.
+         */
+        void push(final String... actions) {
+            for (final String action : actions) {
+                this.queue.add(
+                    Json.createObjectBuilder().add("Action", action).build()
+                );
+            }
+        }
+
+        /**
+         * End the upstream, as if the connection was closed by Docker.
+         */
+        void end() {
+            this.queue.add(END);
+        }
+
+        /**
+         * How many times was it opened?
+         * @return Number of opens.
+         */
+        int opened() {
+            return this.opens.get();
+        }
+
+        /**
+         * Was the last opened Stream closed?
+         * @return True or false.
+         */
+        boolean closed() {
+            return this.closes.get() == this.opens.get();
+        }
+
+        /**
+         * Open a Stream of the pushed events.
+         * @return Stream.
+         */
+        private Stream<JsonObject> stream() {
+            this.opens.incrementAndGet();
+            final Iterator<JsonObject> events = new Iterator<JsonObject>() {
+                private JsonObject next;
+                @Override
+                public boolean hasNext() {
+                    if (this.next == null) {
+                        try {
+                            this.next = Upstream.this.queue.take();
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            this.next = END;
+                        }
+                    }
+                    return this.next != END;
+                }
+                @Override
+                public JsonObject next() {
+                    final JsonObject event = this.next;
+                    this.next = null;
+                    return event;
+                }
+            };
+            return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                    events, Spliterator.ORDERED
+                ),
+                false
+            ).onClose(
+                () -> {
+                    this.closes.incrementAndGet();
+                    this.queue.add(END);
+                }
+            );
+        }
+    }
+}
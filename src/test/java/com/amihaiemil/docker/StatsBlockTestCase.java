@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.util.Random;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StatsBlock} and {@link BitStream}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ */
+public final class StatsBlockTestCase {
+
+    /**
+     * BitStream reads back what was written, across the words.
+     */
+    @Test
+    public void readsWrittenBits() {
+        final BitStream bits = new BitStream(1);
+        bits.bit(true);
+        bits.write(0x5L, 3);
+        bits.write(-1L, 64);
+        bits.write(0x1234L, 13);
+        bits.bit(false);
+        MatcherAssert.assertThat(bits.size(), Matchers.is(82L));
+        final BitStream.Reader reader = bits.reader();
+        MatcherAssert.assertThat(reader.bit(), Matchers.is(true));
+        MatcherAssert.assertThat(reader.read(3), Matchers.is(0x5L));
+        MatcherAssert.assertThat(reader.read(64), Matchers.is(-1L));
+        MatcherAssert.assertThat(reader.read(13), Matchers.is(0x1234L));
+        MatcherAssert.assertThat(reader.bit(), Matchers.is(false));
+    }
+
+    /**
+     * StatsBlock decodes the same timestamps and values that were added,
+     * including jittery timestamps, counter resets and large jumps.
+     */
+    @Test
+    public void decodesAddedSamples() {
+        final Random random = new Random(7);
+        final long[][] rows = new long[500][3];
+        final long[] times = new long[rows.length];
+        long time = 1_700_000_000_000L;
+        for (int idx = 0; idx < rows.length; ++idx) {
+            time = time + 1000 + random.nextInt(3) - 1;
+            if (idx == 250) {
+                time = time + 3_600_000L;
+            }
+            times[idx] = time;
+            if (idx > 0) {
+                rows[idx][0] = rows[idx - 1][0] + random.nextInt(1 << 20);
+                rows[idx][1] = rows[idx - 1][1] + random.nextInt(5) - 2;
+            }
+            if (idx == 100) {
+                rows[idx][0] = 0;
+            }
+            rows[idx][2] = random.nextLong();
+        }
+        final StatsBlock block = new StatsBlock(times[0], rows[0]);
+        for (int idx = 1; idx < rows.length; ++idx) {
+            block.add(times[idx], rows[idx]);
+        }
+        block.seal();
+        MatcherAssert.assertThat(block.count(), Matchers.is(500));
+        MatcherAssert.assertThat(block.first(), Matchers.is(times[0]));
+        MatcherAssert.assertThat(block.last(), Matchers.is(times[499]));
+        final StatsBlock.Cursor cursor = block.cursor();
+        int idx = 0;
+        while (cursor.next()) {
+            MatcherAssert.assertThat(cursor.time(), Matchers.is(times[idx]));
+            for (int col = 0; col < 3; ++col) {
+                MatcherAssert.assertThat(
+                    cursor.value(col), Matchers.is(rows[idx][col])
+                );
+            }
+            idx = idx + 1;
+        }
+        MatcherAssert.assertThat(idx, Matchers.is(500));
+    }
+
+    /**
+     * StatsBlock needs one bit for a regular timestamp and one for a
+     * constant column: 1000 samples fit in less than 300 bytes.
+     */
+    @Test
+    public void compressesRegularSamples() {
+        final StatsBlock block = new StatsBlock(0, new long[] {42L});
+        for (int idx = 1; idx < 1000; ++idx) {
+            block.add(idx * 1000L, new long[] {42L});
+        }
+        block.seal();
+        MatcherAssert.assertThat(block.bytes(), Matchers.lessThan(300L));
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the stats decoding. Every operation replays the recorded
+ * stats stream from src/test/resources/stats.ndjson a number of times, as
+ * it would come from the socket, in chunks of 1500 bytes.<br><br>
+ * The "samples" secondary result is the number of decoded samples per
+ * second; run it with -prof gc to compare the allocations per sample.
+ * The baseline parses every sample into a JsonObject (with
+ * {@link JsonLines}) and reads the same fields from it.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsFramesBenchmark {
+
+    /**
+     * How many times the recording is replayed per operation.
+     */
+    private static final int REPLAYS = 100;
+
+    /**
+     * Bytes per read, like a typical TCP segment.
+     */
+    private static final int CHUNK = 1500;
+
+    /**
+     * Replayed stats stream.
+     */
+    private byte[] stream;
+
+    /**
+     * Prepare the replayed stream.
+     * @throws IOException If something goes wrong.
+     */
+    @Setup
+    public void setup() throws IOException {
+        final byte[] recorded = IOUtils.toByteArray(
+            StatsFramesBenchmark.class.getResourceAsStream("/stats.ndjson")
+        );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int idx = 0; idx < REPLAYS; ++idx) {
+            out.write(recorded);
+        }
+        this.stream = out.toByteArray();
+    }
+
+    /**
+     * Decode the samples with {@link JsonStatsFrames}.
+     * @param decoded Counter of decoded samples.
+     * @param hole Blackhole.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    public void decode(final Decoded decoded, final Blackhole hole)
+        throws IOException {
+        final StatsFrames stats = new JsonStatsFrames(this.socket());
+        while (stats.next()) {
+            hole.consume(stats.cpuPercent());
+            hole.consume(stats.memoryUsage());
+            hole.consume(stats.networkRx());
+            hole.consume(stats.blockWrite());
+            decoded.samples = decoded.samples + 1;
+        }
+    }
+
+    /**
+     * Parse every sample into a JsonObject and read the same fields.
+     * @param decoded Counter of decoded samples.
+     * @param hole Blackhole.
+     */
+    @Benchmark
+    public void jsonObjects(final Decoded decoded, final Blackhole hole) {
+        final JsonLines stats = new JsonLines(this.socket());
+        while (stats.hasNext()) {
+            final JsonObject sample = stats.next();
+            final JsonObject cpu = sample.getJsonObject("cpu_stats");
+            final JsonObject pre = sample.getJsonObject("precpu_stats");
+            final long delta = cpu.getJsonObject("cpu_usage")
+                .getJsonNumber("total_usage").longValue()
+                - pre.getJsonObject("cpu_usage")
+                    .getJsonNumber("total_usage").longValue();
+            final long system = cpu.getJsonNumber("system_cpu_usage")
+                .longValue() - StatsFramesBenchmark.number(
+                    pre, "system_cpu_usage"
+                );
+            hole.consume(
+                (double) delta / system * cpu.getInt("online_cpus") * 100.0
+            );
+            final JsonObject memory = sample.getJsonObject("memory_stats");
+            hole.consume(
+                memory.getJsonNumber("usage").longValue()
+                - memory.getJsonObject("stats")
+                    .getJsonNumber("inactive_file").longValue()
+            );
+            long received = 0;
+            for (final JsonValue network
+                : sample.getJsonObject("networks").values()) {
+                received = received + network.asJsonObject()
+                    .getJsonNumber("rx_bytes").longValue();
+            }
+            hole.consume(received);
+            long written = 0;
+            for (final JsonValue entry : sample.getJsonObject("blkio_stats")
+                .getJsonArray("io_service_bytes_recursive")) {
+                final JsonObject operation = entry.asJsonObject();
+                if ("write".equalsIgnoreCase(operation.getString("op"))) {
+                    written = written
+                        + operation.getJsonNumber("value").longValue();
+                }
+            }
+            hole.consume(written);
+            decoded.samples = decoded.samples + 1;
+        }
+    }
+
+    /**
+     * A number which may be missing, as in the first sample.
+     * @param json JsonObject.
+     * @param key Key of the number.
+     * @return The number or 0 if it is missing.
+     */
+    private static long number(final JsonObject json, final String key) {
+        long number = 0;
+        if (json.containsKey(key)) {
+            number = json.getJsonNumber(key).longValue();
+        }
+        return number;
+    }
+
+    /**
+     * The replayed stream, coming in chunks.
+     * @return InputStream.
+     */
+    private InputStream socket() {
+        return new ByteArrayInputStream(this.stream) {
+            @Override
+            public synchronized int read(
+                final byte[] bytes, final int off, final int len
+            ) {
+                return super.read(bytes, off, Math.min(len, CHUNK));
+            }
+        };
+    }
+
+    /**
+     * Counter of decoded samples, reported as samples per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Decoded {
+
+        /**
+         * Decoded samples.
+         * @checkstyle VisibilityModifier (2 lines)
+         */
+        public long samples;
+
+        /**
+         * Reset the counter before every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.samples = 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StatsRing}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ * @checkstyle MagicNumber (200 lines)
+ */
+public final class StatsRingTestCase {
+
+    /**
+     * StatsRing keeps only the latest samples, by their number.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void keepsLatestSamples() throws Exception {
+        final StatsRing ring = new StatsRing("123", 3);
+        for (int pids = 1; pids <= 5; ++pids) {
+            ring.add(StatsRingTestCase.frame(pids * 10, pids * 100, pids));
+        }
+        MatcherAssert.assertThat(ring.containerId(), Matchers.is("123"));
+        MatcherAssert.assertThat(ring.capacity(), Matchers.is(3));
+        MatcherAssert.assertThat(ring.size(), Matchers.is(3));
+        MatcherAssert.assertThat(ring.count(), Matchers.is(5L));
+        MatcherAssert.assertThat(ring.pids(2), Matchers.is(3L));
+        MatcherAssert.assertThat(ring.pids(4), Matchers.is(5L));
+    }
+
+    /**
+     * StatsRing computes the CPU percent between consecutive samples.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void computesCpuPercent() throws Exception {
+        final StatsRing ring = new StatsRing("123", 2);
+        ring.add(StatsRingTestCase.frame(100, 1000, 1));
+        MatcherAssert.assertThat(ring.cpuPercent(0), Matchers.is(0.0));
+        ring.add(StatsRingTestCase.frame(150, 1200, 1));
+        MatcherAssert.assertThat(
+            ring.cpuPercent(1), Matchers.closeTo(50.0, 0.0001)
+        );
+        ring.add(StatsRingTestCase.frame(250, 1400, 1));
+        MatcherAssert.assertThat(
+            ring.cpuPercent(2), Matchers.closeTo(100.0, 0.0001)
+        );
+        MatcherAssert.assertThat(ring.cpuPercent(1), Matchers.is(0.0));
+    }
+
+    /**
+     * StatsRing complains about samples which are not kept.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void complainsAboutOverwrittenSample() throws Exception {
+        final StatsRing ring = new StatsRing("123", 1);
+        ring.add(StatsRingTestCase.frame(1, 1, 1));
+        ring.add(StatsRingTestCase.frame(2, 2, 2));
+        try {
+            ring.memoryUsage(0);
+            MatcherAssert.assertThat("Sample 0 is kept", false);
+        } catch (final IndexOutOfBoundsException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.containsString("1 to 1")
+            );
+        }
+    }
+
+    /**
+     * StatsRing does not have samples which were not taken yet.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void complainsAboutFutureSample() {
+        new StatsRing("123", 4).read(0);
+    }
+
+    /**
+     * A decoded frame with the given CPU counters, on 2 CPUs.
+     * @param cpu Container CPU time.
+     * @param system Host CPU time.
+     * @param pids Number of processes.
+     * @return Frame, already moved to its first sample.
+     * @throws Exception If something goes wrong.
+     */
+    private static StatsFrames frame(
+        final long cpu, final long system, final long pids
+    ) throws Exception {
+        final StatsFrames frame = new JsonStatsFrames(
+            new ByteArrayInputStream(
+                String.format(
+                    "{\"cpu_stats\":{\"cpu_usage\":{\"total_usage\":%d},"
+                    + "\"system_cpu_usage\":%d,\"online_cpus\":2},"
+                    + "\"pids_stats\":{\"current\":%d}}",
+                    cpu, system, pids
+                ).getBytes(StandardCharsets.UTF_8)
+            )
+        );
+        frame.next();
+        return frame;
+    }
+}
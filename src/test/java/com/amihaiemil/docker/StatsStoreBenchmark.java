@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of {@link CompressedStats}. Every ingest operation adds one
+ * sample, taken every second, for each of 1000 synthetic containers;
+ * the "samples" secondary result is the number of ingested samples per
+ * second. The query reads one hour of CPU percent of a container.<br><br>
+ * The memory footprint is printed at the end of every iteration, as
+ * bytes per sample and bytes per point (10 points per sample); the
+ * uncompressed samples need 8 bytes per point.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsStoreBenchmark {
+
+    /**
+     * Number of containers.
+     */
+    private static final int CONTAINERS = 1000;
+
+    /**
+     * The store.
+     */
+    private StatsStore store;
+
+    /**
+     * Synthetic samples, per container.
+     */
+    private CompressedStatsTestCase.Sample[] samples;
+
+    /**
+     * Prepare the store with one hour of samples.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.store = new CompressedStats(Duration.ofHours(6));
+        this.samples = new CompressedStatsTestCase.Sample[CONTAINERS];
+        for (int idx = 0; idx < CONTAINERS; ++idx) {
+            this.samples[idx] = new CompressedStatsTestCase.Sample(
+                new Random(idx)
+            );
+        }
+        for (int second = 0; second < 3600; ++second) {
+            this.ingest(new Ingested());
+        }
+    }
+
+    /**
+     * Print the memory footprint.
+     */
+    @TearDown(Level.Iteration)
+    public void footprint() {
+        final double bytes = this.store.bytes();
+        final long stored = this.store.samples();
+        System.out.printf(
+            "%n%d samples in %d bytes: %.2f bytes/sample, %.2f bytes/point%n",
+            stored, (long) bytes, bytes / stored, bytes / (stored * 10)
+        );
+    }
+
+    /**
+     * Add one sample for each container.
+     * @param ingested Counter of ingested samples.
+     */
+    @Benchmark
+    public void ingest(final Ingested ingested) {
+        for (int idx = 0; idx < CONTAINERS; ++idx) {
+            this.samples[idx].next();
+            this.store.add(String.valueOf(idx), this.samples[idx]);
+        }
+        ingested.samples = ingested.samples + CONTAINERS;
+    }
+
+    /**
+     * Read one hour of CPU percent of a container.
+     * @param hole Blackhole.
+     */
+    @Benchmark
+    public void query(final Blackhole hole) {
+        final long now = this.samples[0].read() / 1_000_000L;
+        final StatsSeries cpu = this.store.range(
+            "0", StatsMetric.CPU_PERCENT,
+            Instant.ofEpochMilli(now - 3_600_000L), Instant.ofEpochMilli(now)
+        );
+        for (int idx = 0; idx < cpu.size(); ++idx) {
+            hole.consume(cpu.value(idx));
+        }
+    }
+
+    /**
+     * Counter of ingested samples, reported as samples per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Ingested {
+
+        /**
+         * Ingested samples.
+         * @checkstyle VisibilityModifier (2 lines)
+         */
+        public long samples;
+
+        /**
+         * Reset the counter before every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.samples = 0;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.AssertRequest;
+import com.amihaiemil.docker.mock.Response;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link StreamedResources}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class StreamedResourcesTestCase {
+
+    /**
+     * StreamedResources can iterate over the array, element by element,
+     * and releases the connection once the array ends.
+     */
+    @Test
+    public void iteratesAndReleasesAtTheEnd() {
+        final HttpGet request = Mockito.spy(
+            new HttpGet("http://localhost/containers/json")
+        );
+        final Iterator<JsonObject> resources = new StreamedResources<>(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "[{\"Id\": \"abc1\"}, {\"Id\":\"cde2\"}]"
+                )
+            ),
+            request,
+            json -> json
+        );
+        MatcherAssert.assertThat(
+            resources.next().getString("Id"),
+            Matchers.equalTo("abc1")
+        );
+        Mockito.verify(request, Mockito.never()).releaseConnection();
+        MatcherAssert.assertThat(resources.hasNext(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            resources.next().getString("Id"),
+            Matchers.equalTo("cde2")
+        );
+        MatcherAssert.assertThat(resources.hasNext(), Matchers.is(false));
+        Mockito.verify(request, Mockito.times(1)).releaseConnection();
+    }
+
+    /**
+     * StreamedResources can handle an empty array.
+     */
+    @Test
+    public void iteratesEmptyArray() {
+        final Iterator<JsonObject> resources = new StreamedResources<>(
+            new AssertRequest(new Response(HttpStatus.SC_OK, "[]")),
+            new HttpGet("http://localhost/images/json"),
+            json -> json
+        );
+        MatcherAssert.assertThat(resources.hasNext(), Matchers.is(false));
+    }
+
+    /**
+     * StreamedResources throws NoSuchElementException if next() is called
+     * after the end of the array.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void complainsWhenNoMoreElements() {
+        new StreamedResources<>(
+            new AssertRequest(new Response(HttpStatus.SC_OK, "[]")),
+            new HttpGet("http://localhost/images/json"),
+            json -> json
+        ).next();
+    }
+
+    /**
+     * Closing the Stream releases the connection, even if the array
+     * was not fully consumed.
+     */
+    @Test
+    public void releasesConnectionOnClose() {
+        final HttpGet request = Mockito.spy(
+            new HttpGet("http://localhost/containers/json")
+        );
+        final List<JsonObject> first;
+        try (final Stream<JsonObject> resources = new StreamedResources<>(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "[{\"Id\": \"abc1\"}, {\"Id\":\"cde2\"}, {\"Id\":\"efg3\"}]"
+                )
+            ),
+            request,
+            json -> json
+        ).stream()) {
+            first = resources.limit(1).collect(Collectors.toList());
+        }
+        MatcherAssert.assertThat(first, Matchers.iterableWithSize(1));
+        Mockito.verify(request, Mockito.times(1)).releaseConnection();
+    }
+
+    /**
+     * StreamedResources throws UnexpectedResponseException if the status
+     * is not 200 OK and releases the connection.
+     */
+    @Test
+    public void unexpectedStatus() {
+        final HttpGet request = Mockito.spy(
+            new HttpGet("http://localhost/containers/json")
+        );
+        try {
+            new StreamedResources<>(
+                new AssertRequest(
+                    new Response(HttpStatus.SC_INTERNAL_SERVER_ERROR)
+                ),
+                request,
+                json -> json
+            );
+            MatcherAssert.assertThat("Exception expected", false);
+        } catch (final UnexpectedResponseException ex) {
+            MatcherAssert.assertThat(
+                ex.actualStatus(),
+                Matchers.equalTo(HttpStatus.SC_INTERNAL_SERVER_ERROR)
+            );
+        }
+        Mockito.verify(request, Mockito.times(1)).releaseConnection();
+    }
+
+    /**
+     * StreamedResources releases the connection if an element of the array
+     * cannot be parsed.
+     */
+    @Test
+    public void releasesConnectionOnMalformedElement() {
+        final HttpGet request = Mockito.spy(
+            new HttpGet("http://localhost/containers/json")
+        );
+        final Iterator<JsonObject> resources = new StreamedResources<>(
+            new AssertRequest(
+                new Response(
+                    HttpStatus.SC_OK,
+                    "[{\"Id\": \"abc1\"}, {\"Id\": }]"
+                )
+            ),
+            request,
+            json -> json
+        );
+        MatcherAssert.assertThat(resources.hasNext(), Matchers.is(true));
+        resources.next();
+        try {
+            resources.hasNext();
+            MatcherAssert.assertThat("Exception expected", false);
+        } catch (final JsonException ex) {
+            Mockito.verify(request, Mockito.times(1)).releaseConnection();
+        }
+        MatcherAssert.assertThat(resources.hasNext(), Matchers.is(false));
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StreamingRequests}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+public final class StreamingRequestsTestCase {
+
+    /**
+     * Base URI of the requests.
+     */
+    private static final String BASE = "unix://localhost:80/v1.44";
+
+    /**
+     * Events, followed logs, wait, streamed stats and pulls are streaming.
+     */
+    @Test
+    public void recognizesStreamingRequests() {
+        final StreamingRequests streaming = new StreamingRequests();
+        MatcherAssert.assertThat(
+            streaming.test(new HttpGet(BASE + "/events?since=1")),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(
+                new HttpGet(BASE + "/containers/abc/logs?stdout=1&follow=true")
+            ),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(new HttpPost(BASE + "/containers/abc/wait")),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(new HttpGet(BASE + "/containers/abc/stats")),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(
+                new HttpPost(BASE + "/images/create?fromImage=ubuntu")
+            ),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(new HttpPost(BASE + "/images/library/db/push")),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * Inspect, start, logs without follow and one-shot stats are short.
+     */
+    @Test
+    public void recognizesShortRequests() {
+        final StreamingRequests streaming = new StreamingRequests();
+        MatcherAssert.assertThat(
+            streaming.test(new HttpGet(BASE + "/containers/abc/json")),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(new HttpPost(BASE + "/containers/abc/start")),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(new HttpGet(BASE + "/containers/abc/logs?stdout=1")),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(
+                new HttpGet(BASE + "/containers/abc/stats?stream=false")
+            ),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            streaming.test(new HttpGet(BASE + "/images/json")),
+            Matchers.is(false)
+        );
+    }
+}
@@ -29,6 +29,12 @@ import com.amihaiemil.docker.mock.AssertRequest;
 import com.amihaiemil.docker.mock.Condition;
 import com.amihaiemil.docker.mock.Response;
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.http.HttpStatus;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -104,6 +110,48 @@ public final class UnixDockerTestCase {
         );
     }
 
+    /**
+     * UnixDocker returns the same EventHub every time.
+     */
+    @Test
+    public void returnsSameEventHub() {
+        final Docker docker = new UnixDocker(
+            new File("/var/run/docker.sock")
+        );
+        MatcherAssert.assertThat(
+            docker.eventHub(),
+            Matchers.sameInstance(docker.eventHub())
+        );
+    }
+
+    /**
+     * UnixDocker creates a single EventHub, even if many threads ask for it
+     * at the same time.
+     * @throws Exception If something goes wrong.
+     * @checkstyle MagicNumber (20 lines)
+     */
+    @Test
+    public void createsOneEventHubConcurrently() throws Exception {
+        final Docker docker = new UnixDocker(
+            new File("/var/run/docker.sock")
+        );
+        final ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<EventHub>> hubs = threads.invokeAll(
+                Collections.nCopies(
+                    32, (Callable<EventHub>) docker::eventHub
+                )
+            );
+            for (final Future<EventHub> hub : hubs) {
+                MatcherAssert.assertThat(
+                    hub.get(), Matchers.sameInstance(docker.eventHub())
+                );
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
     /**
      * UnixDocker can return the Swarm.
      */
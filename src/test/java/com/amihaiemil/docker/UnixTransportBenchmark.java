@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2018-2020, Mihai Emil Andronache
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1)Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2)Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 3)Neither the name of docker-java-api nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.amihaiemil.docker;
+
+import com.amihaiemil.docker.mock.Response;
+import com.amihaiemil.docker.mock.UnixServer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the unix socket transports, against the mock
+ * {@link UnixServer}: jnr-unixsocket ({@link JnrTransport}) versus the
+ * transport of the running JVM ({@link UnixTransport}), under the blocking
+ * and the non-blocking engine. {@link #call()} measures the latency of a
+ * call over a warm, pooled connection. {@link #firstCall()} measures a
+ * short-lived job: a new JVM which makes one call and exits, so it
+ * includes the class loading and jnr's native library loading.
+ * <br><br>
+ * The "jdk" transport is the JDK's own unix domain sockets only on Java 16
+ * or newer, where the benchmarks profile puts the Java 16 classes of the
+ * multi-release jar first on the classpath; on older JVMs both transports
+ * are jnr.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.15
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class UnixTransportBenchmark {
+
+    /**
+     * The transport: "jnr" or "jdk".
+     */
+    @Param({"jnr", "jdk"})
+    private String transport;
+
+    /**
+     * The engine: "blocking" or "non-blocking".
+     */
+    @Param({"blocking", "non-blocking"})
+    private String engine;
+
+    /**
+     * The mock Docker engine.
+     */
+    private UnixServer server;
+
+    /**
+     * HttpClient under test.
+     */
+    private HttpClient client;
+
+    /**
+     * Start the mock Docker engine and open the client.
+     * @throws IOException If something goes wrong.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        this.server = new UnixServer(
+            new Response(HttpStatus.SC_OK, "{\"ApiVersion\":\"1.44\"}")
+        );
+        this.client = UnixTransportBenchmark.client(
+            this.transport, this.engine, this.server.socketFile().toFile()
+        );
+    }
+
+    /**
+     * Stop the mock Docker engine.
+     * @throws IOException If something goes wrong.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        this.server.close();
+    }
+
+    /**
+     * One call over a warm connection.
+     * @return Response body.
+     * @throws IOException If something goes wrong.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public String call() throws IOException {
+        return UnixTransportBenchmark.version(this.client);
+    }
+
+    /**
+     * A new JVM which makes one call and exits.
+     * @return Exit code of the JVM.
+     * @throws Exception If something goes wrong.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public int firstCall() throws Exception {
+        final Process process = new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java")
+                .toString(),
+            "-cp", System.getProperty("java.class.path"),
+            FirstCall.class.getName(),
+            this.transport, this.engine,
+            this.server.socketFile().toString()
+        ).inheritIO().start();
+        final int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("First call failed: " + exit);
+        }
+        return exit;
+    }
+
+    /**
+     * HttpClient with the given transport and engine.
+     * @param transport The transport: "jnr" or "jdk".
+     * @param engine The engine: "blocking" or "non-blocking".
+     * @param socket Unix socket file.
+     * @return HttpClient.
+     */
+    private static HttpClient client(
+        final String transport, final String engine, final File socket
+    ) {
+        final Transport chosen;
+        if ("jnr".equals(transport)) {
+            chosen = new JnrTransport(socket);
+        } else {
+            chosen = new UnixTransport(socket);
+        }
+        final HttpClient client;
+        if ("blocking".equals(engine)) {
+            client = new PooledHttpClient(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("unix", new UnixSocketFactory(chosen))
+                    .build(),
+                new ClientConfig()
+            );
+        } else {
+            client = new NioHttpClient(
+                chosen, 1, 10, Duration.ZERO, Duration.ZERO
+            );
+        }
+        return client;
+    }
+
+    /**
+     * Call GET /version.
+     * @param client HttpClient.
+     * @return Response body.
+     * @throws IOException If something goes wrong.
+     */
+    private static String version(final HttpClient client)
+        throws IOException {
+        return client.execute(
+            new HttpGet("unix://localhost:80/v1.44/version"),
+            response -> EntityUtils.toString(response.getEntity())
+        );
+    }
+
+    /**
+     * Main class of the short-lived JVM.
+     */
+    public static final class FirstCall {
+
+        /**
+         * Hidden ctor.
+         */
+        private FirstCall() {
+        }
+
+        /**
+         * Make one call.
+         * @param args Transport, engine and unix socket file.
+         * @throws IOException If something goes wrong.
+         */
+        public static void main(final String... args) throws IOException {
+            UnixTransportBenchmark.version(
+                UnixTransportBenchmark.client(
+                    args[0], args[1], new File(args[2])
+                )
+            );
+        }
+    }
+}
@@ -27,8 +27,10 @@ package com.amihaiemil.docker.mock;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
@@ -41,7 +43,9 @@ import jnr.unixsocket.UnixSocketAddress;
 import jnr.unixsocket.UnixSocketChannel;
 
 /**
- * A simple UNIX socket server.
+ * A simple UNIX socket server. It answers every request it receives with
+ * the same Response, over keep-alive connections. The bodies of the
+ * requests are not read, so it is only meant for requests without body.
  * @author George Aristy (george.aristy@gmail.com)
  * @version $Id$
  * @since 0.0.1
@@ -73,13 +77,14 @@ public final class UnixServer implements Closeable {
      */
     public UnixServer(final Response response) throws IOException {
         this.socketFile = Files.createTempFile("", "");
+        Files.delete(this.socketFile);
         this.channel = UnixServerSocketChannel.open();
         this.channel.configureBlocking(false);
         this.channel.socket().bind(
             new UnixSocketAddress(this.socketFile.toFile())
         );
         this.selector = NativeSelectorProvider.getInstance().openSelector();
-        this.channel.register(this.selector, SelectionKey.OP_READ);
+        this.channel.register(this.selector, SelectionKey.OP_ACCEPT);
         this.threadPool = Executors.newSingleThreadExecutor();
         this.threadPool.submit(new Service(this.selector, response));
     }
@@ -125,6 +130,7 @@ public final class UnixServer implements Closeable {
   
         @Override
         public Void call() throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(8192);
             while (this.selector.isOpen()) {
                 this.selector.select();
                 final Iterator<SelectionKey> iter = this.selector.selectedKeys()
@@ -132,13 +138,60 @@ public final class UnixServer implements Closeable {
                 while (iter.hasNext()) {
                     final SelectionKey key = iter.next();
                     iter.remove();
-                    final UnixSocketChannel channel =
-                        (UnixSocketChannel) key.channel();
-                    channel.configureBlocking(false);
-                    this.response.printTo(channel);
+                    try {
+                        if (key.isAcceptable()) {
+                            this.accept(
+                                (UnixServerSocketChannel) key.channel()
+                            );
+                        } else if (key.isReadable()) {
+                            this.read(key, buffer);
+                        }
+                    } catch (final IOException ex) {
+                        key.channel().close();
+                    }
                 }
             }
             return null;
         }
+
+        /**
+         * Accept a new connection.
+         * @param server Server channel.
+         * @throws IOException If an I/O error occurs.
+         */
+        private void accept(final UnixServerSocketChannel server)
+            throws IOException {
+            final UnixSocketChannel client = server.accept();
+            if (client != null) {
+                client.configureBlocking(false);
+                client.register(
+                    this.selector, SelectionKey.OP_READ, new StringBuilder()
+                );
+            }
+        }
+
+        /**
+         * Read from a connection and answer each complete request head.
+         * @param key Selection key of the connection.
+         * @param buffer Read buffer.
+         * @throws IOException If an I/O error occurs.
+         */
+        private void read(final SelectionKey key, final ByteBuffer buffer)
+            throws IOException {
+            final UnixSocketChannel client = (UnixSocketChannel) key.channel();
+            final StringBuilder received = (StringBuilder) key.attachment();
+            buffer.clear();
+            if (client.read(buffer) < 0) {
+                client.close();
+            } else {
+                buffer.flip();
+                received.append(StandardCharsets.ISO_8859_1.decode(buffer));
+                for (int end = received.indexOf("\r\n\r\n"); end >= 0;
+                    end = received.indexOf("\r\n\r\n")) {
+                    received.delete(0, end + 4);
+                    this.response.printTo(client);
+                }
+            }
+        }
     }
 }